@@ -1,6 +1,9 @@
 package sn.isi.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 /**
  * Properties specific to Microserviceproduction.
@@ -9,4 +12,555 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final Production production = new Production();
+
+    private final Ingestion ingestion = new Ingestion();
+
+    private final Export export = new Export();
+
+    private final HotTier hotTier = new HotTier();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final Journal journal = new Journal();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final RequestDecompression requestDecompression = new RequestDecompression();
+
+    private final LineProtocol lineProtocol = new LineProtocol();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Feed feed = new Feed();
+
+    public Production getProduction() {
+        return production;
+    }
+
+    public Ingestion getIngestion() {
+        return ingestion;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public HotTier getHotTier() {
+        return hotTier;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public RequestDecompression getRequestDecompression() {
+        return requestDecompression;
+    }
+
+    public LineProtocol getLineProtocol() {
+        return lineProtocol;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public Feed getFeed() {
+        return feed;
+    }
+
+    public static class Production {
+
+        /**
+         * Time zone of the farm, used as the default for time-bucketed aggregations and for the production rollups.
+         */
+        private String zoneId = "UTC";
+
+        /**
+         * Number of rows per day and per month of the production rollups.
+         * Changing it, or the zone, requires rebuilding the rollups.
+         */
+        private int rollupShards = 8;
+
+        public String getZoneId() {
+            return zoneId;
+        }
+
+        public void setZoneId(String zoneId) {
+            this.zoneId = zoneId;
+        }
+
+        public int getRollupShards() {
+            return rollupShards;
+        }
+
+        public void setRollupShards(int rollupShards) {
+            this.rollupShards = rollupShards;
+        }
+    }
+
+    public static class Ingestion {
+
+        /**
+         * Number of productions inserted per transaction by the bulk ingestion.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Directory keeping the uploaded CSV files until their import job is finished.
+         */
+        private String importDirectory = "imports";
+
+        /**
+         * Largest CSV file accepted for import.
+         */
+        private DataSize maxImportSize = DataSize.ofMegabytes(500);
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public String getImportDirectory() {
+            return importDirectory;
+        }
+
+        public void setImportDirectory(String importDirectory) {
+            this.importDirectory = importDirectory;
+        }
+
+        public DataSize getMaxImportSize() {
+            return maxImportSize;
+        }
+
+        public void setMaxImportSize(DataSize maxImportSize) {
+            this.maxImportSize = maxImportSize;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Number of rows fetched per round trip by the streaming exports.
+         */
+        private int fetchSize = 1000;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class HotTier {
+
+        /**
+         * Whether the recent productions are also held in memory, to answer range and aggregate queries.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of days of productions held in memory.
+         */
+        private int days = 90;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getDays() {
+            return days;
+        }
+
+        public void setDays(int days) {
+            this.days = days;
+        }
+    }
+
+    public static class WriteBehind {
+
+        /**
+         * Whether new productions can be buffered and inserted in batches, with the {@code ack} parameter.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Number of productions the buffer holds before rejecting writes; a power of two.
+         */
+        private int capacity = 8192;
+
+        /**
+         * Number of productions inserted per transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Maximum time, in milliseconds, a production waits in the buffer when fewer than a batch are buffered.
+         */
+        private int flushIntervalMs = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getFlushIntervalMs() {
+            return flushIntervalMs;
+        }
+
+        public void setFlushIntervalMs(int flushIntervalMs) {
+            this.flushIntervalMs = flushIntervalMs;
+        }
+    }
+
+    public static class Journal {
+
+        /**
+         * Whether new productions can be appended to a local journal and inserted later, with {@code ack=journaled}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the journal segments, on a local disk.
+         */
+        private String directory = "journal";
+
+        /**
+         * Size in bytes of a journal segment.
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * Number of journaled productions inserted per transaction.
+         */
+        private int replayBatchSize = 500;
+
+        /**
+         * Delay, in milliseconds, between the end of a replay and the next one.
+         */
+        private int replayIntervalMs = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getReplayBatchSize() {
+            return replayBatchSize;
+        }
+
+        public void setReplayBatchSize(int replayBatchSize) {
+            this.replayBatchSize = replayBatchSize;
+        }
+
+        public int getReplayIntervalMs() {
+            return replayIntervalMs;
+        }
+
+        public void setReplayIntervalMs(int replayIntervalMs) {
+            this.replayIntervalMs = replayIntervalMs;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Number of hours an Idempotency-Key is kept, and its response replayed to retries.
+         */
+        private int ttlHours = 24;
+
+        /**
+         * Number of minutes after which a key reserved by a request which didn't end can be reserved again, by a
+         * retry. Longer than any request, including the ones whose response waits for a batch to be committed.
+         */
+        private int reservationTimeoutMinutes = 10;
+
+        public int getTtlHours() {
+            return ttlHours;
+        }
+
+        public void setTtlHours(int ttlHours) {
+            this.ttlHours = ttlHours;
+        }
+
+        public int getReservationTimeoutMinutes() {
+            return reservationTimeoutMinutes;
+        }
+
+        public void setReservationTimeoutMinutes(int reservationTimeoutMinutes) {
+            this.reservationTimeoutMinutes = reservationTimeoutMinutes;
+        }
+    }
+
+    public static class RequestDecompression {
+
+        /**
+         * Maximum size in bytes of a decompressed request body, against compression bombs.
+         */
+        private long maxDecompressedBytes = 1024L * 1024 * 1024;
+
+        public long getMaxDecompressedBytes() {
+            return maxDecompressedBytes;
+        }
+
+        public void setMaxDecompressedBytes(long maxDecompressedBytes) {
+            this.maxDecompressedBytes = maxDecompressedBytes;
+        }
+    }
+
+    public static class LineProtocol {
+
+        /**
+         * Whether to listen to the TCP line protocol of the milking controllers, which requires the write-behind buffer.
+         */
+        private boolean enabled = false;
+
+        private String bindAddress = "0.0.0.0";
+
+        /**
+         * Port of the listener, 0 for any free port.
+         */
+        private int port = 8765;
+
+        /**
+         * Pre-shared keys by device id; when empty, connections needn't authenticate.
+         */
+        private Map<String, String> devices = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getBindAddress() {
+            return bindAddress;
+        }
+
+        public void setBindAddress(String bindAddress) {
+            this.bindAddress = bindAddress;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public Map<String, String> getDevices() {
+            return devices;
+        }
+
+        public void setDevices(Map<String, String> devices) {
+            this.devices = devices;
+        }
+    }
+
+    public static class Outbox {
+
+        /**
+         * Whether to publish the entity change events of the outbox; they are kept in the outbox meanwhile.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Publisher of the events: {@code loopback} to keep them in memory and publish them to the application
+         * context, or {@code kafka-rest} to send them to a Kafka REST Proxy.
+         */
+        private String publisher = "loopback";
+
+        /**
+         * Number of events published at once.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay, in milliseconds, between the end of a dispatch and the next one.
+         */
+        private int dispatchIntervalMs = 500;
+
+        /**
+         * Number of published events kept in memory by the {@code loopback} publisher.
+         */
+        private int loopbackCapacity = 1000;
+
+        private final KafkaRest kafkaRest = new KafkaRest();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPublisher() {
+            return publisher;
+        }
+
+        public void setPublisher(String publisher) {
+            this.publisher = publisher;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getDispatchIntervalMs() {
+            return dispatchIntervalMs;
+        }
+
+        public void setDispatchIntervalMs(int dispatchIntervalMs) {
+            this.dispatchIntervalMs = dispatchIntervalMs;
+        }
+
+        public int getLoopbackCapacity() {
+            return loopbackCapacity;
+        }
+
+        public void setLoopbackCapacity(int loopbackCapacity) {
+            this.loopbackCapacity = loopbackCapacity;
+        }
+
+        public KafkaRest getKafkaRest() {
+            return kafkaRest;
+        }
+
+        public static class KafkaRest {
+
+            /**
+             * Base URL of the Kafka REST Proxy.
+             */
+            private String url = "http://localhost:8082";
+
+            /**
+             * Topic of the events, keyed by entity so that the events of an entity stay in order.
+             */
+            private String topic = "microserviceproduction.changes";
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getTopic() {
+                return topic;
+            }
+
+            public void setTopic(String topic) {
+                this.topic = topic;
+            }
+        }
+    }
+
+    public static class Feed {
+
+        /**
+         * Delay, in milliseconds, between two reads of the productions committed for the live feed.
+         */
+        private int pollIntervalMs = 1000;
+
+        /**
+         * Maximum number of productions read at once.
+         */
+        private int pageSize = 500;
+
+        /**
+         * Number of productions buffered for a subscriber which doesn't read them fast enough.
+         */
+        private int bufferSize = 256;
+
+        public int getPollIntervalMs() {
+            return pollIntervalMs;
+        }
+
+        public void setPollIntervalMs(int pollIntervalMs) {
+            this.pollIntervalMs = pollIntervalMs;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class CacheConfiguration {
             createCache(cm, sn.isi.domain.FicheMedical.class.getName());
             createCache(cm, sn.isi.domain.ProductionLait.class.getName());
             createCache(cm, sn.isi.domain.Traitement.class.getName());
+            createCache(cm, sn.isi.service.IdempotencyService.RESPONSES_CACHE);
             // jhipster-needle-ehcache-add-entry
         };
     }
@@ -6,6 +6,9 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import sn.isi.repository.OutboxEventListener;
+import sn.isi.repository.SyncVersionListener;
 
 /**
  * A ProductionLait.
@@ -13,15 +16,23 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 @Entity
 @Table(name = "production_lait")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
-public class ProductionLait implements Serializable {
+@DynamicUpdate
+@EntityListeners({ SyncVersionListener.class, OutboxEventListener.class })
+public class ProductionLait implements Serializable, SyncVersioned {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Ids are allocated by blocks of 50 from a sequence (a single-row table on MySQL), so that inserts can be sent
+     * in JDBC batches, which {@code IDENTITY} columns prevent.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productionLaitSequenceGenerator")
+    @SequenceGenerator(name = "productionLaitSequenceGenerator", sequenceName = "production_lait_sequence", allocationSize = 50)
     private Long id;
 
     @NotNull
+    @Min(value = 0)
     @Column(name = "quantite", nullable = false)
     private Integer quantite;
 
@@ -29,6 +40,19 @@ public class ProductionLait implements Serializable {
     @Column(name = "dateproduction", nullable = false)
     private Instant dateproduction;
 
+    /**
+     * Set from the transaction writing the entity, whatever the client sends: it is only compared by the sync upload.
+     */
+    @Column(name = "sync_version", nullable = false)
+    private Long syncVersion;
+
+    /**
+     * Incremented by each update, which only succeeds while the row is still at the version it was read at.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -69,6 +93,34 @@ public class ProductionLait implements Serializable {
         this.dateproduction = dateproduction;
     }
 
+    @Override
+    public Long getSyncVersion() {
+        return this.syncVersion;
+    }
+
+    public ProductionLait syncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+        return this;
+    }
+
+    @Override
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public ProductionLait version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -95,6 +147,8 @@ public class ProductionLait implements Serializable {
             "id=" + getId() +
             ", quantite=" + getQuantite() +
             ", dateproduction='" + getDateproduction() + "'" +
+            ", syncVersion=" + getSyncVersion() +
+            ", version=" + getVersion() +
             "}";
     }
 }
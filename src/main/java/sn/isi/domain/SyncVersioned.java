@@ -0,0 +1,15 @@
+package sn.isi.domain;
+
+/**
+ * An entity synchronized by the delta sync, which keeps the version of its last change.
+ */
+public interface SyncVersioned {
+    Long getId();
+
+    /**
+     * @return the version of the transaction which last changed the entity.
+     */
+    Long getSyncVersion();
+
+    void setSyncVersion(Long syncVersion);
+}
@@ -6,6 +6,9 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import sn.isi.repository.OutboxEventListener;
+import sn.isi.repository.SyncVersionListener;
 
 /**
  * A Traitement.
@@ -13,7 +16,9 @@ import org.hibernate.annotations.CacheConcurrencyStrategy;
 @Entity
 @Table(name = "traitement")
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
-public class Traitement implements Serializable {
+@DynamicUpdate
+@EntityListeners({ SyncVersionListener.class, OutboxEventListener.class })
+public class Traitement implements Serializable, SyncVersioned {
 
     private static final long serialVersionUID = 1L;
 
@@ -29,6 +34,19 @@ public class Traitement implements Serializable {
     @Column(name = "datetraitement", nullable = false)
     private Instant datetraitement;
 
+    /**
+     * Set from the transaction writing the entity, whatever the client sends: it is only compared by the sync upload.
+     */
+    @Column(name = "sync_version", nullable = false)
+    private Long syncVersion;
+
+    /**
+     * Incremented by each update, which only succeeds while the row is still at the version it was read at.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // jhipster-needle-entity-add-field - JHipster will add fields here
     public Long getId() {
         return id;
@@ -69,6 +87,34 @@ public class Traitement implements Serializable {
         this.datetraitement = datetraitement;
     }
 
+    @Override
+    public Long getSyncVersion() {
+        return this.syncVersion;
+    }
+
+    public Traitement syncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+        return this;
+    }
+
+    @Override
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Traitement version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     // jhipster-needle-entity-add-getters-setters - JHipster will add getters and setters here
 
     @Override
@@ -95,6 +141,8 @@ public class Traitement implements Serializable {
             "id=" + getId() +
             ", traitement='" + getTraitement() + "'" +
             ", datetraitement='" + getDatetraitement() + "'" +
+            ", syncVersion=" + getSyncVersion() +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,45 @@
+package sn.isi.repository;
+
+import javax.persistence.Table;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import sn.isi.domain.SyncVersioned;
+
+/**
+ * SQL repository for the last modification of each table of synchronized entities.
+ * <p>
+ * The modification of a table is the highest sync version of its rows and tombstones, up to the committed version.
+ * It is read with a single query, which seeks the indexes on {@code sync_version} and doesn't wait for the writing
+ * transactions, and it only changes when the rows of the table do. A transaction committed after it is read either
+ * has a higher version, or is below a pending version which keeps the tag from moving until it is committed too.
+ */
+@Repository
+public class EntityModificationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EntityModificationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param entityClass the class of the entities of a table.
+     * @return the version of the last committed transaction which wrote rows of the table.
+     */
+    public long findModification(Class<? extends SyncVersioned> entityClass) {
+        Long modification = jdbcTemplate.queryForObject(
+            "select max(m.sync_version) from (" +
+            "select max(e.sync_version) sync_version from " +
+            entityClass.getAnnotation(Table.class).name() +
+            " e where e.sync_version <= (" +
+            SyncRepository.COMMITTED_VERSION_QUERY +
+            ") union all " +
+            "select max(t.sync_version) sync_version from sync_tombstone t where t.entity_type = ? and t.sync_version <= (" +
+            SyncRepository.COMMITTED_VERSION_QUERY +
+            ")) m",
+            Long.class,
+            SyncVersionListener.entityType(entityClass)
+        );
+        return modification != null ? modification : 1;
+    }
+}
@@ -0,0 +1,47 @@
+package sn.isi.repository;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository loading entities by lists of ids with Hibernate's multi-load.
+ * <p>
+ * Entities already in the persistence context or in the second-level cache are taken from there, and all the others
+ * are read with a single {@code WHERE id IN (...)} query, instead of one query per id.
+ */
+@Repository
+public class EntityMultiLoadRepository {
+
+    private final EntityManager entityManager;
+
+    public EntityMultiLoadRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Load entities by ids, in the current transaction.
+     *
+     * @param entityClass the class of the entities.
+     * @param ids the ids of the entities.
+     * @param <T> the type of the entities.
+     * @return the entities which exist, in the order of the ids.
+     */
+    public <T> List<T> findAllById(Class<T> entityClass, List<Long> ids) {
+        return entityManager
+            .unwrap(Session.class)
+            .byMultipleIds(entityClass)
+            .with(CacheMode.NORMAL)
+            .enableSessionCheck(true)
+            .enableOrderedReturn(true)
+            .withBatchSize(ids.size())
+            .multiLoad(ids)
+            .stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,12 @@
 package sn.isi.repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.isi.domain.FicheMedical;
 
@@ -9,4 +15,24 @@ import sn.isi.domain.FicheMedical;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface FicheMedicalRepository extends JpaRepository<FicheMedical, Long> {}
+public interface FicheMedicalRepository extends JpaRepository<FicheMedical, Long> {
+    Page<FicheMedical> findAllByDateconsultationGreaterThanEqualAndDateconsultationLessThan(Instant from, Instant to, Pageable pageable);
+
+    @Query("select f from FicheMedical f where f.dateconsultation >= :from and f.dateconsultation < :to order by f.dateconsultation, f.id")
+    List<FicheMedical> findAllOrderByDateconsultationAndId(@Param("from") Instant from, @Param("to") Instant to, Pageable pageable);
+
+    @Query(
+        "select f from FicheMedical f where f.dateconsultation < :to" +
+        " and (f.dateconsultation > :dateconsultation or (f.dateconsultation = :dateconsultation and f.id > :id))" +
+        " order by f.dateconsultation, f.id"
+    )
+    List<FicheMedical> findAllAfterOrderByDateconsultationAndId(
+        @Param("dateconsultation") Instant dateconsultation,
+        @Param("id") Long id,
+        @Param("to") Instant to,
+        Pageable pageable
+    );
+
+    @Query("select f.version from FicheMedical f where f.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+}
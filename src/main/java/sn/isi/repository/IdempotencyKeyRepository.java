@@ -0,0 +1,173 @@
+package sn.isi.repository;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * SQL repository for the Idempotency-Keys of create requests.
+ * <p>
+ * Reserving and releasing a key run in their own transaction, so that a concurrent retry sees the reservation at
+ * once and a failed request doesn't keep its key. The creation date of a key without response is the date of its
+ * reservation.
+ */
+@Repository
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert a key without response.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     * @param now the creation date.
+     * @return false if the key already exists.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean reserve(String scope, String key, Instant now) {
+        try {
+            jdbcTemplate.update(
+                "insert into idempotency_key (jhi_scope, idempotency_key, created_date) values (?, ?, ?)",
+                scope,
+                key,
+                Timestamp.from(now)
+            );
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reserve again a key without response, whose reservation is older than a date.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     * @param reservedBefore the date before which the reservation is abandoned.
+     * @param now the new reservation date.
+     * @return false if the key has a response, or a more recent reservation.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean reserveAgain(String scope, String key, Instant reservedBefore, Instant now) {
+        int reserved = jdbcTemplate.update(
+            "update idempotency_key set created_date = ? " +
+            "where jhi_scope = ? and idempotency_key = ? and response_status is null and created_date < ?",
+            Timestamp.from(now),
+            scope,
+            key,
+            Timestamp.from(reservedBefore)
+        );
+        return reserved == 1;
+    }
+
+    /**
+     * Get the response stored for a key.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     * @return the response, whose status is null while the first request is in progress, or empty if the key
+     * doesn't exist.
+     */
+    public Optional<StoredResponse> find(String scope, String key) {
+        return jdbcTemplate
+            .query(
+                "select response_status, response_location, response_body from idempotency_key " +
+                "where jhi_scope = ? and idempotency_key = ?",
+                (rs, rowNum) -> new StoredResponse(rs.getObject(1, Integer.class), rs.getString(2), rs.getString(3)),
+                scope,
+                key
+            )
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * Store the response of a reserved key, in the current transaction.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     * @param response the response.
+     */
+    public void complete(String scope, String key, StoredResponse response) {
+        jdbcTemplate.update(
+            "update idempotency_key set response_status = ?, response_location = ?, response_body = ? " +
+            "where jhi_scope = ? and idempotency_key = ?",
+            response.getStatus(),
+            response.getLocation(),
+            response.getBody(),
+            scope,
+            key
+        );
+    }
+
+    /**
+     * Delete a reserved key, whose request failed.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String scope, String key) {
+        jdbcTemplate.update(
+            "delete from idempotency_key where jhi_scope = ? and idempotency_key = ? and response_status is null",
+            scope,
+            key
+        );
+    }
+
+    /**
+     * Delete the keys created before a date.
+     *
+     * @param before the date.
+     * @return the number of deleted keys.
+     */
+    public int deleteCreatedBefore(Instant before) {
+        return jdbcTemplate.update("delete from idempotency_key where created_date < ?", Timestamp.from(before));
+    }
+
+    /**
+     * The response of a create request made with an Idempotency-Key.
+     */
+    public static final class StoredResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Integer status;
+
+        private final String location;
+
+        private final String body;
+
+        public StoredResponse(Integer status, String location, String body) {
+            this.status = status;
+            this.location = location;
+            this.body = body;
+        }
+
+        /**
+         * @return the HTTP status, or null while the first request is in progress.
+         */
+        public Integer getStatus() {
+            return status;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package sn.isi.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import sn.isi.domain.SyncVersioned;
+import sn.isi.repository.OutboxEventRepository.EventType;
+
+/**
+ * Entity listener appending a change event to the outbox for each write of an entity, in the same transaction.
+ * <p>
+ * Every path writing the entities through JPA is covered: the REST resources, the bulk ingestion and the sync upload.
+ */
+public class OutboxEventListener {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public OutboxEventListener(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostPersist
+    public void appendCreated(SyncVersioned entity) {
+        append(entity, EventType.CREATED);
+    }
+
+    @PostUpdate
+    public void appendUpdated(SyncVersioned entity) {
+        append(entity, EventType.UPDATED);
+    }
+
+    @PostRemove
+    public void appendDeleted(SyncVersioned entity) {
+        append(entity, EventType.DELETED);
+    }
+
+    private void append(SyncVersioned entity, EventType eventType) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(entity);
+        } catch (JsonProcessingException e) {
+            // The change can't be committed without its event
+            throw new UncheckedIOException(e);
+        }
+        outboxEventRepository.append(SyncVersionListener.entityType(entity.getClass()), entity.getId(), eventType, payload, Instant.now());
+    }
+}
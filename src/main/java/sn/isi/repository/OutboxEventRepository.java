@@ -0,0 +1,169 @@
+package sn.isi.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SQL repository for the transactional outbox of the entity change events.
+ * <p>
+ * Events are appended in the transaction writing the entity, so that an event exists if and only if the change was
+ * committed. They are deleted once published.
+ */
+@Repository
+public class OutboxEventRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Append an event, in the transaction writing the entity.
+     *
+     * @param aggregateType the type of the entity, such as {@code productionLait}.
+     * @param aggregateId the id of the entity.
+     * @param eventType the type of change.
+     * @param payload the entity as JSON, as of the change.
+     * @param now the date of the change.
+     */
+    public void append(String aggregateType, long aggregateId, EventType eventType, String payload, Instant now) {
+        jdbcTemplate.update(
+            "insert into outbox_event (aggregate_type, aggregate_id, event_type, payload, created_date) values (?, ?, ?, ?, ?)",
+            aggregateType,
+            aggregateId,
+            eventType.name(),
+            payload,
+            Timestamp.from(now)
+        );
+    }
+
+    /**
+     * Read and lock the oldest events, in the transaction publishing them: other dispatchers wait until they are
+     * deleted.
+     *
+     * @param size the maximum number of events.
+     * @return the events, in the order of their changes.
+     */
+    public List<OutboxEvent> lockOldest(int size) {
+        return jdbcTemplate.query(
+            "select id, aggregate_type, aggregate_id, event_type, payload, created_date from outbox_event order by id limit ? for update",
+            OutboxEventRepository::mapEvent,
+            size
+        );
+    }
+
+    /**
+     * Delete published events.
+     *
+     * @param events the events.
+     */
+    public void delete(List<OutboxEvent> events) {
+        jdbcTemplate.batchUpdate(
+            "delete from outbox_event where id = ?",
+            events.stream().map(event -> new Object[] { event.getId() }).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * @return the number of events not published yet.
+     */
+    public long count() {
+        return jdbcTemplate.queryForObject("select count(*) from outbox_event", Long.class);
+    }
+
+    private static OutboxEvent mapEvent(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboxEvent(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getLong(3),
+            EventType.valueOf(rs.getString(4)),
+            rs.getString(5),
+            rs.getTimestamp(6).toInstant()
+        );
+    }
+
+    /**
+     * Type of change of an entity.
+     */
+    public enum EventType {
+        CREATED,
+        UPDATED,
+        DELETED,
+    }
+
+    /**
+     * A change event of an entity.
+     */
+    public static final class OutboxEvent {
+
+        private final long id;
+
+        private final String aggregateType;
+
+        private final long aggregateId;
+
+        private final EventType eventType;
+
+        private final String payload;
+
+        private final Instant createdDate;
+
+        public OutboxEvent(long id, String aggregateType, long aggregateId, EventType eventType, String payload, Instant createdDate) {
+            this.id = id;
+            this.aggregateType = aggregateType;
+            this.aggregateId = aggregateId;
+            this.eventType = eventType;
+            this.payload = payload;
+            this.createdDate = createdDate;
+        }
+
+        /**
+         * @return the id of the event, increasing with the commits, which lets consumers skip the events delivered
+         * twice.
+         */
+        public long getId() {
+            return id;
+        }
+
+        public String getAggregateType() {
+            return aggregateType;
+        }
+
+        public long getAggregateId() {
+            return aggregateId;
+        }
+
+        public EventType getEventType() {
+            return eventType;
+        }
+
+        /**
+         * @return the entity as JSON, as of the change.
+         */
+        public String getPayload() {
+            return payload;
+        }
+
+        public Instant getCreatedDate() {
+            return createdDate;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "OutboxEvent{" +
+                "id=" + getId() +
+                ", aggregateType='" + getAggregateType() + "'" +
+                ", aggregateId=" + getAggregateId() +
+                ", eventType='" + getEventType() + "'" +
+                "}";
+        }
+    }
+}
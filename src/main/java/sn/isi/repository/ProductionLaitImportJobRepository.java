@@ -0,0 +1,348 @@
+package sn.isi.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * SQL repository for the ProductionLait CSV import jobs.
+ * <p>
+ * The status changes run in their own transaction when called outside of one, as the jobs run on background threads.
+ */
+@Repository
+public class ProductionLaitImportJobRepository {
+
+    private static final String COLUMNS =
+        "id, file_name, status, total_bytes, jhi_offset, line_number, imported_rows, started_rows, error_count, last_error, " +
+        "created_date, started_date, finished_date";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductionLaitImportJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert a new job, queued at the start of its file.
+     *
+     * @param id the id of the job.
+     * @param fileName the name of the uploaded file.
+     * @param totalBytes the size of the file.
+     * @param now the creation date.
+     */
+    @Transactional
+    public void create(String id, String fileName, long totalBytes, Instant now) {
+        jdbcTemplate.update(
+            "insert into production_lait_import_job (id, file_name, status, total_bytes, jhi_offset, line_number, imported_rows, " +
+            "started_rows, error_count, created_date) values (?, ?, ?, ?, 0, 0, 0, 0, 0, ?)",
+            id,
+            fileName,
+            ImportStatus.QUEUED.name(),
+            totalBytes,
+            Timestamp.from(now)
+        );
+    }
+
+    public Optional<ImportJob> find(String id) {
+        return jdbcTemplate
+            .query("select " + COLUMNS + " from production_lait_import_job where id = ?", ProductionLaitImportJobRepository::mapJob, id)
+            .stream()
+            .findFirst();
+    }
+
+    /**
+     * @return the ids of the jobs which are queued or running, in creation order.
+     */
+    public List<String> findUnfinishedIds() {
+        return jdbcTemplate.queryForList(
+            "select id from production_lait_import_job where status in (?, ?) order by created_date",
+            String.class,
+            ImportStatus.QUEUED.name(),
+            ImportStatus.RUNNING.name()
+        );
+    }
+
+    /**
+     * Mark a job as running from its checkpoint.
+     *
+     * @param id the id of the job.
+     * @param now the start date of this run.
+     */
+    @Transactional
+    public void markRunning(String id, Instant now) {
+        jdbcTemplate.update(
+            "update production_lait_import_job set status = ?, started_rows = imported_rows, started_date = ?, finished_date = null " +
+            "where id = ?",
+            ImportStatus.RUNNING.name(),
+            Timestamp.from(now),
+            id
+        );
+    }
+
+    /**
+     * Mark a job as completed, or failed.
+     *
+     * @param id the id of the job.
+     * @param status {@link ImportStatus#COMPLETED} or {@link ImportStatus#FAILED}.
+     * @param error the error failing the job, or null to keep the last invalid line.
+     * @param now the end date.
+     */
+    @Transactional
+    public void markFinished(String id, ImportStatus status, String error, Instant now) {
+        jdbcTemplate.update(
+            "update production_lait_import_job set status = ?, last_error = coalesce(?, last_error), finished_date = ? where id = ?",
+            status.name(),
+            truncate(error),
+            Timestamp.from(now),
+            id
+        );
+    }
+
+    /**
+     * Queue a failed job again.
+     *
+     * @param id the id of the job.
+     * @return false if the job doesn't exist or hasn't failed.
+     */
+    @Transactional
+    public boolean requeueFailed(String id) {
+        return (
+            jdbcTemplate.update(
+                "update production_lait_import_job set status = ? where id = ? and status = ?",
+                ImportStatus.QUEUED.name(),
+                id,
+                ImportStatus.FAILED.name()
+            ) ==
+            1
+        );
+    }
+
+    /**
+     * Move the checkpoint of a job, in the transaction inserting the rows before it.
+     *
+     * @param id the id of the job.
+     * @param checkpoint the new checkpoint.
+     */
+    public void saveCheckpoint(String id, Checkpoint checkpoint) {
+        jdbcTemplate.update(
+            "update production_lait_import_job set jhi_offset = ?, line_number = ?, imported_rows = ?, error_count = ?, " +
+            "last_error = ? where id = ?",
+            checkpoint.getOffset(),
+            checkpoint.getLineNumber(),
+            checkpoint.getImportedRows(),
+            checkpoint.getErrorCount(),
+            truncate(checkpoint.getLastError()),
+            id
+        );
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 512 ? error.substring(0, 512) : error;
+    }
+
+    private static ImportJob mapJob(ResultSet rs, int rowNum) throws SQLException {
+        return new ImportJob(
+            rs.getString(1),
+            rs.getString(2),
+            ImportStatus.valueOf(rs.getString(3)),
+            rs.getLong(4),
+            rs.getLong(5),
+            rs.getLong(6),
+            rs.getLong(7),
+            rs.getLong(8),
+            rs.getLong(9),
+            rs.getString(10),
+            toInstant(rs.getTimestamp(11)),
+            toInstant(rs.getTimestamp(12)),
+            toInstant(rs.getTimestamp(13))
+        );
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    /**
+     * Status of an import job.
+     */
+    public enum ImportStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+    }
+
+    /**
+     * An import job, as of its last checkpoint.
+     */
+    public static final class ImportJob {
+
+        private final String id;
+
+        private final String fileName;
+
+        private final ImportStatus status;
+
+        private final long totalBytes;
+
+        private final long offset;
+
+        private final long lineNumber;
+
+        private final long importedRows;
+
+        private final long startedRows;
+
+        private final long errorCount;
+
+        private final String lastError;
+
+        private final Instant createdDate;
+
+        private final Instant startedDate;
+
+        private final Instant finishedDate;
+
+        public ImportJob(
+            String id,
+            String fileName,
+            ImportStatus status,
+            long totalBytes,
+            long offset,
+            long lineNumber,
+            long importedRows,
+            long startedRows,
+            long errorCount,
+            String lastError,
+            Instant createdDate,
+            Instant startedDate,
+            Instant finishedDate
+        ) {
+            this.id = id;
+            this.fileName = fileName;
+            this.status = status;
+            this.totalBytes = totalBytes;
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+            this.importedRows = importedRows;
+            this.startedRows = startedRows;
+            this.errorCount = errorCount;
+            this.lastError = lastError;
+            this.createdDate = createdDate;
+            this.startedDate = startedDate;
+            this.finishedDate = finishedDate;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public ImportStatus getStatus() {
+            return status;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public long getImportedRows() {
+            return importedRows;
+        }
+
+        /**
+         * @return the number of rows imported when the last run started.
+         */
+        public long getStartedRows() {
+            return startedRows;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public Instant getCreatedDate() {
+            return createdDate;
+        }
+
+        public Instant getStartedDate() {
+            return startedDate;
+        }
+
+        public Instant getFinishedDate() {
+            return finishedDate;
+        }
+    }
+
+    /**
+     * Progress of an import job, committed with the rows it covers.
+     */
+    public static final class Checkpoint {
+
+        private final long offset;
+
+        private final long lineNumber;
+
+        private final long importedRows;
+
+        private final long errorCount;
+
+        private final String lastError;
+
+        /**
+         * @param offset the offset in bytes of the next line.
+         * @param lineNumber the number of lines read, header included.
+         * @param importedRows the number of rows inserted since the job was created.
+         * @param errorCount the number of invalid lines since the job was created.
+         * @param lastError the last invalid line, or null if none.
+         */
+        public Checkpoint(long offset, long lineNumber, long importedRows, long errorCount, String lastError) {
+            this.offset = offset;
+            this.lineNumber = lineNumber;
+            this.importedRows = importedRows;
+            this.errorCount = errorCount;
+            this.lastError = lastError;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public long getImportedRows() {
+            return importedRows;
+        }
+
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package sn.isi.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+
+/**
+ * Write-ahead journal of new {@link ProductionLait} on local disk, enabled by {@code application.journal.enabled}.
+ * <p>
+ * The journal is a sequence of memory-mapped segment files of {@code segment-size} bytes, each holding records of a
+ * payload length, a CRC32C of the payload and the payload. A zero length marks the end of the written records, as
+ * new segments are zero-filled; a record that doesn't fit starts the next segment. Appends are forced to disk
+ * before returning.
+ * <p>
+ * On startup, the last segment is scanned up to the first record whose checksum doesn't match, which is where a
+ * write was torn by a crash, and appends resume from there.
+ */
+@Repository
+public class ProductionLaitJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String QUARANTINE_SUFFIX = ".quarantined";
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final int PAYLOAD_SIZE = Long.BYTES + Integer.BYTES;
+
+    private static final int RECORD_SIZE = HEADER_SIZE + PAYLOAD_SIZE;
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitJournal.class);
+
+    private final boolean enabled;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private long writeSegment;
+
+    private MappedByteBuffer writeBuffer;
+
+    /**
+     * End of the records written so far, read without locking by the replayer.
+     */
+    private volatile Position end;
+
+    /**
+     * Receiver of the records read from the journal.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        void accept(int quantite, Instant dateproduction);
+    }
+
+    public ProductionLaitJournal(ApplicationProperties applicationProperties) {
+        ApplicationProperties.Journal properties = applicationProperties.getJournal();
+        this.enabled = properties.isEnabled();
+        this.directory = Paths.get(properties.getDirectory());
+        this.segmentSize = properties.getSegmentSize();
+        if (enabled) {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the ProductionLait journal in " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @return whether the journal is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        writeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        int offset = 0;
+        while (offset + RECORD_SIZE <= segmentSize && isValidRecord(writeBuffer, offset)) {
+            offset += RECORD_SIZE;
+        }
+        // Clear what a torn write may have left, so that it can't be read as a record later
+        for (int i = offset; i < segmentSize && i < offset + RECORD_SIZE; i++) {
+            writeBuffer.put(i, (byte) 0);
+        }
+        writeBuffer.force();
+        end = new Position(writeSegment, offset);
+        log.info("Opened the ProductionLait journal in {}, at {}", directory, end);
+    }
+
+    /**
+     * Append a productionLait and force it to disk.
+     *
+     * @param productionLait the validated productionLait.
+     * @return the position after the record.
+     * @throws UncheckedIOException if the journal can't be written.
+     */
+    public synchronized Position append(ProductionLait productionLait) {
+        if (!enabled) {
+            throw new IllegalStateException("The ProductionLait journal is disabled");
+        }
+        try {
+            int offset = end.getOffset();
+            if (offset + RECORD_SIZE > segmentSize) {
+                writeBuffer.force();
+                writeSegment++;
+                writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+                offset = 0;
+            }
+            writeBuffer.putLong(offset + HEADER_SIZE, productionLait.getDateproduction().toEpochMilli());
+            writeBuffer.putInt(offset + HEADER_SIZE + Long.BYTES, productionLait.getQuantite());
+            writeBuffer.putInt(offset + Integer.BYTES, checksum(writeBuffer, offset));
+            // The length is written last: until then, the record reads as the end of the journal
+            writeBuffer.putInt(offset, PAYLOAD_SIZE);
+            writeBuffer.force();
+            end = new Position(writeSegment, offset + RECORD_SIZE);
+            return end;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the ProductionLait journal", e);
+        }
+    }
+
+    /**
+     * Read records, from one thread at a time.
+     *
+     * @param from the position to read from.
+     * @param max the maximum number of records to read.
+     * @param consumer the receiver of the records.
+     * @return the position after the last record read, which may be in a later segment than {@code from}; reads stop
+     * at the start of a later segment which can't be read.
+     * @throws UncheckedIOException if the segment of {@code from} can't be read.
+     */
+    public Position read(Position from, int max, RecordConsumer consumer) {
+        Position last = end;
+        long segment = from.getSegment();
+        int offset = from.getOffset();
+        int read = 0;
+        try {
+            while (read < max) {
+                boolean lastSegment = segment == last.getSegment();
+                int limit = lastSegment ? last.getOffset() : segmentSize;
+                if (offset + RECORD_SIZE <= limit) {
+                    MappedByteBuffer buffer;
+                    try {
+                        buffer = map(segment, FileChannel.MapMode.READ_ONLY);
+                    } catch (IOException e) {
+                        if (segment == from.getSegment()) {
+                            throw e;
+                        }
+                        // The records read so far are returned, the failure is reported by the next read
+                        break;
+                    }
+                    while (read < max && offset + RECORD_SIZE <= limit && isValidRecord(buffer, offset)) {
+                        int quantite = buffer.getInt(offset + HEADER_SIZE + Long.BYTES);
+                        consumer.accept(quantite, Instant.ofEpochMilli(buffer.getLong(offset + HEADER_SIZE)));
+                        offset += RECORD_SIZE;
+                        read++;
+                    }
+                }
+                if (lastSegment || read == max) {
+                    break;
+                }
+                // The end of a sealed segment was reached
+                segment++;
+                offset = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the ProductionLait journal", e);
+        }
+        return new Position(segment, offset);
+    }
+
+    /**
+     * Delete the segments before a segment, once their records are applied.
+     *
+     * @param segment the first segment to keep.
+     */
+    public void deleteBefore(long segment) {
+        try {
+            for (long existing : listSegments()) {
+                if (existing < segment) {
+                    Files.deleteIfExists(segmentPath(existing));
+                    log.debug("Deleted the ProductionLait journal segment {}", existing);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete the ProductionLait journal segments before {}: {}", segment, e.getMessage());
+        }
+    }
+
+    /**
+     * Set aside a segment which can't be read, so that it is kept for inspection but never read nor deleted.
+     *
+     * @param segment the segment.
+     */
+    public void quarantine(long segment) {
+        Path path = segmentPath(segment);
+        try {
+            Files.move(path, path.resolveSibling(path.getFileName() + QUARANTINE_SUFFIX));
+            log.warn("Quarantined the ProductionLait journal segment {}", segment);
+        } catch (IOException e) {
+            log.warn("Could not quarantine the ProductionLait journal segment {}: {}", segment, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the position after the last record written.
+     */
+    public Position getEnd() {
+        return end;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (writeBuffer != null) {
+            writeBuffer.force();
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(file -> file.getFileName().toString())
+                .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> Long.valueOf(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        if (mode == FileChannel.MapMode.READ_ONLY) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                return channel.map(mode, 0, segmentSize);
+            }
+        }
+        try (
+            FileChannel channel = FileChannel.open(
+                segmentPath(segment),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    private static boolean isValidRecord(MappedByteBuffer buffer, int offset) {
+        return buffer.getInt(offset) == PAYLOAD_SIZE && buffer.getInt(offset + Integer.BYTES) == checksum(buffer, offset);
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(offset + HEADER_SIZE).limit(offset + RECORD_SIZE));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A position in the journal: a segment, and an offset in it.
+     */
+    public static final class Position {
+
+        private final long segment;
+
+        private final int offset;
+
+        public Position(long segment, int offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        public long getSegment() {
+            return segment;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Position)) {
+                return false;
+            }
+            Position other = (Position) o;
+            return segment == other.segment && offset == other.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(segment, offset);
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Position{" +
+                "segment=" + segment +
+                ", offset=" + offset +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package sn.isi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import sn.isi.repository.ProductionLaitJournal.Position;
+
+/**
+ * SQL repository for the replay checkpoint of the {@link ProductionLaitJournal}.
+ */
+@Repository
+public class ProductionLaitJournalCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductionLaitJournalCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the position up to which the journal is applied.
+     */
+    public Position find() {
+        return jdbcTemplate.queryForObject(
+            "select jhi_segment, jhi_offset from production_lait_journal_checkpoint where id = 1",
+            (rs, rowNum) -> new Position(rs.getLong(1), rs.getInt(2))
+        );
+    }
+
+    /**
+     * Move the checkpoint, in the transaction applying the records before it.
+     *
+     * @param position the position up to which the journal is applied.
+     */
+    public void save(Position position) {
+        jdbcTemplate.update(
+            "update production_lait_journal_checkpoint set jhi_segment = ?, jhi_offset = ? where id = 1",
+            position.getSegment(),
+            position.getOffset()
+        );
+    }
+}
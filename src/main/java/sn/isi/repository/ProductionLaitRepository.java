@@ -1,6 +1,14 @@
 package sn.isi.repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.isi.domain.ProductionLait;
 
@@ -9,4 +17,179 @@ import sn.isi.domain.ProductionLait;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductionLaitRepository extends JpaRepository<ProductionLait, Long> {}
+public interface ProductionLaitRepository extends JpaRepository<ProductionLait, Long> {
+    /**
+     * Group the productions of {@code [from, to)} into fixed-width buckets, computed in the database.
+     * <p>
+     * {@code dateproduction} is stored as UTC (see {@code hibernate.jdbc.time_zone}), so the bucket number is
+     * {@code floor((epochSeconds + offsetSeconds) / bucketSeconds)}: with a constant zone offset, this is the
+     * local hour or day number since the epoch.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param offsetSeconds the zone offset in effect over the whole range.
+     * @param bucketSeconds the width of a bucket.
+     * @return the totals of each non-empty bucket.
+     */
+    @Query(
+        value = "select floor((timestampdiff(second, timestamp '1970-01-01 00:00:00', p.dateproduction) + :offsetSeconds)" +
+        " / cast(:bucketSeconds as decimal(20, 0))) as bucket," +
+        " count(*) as rowCount, sum(p.quantite) as total, min(p.quantite) as minimum, max(p.quantite) as maximum" +
+        " from production_lait p" +
+        " where p.dateproduction >= :from and p.dateproduction < :to" +
+        " group by bucket",
+        nativeQuery = true
+    )
+    List<BucketTotals> aggregateByBucket(
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("offsetSeconds") long offsetSeconds,
+        @Param("bucketSeconds") long bucketSeconds
+    );
+
+    /**
+     * Same as {@link #aggregateByBucket}, with each bucket further split by rollup shard ({@code id mod shards}).
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param offsetSeconds the zone offset in effect over the whole range.
+     * @param bucketSeconds the width of a bucket.
+     * @param shards the number of shards.
+     * @return the totals of each non-empty bucket and shard.
+     */
+    @Query(
+        value = "select floor((timestampdiff(second, timestamp '1970-01-01 00:00:00', p.dateproduction) + :offsetSeconds)" +
+        " / cast(:bucketSeconds as decimal(20, 0))) as bucket, mod(p.id, :shards) as shard," +
+        " count(*) as rowCount, sum(p.quantite) as total, min(p.quantite) as minimum, max(p.quantite) as maximum" +
+        " from production_lait p" +
+        " where p.dateproduction >= :from and p.dateproduction < :to" +
+        " group by bucket, shard",
+        nativeQuery = true
+    )
+    List<BucketTotals> aggregateByBucketAndShard(
+        @Param("from") Instant from,
+        @Param("to") Instant to,
+        @Param("offsetSeconds") long offsetSeconds,
+        @Param("bucketSeconds") long bucketSeconds,
+        @Param("shards") int shards
+    );
+
+    Page<ProductionLait> findAllByDateproductionGreaterThanEqualAndDateproductionLessThan(Instant from, Instant to, Pageable pageable);
+
+    long countByDateproductionGreaterThanEqualAndDateproductionLessThan(Instant from, Instant to);
+
+    @Query("select p from ProductionLait p where p.dateproduction >= :from and p.dateproduction < :to order by p.dateproduction, p.id")
+    List<ProductionLait> findAllOrderByDateproductionAndId(@Param("from") Instant from, @Param("to") Instant to, Pageable pageable);
+
+    @Query(
+        "select p from ProductionLait p where p.dateproduction < :to" +
+        " and (p.dateproduction > :dateproduction or (p.dateproduction = :dateproduction and p.id > :id))" +
+        " order by p.dateproduction, p.id"
+    )
+    List<ProductionLait> findAllAfterOrderByDateproductionAndId(
+        @Param("dateproduction") Instant dateproduction,
+        @Param("id") Long id,
+        @Param("to") Instant to,
+        Pageable pageable
+    );
+
+    /**
+     * Read the productionLaits written after a position of the change feed, in the order of their commits.
+     *
+     * @param syncVersion the version of the position.
+     * @param id the id of the position, within its version.
+     * @param version the last committed version, up to which the rows can be read.
+     * @param pageable the maximum number of rows.
+     * @return the productionLaits, ordered by {@code syncVersion} and {@code id}.
+     */
+    @Query(
+        "select p from ProductionLait p where p.syncVersion <= :version" +
+        " and (p.syncVersion > :syncVersion or (p.syncVersion = :syncVersion and p.id > :id))" +
+        " order by p.syncVersion, p.id"
+    )
+    List<ProductionLait> findAllAfterOrderBySyncVersionAndId(
+        @Param("syncVersion") Long syncVersion,
+        @Param("id") Long id,
+        @Param("version") Long version,
+        Pageable pageable
+    );
+
+    @Query("select p.quantite from ProductionLait p where p.dateproduction >= :from and p.dateproduction < :to")
+    List<Integer> findQuantitesByDateproductionGreaterThanEqualAndDateproductionLessThan(
+        @Param("from") Instant from,
+        @Param("to") Instant to
+    );
+
+    /**
+     * Compute the daily analytics of a range of days, in one pass of window functions over the daily rollup.
+     * <p>
+     * Moving totals use calendar frames, so days without production count as zero; the previous year total is the
+     * one of the same weekday, 364 days before.
+     *
+     * @param fromDay the first epoch day, inclusive.
+     * @param toDay the last epoch day, exclusive.
+     * @return the analytics of the days with productions, ordered by day; the stream must be closed.
+     */
+    @Query(
+        value = "select a.epoch_day as epochDay, a.total as total, a.running_total as runningTotal, a.moving_total_7 as movingTotal7," +
+        " a.moving_total_30 as movingTotal30, a.previous_year_total as previousYearTotal from (" +
+        " select d.epoch_day, d.total," +
+        " sum(case when d.epoch_day >= :fromDay then d.total else 0 end)" +
+        " over (order by d.epoch_day rows between unbounded preceding and current row) as running_total," +
+        " sum(d.total) over (order by d.epoch_day range between 6 preceding and current row) as moving_total_7," +
+        " sum(d.total) over (order by d.epoch_day range between 29 preceding and current row) as moving_total_30," +
+        " sum(d.total) over (order by d.epoch_day range between 364 preceding and 364 preceding) as previous_year_total" +
+        " from (select r.epoch_day, sum(r.total) as total from production_lait_daily_rollup r" +
+        " where r.epoch_day >= :fromDay - 364 and r.epoch_day < :toDay group by r.epoch_day having sum(r.row_count) > 0) d" +
+        ") a where a.epoch_day >= :fromDay order by a.epoch_day",
+        nativeQuery = true
+    )
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<DailyAnalytics> streamDailyAnalytics(@Param("fromDay") int fromDay, @Param("toDay") int toDay);
+
+    @Query("select min(p.dateproduction) from ProductionLait p")
+    Optional<Instant> findMinDateproduction();
+
+    @Query("select max(p.dateproduction) from ProductionLait p")
+    Optional<Instant> findMaxDateproduction();
+
+    @Query("select p.version from ProductionLait p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Projection of one day returned by {@link #streamDailyAnalytics}; sums are decimals in some databases.
+     */
+    interface DailyAnalytics {
+        Integer getEpochDay();
+
+        Number getTotal();
+
+        Number getRunningTotal();
+
+        Number getMovingTotal7();
+
+        Number getMovingTotal30();
+
+        Number getPreviousYearTotal();
+    }
+
+    /**
+     * Projection of one bucket returned by {@link #aggregateByBucket} and {@link #aggregateByBucketAndShard}.
+     */
+    interface BucketTotals {
+        Long getBucket();
+
+        /**
+         * @return the shard of the bucket, only selected by {@link #aggregateByBucketAndShard}.
+         */
+        Integer getShard();
+
+        Long getRowCount();
+
+        Long getTotal();
+
+        Integer getMinimum();
+
+        Integer getMaximum();
+    }
+}
@@ -0,0 +1,256 @@
+package sn.isi.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SQL repository for the daily and monthly rollups of the ProductionLait entity.
+ * <p>
+ * The rollups are not entities: they are only written with atomic increments, so that concurrent transactions
+ * never read-modify-write the same row, and they are never loaded in the persistence context.
+ */
+@Repository
+public class ProductionLaitRollupRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductionLaitRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add productions to a rollup row, creating it if needed.
+     *
+     * @param granularity the rollup to update.
+     * @param key the epoch day or month.
+     * @param shard the shard.
+     * @param count the number of added productions.
+     * @param total the sum of the added quantities.
+     * @param min the smallest added quantity.
+     * @param max the largest added quantity.
+     */
+    public void add(Granularity granularity, int key, int shard, long count, long total, int min, int max) {
+        String update =
+            "update " +
+            granularity.table +
+            " set row_count = row_count + ?, total = total + ?," +
+            " min_quantite = least(coalesce(min_quantite, ?), ?), max_quantite = greatest(coalesce(max_quantite, ?), ?)" +
+            " where " +
+            granularity.keyColumn +
+            " = ? and shard = ?";
+        if (jdbcTemplate.update(update, count, total, min, min, max, max, key, shard) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(
+                "insert into " +
+                granularity.table +
+                " (" +
+                granularity.keyColumn +
+                ", shard, row_count, total, min_quantite, max_quantite) values (?, ?, ?, ?, ?, ?)",
+                key,
+                shard,
+                count,
+                total,
+                min,
+                max
+            );
+        } catch (DuplicateKeyException e) {
+            // Another transaction created the row in the meantime
+            jdbcTemplate.update(update, count, total, min, min, max, max, key, shard);
+        }
+    }
+
+    /**
+     * Remove a production from a rollup row.
+     * <p>
+     * Minimum and maximum can't be decremented: when the removed quantity was one of them, they are recomputed from
+     * the remaining productions of the row, which must already have been flushed.
+     *
+     * @param granularity the rollup to update.
+     * @param key the epoch day or month.
+     * @param shard the shard.
+     * @param shards the number of shards.
+     * @param quantite the removed quantity.
+     * @param start the start of the day or month.
+     * @param end the end of the day or month.
+     */
+    public void remove(Granularity granularity, int key, int shard, int shards, int quantite, Instant start, Instant end) {
+        String where = " where " + granularity.keyColumn + " = ? and shard = ?";
+        jdbcTemplate.update(
+            "update " + granularity.table + " set row_count = row_count - 1, total = total - ?" + where,
+            quantite,
+            key,
+            shard
+        );
+        String remaining =
+            " from production_lait p where p.dateproduction >= ? and p.dateproduction < ? and mod(p.id, ?) = ?)";
+        LocalDateTime localStart = LocalDateTime.ofInstant(start, ZoneOffset.UTC);
+        LocalDateTime localEnd = LocalDateTime.ofInstant(end, ZoneOffset.UTC);
+        jdbcTemplate.update(
+            "update " +
+            granularity.table +
+            " set min_quantite = (select min(p.quantite)" +
+            remaining +
+            ", max_quantite = (select max(p.quantite)" +
+            remaining +
+            where +
+            " and (min_quantite >= ? or max_quantite <= ?)",
+            localStart,
+            localEnd,
+            shards,
+            shard,
+            localStart,
+            localEnd,
+            shards,
+            shard,
+            key,
+            shard,
+            quantite,
+            quantite
+        );
+    }
+
+    /**
+     * Get the totals of each non-empty day or month of a range, all shards merged.
+     *
+     * @param granularity the rollup to read.
+     * @param fromKey the first epoch day or month, inclusive.
+     * @param toKey the last epoch day or month, exclusive.
+     * @return the totals, ordered by key.
+     */
+    public List<Totals> findTotals(Granularity granularity, int fromKey, int toKey) {
+        return jdbcTemplate.query(
+            "select " +
+            granularity.keyColumn +
+            ", sum(row_count), sum(total), min(min_quantite), max(max_quantite) from " +
+            granularity.table +
+            " where " +
+            granularity.keyColumn +
+            " >= ? and " +
+            granularity.keyColumn +
+            " < ? and row_count > 0 group by " +
+            granularity.keyColumn +
+            " order by " +
+            granularity.keyColumn,
+            (rs, rowNum) -> new Totals(rs.getInt(1), 0, rs.getLong(2), rs.getLong(3), rs.getInt(4), rs.getInt(5)),
+            fromKey,
+            toKey
+        );
+    }
+
+    /**
+     * @return whether the rollups hold all the productions, which is only the case once they have been built.
+     */
+    public boolean isBuilt() {
+        return Boolean.TRUE.equals(
+            jdbcTemplate.queryForObject("select built from production_lait_rollup_state where id = 1", Boolean.class)
+        );
+    }
+
+    /**
+     * Mark the rollups as holding all the productions.
+     */
+    public void markBuilt() {
+        jdbcTemplate.update("update production_lait_rollup_state set built = ? where id = 1", true);
+    }
+
+    public void deleteAll() {
+        for (Granularity granularity : Granularity.values()) {
+            jdbcTemplate.update("delete from " + granularity.table);
+        }
+    }
+
+    /**
+     * Insert rollup rows, in JDBC batches.
+     *
+     * @param granularity the rollup to fill.
+     * @param rows the rows, which must not exist yet.
+     */
+    public void insertAll(Granularity granularity, List<Totals> rows) {
+        jdbcTemplate.batchUpdate(
+            "insert into " +
+            granularity.table +
+            " (" +
+            granularity.keyColumn +
+            ", shard, row_count, total, min_quantite, max_quantite) values (?, ?, ?, ?, ?, ?)",
+            rows,
+            100,
+            (ps, row) -> {
+                ps.setInt(1, row.getKey());
+                ps.setInt(2, row.getShard());
+                ps.setLong(3, row.getCount());
+                ps.setLong(4, row.getTotal());
+                ps.setInt(5, row.getMin());
+                ps.setInt(6, row.getMax());
+            }
+        );
+    }
+
+    /**
+     * The rollup tables.
+     */
+    public enum Granularity {
+        DAY("production_lait_daily_rollup", "epoch_day"),
+        MONTH("production_lait_monthly_rollup", "epoch_month");
+
+        private final String table;
+        private final String keyColumn;
+
+        Granularity(String table, String keyColumn) {
+            this.table = table;
+            this.keyColumn = keyColumn;
+        }
+    }
+
+    /**
+     * Totals of a rollup row, or of all the shards of a day or month.
+     */
+    public static final class Totals {
+
+        private final int key;
+        private final int shard;
+        private final long count;
+        private final long total;
+        private final int min;
+        private final int max;
+
+        public Totals(int key, int shard, long count, long total, int min, int max) {
+            this.key = key;
+            this.shard = shard;
+            this.count = count;
+            this.total = total;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+    }
+}
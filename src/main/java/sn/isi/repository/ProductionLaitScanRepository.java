@@ -0,0 +1,108 @@
+package sn.isi.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SQL repository scanning the rows of the ProductionLait entity as primitive values, without loading them in the
+ * persistence context.
+ * <p>
+ * Rows are read from a forward-only cursor, {@value #FETCH_SIZE} at a time, so a scan uses constant memory whatever
+ * the number of rows.
+ */
+@Repository
+public class ProductionLaitScanRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductionLaitScanRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Read the productions from a date, ordered by date and id.
+     *
+     * @param from the first date, inclusive.
+     * @param consumer the consumer of the productions.
+     */
+    public void scan(Instant from, ProductionConsumer consumer) {
+        scan(from, null, consumer);
+    }
+
+    /**
+     * Read the productions of a range, ordered by date and id.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive, or {@code null} for no end.
+     * @param consumer the consumer of the productions.
+     */
+    public void scan(Instant from, Instant to, ProductionConsumer consumer) {
+        jdbcTemplate.query(
+            connection -> prepareScan(connection, "id, quantite, dateproduction", from, to),
+            rs -> {
+                consumer.accept(rs.getLong(1), rs.getInt(2), rs.getObject(3, LocalDateTime.class).toInstant(ZoneOffset.UTC));
+            }
+        );
+    }
+
+    /**
+     * Read the productions from a date, with their versions, ordered by date and id.
+     *
+     * @param from the first date, inclusive.
+     * @param consumer the consumer of the productions.
+     */
+    public void scanWithVersions(Instant from, VersionedProductionConsumer consumer) {
+        jdbcTemplate.query(
+            connection -> prepareScan(connection, "id, quantite, dateproduction, version, sync_version", from, null),
+            rs -> {
+                consumer.accept(
+                    rs.getLong(1),
+                    rs.getInt(2),
+                    rs.getObject(3, LocalDateTime.class).toInstant(ZoneOffset.UTC),
+                    rs.getLong(4),
+                    rs.getLong(5)
+                );
+            }
+        );
+    }
+
+    private static PreparedStatement prepareScan(Connection connection, String columns, Instant from, Instant to) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+            "select " +
+            columns +
+            " from production_lait where dateproduction >= ?" +
+            (to != null ? " and dateproduction < ?" : "") +
+            " order by dateproduction, id"
+        );
+        statement.setFetchSize(FETCH_SIZE);
+        statement.setObject(1, LocalDateTime.ofInstant(from, ZoneOffset.UTC));
+        if (to != null) {
+            statement.setObject(2, LocalDateTime.ofInstant(to, ZoneOffset.UTC));
+        }
+        return statement;
+    }
+
+    /**
+     * Consumer of the productions read by {@link #scan}.
+     */
+    @FunctionalInterface
+    public interface ProductionConsumer {
+        void accept(long id, int quantite, Instant dateproduction);
+    }
+
+    /**
+     * Consumer of the productions read by {@link #scanWithVersions}.
+     */
+    @FunctionalInterface
+    public interface VersionedProductionConsumer {
+        void accept(long id, int quantite, Instant dateproduction, long version, long syncVersion);
+    }
+}
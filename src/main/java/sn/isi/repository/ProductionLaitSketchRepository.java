@@ -0,0 +1,136 @@
+package sn.isi.repository;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import org.HdrHistogram.Histogram;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * SQL repository for the daily quantile sketches of the ProductionLait quantities.
+ * <p>
+ * A sketch is an HdrHistogram with {@value #SIGNIFICANT_DIGITS} significant digits, so any quantile read from it is
+ * within 1% of the exact one. Histograms are mergeable: the sketch of a range is the sum of the sketches of its days.
+ * <p>
+ * A histogram can't be incremented in SQL: a row is locked while it's read, changed and written back, and the
+ * lock is held until the end of the transaction.
+ */
+@Repository
+public class ProductionLaitSketchRepository {
+
+    public static final int SIGNIFICANT_DIGITS = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductionLaitSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return an empty, auto-resizing, histogram.
+     */
+    public static Histogram newHistogram() {
+        return new Histogram(SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Change the sketch of a day and shard, creating it if needed.
+     *
+     * @param epochDay the epoch day.
+     * @param shard the shard.
+     * @param change the change to apply to the histogram.
+     */
+    public void update(int epochDay, int shard, Consumer<Histogram> change) {
+        if (updateExisting(epochDay, shard, change)) {
+            return;
+        }
+        Histogram histogram = newHistogram();
+        change.accept(histogram);
+        try {
+            insert(epochDay, shard, histogram);
+        } catch (DuplicateKeyException e) {
+            // Another transaction created the row in the meantime
+            updateExisting(epochDay, shard, change);
+        }
+    }
+
+    /**
+     * Change the sketch of a day and shard, if it exists.
+     *
+     * @param epochDay the epoch day.
+     * @param shard the shard.
+     * @param change the change to apply to the histogram.
+     * @return whether the sketch exists.
+     */
+    public boolean updateExisting(int epochDay, int shard, Consumer<Histogram> change) {
+        List<Histogram> existing = jdbcTemplate.query(
+            "select histogram from production_lait_daily_sketch where epoch_day = ? and shard = ? for update",
+            (rs, rowNum) -> decode(rs.getBytes(1)),
+            epochDay,
+            shard
+        );
+        if (!existing.isEmpty()) {
+            Histogram histogram = existing.get(0);
+            change.accept(histogram);
+            jdbcTemplate.update(
+                "update production_lait_daily_sketch set histogram = ? where epoch_day = ? and shard = ?",
+                encode(histogram),
+                epochDay,
+                shard
+            );
+            return true;
+        }
+        return false;
+    }
+
+    public void insert(int epochDay, int shard, Histogram histogram) {
+        jdbcTemplate.update(
+            "insert into production_lait_daily_sketch (epoch_day, shard, histogram) values (?, ?, ?)",
+            epochDay,
+            shard,
+            encode(histogram)
+        );
+    }
+
+    /**
+     * Merge the sketches of a range of days, all shards included.
+     *
+     * @param fromDay the first epoch day, inclusive.
+     * @param toDay the last epoch day, exclusive.
+     * @param histogram the histogram to add the sketches to.
+     */
+    public void mergeInto(int fromDay, int toDay, Histogram histogram) {
+        jdbcTemplate.query(
+            "select histogram from production_lait_daily_sketch where epoch_day >= ? and epoch_day < ?",
+            rs -> {
+                histogram.add(decode(rs.getBytes(1)));
+            },
+            fromDay,
+            toDay
+        );
+    }
+
+    public void deleteAll() {
+        jdbcTemplate.update("delete from production_lait_daily_sketch");
+    }
+
+    private static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    private static Histogram decode(byte[] bytes) {
+        try {
+            Histogram histogram = Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+            histogram.setAutoResize(true);
+            return histogram;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted ProductionLait sketch", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package sn.isi.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.function.LongConsumer;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * SQL repository for the change versions and tombstones of the delta sync.
+ * <p>
+ * A transaction writing synchronized entities takes the next version when it first writes one. The version is
+ * allocated by a short transaction, on a pool of its own, which increments the counter and adds the version to
+ * {@code sync_version_pending}: the counter row is only locked during the allocation, so the writing transactions
+ * don't wait for each other, and never wait for a second connection of the application pool. The writing transaction
+ * then deletes its pending version, which only removes it once it commits; a rolled back transaction deletes it
+ * afterwards, and {@link #deletePendingVersionsBefore} removes the ones left by the transactions which could not.
+ * <p>
+ * The transactions may commit out of version order, so the committed version is the one below the lowest pending
+ * version: once it reads {@code v}, no row of version {@code v} or less can still appear. It is read with a single
+ * query, which doesn't wait for the writing transactions.
+ */
+@Repository
+public class SyncRepository {
+
+    private static final Object TRANSACTION_VERSION_KEY = SyncRepository.class.getName() + ".transactionVersion";
+
+    private static final int ALLOCATION_POOL_SIZE = 2;
+
+    /**
+     * Query of the committed version, which can be used as a subquery.
+     */
+    static final String COMMITTED_VERSION_QUERY =
+        "select coalesce((select min(p.version) - 1 from sync_version_pending p), c.jhi_value) " +
+        "from sync_version_counter c where c.id = 1";
+
+    private final Logger log = LoggerFactory.getLogger(SyncRepository.class);
+
+    private final HikariDataSource allocationDataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SyncRepository(DataSourceProperties dataSourceProperties, JdbcTemplate jdbcTemplate) {
+        this.allocationDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        allocationDataSource.setPoolName("SyncVersions");
+        allocationDataSource.setMaximumPoolSize(ALLOCATION_POOL_SIZE);
+        allocationDataSource.setMinimumIdle(0);
+        allocationDataSource.setAutoCommit(false);
+        allocationDataSource.setTransactionIsolation("TRANSACTION_READ_COMMITTED");
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PreDestroy
+    public void close() {
+        allocationDataSource.close();
+    }
+
+    /**
+     * @return the version of the current transaction, taken when first needed.
+     * @throws IllegalStateException if there is no transaction.
+     */
+    public long getTransactionVersion() {
+        Long version = (Long) TransactionSynchronizationManager.getResource(TRANSACTION_VERSION_KEY);
+        if (version != null) {
+            return version;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Synchronized entities can only be written in a transaction");
+        }
+        long allocated = inAllocationTransaction(
+            connection -> {
+                update(connection, "update sync_version_counter set jhi_value = jhi_value + 1 where id = 1");
+                long next = queryCounter(connection);
+                update(
+                    connection,
+                    "insert into sync_version_pending (version, allocated_at) values (?, ?)",
+                    next,
+                    System.currentTimeMillis()
+                );
+                return next;
+            }
+        );
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_VERSION_KEY);
+                    if (status != STATUS_COMMITTED) {
+                        deletePendingVersion(allocated);
+                    }
+                }
+            }
+        );
+        if (jdbcTemplate.update("delete from sync_version_pending where version = ?", allocated) != 1) {
+            throw new IllegalStateException("The pending sync version " + allocated + " was deleted before being used");
+        }
+        TransactionSynchronizationManager.bindResource(TRANSACTION_VERSION_KEY, allocated);
+        return allocated;
+    }
+
+    /**
+     * Get the committed version, without waiting for the writing transactions.
+     * <p>
+     * The version of the current transaction, if it has one, counts as committed: its rows are visible to it.
+     *
+     * @return the last version whose rows are all committed.
+     */
+    public long findCommittedVersion() {
+        return jdbcTemplate.queryForObject(COMMITTED_VERSION_QUERY, Long.class);
+    }
+
+    /**
+     * Delete the pending versions allocated before a date, whose transactions have ended without deleting them.
+     * <p>
+     * Waits for the transactions still using them, whose deletions hold their rows.
+     *
+     * @param date the date before which the versions were allocated.
+     * @return the number of deleted versions.
+     */
+    public int deletePendingVersionsBefore(Instant date) {
+        return jdbcTemplate.update("delete from sync_version_pending where allocated_at < ?", date.toEpochMilli());
+    }
+
+    private void deletePendingVersion(long version) {
+        try {
+            inAllocationTransaction(connection -> update(connection, "delete from sync_version_pending where version = ?", version));
+        } catch (DataAccessException e) {
+            log.warn("Could not delete the pending sync version {}, left for the cleanup: {}", version, e.getMessage());
+        }
+    }
+
+    /**
+     * Record the deletion of an entity, in the transaction deleting it.
+     *
+     * @param entityType the type of the entity.
+     * @param id the id of the entity.
+     * @param version the version of the deletion.
+     */
+    public void saveTombstone(String entityType, long id, long version) {
+        jdbcTemplate.update("insert into sync_tombstone (entity_type, entity_id, sync_version) values (?, ?, ?)", entityType, id, version);
+    }
+
+    /**
+     * Read the ids of the entities of a type deleted in a range of versions.
+     *
+     * @param entityType the type of the entities.
+     * @param since the start of the range, exclusive.
+     * @param version the end of the range, inclusive.
+     * @param consumer the receiver of the ids, in version order.
+     */
+    public void findTombstones(String entityType, long since, long version, LongConsumer consumer) {
+        jdbcTemplate.query(
+            "select entity_id from sync_tombstone where entity_type = ? and sync_version > ? and sync_version <= ? order by sync_version",
+            rs -> {
+                consumer.accept(rs.getLong(1));
+            },
+            entityType,
+            since,
+            version
+        );
+    }
+
+    private <T> T inAllocationTransaction(ConnectionCallback<T> action) {
+        try (Connection connection = allocationDataSource.getConnection()) {
+            try {
+                T result = action.doInConnection(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("Sync version allocation", null, e);
+        }
+    }
+
+    private static long queryCounter(Connection connection) throws SQLException {
+        try (
+            PreparedStatement statement = connection.prepareStatement("select jhi_value from sync_version_counter where id = 1");
+            ResultSet rs = statement.executeQuery()
+        ) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static int update(Connection connection, String sql, long... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setLong(i + 1, parameters[i]);
+            }
+            return statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package sn.isi.repository;
+
+import java.beans.Introspector;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+import sn.isi.domain.SyncVersioned;
+
+/**
+ * Entity listener setting the change version of the {@link SyncVersioned} entities, and keeping the tombstones of
+ * the deleted ones.
+ */
+public class SyncVersionListener {
+
+    private final SyncRepository syncRepository;
+
+    public SyncVersionListener(SyncRepository syncRepository) {
+        this.syncRepository = syncRepository;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void setSyncVersion(SyncVersioned entity) {
+        entity.setSyncVersion(syncRepository.getTransactionVersion());
+    }
+
+    @PreRemove
+    public void saveTombstone(SyncVersioned entity) {
+        syncRepository.saveTombstone(entityType(entity.getClass()), entity.getId(), syncRepository.getTransactionVersion());
+    }
+
+    /**
+     * @param entityClass the class of a synchronized entity.
+     * @return the name of its type in the tombstones, such as {@code productionLait}.
+     */
+    public static String entityType(Class<?> entityClass) {
+        return Introspector.decapitalize(entityClass.getSimpleName());
+    }
+}
@@ -1,6 +1,12 @@
 package sn.isi.repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.isi.domain.Traitement;
 
@@ -9,4 +15,24 @@ import sn.isi.domain.Traitement;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TraitementRepository extends JpaRepository<Traitement, Long> {}
+public interface TraitementRepository extends JpaRepository<Traitement, Long> {
+    Page<Traitement> findAllByDatetraitementGreaterThanEqualAndDatetraitementLessThan(Instant from, Instant to, Pageable pageable);
+
+    @Query("select t from Traitement t where t.datetraitement >= :from and t.datetraitement < :to order by t.datetraitement, t.id")
+    List<Traitement> findAllOrderByDatetraitementAndId(@Param("from") Instant from, @Param("to") Instant to, Pageable pageable);
+
+    @Query(
+        "select t from Traitement t where t.datetraitement < :to" +
+        " and (t.datetraitement > :datetraitement or (t.datetraitement = :datetraitement and t.id > :id))" +
+        " order by t.datetraitement, t.id"
+    )
+    List<Traitement> findAllAfterOrderByDatetraitementAndId(
+        @Param("datetraitement") Instant datetraitement,
+        @Param("id") Long id,
+        @Param("to") Instant to,
+        Pageable pageable
+    );
+
+    @Query("select t.version from Traitement t where t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+}
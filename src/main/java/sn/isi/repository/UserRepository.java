@@ -1,5 +1,6 @@
 package sn.isi.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.cache.annotation.Cacheable;
@@ -7,6 +8,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.isi.domain.User;
 
@@ -26,4 +29,13 @@ public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    @Query("select u from User u order by u.createdDate, u.id")
+    List<User> findAllOrderByCreatedDateAndId(Pageable pageable);
+
+    @Query(
+        "select u from User u where u.createdDate > :createdDate or (u.createdDate = :createdDate and u.id > :id)" +
+        " order by u.createdDate, u.id"
+    )
+    List<User> findAllAfterOrderByCreatedDateAndId(@Param("createdDate") Instant createdDate, @Param("id") String id, Pageable pageable);
 }
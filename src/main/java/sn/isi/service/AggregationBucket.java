@@ -0,0 +1,92 @@
+package sn.isi.service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Width of the buckets of a time-bucketed aggregation.
+ * <p>
+ * Hours are fixed-width; days, weeks (starting on Monday) and months follow the calendar of the requested zone.
+ */
+public enum AggregationBucket {
+    HOUR("hour"),
+    DAY("day"),
+    WEEK("week"),
+    MONTH("month");
+
+    private static final long SECONDS_PER_HOUR = Duration.ofHours(1).getSeconds();
+    private static final long SECONDS_PER_DAY = Duration.ofDays(1).getSeconds();
+
+    private final String value;
+
+    AggregationBucket(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static Optional<AggregationBucket> fromValue(String value) {
+        return Arrays.stream(values()).filter(bucket -> bucket.value.equalsIgnoreCase(value)).findFirst();
+    }
+
+    /**
+     * @return the width, in seconds, of the buckets grouped by the database: hours for {@link #HOUR}, local days otherwise.
+     */
+    long getDatabaseBucketSeconds() {
+        return this == HOUR ? SECONDS_PER_HOUR : SECONDS_PER_DAY;
+    }
+
+    /**
+     * Get the start of the bucket containing a local date-time.
+     *
+     * @param localDateTime the local date-time.
+     * @param offset the offset of the local date-time, which disambiguates the hours repeated when clocks go back.
+     * @param zone the zone of the local date-time.
+     * @return the start of the bucket.
+     */
+    Instant bucketStart(LocalDateTime localDateTime, ZoneOffset offset, ZoneId zone) {
+        switch (this) {
+            case HOUR:
+                return localDateTime.truncatedTo(ChronoUnit.HOURS).toInstant(offset);
+            case DAY:
+                return localDateTime.toLocalDate().atStartOfDay(zone).toInstant();
+            case WEEK:
+                return localDateTime.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(zone).toInstant();
+            default:
+                return localDateTime.toLocalDate().withDayOfMonth(1).atStartOfDay(zone).toInstant();
+        }
+    }
+
+    /**
+     * Get the end of the bucket starting at a given instant.
+     *
+     * @param bucketStart the start of the bucket.
+     * @param zone the zone of the aggregation.
+     * @return the end of the bucket, exclusive.
+     */
+    Instant bucketEnd(Instant bucketStart, ZoneId zone) {
+        if (this == HOUR) {
+            return bucketStart.plusSeconds(SECONDS_PER_HOUR);
+        }
+        LocalDate start = bucketStart.atZone(zone).toLocalDate();
+        switch (this) {
+            case DAY:
+                return start.plusDays(1).atStartOfDay(zone).toInstant();
+            case WEEK:
+                return start.plusWeeks(1).atStartOfDay(zone).toInstant();
+            default:
+                return start.plusMonths(1).atStartOfDay(zone).toInstant();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package sn.isi.service;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * Optimistic locking checks of the updates requested by clients.
+ * <p>
+ * The services check the version of the entity they loaded, and then let Hibernate write it with
+ * {@code UPDATE ... WHERE id = ? AND version = ?}, bound to that same version: once checked, the update only
+ * succeeds if the row is still at the expected version, and no row updated is reported as a conflict too. A
+ * hand-written conditional {@code UPDATE} would skip the entity listeners (sync versions, outbox events), the
+ * rollups of the previous values and the eviction of the entity from the second-level cache.
+ */
+final class EntityVersions {
+
+    private EntityVersions() {}
+
+    /**
+     * Check that an entity is still at the version a client read it at.
+     *
+     * @param entityClass the class of the entity.
+     * @param id the id of the entity.
+     * @param version the current version of the entity.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @throws ObjectOptimisticLockingFailureException if the versions differ.
+     */
+    static void check(Class<?> entityClass, Long id, Long version, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(version)) {
+            throw new ObjectOptimisticLockingFailureException(entityClass, id);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package sn.isi.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Format of a streamed export.
+ */
+public enum ExportFormat {
+    CSV("csv", "text/csv"),
+    NDJSON("ndjson", "application/x-ndjson"),
+    /**
+     * Length-delimited messages of {@code proto/production.proto}, see {@link ProtobufCodec}.
+     */
+    PROTOBUF("protobuf", ProtobufCodec.CONTENT_TYPE);
+
+    private final String value;
+
+    private final String contentType;
+
+    ExportFormat(String value, String contentType) {
+        this.value = value;
+        this.contentType = contentType;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public static Optional<ExportFormat> fromValue(String value) {
+        return Arrays.stream(values()).filter(format -> format.value.equalsIgnoreCase(value)).findFirst();
+    }
+}
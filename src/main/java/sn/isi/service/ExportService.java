@@ -0,0 +1,144 @@
+package sn.isi.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.protobuf.CodedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.Function;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import sn.isi.config.ApplicationProperties;
+
+/**
+ * Service streaming all the entities of a date range to an output stream.
+ * <p>
+ * Rows are read from a forward-only cursor of a {@link StatelessSession}: they are fetched from the database
+ * {@code application.export.fetch-size} at a time, are never attached to a persistence context, and are written as
+ * soon as they are read, so that memory use doesn't depend on the size of the export. Writes block while the client
+ * doesn't read, which in turn pauses the cursor.
+ */
+@Service
+public class ExportService {
+
+    private static final int PROTOBUF_BUFFER_SIZE = 8192;
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final SessionFactory sessionFactory;
+
+    private final ObjectMapper objectMapper;
+
+    private final int fetchSize;
+
+    public ExportService(
+        EntityManagerFactory entityManagerFactory,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.objectMapper = objectMapper;
+        this.fetchSize = applicationProperties.getExport().getFetchSize();
+    }
+
+    /**
+     * Export the entities whose date is in {@code [from, to)}, ordered by date and id.
+     *
+     * @param entityClass the class of the entities.
+     * @param dateField the name of the indexed date field of the entity.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param format the output format.
+     * @param csvHeader the names of the CSV columns.
+     * @param csvRow the values of the CSV columns of an entity.
+     * @param protobufMessage the values of the fields of the protobuf message of an entity, by field number.
+     * @param out the stream to write to, which is not closed.
+     * @param <T> the type of the entities.
+     * @return the number of exported entities.
+     * @throws IOException if the stream can't be written, for instance when the client disconnects.
+     */
+    public <T> long export(
+        Class<T> entityClass,
+        String dateField,
+        Instant from,
+        Instant to,
+        ExportFormat format,
+        String[] csvHeader,
+        Function<T, Object[]> csvRow,
+        Function<T, Object[]> protobufMessage,
+        OutputStream out
+    ) throws IOException {
+        log.debug("Request to export {}s from {} to {} as {}", entityClass.getSimpleName(), from, to, format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        CodedOutputStream protobufOut = CodedOutputStream.newInstance(out, PROTOBUF_BUFFER_SIZE);
+        ObjectWriter jsonWriter = objectMapper.writerFor(entityClass);
+        long count = 0;
+        try (
+            StatelessSession session = sessionFactory.openStatelessSession();
+            ScrollableResults results = session
+                .createQuery(
+                    "select e from " +
+                    entityClass.getSimpleName() +
+                    " e where e." +
+                    dateField +
+                    " >= :from and e." +
+                    dateField +
+                    " < :to order by e." +
+                    dateField +
+                    ", e.id",
+                    entityClass
+                )
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)
+        ) {
+            if (format == ExportFormat.CSV) {
+                writeCsvLine(writer, csvHeader);
+            }
+            while (results.next()) {
+                T row = entityClass.cast(results.get(0));
+                if (format == ExportFormat.CSV) {
+                    writeCsvLine(writer, csvRow.apply(row));
+                } else if (format == ExportFormat.PROTOBUF) {
+                    ProtobufCodec.writeDelimited(protobufOut, protobufMessage.apply(row));
+                } else {
+                    writer.write(jsonWriter.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                count++;
+            }
+        }
+        writer.flush();
+        protobufOut.flush();
+        return count;
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+            writer.write(i < values.length - 1 ? ',' : '\n');
+        }
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,32 @@
+package sn.isi.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * What the live feed does with the oldest buffered production when a subscriber's buffer is full.
+ */
+public enum FeedOverflowPolicy {
+    /**
+     * Drop it.
+     */
+    DROP_OLDEST("drop-oldest"),
+    /**
+     * Add it to a summary, sent before the productions still buffered.
+     */
+    COALESCE("coalesce");
+
+    private final String value;
+
+    FeedOverflowPolicy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static Optional<FeedOverflowPolicy> fromValue(String value) {
+        return Arrays.stream(values()).filter(policy -> policy.value.equalsIgnoreCase(value)).findFirst();
+    }
+}
@@ -0,0 +1,232 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.domain.FicheMedical;
+import sn.isi.repository.EntityModificationRepository;
+import sn.isi.repository.EntityMultiLoadRepository;
+import sn.isi.repository.FicheMedicalRepository;
+
+/**
+ * Service Implementation for managing {@link FicheMedical}.
+ * <p>
+ * Reads run in read-only transactions: Hibernate loads the entities without the snapshots used for dirty checking,
+ * and never flushes the session.
+ */
+@Service
+@Transactional
+public class FicheMedicalService {
+
+    private final Logger log = LoggerFactory.getLogger(FicheMedicalService.class);
+
+    private final FicheMedicalRepository ficheMedicalRepository;
+
+    private final EntityModificationRepository entityModificationRepository;
+
+    private final EntityMultiLoadRepository entityMultiLoadRepository;
+
+    public FicheMedicalService(
+        FicheMedicalRepository ficheMedicalRepository,
+        EntityModificationRepository entityModificationRepository,
+        EntityMultiLoadRepository entityMultiLoadRepository
+    ) {
+        this.ficheMedicalRepository = ficheMedicalRepository;
+        this.entityModificationRepository = entityModificationRepository;
+        this.entityMultiLoadRepository = entityMultiLoadRepository;
+    }
+
+    /**
+     * Save a new ficheMedical.
+     *
+     * @param ficheMedical the entity to save.
+     * @return the persisted entity.
+     */
+    public FicheMedical save(FicheMedical ficheMedical) {
+        log.debug("Request to save FicheMedical : {}", ficheMedical);
+        return ficheMedicalRepository.save(ficheMedical);
+    }
+
+    /**
+     * Update a ficheMedical.
+     * <p>
+     * The ficheMedical is usually read from the second-level cache, and then written by a single
+     * {@code UPDATE ... WHERE id = ? AND version = ?} statement, of the changed columns only.
+     *
+     * @param ficheMedical the entity to update.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<FicheMedical> update(FicheMedical ficheMedical, Long expectedVersion) {
+        log.debug("Request to update FicheMedical : {}", ficheMedical);
+        return ficheMedicalRepository
+            .findById(ficheMedical.getId())
+            .map(
+                existingFicheMedical -> {
+                    EntityVersions.check(
+                        FicheMedical.class,
+                        existingFicheMedical.getId(),
+                        existingFicheMedical.getVersion(),
+                        expectedVersion
+                    );
+                    existingFicheMedical.setObservation(ficheMedical.getObservation());
+                    existingFicheMedical.setDateconsultation(ficheMedical.getDateconsultation());
+                    return ficheMedicalRepository.saveAndFlush(existingFicheMedical);
+                }
+            );
+    }
+
+    /**
+     * Partially update a ficheMedical, like {@link #update}.
+     *
+     * @param ficheMedical the entity to update partially.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<FicheMedical> partialUpdate(FicheMedical ficheMedical, Long expectedVersion) {
+        log.debug("Request to partially update FicheMedical : {}", ficheMedical);
+        return ficheMedicalRepository
+            .findById(ficheMedical.getId())
+            .map(
+                existingFicheMedical -> {
+                    EntityVersions.check(
+                        FicheMedical.class,
+                        existingFicheMedical.getId(),
+                        existingFicheMedical.getVersion(),
+                        expectedVersion
+                    );
+                    if (ficheMedical.getObservation() != null) {
+                        existingFicheMedical.setObservation(ficheMedical.getObservation());
+                    }
+                    if (ficheMedical.getDateconsultation() != null) {
+                        existingFicheMedical.setDateconsultation(ficheMedical.getDateconsultation());
+                    }
+
+                    return ficheMedicalRepository.saveAndFlush(existingFicheMedical);
+                }
+            );
+    }
+
+    /**
+     * Get all the ficheMedicals.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<FicheMedical> findAll(Pageable pageable) {
+        log.debug("Request to get all FicheMedicals");
+        return ficheMedicalRepository.findAll(pageable);
+    }
+
+    /**
+     * Get the ficheMedicals of a {@code dateconsultation} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<FicheMedical> findAllByDateconsultation(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the FicheMedicals from {} to {}", from, to);
+        return ficheMedicalRepository.findAllByDateconsultationGreaterThanEqualAndDateconsultationLessThan(from, to, pageable);
+    }
+
+    /**
+     * Get the first keyset page of the ficheMedicals of a {@code dateconsultation} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code dateconsultation} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<FicheMedical> findAllOrderByDateconsultationAndId(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the first keyset page of FicheMedicals from {} to {}", from, to);
+        return ficheMedicalRepository.findAllOrderByDateconsultationAndId(from, to, pageable);
+    }
+
+    /**
+     * Get the keyset page of the ficheMedicals following a given one.
+     *
+     * @param dateconsultation the {@code dateconsultation} of the last ficheMedical of the previous page.
+     * @param id the id of the last ficheMedical of the previous page.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code dateconsultation} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<FicheMedical> findAllAfterOrderByDateconsultationAndId(Instant dateconsultation, Long id, Instant to, Pageable pageable) {
+        log.debug("Request to get the keyset page of FicheMedicals after {}, {}", dateconsultation, id);
+        return ficheMedicalRepository.findAllAfterOrderByDateconsultationAndId(dateconsultation, id, to, pageable);
+    }
+
+    /**
+     * Get the version of one ficheMedical by id, without loading it.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        log.debug("Request to get the version of FicheMedical : {}", id);
+        return ficheMedicalRepository.findVersionById(id);
+    }
+
+    /**
+     * Get the last modification of the ficheMedicals, which changes with every write of one of them.
+     *
+     * @return the version of the last transaction which wrote ficheMedicals.
+     */
+    @Transactional(readOnly = true)
+    public long findModification() {
+        return entityModificationRepository.findModification(FicheMedical.class);
+    }
+
+    /**
+     * Get the ficheMedicals of a list of ids.
+     * <p>
+     * The ficheMedicals in the second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities which exist, in the order of the ids.
+     */
+    @Transactional(readOnly = true)
+    public List<FicheMedical> findAllById(List<Long> ids) {
+        log.debug("Request to get the FicheMedicals : {}", ids);
+        return entityMultiLoadRepository.findAllById(FicheMedical.class, ids);
+    }
+
+    /**
+     * Get one ficheMedical by id.
+     *
+     * @param id the id of the entity.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<FicheMedical> findOne(Long id) {
+        log.debug("Request to get FicheMedical : {}", id);
+        return ficheMedicalRepository.findById(id);
+    }
+
+    /**
+     * Delete the ficheMedical by id.
+     *
+     * @param id the id of the entity.
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete FicheMedical : {}", id);
+        ficheMedicalRepository.deleteById(id);
+    }
+}
@@ -0,0 +1,138 @@
+package sn.isi.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.repository.IdempotencyKeyRepository;
+import sn.isi.repository.IdempotencyKeyRepository.StoredResponse;
+
+/**
+ * Service deduplicating the create requests made with an Idempotency-Key.
+ * <p>
+ * The keys live in the {@code idempotency_key} table for {@code application.idempotency.ttl-hours}. In front of it,
+ * a bounded cache holds the recent responses, so that most retries are answered without reading the table, and a
+ * new key is reserved with a single insert. A reservation whose request didn't end, because its process died, can
+ * be taken over by a retry after {@code application.idempotency.reservation-timeout-minutes}.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String RESPONSES_CACHE = "idempotentResponses";
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final Cache<Object, Object> responses;
+
+    private final Duration ttl;
+
+    private final Duration reservationTimeout;
+
+    public IdempotencyService(
+        IdempotencyKeyRepository idempotencyKeyRepository,
+        CacheManager cacheManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.responses = cacheManager.getCache(RESPONSES_CACHE);
+        this.ttl = Duration.ofHours(applicationProperties.getIdempotency().getTtlHours());
+        this.reservationTimeout = Duration.ofMinutes(applicationProperties.getIdempotency().getReservationTimeoutMinutes());
+    }
+
+    /**
+     * Start a request made with an Idempotency-Key.
+     *
+     * @param scope the scope of the key, such as the created entity.
+     * @param key the key.
+     * @return the response of the request which first used the key, or empty if the key is new and now reserved
+     * for this request, which must then be ended with {@link #complete} or {@link #release}.
+     * @throws ConcurrencyFailureException if the request which first used the key is still in progress.
+     */
+    public Optional<StoredResponse> begin(String scope, String key) {
+        String cacheKey = scope + ' ' + key;
+        StoredResponse cached = (StoredResponse) responses.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // Reserving tells a new key apart from an existing one in a single statement
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Instant now = Instant.now();
+            if (idempotencyKeyRepository.reserve(scope, key, now)) {
+                return Optional.empty();
+            }
+            Optional<StoredResponse> stored = idempotencyKeyRepository.find(scope, key);
+            if (stored.isPresent()) {
+                if (stored.get().getStatus() == null) {
+                    if (idempotencyKeyRepository.reserveAgain(scope, key, now.minus(reservationTimeout), now)) {
+                        log.warn("Took over the Idempotency-Key {} {}, reserved by a request which didn't end", scope, key);
+                        return Optional.empty();
+                    }
+                    throw new ConcurrencyFailureException("A request with the same Idempotency-Key is in progress");
+                }
+                responses.put(cacheKey, stored.get());
+                return stored;
+            }
+            // The key was released by a failed request in the meantime
+        }
+        throw new ConcurrencyFailureException("A request with the same Idempotency-Key is in progress");
+    }
+
+    /**
+     * Store the response of a request, in the current transaction if any. If that transaction rolls back, the
+     * key is released instead.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     * @param response the response to replay to the retries.
+     */
+    public void complete(String scope, String key, StoredResponse response) {
+        idempotencyKeyRepository.complete(scope, key, response);
+        String cacheKey = scope + ' ' + key;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            responses.put(cacheKey, response);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(
+            new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        responses.put(cacheKey, response);
+                    } else {
+                        idempotencyKeyRepository.release(scope, key);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Release the key of a request which failed, so that it can be retried.
+     *
+     * @param scope the scope of the key.
+     * @param key the key.
+     */
+    public void release(String scope, String key) {
+        idempotencyKeyRepository.release(scope, key);
+    }
+
+    /**
+     * Delete the expired keys.
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void removeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(Instant.now().minus(ttl));
+        log.debug("Deleted {} expired Idempotency-Keys", deleted);
+    }
+}
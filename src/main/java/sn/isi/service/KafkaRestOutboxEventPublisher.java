@@ -0,0 +1,78 @@
+package sn.isi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.repository.OutboxEventRepository.OutboxEvent;
+
+/**
+ * {@link OutboxEventPublisher} producing the events to a Kafka topic through a Kafka REST Proxy, one request per batch.
+ * <p>
+ * Records are keyed by entity, so that the events of an entity land in the same partition and stay in order.
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.publisher", havingValue = "kafka-rest")
+public class KafkaRestOutboxEventPublisher implements OutboxEventPublisher {
+
+    private static final MediaType KAFKA_JSON = MediaType.parseMediaType("application/vnd.kafka.json.v2+json");
+
+    private final RestTemplate restTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String topic;
+
+    public KafkaRestOutboxEventPublisher(
+        RestTemplateBuilder restTemplateBuilder,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.restTemplate = restTemplateBuilder
+            .rootUri(applicationProperties.getOutbox().getKafkaRest().getUrl())
+            .setConnectTimeout(Duration.ofSeconds(5))
+            .setReadTimeout(Duration.ofSeconds(30))
+            .build();
+        this.objectMapper = objectMapper;
+        this.topic = applicationProperties.getOutbox().getKafkaRest().getTopic();
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        ObjectNode body = objectMapper.createObjectNode();
+        ArrayNode records = body.putArray("records");
+        for (OutboxEvent event : events) {
+            ObjectNode record = records.addObject();
+            record.put("key", event.getAggregateType() + ":" + event.getAggregateId());
+            ObjectNode value = record.putObject("value");
+            value.put("id", event.getId());
+            value.put("aggregateType", event.getAggregateType());
+            value.put("aggregateId", event.getAggregateId());
+            value.put("eventType", event.getEventType().name());
+            value.put("createdDate", event.getCreatedDate().toString());
+            value.putRawValue("payload", new RawValue(event.getPayload()));
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(KAFKA_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON, KAFKA_JSON));
+        JsonNode response = restTemplate.postForObject("/topics/{topic}", new HttpEntity<>(body, headers), JsonNode.class, topic);
+        if (response != null) {
+            for (JsonNode offset : response.path("offsets")) {
+                if (!offset.path("error_code").isNull() && !offset.path("error_code").isMissingNode()) {
+                    throw new IllegalStateException("The Kafka REST Proxy rejected an event: " + offset.path("error").asText());
+                }
+            }
+        }
+    }
+}
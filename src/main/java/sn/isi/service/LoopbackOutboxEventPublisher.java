@@ -0,0 +1,57 @@
+package sn.isi.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.repository.OutboxEventRepository.OutboxEvent;
+
+/**
+ * {@link OutboxEventPublisher} publishing the events to the application context, for in-process listeners of
+ * {@link OutboxEvent}, and keeping the last {@code application.outbox.loopback-capacity} ones in memory.
+ * <p>
+ * Meant for tests and development, where no message broker runs.
+ */
+@Component
+@ConditionalOnProperty(name = "application.outbox.publisher", havingValue = "loopback", matchIfMissing = true)
+public class LoopbackOutboxEventPublisher implements OutboxEventPublisher {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int capacity;
+
+    private final Deque<OutboxEvent> publishedEvents = new ArrayDeque<>();
+
+    public LoopbackOutboxEventPublisher(ApplicationEventPublisher applicationEventPublisher, ApplicationProperties applicationProperties) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.capacity = applicationProperties.getOutbox().getLoopbackCapacity();
+    }
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            applicationEventPublisher.publishEvent(event);
+        }
+        synchronized (publishedEvents) {
+            for (OutboxEvent event : events) {
+                if (publishedEvents.size() == capacity) {
+                    publishedEvents.removeFirst();
+                }
+                publishedEvents.addLast(event);
+            }
+        }
+    }
+
+    /**
+     * @return the last published events, oldest first.
+     */
+    public List<OutboxEvent> getPublishedEvents() {
+        synchronized (publishedEvents) {
+            return new ArrayList<>(publishedEvents);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package sn.isi.service;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+
+/**
+ * Streaming Largest-Triangle-Three-Buckets downsampling of a time series.
+ * <p>
+ * The first and last points are kept; the others are split in {@code points - 2} buckets of equal row count, and
+ * each bucket is represented by the point forming the largest triangle with the point kept for the previous bucket
+ * and the average of the next bucket. Points are fed in time order, and only two buckets are held at a time.
+ */
+final class LttbDownsampler {
+
+    /**
+     * Receiver of the kept points, in time order.
+     */
+    @FunctionalInterface
+    interface PointConsumer {
+        void accept(long x, int y);
+    }
+
+    private final long total;
+
+    private final int points;
+
+    private final double bucketSize;
+
+    private final PointConsumer consumer;
+
+    private long index;
+
+    private long previousX;
+
+    private int previousY;
+
+    private final LongArrayList currentXs = new LongArrayList();
+
+    private final IntArrayList currentYs = new IntArrayList();
+
+    private final LongArrayList nextXs = new LongArrayList();
+
+    private final IntArrayList nextYs = new IntArrayList();
+
+    private long nextBucket = -1;
+
+    private boolean hasLast;
+
+    private long lastX;
+
+    private int lastY;
+
+    /**
+     * @param total the expected number of points, which sets the size of the buckets.
+     * @param points the number of points to keep, at least 3.
+     * @param consumer the receiver of the kept points.
+     */
+    LttbDownsampler(long total, int points, PointConsumer consumer) {
+        this.total = total;
+        this.points = points;
+        this.bucketSize = (double) (total - 2) / (points - 2);
+        this.consumer = consumer;
+    }
+
+    void add(long x, int y) {
+        long i = index++;
+        if (total <= points) {
+            consumer.accept(x, y);
+            return;
+        }
+        if (i == 0) {
+            keep(x, y);
+            return;
+        }
+        if (i >= total - 1) {
+            // The last point, or points added since the total was counted, which go to the last bucket
+            if (hasLast) {
+                nextXs.add(lastX);
+                nextYs.add(lastY);
+            }
+            hasLast = true;
+            lastX = x;
+            lastY = y;
+            return;
+        }
+        long bucket = Math.min((long) ((i - 1) / bucketSize), points - 3);
+        if (bucket != nextBucket) {
+            // The next bucket is complete, so a point of the current one can be selected
+            selectFromCurrent(averageX(nextXs), averageY(nextYs));
+            currentXs.clear();
+            currentYs.clear();
+            currentXs.addAll(nextXs);
+            currentYs.addAll(nextYs);
+            nextXs.clear();
+            nextYs.clear();
+            nextBucket = bucket;
+        }
+        nextXs.add(x);
+        nextYs.add(y);
+    }
+
+    void finish() {
+        if (total <= points || index == 0) {
+            return;
+        }
+        if (!hasLast && !nextXs.isEmpty()) {
+            // Fewer points than counted: the last one added is kept as the last point
+            hasLast = true;
+            lastX = nextXs.get(nextXs.size() - 1);
+            lastY = nextYs.get(nextYs.size() - 1);
+            nextXs.resize(nextXs.size() - 1);
+            nextYs.resize(nextYs.size() - 1);
+        }
+        if (!nextXs.isEmpty()) {
+            selectFromCurrent(averageX(nextXs), averageY(nextYs));
+            currentXs.clear();
+            currentYs.clear();
+            currentXs.addAll(nextXs);
+            currentYs.addAll(nextYs);
+        }
+        if (hasLast) {
+            selectFromCurrent(lastX, lastY);
+            consumer.accept(lastX, lastY);
+        } else {
+            selectFromCurrent(previousX, previousY);
+        }
+    }
+
+    private void selectFromCurrent(double nextX, double nextY) {
+        if (currentXs.isEmpty()) {
+            return;
+        }
+        int selected = 0;
+        double largestArea = -1;
+        for (int i = 0; i < currentXs.size(); i++) {
+            // Twice the area of the triangle, relative to the previous point to keep the precision of the dates
+            double area = Math.abs(
+                (previousX - nextX) * ((double) currentYs.get(i) - previousY) -
+                (double) (previousX - currentXs.get(i)) * (nextY - previousY)
+            );
+            if (area > largestArea) {
+                largestArea = area;
+                selected = i;
+            }
+        }
+        keep(currentXs.get(selected), currentYs.get(selected));
+    }
+
+    private void keep(long x, int y) {
+        previousX = x;
+        previousY = y;
+        consumer.accept(x, y);
+    }
+
+    private static double averageX(LongArrayList values) {
+        double sum = 0;
+        for (int i = 0; i < values.size(); i++) {
+            sum += values.get(i);
+        }
+        return sum / values.size();
+    }
+
+    private static double averageY(IntArrayList values) {
+        double sum = 0;
+        for (int i = 0; i < values.size(); i++) {
+            sum += values.get(i);
+        }
+        return sum / values.size();
+    }
+}
@@ -0,0 +1,91 @@
+package sn.isi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.repository.OutboxEventRepository;
+import sn.isi.repository.OutboxEventRepository.OutboxEvent;
+
+/**
+ * Background publication of the outbox events through the {@link OutboxEventPublisher}.
+ * <p>
+ * Each batch of {@code application.outbox.batch-size} events is locked, published and deleted in one transaction,
+ * so that several instances of the service never publish the same events concurrently, and the events of a failed
+ * batch stay in the outbox. While the publisher fails, the dispatch stops and is retried after
+ * {@code dispatch-interval-ms}.
+ */
+@Service
+public class OutboxDispatcher {
+
+    private final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final OutboxEventPublisher outboxEventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final Counter publishedCounter;
+
+    private final Counter errorCounter;
+
+    public OutboxDispatcher(
+        OutboxEventRepository outboxEventRepository,
+        OutboxEventPublisher outboxEventPublisher,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventPublisher = outboxEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = applicationProperties.getOutbox().isEnabled();
+        this.batchSize = applicationProperties.getOutbox().getBatchSize();
+        this.publishedCounter = Counter.builder("outbox.events.published").register(meterRegistry);
+        this.errorCounter = Counter.builder("outbox.publish.errors").register(meterRegistry);
+        Gauge.builder("outbox.events.pending", outboxEventRepository, OutboxEventRepository::count).register(meterRegistry);
+    }
+
+    /**
+     * Publish the events of the outbox, oldest first.
+     */
+    @Scheduled(fixedDelayString = "${application.outbox.dispatch-interval-ms:500}")
+    public synchronized void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(
+                    status -> {
+                        List<OutboxEvent> events = outboxEventRepository.lockOldest(batchSize);
+                        if (!events.isEmpty()) {
+                            log.debug("Publishing {} outbox events from {}", events.size(), events.get(0).getId());
+                            outboxEventPublisher.publish(events);
+                            outboxEventRepository.delete(events);
+                        }
+                        return events.size();
+                    }
+                );
+                publishedCounter.increment(published);
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            // The batch may have been published: it will be again, and consumers skip the events they have seen
+            errorCounter.increment();
+            log.warn("Could not publish the outbox events, retrying later: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package sn.isi.service;
+
+import java.util.List;
+import sn.isi.repository.OutboxEventRepository.OutboxEvent;
+
+/**
+ * Publisher of the entity change events of the outbox, selected with {@code application.outbox.publisher}.
+ * <p>
+ * The {@link OutboxDispatcher} deletes the events once {@link #publish(List)} returns, and publishes them again
+ * after a failure: delivery is at least once, and consumers skip the event ids they have already seen.
+ */
+public interface OutboxEventPublisher {
+    /**
+     * Publish a batch of events, in order.
+     *
+     * @param events the events.
+     * @throws RuntimeException if the events may not all be published.
+     */
+    void publish(List<OutboxEvent> events);
+}
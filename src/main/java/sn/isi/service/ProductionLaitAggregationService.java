@@ -0,0 +1,400 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.repository.ProductionLaitRepository.BucketTotals;
+import sn.isi.repository.ProductionLaitRepository.DailyAnalytics;
+import sn.isi.repository.ProductionLaitRollupRepository;
+import sn.isi.repository.ProductionLaitRollupRepository.Granularity;
+import sn.isi.repository.ProductionLaitRollupRepository.Totals;
+import sn.isi.repository.ProductionLaitScanRepository;
+import sn.isi.repository.ProductionLaitSketchRepository;
+import sn.isi.service.dto.ProductionLaitAggregateDTO;
+import sn.isi.service.dto.ProductionLaitDailyAnalyticsDTO;
+import sn.isi.service.dto.ProductionLaitPercentilesDTO;
+import sn.isi.service.dto.ProductionLaitSeriesPointDTO;
+
+/**
+ * Service computing time-bucketed totals, quantiles, daily analytics and downsampled series of
+ * {@link sn.isi.domain.ProductionLait} quantities.
+ * <p>
+ * The grouping runs in the database, which only knows UTC instants: the requested range is split at each offset
+ * transition of the zone (daylight saving time changes), so that each query groups with a constant offset. Hour and
+ * day groups are then merged into the requested buckets, which only touches one row per group.
+ * <p>
+ * When the buckets are days, weeks or months of the farm's zone, whole days and months are read from the rollups
+ * maintained by {@link ProductionLaitRollupService} instead of the raw table, once they are built. Ranges held by the
+ * {@link ProductionLaitHotTier} are aggregated in memory.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ProductionLaitAggregationService {
+
+    private static final int PREVIOUS_YEAR_DAYS = 364;
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitAggregationService.class);
+
+    private final ProductionLaitRepository productionLaitRepository;
+
+    private final ProductionLaitRollupRepository productionLaitRollupRepository;
+
+    private final ProductionLaitSketchRepository productionLaitSketchRepository;
+
+    private final ProductionLaitScanRepository productionLaitScanRepository;
+
+    private final ProductionLaitRollupService productionLaitRollupService;
+
+    private final ProductionLaitHotTier productionLaitHotTier;
+
+    public ProductionLaitAggregationService(
+        ProductionLaitRepository productionLaitRepository,
+        ProductionLaitRollupRepository productionLaitRollupRepository,
+        ProductionLaitSketchRepository productionLaitSketchRepository,
+        ProductionLaitScanRepository productionLaitScanRepository,
+        ProductionLaitRollupService productionLaitRollupService,
+        ProductionLaitHotTier productionLaitHotTier
+    ) {
+        this.productionLaitRepository = productionLaitRepository;
+        this.productionLaitRollupRepository = productionLaitRollupRepository;
+        this.productionLaitSketchRepository = productionLaitSketchRepository;
+        this.productionLaitScanRepository = productionLaitScanRepository;
+        this.productionLaitRollupService = productionLaitRollupService;
+        this.productionLaitHotTier = productionLaitHotTier;
+    }
+
+    /**
+     * Aggregate the quantities produced in {@code [from, to)}.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param bucket the width of the buckets.
+     * @param zone the zone in which the bucket boundaries are computed.
+     * @return the non-empty buckets, in chronological order.
+     */
+    public List<ProductionLaitAggregateDTO> aggregate(Instant from, Instant to, AggregationBucket bucket, ZoneId zone) {
+        log.debug("Request to aggregate ProductionLaits from {} to {} by {} in {}", from, to, bucket, zone);
+        Map<Instant, BucketAccumulator> buckets = new TreeMap<>();
+        Optional<ProductionLaitHotTier.Snapshot> hot = productionLaitHotTier.snapshotFrom(from);
+        if (hot.isPresent()) {
+            aggregateHot(from, to, bucket, zone, hot.get(), buckets);
+            return toDTOs(buckets, bucket, zone);
+        }
+        if (
+            bucket != AggregationBucket.HOUR &&
+            zone.getRules().equals(productionLaitRollupService.getZone().getRules()) &&
+            productionLaitRollupService.isBuilt()
+        ) {
+            // Whole days are read from the rollups, only the partial days at both ends are read from the raw table
+            LocalDate firstDay = firstWholeDay(from, zone);
+            LocalDate lastDay = to.atZone(zone).toLocalDate();
+            if (firstDay.isBefore(lastDay)) {
+                Instant firstDayStart = firstDay.atStartOfDay(zone).toInstant();
+                Instant lastDayStart = lastDay.atStartOfDay(zone).toInstant();
+                aggregateRaw(from, firstDayStart, bucket, zone, buckets);
+                aggregateRollups(firstDay, lastDay, bucket, zone, buckets);
+                aggregateRaw(lastDayStart, to, bucket, zone, buckets);
+                return toDTOs(buckets, bucket, zone);
+            }
+        }
+        aggregateRaw(from, to, bucket, zone, buckets);
+        return toDTOs(buckets, bucket, zone);
+    }
+
+    /**
+     * Get quantiles of the quantities produced in {@code [from, to)}.
+     * <p>
+     * Whole days of the farm's zone are merged from the daily sketches, in time proportional to the number of days;
+     * only the partial days at both ends are read from the raw table. Values are within 1% of the exact quantiles.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param quantiles the quantiles to compute, between 0 and 1.
+     * @return the quantiles, in the requested order.
+     */
+    public ProductionLaitPercentilesDTO percentiles(Instant from, Instant to, List<Double> quantiles) {
+        log.debug("Request to get the {} quantiles of ProductionLaits from {} to {}", quantiles, from, to);
+        Histogram histogram = ProductionLaitSketchRepository.newHistogram();
+        ZoneId zone = productionLaitRollupService.getZone();
+        LocalDate firstDay = firstWholeDay(from, zone);
+        LocalDate lastDay = to.atZone(zone).toLocalDate();
+        if (firstDay.isBefore(lastDay) && productionLaitRollupService.isBuilt()) {
+            recordRaw(from, firstDay.atStartOfDay(zone).toInstant(), histogram);
+            productionLaitSketchRepository.mergeInto((int) firstDay.toEpochDay(), (int) lastDay.toEpochDay(), histogram);
+            recordRaw(lastDay.atStartOfDay(zone).toInstant(), to, histogram);
+        } else {
+            recordRaw(from, to, histogram);
+        }
+        ProductionLaitPercentilesDTO result = new ProductionLaitPercentilesDTO(from, to, histogram.getTotalCount());
+        for (Double quantile : quantiles) {
+            Long value = histogram.getTotalCount() == 0 ? null : histogram.getValueAtPercentile(quantile * 100);
+            result.getPercentiles().add(new ProductionLaitPercentilesDTO.Percentile(quantile, value));
+        }
+        return result;
+    }
+
+    /**
+     * Downsample the productions of {@code [from, to)} with the Largest-Triangle-Three-Buckets algorithm.
+     * <p>
+     * The productions are counted, to size the buckets, then streamed from a database cursor: memory use depends on
+     * the number of productions per bucket, not in the range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param points the maximum number of points, at least 3.
+     * @return the points representing the productions, in chronological order.
+     */
+    public List<ProductionLaitSeriesPointDTO> series(Instant from, Instant to, int points) {
+        log.debug("Request to downsample ProductionLaits from {} to {} to {} points", from, to, points);
+        long total = productionLaitRepository.countByDateproductionGreaterThanEqualAndDateproductionLessThan(from, to);
+        List<ProductionLaitSeriesPointDTO> series = new ArrayList<>((int) Math.min(total, points));
+        LttbDownsampler downsampler = new LttbDownsampler(
+            total,
+            points,
+            (x, y) -> series.add(new ProductionLaitSeriesPointDTO(Instant.ofEpochMilli(x), y))
+        );
+        productionLaitScanRepository.scan(
+            from,
+            to,
+            (id, quantite, dateproduction) -> downsampler.add(dateproduction.toEpochMilli(), quantite)
+        );
+        downsampler.finish();
+        return series;
+    }
+
+    /**
+     * Stream the daily analytics of the days of the farm's zone in {@code [from, to)}.
+     * <p>
+     * All the figures are computed by the database, in one query over the daily rollup; rows are passed to the
+     * consumer as they are read. Until the rollups are built, the daily totals are grouped from the raw table and the
+     * figures computed in memory.
+     *
+     * @param from the first day, inclusive.
+     * @param to the last day, exclusive.
+     * @param consumer the consumer of the days with productions, in chronological order.
+     */
+    public void analytics(LocalDate from, LocalDate to, Consumer<ProductionLaitDailyAnalyticsDTO> consumer) {
+        log.debug("Request to get the analytics of ProductionLaits from {} to {}", from, to);
+        if (!productionLaitRollupService.isBuilt()) {
+            analyticsRaw(from, to, consumer);
+            return;
+        }
+        try (Stream<DailyAnalytics> days = productionLaitRepository.streamDailyAnalytics((int) from.toEpochDay(), (int) to.toEpochDay())) {
+            days
+                .map(
+                    day ->
+                        new ProductionLaitDailyAnalyticsDTO(
+                            LocalDate.ofEpochDay(day.getEpochDay()),
+                            day.getTotal().longValue(),
+                            day.getRunningTotal().longValue(),
+                            day.getMovingTotal7().doubleValue() / 7,
+                            day.getMovingTotal30().doubleValue() / 30,
+                            day.getPreviousYearTotal() == null ? null : day.getPreviousYearTotal().longValue()
+                        )
+                )
+                .forEach(consumer);
+        }
+    }
+
+    private void analyticsRaw(LocalDate from, LocalDate to, Consumer<ProductionLaitDailyAnalyticsDTO> consumer) {
+        ZoneId zone = productionLaitRollupService.getZone();
+        Map<Instant, BucketAccumulator> buckets = new TreeMap<>();
+        aggregateRaw(
+            from.minusDays(PREVIOUS_YEAR_DAYS).atStartOfDay(zone).toInstant(),
+            to.atStartOfDay(zone).toInstant(),
+            AggregationBucket.DAY,
+            zone,
+            buckets
+        );
+        TreeMap<Long, Long> totals = new TreeMap<>();
+        buckets.forEach((start, day) -> totals.put(start.atZone(zone).toLocalDate().toEpochDay(), day.sum));
+        long runningTotal = 0;
+        for (Map.Entry<Long, Long> day : totals.tailMap(from.toEpochDay()).entrySet()) {
+            long epochDay = day.getKey();
+            runningTotal += day.getValue();
+            consumer.accept(
+                new ProductionLaitDailyAnalyticsDTO(
+                    LocalDate.ofEpochDay(epochDay),
+                    day.getValue(),
+                    runningTotal,
+                    sum(totals.subMap(epochDay - 6, true, epochDay, true)) / 7.0,
+                    sum(totals.subMap(epochDay - 29, true, epochDay, true)) / 30.0,
+                    totals.get(epochDay - PREVIOUS_YEAR_DAYS)
+                )
+            );
+        }
+    }
+
+    private static long sum(Map<Long, Long> totals) {
+        return totals.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void recordRaw(Instant from, Instant to, Histogram histogram) {
+        if (from.isBefore(to)) {
+            List<Integer> quantites = productionLaitRepository.findQuantitesByDateproductionGreaterThanEqualAndDateproductionLessThan(
+                from,
+                to
+            );
+            for (Integer quantite : quantites) {
+                ProductionLaitRollupService.recordQuantite(histogram, quantite);
+            }
+        }
+    }
+
+    private static LocalDate firstWholeDay(Instant from, ZoneId zone) {
+        LocalDate firstDay = from.atZone(zone).toLocalDate();
+        return firstDay.atStartOfDay(zone).toInstant().isBefore(from) ? firstDay.plusDays(1) : firstDay;
+    }
+
+    private void aggregateHot(
+        Instant from,
+        Instant to,
+        AggregationBucket bucket,
+        ZoneId zone,
+        ProductionLaitHotTier.Snapshot snapshot,
+        Map<Instant, BucketAccumulator> buckets
+    ) {
+        int end = snapshot.indexOf(to);
+        int next = snapshot.indexOf(from);
+        while (next < end) {
+            // Empty buckets are skipped by starting from the bucket of the next row
+            Instant date = snapshot.dateAt(next);
+            Instant bucketStart = bucket.bucketStart(LocalDateTime.ofInstant(date, zone), zone.getRules().getOffset(date), zone);
+            Instant bucketEnd = bucket.bucketEnd(bucketStart, zone);
+            ProductionLaitHotTier.RangeTotals totals = snapshot.totals(
+                bucketStart.isBefore(from) ? from : bucketStart,
+                bucketEnd.isAfter(to) ? to : bucketEnd
+            );
+            buckets
+                .computeIfAbsent(bucketStart, start -> new BucketAccumulator())
+                .add(totals.getCount(), totals.getSum(), totals.getMin(), totals.getMax());
+            next = snapshot.indexOf(bucketEnd);
+        }
+    }
+
+    private void aggregateRaw(Instant from, Instant to, AggregationBucket bucket, ZoneId zone, Map<Instant, BucketAccumulator> buckets) {
+        ZoneRules rules = zone.getRules();
+        long databaseBucketSeconds = bucket.getDatabaseBucketSeconds();
+        Instant segmentStart = from;
+        while (segmentStart.isBefore(to)) {
+            ZoneOffsetTransition transition = rules.nextTransition(segmentStart);
+            Instant segmentEnd = transition == null || transition.getInstant().isAfter(to) ? to : transition.getInstant();
+            ZoneOffset offset = rules.getOffset(segmentStart);
+            for (BucketTotals totals : productionLaitRepository.aggregateByBucket(
+                segmentStart,
+                segmentEnd,
+                offset.getTotalSeconds(),
+                databaseBucketSeconds
+            )) {
+                LocalDateTime local = LocalDateTime.ofEpochSecond(totals.getBucket() * databaseBucketSeconds, 0, ZoneOffset.UTC);
+                buckets.computeIfAbsent(bucket.bucketStart(local, offset, zone), start -> new BucketAccumulator()).add(totals);
+            }
+            segmentStart = segmentEnd;
+        }
+    }
+
+    private void aggregateRollups(
+        LocalDate firstDay,
+        LocalDate lastDay,
+        AggregationBucket bucket,
+        ZoneId zone,
+        Map<Instant, BucketAccumulator> buckets
+    ) {
+        if (bucket == AggregationBucket.MONTH) {
+            // Whole months are read from the monthly rollup
+            LocalDate firstMonth = firstDay.getDayOfMonth() == 1 ? firstDay : firstDay.withDayOfMonth(1).plusMonths(1);
+            LocalDate lastMonth = lastDay.withDayOfMonth(1);
+            if (firstMonth.isBefore(lastMonth)) {
+                aggregateRollup(Granularity.DAY, (int) firstDay.toEpochDay(), (int) firstMonth.toEpochDay(), bucket, zone, buckets);
+                aggregateRollup(
+                    Granularity.MONTH,
+                    ProductionLaitRollupService.epochMonth(firstMonth),
+                    ProductionLaitRollupService.epochMonth(lastMonth),
+                    bucket,
+                    zone,
+                    buckets
+                );
+                aggregateRollup(Granularity.DAY, (int) lastMonth.toEpochDay(), (int) lastDay.toEpochDay(), bucket, zone, buckets);
+                return;
+            }
+        }
+        aggregateRollup(Granularity.DAY, (int) firstDay.toEpochDay(), (int) lastDay.toEpochDay(), bucket, zone, buckets);
+    }
+
+    private void aggregateRollup(
+        Granularity granularity,
+        int fromKey,
+        int toKey,
+        AggregationBucket bucket,
+        ZoneId zone,
+        Map<Instant, BucketAccumulator> buckets
+    ) {
+        if (fromKey >= toKey) {
+            return;
+        }
+        for (Totals totals : productionLaitRollupRepository.findTotals(granularity, fromKey, toKey)) {
+            LocalDate day = granularity == Granularity.DAY
+                ? LocalDate.ofEpochDay(totals.getKey())
+                : ProductionLaitRollupService.firstDayOfEpochMonth(totals.getKey());
+            LocalDateTime local = day.atStartOfDay();
+            buckets
+                .computeIfAbsent(bucket.bucketStart(local, zone.getRules().getOffset(local), zone), start -> new BucketAccumulator())
+                .add(totals.getCount(), totals.getTotal(), totals.getMin(), totals.getMax());
+        }
+    }
+
+    private List<ProductionLaitAggregateDTO> toDTOs(Map<Instant, BucketAccumulator> buckets, AggregationBucket bucket, ZoneId zone) {
+        return buckets
+            .entrySet()
+            .stream()
+            .map(entry -> entry.getValue().toDTO(entry.getKey(), bucket.bucketEnd(entry.getKey(), zone)))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Running totals of one bucket.
+     */
+    static final class BucketAccumulator {
+
+        private long count;
+        private long sum;
+        private Integer min;
+        private Integer max;
+
+        void add(BucketTotals totals) {
+            add(totals.getRowCount(), totals.getTotal(), totals.getMinimum(), totals.getMaximum());
+        }
+
+        void add(long count, long sum, Integer min, Integer max) {
+            if (count == 0) {
+                return;
+            }
+            this.count += count;
+            this.sum += sum;
+            this.min = this.min == null || (min != null && min < this.min) ? min : this.min;
+            this.max = this.max == null || (max != null && max > this.max) ? max : this.max;
+        }
+
+        ProductionLaitAggregateDTO toDTO(Instant bucketStart, Instant bucketEnd) {
+            return new ProductionLaitAggregateDTO(bucketStart, bucketEnd, count, sum, min, max);
+        }
+    }
+}
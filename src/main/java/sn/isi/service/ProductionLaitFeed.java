@@ -0,0 +1,204 @@
+package sn.isi.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.repository.SyncRepository;
+import sn.isi.service.dto.ProductionLaitFeedSummaryDTO;
+
+/**
+ * Live feed of the committed productionLaits, shared by all its subscribers.
+ * <p>
+ * While there are subscribers, the productions committed since the last read are read once every
+ * {@code application.feed.poll-interval-ms}, in commit order thanks to their sync versions, and added to the buffer
+ * of each subscriber: the database work doesn't depend on the number of subscribers. Each subscriber is sent its
+ * buffer from its own thread, so that a slow one only fills its own bounded buffer, and its
+ * {@link FeedOverflowPolicy} decides what to do with the oldest productions.
+ */
+@Service
+public class ProductionLaitFeed {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitFeed.class);
+
+    /**
+     * Receiver of the productions of a subscription.
+     */
+    public interface Sink {
+        void send(ProductionLait productionLait) throws IOException;
+
+        void sendSummary(ProductionLaitFeedSummaryDTO summary) throws IOException;
+    }
+
+    private final ProductionLaitRepository productionLaitRepository;
+
+    private final SyncRepository syncRepository;
+
+    private final int pageSize;
+
+    private final int bufferSize;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders;
+
+    private final Counter overflowCounter;
+
+    /**
+     * The position of the last read production, or a negative version while there are no subscribers.
+     */
+    private long syncVersion = -1;
+
+    private long id;
+
+    public ProductionLaitFeed(
+        ProductionLaitRepository productionLaitRepository,
+        SyncRepository syncRepository,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitRepository = productionLaitRepository;
+        this.syncRepository = syncRepository;
+        this.pageSize = applicationProperties.getFeed().getPageSize();
+        this.bufferSize = applicationProperties.getFeed().getBufferSize();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders =
+            Executors.newCachedThreadPool(
+                runnable -> {
+                    Thread thread = new Thread(runnable, "production-lait-feed-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            );
+        this.overflowCounter = Counter.builder("production.feed.overflows").register(meterRegistry);
+        Gauge.builder("production.feed.subscribers", subscriptions, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Subscribe to the productions committed from now on.
+     *
+     * @param overflowPolicy what to do when the subscriber is too slow.
+     * @param sink the receiver of the productions, called from one thread at a time.
+     * @return the subscription, to close once the subscriber is gone.
+     */
+    public synchronized Subscription subscribe(FeedOverflowPolicy overflowPolicy, Sink sink) {
+        if (syncVersion < 0) {
+            syncVersion = syncRepository.findCommittedVersion();
+            id = Long.MAX_VALUE;
+        }
+        Subscription subscription = new Subscription(new ProductionLaitFeedBuffer(bufferSize, overflowPolicy), sink);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Read the productions committed since the last read, and add them to the buffers of the subscribers.
+     */
+    @Scheduled(fixedDelayString = "${application.feed.poll-interval-ms:1000}")
+    public synchronized void poll() {
+        if (subscriptions.isEmpty()) {
+            syncVersion = -1;
+            return;
+        }
+        try {
+            long version = syncRepository.findCommittedVersion();
+            List<ProductionLait> page;
+            do {
+                page =
+                    productionLaitRepository.findAllAfterOrderBySyncVersionAndId(syncVersion, id, version, PageRequest.of(0, pageSize));
+                for (ProductionLait productionLait : page) {
+                    for (Subscription subscription : subscriptions) {
+                        subscription.offer(productionLait);
+                    }
+                    syncVersion = productionLait.getSyncVersion();
+                    id = productionLait.getId();
+                }
+            } while (page.size() == pageSize);
+        } catch (DataAccessException e) {
+            log.warn("Could not read the ProductionLait feed, retrying later: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * A subscription to the feed.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final ProductionLaitFeedBuffer buffer;
+
+        private final Sink sink;
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Subscription(ProductionLaitFeedBuffer buffer, Sink sink) {
+            this.buffer = buffer;
+            this.sink = sink;
+        }
+
+        private void offer(ProductionLait productionLait) {
+            if (!buffer.offer(productionLait)) {
+                overflowCounter.increment();
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                while (!closed) {
+                    ProductionLaitFeedSummaryDTO summary = buffer.pollSummary();
+                    if (summary != null) {
+                        sink.sendSummary(summary);
+                    }
+                    ProductionLait productionLait = buffer.poll();
+                    if (productionLait != null) {
+                        sink.send(productionLait);
+                    } else if (summary == null) {
+                        sending.set(false);
+                        // A production may have been offered after the last poll, and before the flag was cleared
+                        if (buffer.isEmpty() || !sending.compareAndSet(false, true)) {
+                            return;
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing a ProductionLait feed subscription: {}", e.getMessage());
+                close();
+            }
+        }
+
+        /**
+         * Stop sending productions to the subscriber.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+}
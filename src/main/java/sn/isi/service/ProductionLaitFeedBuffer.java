@@ -0,0 +1,66 @@
+package sn.isi.service;
+
+import java.util.ArrayDeque;
+import sn.isi.domain.ProductionLait;
+import sn.isi.service.dto.ProductionLaitFeedSummaryDTO;
+
+/**
+ * Bounded buffer of the productions not yet sent to a subscriber of the live feed.
+ */
+final class ProductionLaitFeedBuffer {
+
+    private final int capacity;
+
+    private final FeedOverflowPolicy overflowPolicy;
+
+    private final ArrayDeque<ProductionLait> productionLaits;
+
+    private ProductionLaitFeedSummaryDTO summary;
+
+    ProductionLaitFeedBuffer(int capacity, FeedOverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.productionLaits = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Add a production, making room for it if the buffer is full.
+     *
+     * @param productionLait the production.
+     * @return false if the oldest production was dropped or coalesced to make room.
+     */
+    synchronized boolean offer(ProductionLait productionLait) {
+        boolean overflow = productionLaits.size() == capacity;
+        if (overflow) {
+            ProductionLait oldest = productionLaits.removeFirst();
+            if (overflowPolicy == FeedOverflowPolicy.COALESCE) {
+                if (summary == null) {
+                    summary = new ProductionLaitFeedSummaryDTO();
+                }
+                summary.add(oldest.getQuantite(), oldest.getDateproduction());
+            }
+        }
+        productionLaits.addLast(productionLait);
+        return !overflow;
+    }
+
+    /**
+     * @return the summary of the coalesced productions, which are older than the buffered ones, or null.
+     */
+    synchronized ProductionLaitFeedSummaryDTO pollSummary() {
+        ProductionLaitFeedSummaryDTO result = summary;
+        summary = null;
+        return result;
+    }
+
+    /**
+     * @return the oldest buffered production, or null.
+     */
+    synchronized ProductionLait poll() {
+        return productionLaits.pollFirst();
+    }
+
+    synchronized boolean isEmpty() {
+        return summary == null && productionLaits.isEmpty();
+    }
+}
@@ -0,0 +1,497 @@
+package sn.isi.service;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitScanRepository;
+
+/**
+ * In-process columnar copy of the recent {@link ProductionLait} rows, enabled by {@code application.hot-tier.enabled}.
+ * <p>
+ * The rows of the last {@code application.hot-tier.days} days are held in primitive arrays sorted by date and id,
+ * with prefix sums of the quantities, so that the count and total of any range take two binary searches. Readers
+ * get an immutable {@link Snapshot} without locking; writers copy the arrays into a new snapshot and publish it.
+ * <p>
+ * Writes are applied once their transaction is committed, so the tier never shows uncommitted rows. Commits are
+ * queued, and whichever thread gets the write lock applies all the queued ones in a single copy, so concurrent
+ * commits don't copy the arrays once each. Until the initial load is done, no range is covered and all the queries
+ * go to the database.
+ */
+@Service
+public class ProductionLaitHotTier {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitHotTier.class);
+
+    private final ProductionLaitScanRepository productionLaitScanRepository;
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Changes committed and not applied yet.
+     */
+    private final ConcurrentLinkedQueue<Change> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Changes committed while the initial load runs, applied once it's done.
+     */
+    private List<Change> backlog;
+
+    private volatile Snapshot snapshot;
+
+    public ProductionLaitHotTier(ProductionLaitScanRepository productionLaitScanRepository, ApplicationProperties applicationProperties) {
+        this.productionLaitScanRepository = productionLaitScanRepository;
+        this.enabled = applicationProperties.getHotTier().isEnabled();
+        this.window = Duration.ofDays(applicationProperties.getHotTier().getDays());
+    }
+
+    /**
+     * Load the recent rows, in the background.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            backlog = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+        long windowStart = currentWindowStart();
+        log.info("Loading the ProductionLait hot tier from {}", Instant.ofEpochMilli(windowStart));
+        LongArrayList dates = new LongArrayList();
+        LongArrayList ids = new LongArrayList();
+        IntArrayList quantites = new IntArrayList();
+        LongArrayList versions = new LongArrayList();
+        LongArrayList syncVersions = new LongArrayList();
+        productionLaitScanRepository.scanWithVersions(
+            Instant.ofEpochMilli(windowStart),
+            (id, quantite, dateproduction, version, syncVersion) -> {
+                dates.add(dateproduction.toEpochMilli());
+                ids.add(id);
+                quantites.add(quantite);
+                versions.add(version);
+                syncVersions.add(syncVersion);
+            }
+        );
+        Snapshot loaded = new Snapshot(
+            windowStart,
+            dates.toArray(),
+            ids.toArray(),
+            quantites.toArray(),
+            versions.toArray(),
+            syncVersions.toArray()
+        );
+        writeLock.lock();
+        try {
+            // Changes already seen by the scan are replayed idempotently
+            backlog.addAll(drainQueue());
+            snapshot = loaded.withChanges(backlog, windowStart);
+            backlog = null;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Loaded {} ProductionLaits in the hot tier", snapshot.size());
+    }
+
+    /**
+     * Drop the rows which left the window.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void slideWindow() {
+        writeLock.lock();
+        try {
+            if (snapshot != null && backlog == null) {
+                snapshot = snapshot.withChanges(drainQueue(), currentWindowStart());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private long currentWindowStart() {
+        return Instant.now().minus(window).truncatedTo(ChronoUnit.HOURS).toEpochMilli();
+    }
+
+    /**
+     * Get the current snapshot, if it holds all the rows from a date.
+     *
+     * @param from the date.
+     * @return the snapshot, or empty if the tier is disabled, still loading, or doesn't go back to that date.
+     */
+    public Optional<Snapshot> snapshotFrom(Instant from) {
+        Snapshot current = snapshot;
+        return current != null && from.toEpochMilli() >= current.windowStart ? Optional.of(current) : Optional.empty();
+    }
+
+    /**
+     * Add a productionLait once the current transaction is committed.
+     *
+     * @param productionLait the saved productionLait.
+     */
+    public void recordAddition(ProductionLait productionLait) {
+        // Read once committed, when the versions written at flush are known
+        record(
+            () ->
+                new Change(
+                    productionLait.getDateproduction().toEpochMilli(),
+                    productionLait.getId(),
+                    productionLait.getQuantite(),
+                    productionLait.getVersion(),
+                    productionLait.getSyncVersion()
+                )
+        );
+    }
+
+    /**
+     * Remove a productionLait once the current transaction is committed.
+     *
+     * @param id the id of the productionLait.
+     * @param dateproduction the production date it had.
+     */
+    public void recordRemoval(Long id, Instant dateproduction) {
+        Change change = new Change(dateproduction.toEpochMilli(), id, null, 0, 0);
+        record(() -> change);
+    }
+
+    private void record(Supplier<Change> change) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(Collections.singletonList(change.get()));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Supplier<Change>> pending = (List<Supplier<Change>>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Supplier<Change>> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        TransactionSynchronizationManager.unbindResource(ProductionLaitHotTier.this);
+                        if (status == STATUS_COMMITTED) {
+                            List<Change> committed = new ArrayList<>(changes.size());
+                            changes.forEach(change -> committed.add(change.get()));
+                            apply(committed);
+                        }
+                    }
+                }
+            );
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+    private void apply(List<Change> changes) {
+        queue.addAll(changes);
+        // A thread which can't get the lock leaves its changes to the holder, which checks the queue once unlocked
+        while (!queue.isEmpty() && writeLock.tryLock()) {
+            try {
+                List<Change> batch = drainQueue();
+                if (backlog != null) {
+                    backlog.addAll(batch);
+                } else if (snapshot != null) {
+                    snapshot = snapshot.withChanges(batch, snapshot.windowStart);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private List<Change> drainQueue() {
+        List<Change> changes = new ArrayList<>();
+        for (Change change = queue.poll(); change != null; change = queue.poll()) {
+            changes.add(change);
+        }
+        return changes;
+    }
+
+    /**
+     * An addition, or a removal when {@code quantite} is {@code null}.
+     */
+    static final class Change implements Comparable<Change> {
+
+        private final long date;
+        private final long id;
+        private final Integer quantite;
+        private final long version;
+        private final long syncVersion;
+
+        Change(long date, long id, Integer quantite, long version, long syncVersion) {
+            this.date = date;
+            this.id = id;
+            this.quantite = quantite;
+            this.version = version;
+            this.syncVersion = syncVersion;
+        }
+
+        @Override
+        public int compareTo(Change other) {
+            int result = Long.compare(date, other.date);
+            return result != 0 ? result : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Totals of the quantities of a range; minimum and maximum are only meaningful when the count is positive.
+     */
+    public static final class RangeTotals {
+
+        private final long count;
+        private final long sum;
+        private final int min;
+        private final int max;
+
+        RangeTotals(long count, long sum, int min, int max) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+    }
+
+    /**
+     * Immutable columns of the rows from {@code windowStart}, sorted by date and id.
+     * <p>
+     * Minimum and maximum are kept per block of {@value #BLOCK_SIZE} rows, so that those of a range only scan its
+     * first and last blocks.
+     */
+    public static final class Snapshot {
+
+        static final int BLOCK_SIZE = 64;
+
+        private final long windowStart;
+        private final long[] dates;
+        private final long[] ids;
+        private final int[] quantites;
+        private final long[] versions;
+        private final long[] syncVersions;
+        private final long[] prefixSums;
+        private final int[] blockMins;
+        private final int[] blockMaxs;
+
+        Snapshot(long windowStart, long[] dates, long[] ids, int[] quantites, long[] versions, long[] syncVersions) {
+            this.windowStart = windowStart;
+            this.dates = dates;
+            this.ids = ids;
+            this.quantites = quantites;
+            this.versions = versions;
+            this.syncVersions = syncVersions;
+            this.prefixSums = new long[quantites.length + 1];
+            int blocks = (quantites.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            this.blockMins = new int[blocks];
+            this.blockMaxs = new int[blocks];
+            Arrays.fill(blockMins, Integer.MAX_VALUE);
+            Arrays.fill(blockMaxs, Integer.MIN_VALUE);
+            for (int i = 0; i < quantites.length; i++) {
+                prefixSums[i + 1] = prefixSums[i] + quantites[i];
+                blockMins[i / BLOCK_SIZE] = Math.min(blockMins[i / BLOCK_SIZE], quantites[i]);
+                blockMaxs[i / BLOCK_SIZE] = Math.max(blockMaxs[i / BLOCK_SIZE], quantites[i]);
+            }
+        }
+
+        public int size() {
+            return dates.length;
+        }
+
+        /**
+         * @param index the index of a row.
+         * @return the date of the row.
+         */
+        public Instant dateAt(int index) {
+            return Instant.ofEpochMilli(dates[index]);
+        }
+
+        /**
+         * @param date a date.
+         * @return the index of the first row at or after the date.
+         */
+        public int indexOf(Instant date) {
+            return lowerBound(date.toEpochMilli(), Long.MIN_VALUE);
+        }
+
+        /**
+         * @param date a date.
+         * @param id an id.
+         * @return the index of the first row after {@code (date, id)}.
+         */
+        public int indexAfter(Instant date, long id) {
+            return id == Long.MAX_VALUE ? indexOf(date.plusMillis(1)) : lowerBound(date.toEpochMilli(), id + 1);
+        }
+
+        /**
+         * @return the index of the first row at or after {@code (date, id)}.
+         */
+        private int lowerBound(long date, long id) {
+            int low = 0;
+            int high = dates.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (dates[middle] < date || (dates[middle] == date && ids[middle] < id)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * @param from the start of the range, inclusive.
+         * @param to the end of the range, exclusive.
+         * @return the totals of the range.
+         */
+        public RangeTotals totals(Instant from, Instant to) {
+            int start = indexOf(from);
+            int end = Math.max(start, indexOf(to));
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            int i = start;
+            while (i < end) {
+                if (i % BLOCK_SIZE == 0 && i + BLOCK_SIZE <= end) {
+                    min = Math.min(min, blockMins[i / BLOCK_SIZE]);
+                    max = Math.max(max, blockMaxs[i / BLOCK_SIZE]);
+                    i += BLOCK_SIZE;
+                } else {
+                    min = Math.min(min, quantites[i]);
+                    max = Math.max(max, quantites[i]);
+                    i++;
+                }
+            }
+            return new RangeTotals(end - start, prefixSums[end] - prefixSums[start], min, max);
+        }
+
+        /**
+         * @param start the index of the first row, inclusive.
+         * @param end the index of the last row, exclusive.
+         * @return new, detached, productionLaits for the rows.
+         */
+        public List<ProductionLait> rows(int start, int end) {
+            List<ProductionLait> rows = new ArrayList<>(Math.max(end - start, 0));
+            for (int i = start; i < end; i++) {
+                ProductionLait productionLait = new ProductionLait().quantite(quantites[i]).dateproduction(Instant.ofEpochMilli(dates[i]));
+                productionLait.setId(ids[i]);
+                productionLait.setVersion(versions[i]);
+                productionLait.setSyncVersion(syncVersions[i]);
+                rows.add(productionLait);
+            }
+            return rows;
+        }
+
+        /**
+         * Copy the snapshot with changes applied.
+         * <p>
+         * Only the last change of each row counts, and changes are idempotent: adding an existing row replaces it,
+         * and removing a missing row does nothing.
+         *
+         * @param changes the changes, in the order they were made.
+         * @param newWindowStart the start of the window of the copy, rows before it are dropped.
+         * @return the new snapshot.
+         */
+        Snapshot withChanges(List<Change> changes, long newWindowStart) {
+            Map<Change, Change> lastChanges = new TreeMap<>();
+            for (Change change : changes) {
+                lastChanges.put(change, change);
+            }
+            int first = lowerBound(newWindowStart, Long.MIN_VALUE);
+            int capacity = dates.length - first + lastChanges.size();
+            long[] newDates = new long[capacity];
+            long[] newIds = new long[capacity];
+            int[] newQuantites = new int[capacity];
+            long[] newVersions = new long[capacity];
+            long[] newSyncVersions = new long[capacity];
+            int size = 0;
+            int i = first;
+            Iterator<Change> iterator = lastChanges.values().iterator();
+            Change change = iterator.hasNext() ? iterator.next() : null;
+            while (i < dates.length || change != null) {
+                int comparison;
+                if (change == null) {
+                    comparison = -1;
+                } else if (i == dates.length) {
+                    comparison = 1;
+                } else {
+                    comparison = dates[i] != change.date ? Long.compare(dates[i], change.date) : Long.compare(ids[i], change.id);
+                }
+                if (comparison < 0) {
+                    // The row is kept as is
+                    newDates[size] = dates[i];
+                    newIds[size] = ids[i];
+                    newQuantites[size] = quantites[i];
+                    newVersions[size] = versions[i];
+                    newSyncVersions[size++] = syncVersions[i++];
+                    continue;
+                }
+                if (change.quantite != null && change.date >= newWindowStart) {
+                    newDates[size] = change.date;
+                    newIds[size] = change.id;
+                    newQuantites[size] = change.quantite;
+                    newVersions[size] = change.version;
+                    newSyncVersions[size++] = change.syncVersion;
+                }
+                if (comparison == 0) {
+                    i++;
+                }
+                change = iterator.hasNext() ? iterator.next() : null;
+            }
+            return new Snapshot(
+                Math.max(windowStart, newWindowStart),
+                Arrays.copyOf(newDates, size),
+                Arrays.copyOf(newIds, size),
+                Arrays.copyOf(newQuantites, size),
+                Arrays.copyOf(newVersions, size),
+                Arrays.copyOf(newSyncVersions, size)
+            );
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package sn.isi.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitImportJobRepository;
+import sn.isi.repository.ProductionLaitImportJobRepository.Checkpoint;
+import sn.isi.repository.ProductionLaitImportJobRepository.ImportJob;
+import sn.isi.repository.ProductionLaitImportJobRepository.ImportStatus;
+import sn.isi.service.dto.ProductionLaitImportJobDTO;
+
+/**
+ * Service importing {@link ProductionLait} CSV files in the background.
+ * <p>
+ * The files are in the format of {@code config/liquibase/fake-data/production_lait.csv}: {@code ;}-separated, with a
+ * header naming the {@code quantite} and {@code dateproduction} columns, other columns being ignored. Dates without
+ * offset are in UTC, like the database ones.
+ * <p>
+ * An uploaded file, of at most {@code application.ingestion.max-import-size}, is kept in
+ * {@code application.ingestion.import-directory} and imported on the {@code taskExecutor}.
+ * Its lines are inserted by chunks of {@code application.ingestion.chunk-size}, each committed with the checkpoint
+ * of the job, so an interrupted import resumes after its last committed chunk: when the application starts again,
+ * or on request once failed. Invalid lines are counted and skipped.
+ */
+@Service
+public class ProductionLaitImportService {
+
+    /**
+     * Upload of a file.
+     */
+    @FunctionalInterface
+    public interface Upload {
+        void transferTo(Path file) throws IOException;
+    }
+
+    private static final char SEPARATOR = ';';
+
+    private static final int MAX_LINE_LENGTH = 4096;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitImportService.class);
+
+    private final ProductionLaitImportJobRepository productionLaitImportJobRepository;
+
+    private final ProductionLaitIngestionService productionLaitIngestionService;
+
+    private final Executor taskExecutor;
+
+    private final Path directory;
+
+    private final int chunkSize;
+
+    private final long maxImportBytes;
+
+    /**
+     * The jobs running in this instance, so that a job never runs twice at the same time.
+     */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public ProductionLaitImportService(
+        ProductionLaitImportJobRepository productionLaitImportJobRepository,
+        ProductionLaitIngestionService productionLaitIngestionService,
+        @Qualifier("taskExecutor") Executor taskExecutor,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitImportJobRepository = productionLaitImportJobRepository;
+        this.productionLaitIngestionService = productionLaitIngestionService;
+        this.taskExecutor = taskExecutor;
+        this.directory = Paths.get(applicationProperties.getIngestion().getImportDirectory());
+        this.chunkSize = applicationProperties.getIngestion().getChunkSize();
+        this.maxImportBytes = applicationProperties.getIngestion().getMaxImportSize().toBytes();
+    }
+
+    /**
+     * Store an uploaded file, and queue its import.
+     *
+     * @param fileName the name of the uploaded file.
+     * @param size the size of the uploaded file, in bytes.
+     * @param upload the transfer of the file to the import directory.
+     * @return the new job.
+     * @throws IOException if the file can't be stored.
+     * @throws IllegalArgumentException if the file is larger than {@code application.ingestion.max-import-size}.
+     */
+    public ProductionLaitImportJobDTO submit(String fileName, long size, Upload upload) throws IOException {
+        checkSize(size);
+        String id = UUID.randomUUID().toString();
+        log.debug("Request to import ProductionLaits from {} as job {}", fileName, id);
+        Files.createDirectories(directory);
+        Path file = file(id);
+        try {
+            upload.transferTo(file);
+            long transferred = Files.size(file);
+            checkSize(transferred);
+            productionLaitImportJobRepository.create(id, fileName, transferred, Instant.now());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        schedule(id);
+        return findOne(id).orElseThrow();
+    }
+
+    private void checkSize(long size) {
+        if (size > maxImportBytes) {
+            throw new IllegalArgumentException("The file is larger than " + maxImportBytes + " bytes");
+        }
+    }
+
+    /**
+     * Get the progress of a job.
+     *
+     * @param id the id of the job.
+     * @return the job, as of its last committed chunk.
+     */
+    public Optional<ProductionLaitImportJobDTO> findOne(String id) {
+        return productionLaitImportJobRepository.find(id).map(this::toDto);
+    }
+
+    /**
+     * Resume a failed job from its last committed chunk.
+     *
+     * @param id the id of the job.
+     * @return false if the job hasn't failed, or its file isn't in this instance.
+     */
+    public boolean resume(String id) {
+        if (!Files.exists(file(id)) || !productionLaitImportJobRepository.requeueFailed(id)) {
+            return false;
+        }
+        log.debug("Request to resume the ProductionLait import job {}", id);
+        schedule(id);
+        return true;
+    }
+
+    /**
+     * Resume the jobs interrupted by the last shutdown.
+     * <p>
+     * Only the jobs whose file is in the import directory are resumed, as the others belong to another instance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        for (String id : productionLaitImportJobRepository.findUnfinishedIds()) {
+            if (Files.exists(file(id))) {
+                log.info("Resuming the ProductionLait import job {}", id);
+                schedule(id);
+            }
+        }
+    }
+
+    private void schedule(String id) {
+        try {
+            taskExecutor.execute(() -> run(id));
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not queue the ProductionLait import job {}: {}", id, e.getMessage());
+            productionLaitImportJobRepository.markFinished(id, ImportStatus.FAILED, "The import queue is full", Instant.now());
+        }
+    }
+
+    private void run(String id) {
+        if (!running.add(id)) {
+            return;
+        }
+        try {
+            Optional<ImportJob> job = productionLaitImportJobRepository.find(id);
+            if (job.isEmpty() || job.get().getStatus() == ImportStatus.COMPLETED || job.get().getStatus() == ImportStatus.FAILED) {
+                return;
+            }
+            productionLaitImportJobRepository.markRunning(id, Instant.now());
+            String error = importFile(job.get());
+            productionLaitImportJobRepository.markFinished(
+                id,
+                error == null ? ImportStatus.COMPLETED : ImportStatus.FAILED,
+                error,
+                Instant.now()
+            );
+            if (error == null) {
+                Files.deleteIfExists(file(id));
+            }
+            log.info("Finished the ProductionLait import job {}", id);
+        } catch (InterruptedException e) {
+            // Left running, to be resumed at the next start
+            log.info("Interrupted the ProductionLait import job {}", id);
+            Thread.currentThread().interrupt();
+        } catch (IOException | UncheckedIOException | DataAccessException | TransactionException e) {
+            log.warn("The ProductionLait import job {} failed: {}", id, e.getMessage());
+            try {
+                productionLaitImportJobRepository.markFinished(id, ImportStatus.FAILED, e.getMessage(), Instant.now());
+            } catch (DataAccessException | TransactionException e2) {
+                log.warn("Could not mark the ProductionLait import job {} as failed, it resumes at the next start", id);
+            }
+        } finally {
+            running.remove(id);
+        }
+    }
+
+    /**
+     * Import the lines after the checkpoint of a job.
+     *
+     * @return the error failing the job, or null if it completed.
+     */
+    private String importFile(ImportJob job) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file(job.getId()), StandardOpenOption.READ)) {
+            LineReader reader = new LineReader(Channels.newInputStream(channel), 0);
+            String header = reader.readLine();
+            if (header == null) {
+                return null;
+            }
+            int[] columns = parseHeader(header);
+            if (columns == null) {
+                return "The header must name the quantite and dateproduction columns";
+            }
+            long lineNumber = Math.max(job.getLineNumber(), 1);
+            if (job.getOffset() > reader.getOffset()) {
+                channel.position(job.getOffset());
+                reader = new LineReader(Channels.newInputStream(channel), job.getOffset());
+            }
+            long importedRows = job.getImportedRows();
+            long errorCount = job.getErrorCount();
+            String lastError = job.getLastError();
+            List<ProductionLait> chunk = new ArrayList<>(chunkSize);
+            for (String line; (line = reader.readLine()) != null;) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(parseLine(line, columns, reader.isTruncated()));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    errorCount++;
+                    lastError = "Line " + lineNumber + ": " + e.getMessage();
+                }
+                if (chunk.size() == chunkSize) {
+                    importedRows += chunk.size();
+                    Checkpoint checkpoint = new Checkpoint(reader.getOffset(), lineNumber, importedRows, errorCount, lastError);
+                    productionLaitIngestionService.saveImported(chunk, job.getId(), checkpoint);
+                    chunk.clear();
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+            importedRows += chunk.size();
+            Checkpoint checkpoint = new Checkpoint(reader.getOffset(), lineNumber, importedRows, errorCount, lastError);
+            productionLaitIngestionService.saveImported(chunk, job.getId(), checkpoint);
+            return null;
+        }
+    }
+
+    private static int[] parseHeader(String header) {
+        // Without the byte order mark some editors write
+        String[] names = (header.startsWith("\uFEFF") ? header.substring(1) : header).split(String.valueOf(SEPARATOR), -1);
+        int[] columns = { -1, -1 };
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i].strip();
+            if ("quantite".equalsIgnoreCase(name)) {
+                columns[0] = i;
+            } else if ("dateproduction".equalsIgnoreCase(name)) {
+                columns[1] = i;
+            }
+        }
+        return columns[0] < 0 || columns[1] < 0 ? null : columns;
+    }
+
+    private static ProductionLait parseLine(String line, int[] columns, boolean truncated) {
+        if (truncated) {
+            throw new IllegalArgumentException("Line longer than " + MAX_LINE_LENGTH + " characters");
+        }
+        String[] values = line.split(String.valueOf(SEPARATOR), -1);
+        if (values.length <= Math.max(columns[0], columns[1])) {
+            throw new IllegalArgumentException("Missing columns");
+        }
+        int quantite;
+        try {
+            quantite = Integer.parseInt(values[columns[0]].strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantite: " + values[columns[0]]);
+        }
+        if (quantite < 0) {
+            throw new IllegalArgumentException("Negative quantite: " + quantite);
+        }
+        return new ProductionLait().quantite(quantite).dateproduction(parseDate(values[columns[1]].strip()));
+    }
+
+    private static Instant parseDate(String value) {
+        TemporalAccessor date = DateTimeFormatter.ISO_DATE_TIME.parseBest(value, OffsetDateTime::from, LocalDateTime::from);
+        if (date instanceof OffsetDateTime) {
+            return ((OffsetDateTime) date).toInstant();
+        }
+        return ((LocalDateTime) date).toInstant(ZoneOffset.UTC);
+    }
+
+    private Path file(String id) {
+        return directory.resolve(id + ".csv");
+    }
+
+    private ProductionLaitImportJobDTO toDto(ImportJob job) {
+        ProductionLaitImportJobDTO dto = new ProductionLaitImportJobDTO();
+        dto.setId(job.getId());
+        dto.setFileName(job.getFileName());
+        dto.setStatus(job.getStatus());
+        dto.setTotalBytes(job.getTotalBytes());
+        dto.setProcessedBytes(job.getOffset());
+        dto.setLineNumber(job.getLineNumber());
+        dto.setImportedRows(job.getImportedRows());
+        dto.setErrorCount(job.getErrorCount());
+        dto.setLastError(job.getLastError());
+        dto.setCreatedDate(job.getCreatedDate());
+        dto.setStartedDate(job.getStartedDate());
+        dto.setFinishedDate(job.getFinishedDate());
+        if (job.getStartedDate() != null) {
+            Instant end = job.getFinishedDate() != null ? job.getFinishedDate() : Instant.now();
+            long millis = Math.max(Duration.between(job.getStartedDate(), end).toMillis(), 1);
+            dto.setRowsPerSecond((job.getImportedRows() - job.getStartedRows()) * 1000.0 / millis);
+        }
+        return dto;
+    }
+
+    /**
+     * Reader of the lines of a file, keeping the offset in bytes of the next line.
+     */
+    private static final class LineReader {
+
+        private final InputStream in;
+
+        private final byte[] line = new byte[MAX_LINE_LENGTH];
+
+        private long offset;
+
+        private boolean truncated;
+
+        LineReader(InputStream in, long offset) {
+            this.in = new BufferedInputStream(in, READ_BUFFER_SIZE);
+            this.offset = offset;
+        }
+
+        /**
+         * @return the next line without its end, or null at the end of the file.
+         */
+        String readLine() throws IOException {
+            int length = 0;
+            truncated = false;
+            int b = in.read();
+            if (b < 0) {
+                return null;
+            }
+            for (; b >= 0 && b != '\n'; b = in.read()) {
+                offset++;
+                if (length < line.length) {
+                    line[length++] = (byte) b;
+                } else {
+                    truncated = true;
+                }
+            }
+            if (b == '\n') {
+                offset++;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return whether the last line was longer than {@link #MAX_LINE_LENGTH} bytes.
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+    }
+}
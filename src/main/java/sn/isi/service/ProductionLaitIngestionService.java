@@ -0,0 +1,91 @@
+package sn.isi.service;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitImportJobRepository;
+import sn.isi.repository.ProductionLaitImportJobRepository.Checkpoint;
+import sn.isi.repository.ProductionLaitJournal.Position;
+import sn.isi.repository.ProductionLaitJournalCheckpointRepository;
+
+/**
+ * Service for the bulk ingestion of {@link ProductionLait}.
+ */
+@Service
+@Transactional
+public class ProductionLaitIngestionService {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitIngestionService.class);
+
+    private final EntityManager entityManager;
+
+    private final ProductionLaitRollupService productionLaitRollupService;
+
+    private final ProductionLaitJournalCheckpointRepository productionLaitJournalCheckpointRepository;
+
+    private final ProductionLaitImportJobRepository productionLaitImportJobRepository;
+
+    public ProductionLaitIngestionService(
+        EntityManager entityManager,
+        ProductionLaitRollupService productionLaitRollupService,
+        ProductionLaitJournalCheckpointRepository productionLaitJournalCheckpointRepository,
+        ProductionLaitImportJobRepository productionLaitImportJobRepository
+    ) {
+        this.entityManager = entityManager;
+        this.productionLaitRollupService = productionLaitRollupService;
+        this.productionLaitJournalCheckpointRepository = productionLaitJournalCheckpointRepository;
+        this.productionLaitImportJobRepository = productionLaitImportJobRepository;
+    }
+
+    /**
+     * Insert a chunk of new, already validated, productionLaits in one transaction.
+     * <p>
+     * Ids come from the pooled sequence, so the inserts are only sent at flush, in JDBC batches of
+     * {@code hibernate.jdbc.batch_size}. The new rows are not put in the second-level cache, as a bulk load
+     * would only evict the entries that are actually read.
+     *
+     * @param productionLaits the productionLaits to insert, without ids.
+     * @return the inserted productionLaits, with their ids.
+     */
+    public List<ProductionLait> saveChunk(List<ProductionLait> productionLaits) {
+        log.debug("Request to insert a chunk of {} ProductionLaits", productionLaits.size());
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.GET);
+        for (ProductionLait productionLait : productionLaits) {
+            entityManager.persist(productionLait);
+        }
+        entityManager.flush();
+        productionLaitRollupService.recordAdditions(productionLaits);
+        entityManager.clear();
+        return productionLaits;
+    }
+
+    /**
+     * Insert productionLaits read from the journal, and move its checkpoint past them in the same transaction.
+     *
+     * @param productionLaits the productionLaits to insert, without ids.
+     * @param checkpoint the journal position after their records.
+     */
+    public void saveJournaled(List<ProductionLait> productionLaits, Position checkpoint) {
+        saveChunk(productionLaits);
+        productionLaitJournalCheckpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Insert productionLaits read from a CSV import, and move the checkpoint of its job past them in the same
+     * transaction.
+     *
+     * @param productionLaits the productionLaits to insert, without ids.
+     * @param jobId the id of the import job.
+     * @param checkpoint the progress of the job after their lines.
+     */
+    public void saveImported(List<ProductionLait> productionLaits, String jobId, Checkpoint checkpoint) {
+        saveChunk(productionLaits);
+        productionLaitImportJobRepository.saveCheckpoint(jobId, checkpoint);
+    }
+}
@@ -0,0 +1,112 @@
+package sn.isi.service;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitJournal;
+import sn.isi.repository.ProductionLaitJournal.Position;
+import sn.isi.repository.ProductionLaitJournalCheckpointRepository;
+
+/**
+ * Background replay of the {@link ProductionLaitJournal} into the database.
+ * <p>
+ * Records are inserted in batches of {@code application.journal.replay-batch-size}, each with the checkpoint it
+ * reaches, so that nothing is inserted twice after a failure or a restart. While the database is unreachable,
+ * the replay stops and is retried after {@code replay-interval-ms}; the records stay in the journal meanwhile.
+ * <p>
+ * A sealed segment which can't be read is quarantined and skipped, so that it doesn't stall the replay of the
+ * following ones.
+ */
+@Service
+public class ProductionLaitJournalReplayer {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitJournalReplayer.class);
+
+    private final ProductionLaitJournal productionLaitJournal;
+
+    private final ProductionLaitJournalCheckpointRepository productionLaitJournalCheckpointRepository;
+
+    private final ProductionLaitIngestionService productionLaitIngestionService;
+
+    private final int batchSize;
+
+    /**
+     * The checkpoint as last committed, or null when it must be read again.
+     */
+    private Position checkpoint;
+
+    public ProductionLaitJournalReplayer(
+        ProductionLaitJournal productionLaitJournal,
+        ProductionLaitJournalCheckpointRepository productionLaitJournalCheckpointRepository,
+        ProductionLaitIngestionService productionLaitIngestionService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitJournal = productionLaitJournal;
+        this.productionLaitJournalCheckpointRepository = productionLaitJournalCheckpointRepository;
+        this.productionLaitIngestionService = productionLaitIngestionService;
+        this.batchSize = applicationProperties.getJournal().getReplayBatchSize();
+    }
+
+    /**
+     * Insert the journaled productionLaits not inserted yet.
+     */
+    @Scheduled(fixedDelayString = "${application.journal.replay-interval-ms:1000}")
+    public synchronized void replay() {
+        if (!productionLaitJournal.isEnabled()) {
+            return;
+        }
+        try {
+            if (checkpoint == null) {
+                checkpoint = productionLaitJournalCheckpointRepository.find();
+            }
+            while (!checkpoint.equals(productionLaitJournal.getEnd())) {
+                List<ProductionLait> batch = new ArrayList<>(batchSize);
+                Position next = productionLaitJournal.read(
+                    checkpoint,
+                    batchSize,
+                    (quantite, dateproduction) -> batch.add(new ProductionLait().quantite(quantite).dateproduction(dateproduction))
+                );
+                if (next.equals(checkpoint)) {
+                    break;
+                }
+                log.debug("Replaying {} journaled ProductionLaits up to {}", batch.size(), next);
+                productionLaitIngestionService.saveJournaled(batch, next);
+                checkpoint = next;
+                productionLaitJournal.deleteBefore(next.getSegment());
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // The batch may or may not be committed: the checkpoint tells
+            checkpoint = null;
+            log.warn("Could not replay the ProductionLait journal, retrying later: {}", e.getMessage());
+        } catch (UncheckedIOException e) {
+            skipUnreadableSegment(e);
+        }
+    }
+
+    private void skipUnreadableSegment(UncheckedIOException e) {
+        long segment = checkpoint.getSegment();
+        if (segment == productionLaitJournal.getEnd().getSegment()) {
+            // The segment being written can't be skipped
+            log.warn("Could not read the ProductionLait journal, retrying later: {}", e.getMessage());
+            return;
+        }
+        log.error("Skipping the unreadable ProductionLait journal segment {}", segment, e);
+        productionLaitJournal.quarantine(segment);
+        try {
+            Position next = new Position(segment + 1, 0);
+            productionLaitJournalCheckpointRepository.save(next);
+            checkpoint = next;
+        } catch (DataAccessException dataAccessException) {
+            checkpoint = null;
+            log.warn("Could not move the ProductionLait journal checkpoint, retrying later: {}", dataAccessException.getMessage());
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import javax.persistence.EntityManager;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.repository.ProductionLaitRepository.BucketTotals;
+import sn.isi.repository.ProductionLaitRollupRepository;
+import sn.isi.repository.ProductionLaitRollupRepository.Granularity;
+import sn.isi.repository.ProductionLaitRollupRepository.Totals;
+import sn.isi.repository.ProductionLaitScanRepository;
+import sn.isi.repository.ProductionLaitSketchRepository;
+
+/**
+ * Service maintaining the daily and monthly rollups, and the daily quantile sketches, of {@link ProductionLait}.
+ * <p>
+ * Every write of a productionLait must be reported here in the same transaction, so that the rollups and sketches
+ * always match the raw table. Writes are also forwarded to the {@link ProductionLaitHotTier}. Rows are always updated
+ * in the same order, so that concurrent transactions wait for each other instead of deadlocking.
+ */
+@Service
+@Transactional
+public class ProductionLaitRollupService {
+
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitRollupService.class);
+
+    private final ProductionLaitRollupRepository productionLaitRollupRepository;
+
+    private final ProductionLaitSketchRepository productionLaitSketchRepository;
+
+    private final ProductionLaitScanRepository productionLaitScanRepository;
+
+    private final ProductionLaitRepository productionLaitRepository;
+
+    private final ProductionLaitHotTier productionLaitHotTier;
+
+    private final EntityManager entityManager;
+
+    private final ZoneId zone;
+
+    private final int shards;
+
+    public ProductionLaitRollupService(
+        ProductionLaitRollupRepository productionLaitRollupRepository,
+        ProductionLaitSketchRepository productionLaitSketchRepository,
+        ProductionLaitScanRepository productionLaitScanRepository,
+        ProductionLaitRepository productionLaitRepository,
+        ProductionLaitHotTier productionLaitHotTier,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitRollupRepository = productionLaitRollupRepository;
+        this.productionLaitSketchRepository = productionLaitSketchRepository;
+        this.productionLaitScanRepository = productionLaitScanRepository;
+        this.productionLaitRepository = productionLaitRepository;
+        this.productionLaitHotTier = productionLaitHotTier;
+        this.entityManager = entityManager;
+        this.zone = ZoneId.of(applicationProperties.getProduction().getZoneId());
+        this.shards = applicationProperties.getProduction().getRollupShards();
+    }
+
+    /**
+     * Warn when the rollups must be rebuilt.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkBuilt() {
+        if (!isBuilt()) {
+            log.warn("The ProductionLait rollups are not built: aggregations read the raw table until they are rebuilt");
+        }
+    }
+
+    /**
+     * @return the zone in which the rollup days and months are computed.
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Tell whether the rollups and sketches hold all the productions.
+     * <p>
+     * They are not when productions were written before they existed, until they are rebuilt: readers must then use
+     * the raw table.
+     *
+     * @return whether the rollups and sketches can be read.
+     */
+    @Transactional(readOnly = true)
+    public boolean isBuilt() {
+        return productionLaitRollupRepository.isBuilt();
+    }
+
+    /**
+     * Add a saved productionLait to the rollups.
+     *
+     * @param productionLait the productionLait, with its id.
+     */
+    public void recordAddition(ProductionLait productionLait) {
+        recordAdditions(Collections.singletonList(productionLait));
+    }
+
+    /**
+     * Add saved productionLaits to the rollups and sketches, with one update per day, month and shard.
+     *
+     * @param productionLaits the productionLaits, with their ids.
+     */
+    public void recordAdditions(Collection<ProductionLait> productionLaits) {
+        Map<RollupKey, RollupAccumulator> rows = new TreeMap<>();
+        Map<RollupKey, Histogram> sketches = new TreeMap<>();
+        for (ProductionLait productionLait : productionLaits) {
+            LocalDate day = productionLait.getDateproduction().atZone(zone).toLocalDate();
+            int shard = shardOf(productionLait.getId());
+            int quantite = productionLait.getQuantite();
+            RollupKey dayKey = new RollupKey(Granularity.DAY, (int) day.toEpochDay(), shard);
+            rows.computeIfAbsent(dayKey, k -> new RollupAccumulator()).add(quantite);
+            rows.computeIfAbsent(new RollupKey(Granularity.MONTH, epochMonth(day), shard), k -> new RollupAccumulator()).add(quantite);
+            recordQuantite(sketches.computeIfAbsent(dayKey, k -> ProductionLaitSketchRepository.newHistogram()), quantite);
+            productionLaitHotTier.recordAddition(productionLait);
+        }
+        rows.forEach(
+            (key, row) -> productionLaitRollupRepository.add(key.granularity, key.key, key.shard, row.count, row.total, row.min, row.max)
+        );
+        sketches.forEach((key, added) -> productionLaitSketchRepository.update(key.key, key.shard, histogram -> histogram.add(added)));
+    }
+
+    /**
+     * Remove a productionLait from the rollups, once it has been deleted or updated.
+     *
+     * @param id the id of the productionLait.
+     * @param quantite the quantity it had.
+     * @param dateproduction the production date it had.
+     */
+    public void recordRemoval(Long id, Integer quantite, Instant dateproduction) {
+        // The minimum and maximum are recomputed from the raw table, which must reflect the removal
+        entityManager.flush();
+        productionLaitHotTier.recordRemoval(id, dateproduction);
+        LocalDate day = dateproduction.atZone(zone).toLocalDate();
+        int shard = shardOf(id);
+        productionLaitRollupRepository.remove(
+            Granularity.DAY,
+            (int) day.toEpochDay(),
+            shard,
+            shards,
+            quantite,
+            day.atStartOfDay(zone).toInstant(),
+            day.plusDays(1).atStartOfDay(zone).toInstant()
+        );
+        LocalDate month = day.withDayOfMonth(1);
+        productionLaitRollupRepository.remove(
+            Granularity.MONTH,
+            epochMonth(month),
+            shard,
+            shards,
+            quantite,
+            month.atStartOfDay(zone).toInstant(),
+            month.plusMonths(1).atStartOfDay(zone).toInstant()
+        );
+        Histogram removed = ProductionLaitSketchRepository.newHistogram();
+        recordQuantite(removed, quantite);
+        productionLaitSketchRepository.updateExisting(
+            (int) day.toEpochDay(),
+            shard,
+            histogram -> {
+                // Productions written before the sketches existed are only in them once they are rebuilt
+                if (histogram.getCountAtValue(removed.getMaxValue()) > 0) {
+                    histogram.subtract(removed);
+                }
+            }
+        );
+    }
+
+    /**
+     * Rebuild all the rollups and sketches from the raw table, and mark them as built.
+     * <p>
+     * Productions written concurrently may be missed: this should run while ingestion is paused.
+     *
+     * @return the number of daily rollup rows.
+     */
+    public int rebuild() {
+        log.debug("Request to rebuild the ProductionLait rollups");
+        productionLaitRollupRepository.deleteAll();
+        productionLaitSketchRepository.deleteAll();
+        productionLaitRollupRepository.markBuilt();
+        Optional<Instant> first = productionLaitRepository.findMinDateproduction();
+        Optional<Instant> last = productionLaitRepository.findMaxDateproduction();
+        if (first.isEmpty() || last.isEmpty()) {
+            return 0;
+        }
+        rebuildSketches(first.get());
+        Map<RollupKey, RollupAccumulator> rows = new HashMap<>();
+        ZoneRules rules = zone.getRules();
+        Instant to = last.get().plusSeconds(1);
+        Instant segmentStart = first.get();
+        while (segmentStart.isBefore(to)) {
+            ZoneOffsetTransition transition = rules.nextTransition(segmentStart);
+            Instant segmentEnd = transition == null || transition.getInstant().isAfter(to) ? to : transition.getInstant();
+            ZoneOffset offset = rules.getOffset(segmentStart);
+            for (BucketTotals totals : productionLaitRepository.aggregateByBucketAndShard(
+                segmentStart,
+                segmentEnd,
+                offset.getTotalSeconds(),
+                SECONDS_PER_DAY,
+                shards
+            )) {
+                LocalDate day = LocalDate.ofEpochDay(totals.getBucket());
+                int shard = totals.getShard();
+                rows
+                    .computeIfAbsent(new RollupKey(Granularity.DAY, (int) day.toEpochDay(), shard), k -> new RollupAccumulator())
+                    .add(totals);
+                rows.computeIfAbsent(new RollupKey(Granularity.MONTH, epochMonth(day), shard), k -> new RollupAccumulator()).add(totals);
+            }
+            segmentStart = segmentEnd;
+        }
+        Map<Granularity, List<Totals>> inserts = new HashMap<>();
+        rows.forEach(
+            (key, row) ->
+                inserts
+                    .computeIfAbsent(key.granularity, k -> new ArrayList<>())
+                    .add(new Totals(key.key, key.shard, row.count, row.total, row.min, row.max))
+        );
+        inserts.forEach(productionLaitRollupRepository::insertAll);
+        return inserts.getOrDefault(Granularity.DAY, Collections.emptyList()).size();
+    }
+
+    private void rebuildSketches(Instant from) {
+        // Productions are read by date, so only the sketches of one day are held in memory
+        Histogram[] daySketches = new Histogram[shards];
+        long[] currentDay = { Long.MIN_VALUE };
+        productionLaitScanRepository.scan(
+            from,
+            (id, quantite, dateproduction) -> {
+                long epochDay = dateproduction.atZone(zone).toLocalDate().toEpochDay();
+                if (epochDay != currentDay[0]) {
+                    insertSketches(currentDay[0], daySketches);
+                    currentDay[0] = epochDay;
+                }
+                int shard = shardOf(id);
+                if (daySketches[shard] == null) {
+                    daySketches[shard] = ProductionLaitSketchRepository.newHistogram();
+                }
+                recordQuantite(daySketches[shard], quantite);
+            }
+        );
+        insertSketches(currentDay[0], daySketches);
+    }
+
+    private void insertSketches(long epochDay, Histogram[] daySketches) {
+        for (int shard = 0; shard < daySketches.length; shard++) {
+            if (daySketches[shard] != null) {
+                productionLaitSketchRepository.insert((int) epochDay, shard, daySketches[shard]);
+                daySketches[shard] = null;
+            }
+        }
+    }
+
+    /**
+     * Record a quantity in a sketch, which can't hold negative values: quantities are validated as positive or zero.
+     *
+     * @param histogram the sketch.
+     * @param quantite the quantity.
+     * @throws IllegalArgumentException if the quantity is negative.
+     */
+    static void recordQuantite(Histogram histogram, int quantite) {
+        if (quantite < 0) {
+            throw new IllegalArgumentException("Negative quantite: " + quantite);
+        }
+        histogram.recordValue(quantite);
+    }
+
+    private int shardOf(Long id) {
+        return (int) Math.floorMod(id, (long) shards);
+    }
+
+    /**
+     * @param date a date.
+     * @return the number of months between January 1970 and the month of the date.
+     */
+    static int epochMonth(LocalDate date) {
+        return (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * @param epochMonth a number of months since January 1970.
+     * @return the first day of the month.
+     */
+    static LocalDate firstDayOfEpochMonth(int epochMonth) {
+        return LocalDate.of(1970 + Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1, 1);
+    }
+
+    private static final class RollupKey implements Comparable<RollupKey> {
+
+        private final Granularity granularity;
+        private final int key;
+        private final int shard;
+
+        RollupKey(Granularity granularity, int key, int shard) {
+            this.granularity = granularity;
+            this.key = key;
+            this.shard = shard;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RollupKey)) {
+                return false;
+            }
+            RollupKey other = (RollupKey) o;
+            return granularity == other.granularity && key == other.key && shard == other.shard;
+        }
+
+        @Override
+        public int hashCode() {
+            return (granularity.hashCode() * 31 + key) * 31 + shard;
+        }
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = granularity.compareTo(other.granularity);
+            if (result == 0) {
+                result = Integer.compare(key, other.key);
+            }
+            return result != 0 ? result : Integer.compare(shard, other.shard);
+        }
+    }
+
+    private static final class RollupAccumulator {
+
+        private long count;
+        private long total;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+
+        void add(int quantite) {
+            count++;
+            total += quantite;
+            min = Math.min(min, quantite);
+            max = Math.max(max, quantite);
+        }
+
+        void add(BucketTotals totals) {
+            count += totals.getRowCount();
+            total += totals.getTotal();
+            min = Math.min(min, totals.getMinimum());
+            max = Math.max(max, totals.getMaximum());
+        }
+    }
+}
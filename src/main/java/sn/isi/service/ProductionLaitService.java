@@ -0,0 +1,262 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.EntityModificationRepository;
+import sn.isi.repository.EntityMultiLoadRepository;
+import sn.isi.repository.ProductionLaitRepository;
+
+/**
+ * Service Implementation for managing {@link ProductionLait}.
+ * <p>
+ * Every write is reported to the {@link ProductionLaitRollupService} in its transaction. Reads run in read-only
+ * transactions: Hibernate loads the entities without the snapshots used for dirty checking, and never flushes the
+ * session.
+ */
+@Service
+@Transactional
+public class ProductionLaitService {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitService.class);
+
+    private final ProductionLaitRepository productionLaitRepository;
+
+    private final EntityModificationRepository entityModificationRepository;
+
+    private final EntityMultiLoadRepository entityMultiLoadRepository;
+
+    private final ProductionLaitRollupService productionLaitRollupService;
+
+    public ProductionLaitService(
+        ProductionLaitRepository productionLaitRepository,
+        EntityModificationRepository entityModificationRepository,
+        EntityMultiLoadRepository entityMultiLoadRepository,
+        ProductionLaitRollupService productionLaitRollupService
+    ) {
+        this.productionLaitRepository = productionLaitRepository;
+        this.entityModificationRepository = entityModificationRepository;
+        this.entityMultiLoadRepository = entityMultiLoadRepository;
+        this.productionLaitRollupService = productionLaitRollupService;
+    }
+
+    /**
+     * Save a new productionLait.
+     *
+     * @param productionLait the entity to save.
+     * @return the persisted entity.
+     */
+    public ProductionLait save(ProductionLait productionLait) {
+        log.debug("Request to save ProductionLait : {}", productionLait);
+        ProductionLait result = productionLaitRepository.save(productionLait);
+        productionLaitRollupService.recordAddition(result);
+        return result;
+    }
+
+    /**
+     * Update a productionLait.
+     * <p>
+     * The productionLait is usually read from the second-level cache, and then written by a single
+     * {@code UPDATE ... WHERE id = ? AND version = ?} statement, of the changed columns only: the rollups are
+     * corrected with the values it was read with.
+     *
+     * @param productionLait the entity to update.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<ProductionLait> update(ProductionLait productionLait, Long expectedVersion) {
+        log.debug("Request to update ProductionLait : {}", productionLait);
+        return productionLaitRepository
+            .findById(productionLait.getId())
+            .map(
+                existingProductionLait -> {
+                    EntityVersions.check(
+                        ProductionLait.class,
+                        existingProductionLait.getId(),
+                        existingProductionLait.getVersion(),
+                        expectedVersion
+                    );
+                    Integer previousQuantite = existingProductionLait.getQuantite();
+                    Instant previousDateproduction = existingProductionLait.getDateproduction();
+                    existingProductionLait.setQuantite(productionLait.getQuantite());
+                    existingProductionLait.setDateproduction(productionLait.getDateproduction());
+
+                    ProductionLait result = productionLaitRepository.saveAndFlush(existingProductionLait);
+                    productionLaitRollupService.recordRemoval(result.getId(), previousQuantite, previousDateproduction);
+                    productionLaitRollupService.recordAddition(result);
+                    return result;
+                }
+            );
+    }
+
+    /**
+     * Partially update a productionLait, like {@link #update}.
+     *
+     * @param productionLait the entity to update partially.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<ProductionLait> partialUpdate(ProductionLait productionLait, Long expectedVersion) {
+        log.debug("Request to partially update ProductionLait : {}", productionLait);
+        return productionLaitRepository
+            .findById(productionLait.getId())
+            .map(
+                existingProductionLait -> {
+                    EntityVersions.check(
+                        ProductionLait.class,
+                        existingProductionLait.getId(),
+                        existingProductionLait.getVersion(),
+                        expectedVersion
+                    );
+                    Integer previousQuantite = existingProductionLait.getQuantite();
+                    Instant previousDateproduction = existingProductionLait.getDateproduction();
+                    if (productionLait.getQuantite() != null) {
+                        existingProductionLait.setQuantite(productionLait.getQuantite());
+                    }
+                    if (productionLait.getDateproduction() != null) {
+                        existingProductionLait.setDateproduction(productionLait.getDateproduction());
+                    }
+
+                    ProductionLait result = productionLaitRepository.saveAndFlush(existingProductionLait);
+                    productionLaitRollupService.recordRemoval(result.getId(), previousQuantite, previousDateproduction);
+                    productionLaitRollupService.recordAddition(result);
+                    return result;
+                }
+            );
+    }
+
+    /**
+     * Get all the productionLaits.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductionLait> findAll(Pageable pageable) {
+        log.debug("Request to get all ProductionLaits");
+        return productionLaitRepository.findAll(pageable);
+    }
+
+    /**
+     * Get the productionLaits of a {@code dateproduction} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductionLait> findAllByDateproduction(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the ProductionLaits from {} to {}", from, to);
+        return productionLaitRepository.findAllByDateproductionGreaterThanEqualAndDateproductionLessThan(from, to, pageable);
+    }
+
+    /**
+     * Get the first keyset page of the productionLaits of a {@code dateproduction} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code dateproduction} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductionLait> findAllOrderByDateproductionAndId(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the first keyset page of ProductionLaits from {} to {}", from, to);
+        return productionLaitRepository.findAllOrderByDateproductionAndId(from, to, pageable);
+    }
+
+    /**
+     * Get the keyset page of the productionLaits following a given one.
+     *
+     * @param dateproduction the {@code dateproduction} of the last productionLait of the previous page.
+     * @param id the id of the last productionLait of the previous page.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code dateproduction} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductionLait> findAllAfterOrderByDateproductionAndId(Instant dateproduction, Long id, Instant to, Pageable pageable) {
+        log.debug("Request to get the keyset page of ProductionLaits after {}, {}", dateproduction, id);
+        return productionLaitRepository.findAllAfterOrderByDateproductionAndId(dateproduction, id, to, pageable);
+    }
+
+    /**
+     * Get the version of one productionLait by id, without loading it.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        log.debug("Request to get the version of ProductionLait : {}", id);
+        return productionLaitRepository.findVersionById(id);
+    }
+
+    /**
+     * Get the last modification of the productionLaits, which changes with every write of one of them.
+     *
+     * @return the version of the last transaction which wrote productionLaits.
+     */
+    @Transactional(readOnly = true)
+    public long findModification() {
+        return entityModificationRepository.findModification(ProductionLait.class);
+    }
+
+    /**
+     * Get the productionLaits of a list of ids.
+     * <p>
+     * The productionLaits in the second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities which exist, in the order of the ids.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductionLait> findAllById(List<Long> ids) {
+        log.debug("Request to get the ProductionLaits : {}", ids);
+        return entityMultiLoadRepository.findAllById(ProductionLait.class, ids);
+    }
+
+    /**
+     * Get one productionLait by id.
+     *
+     * @param id the id of the entity.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ProductionLait> findOne(Long id) {
+        log.debug("Request to get ProductionLait : {}", id);
+        return productionLaitRepository.findById(id);
+    }
+
+    /**
+     * Delete the productionLait by id, if it exists.
+     *
+     * @param id the id of the entity.
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete ProductionLait : {}", id);
+        productionLaitRepository
+            .findById(id)
+            .ifPresent(
+                existingProductionLait -> {
+                    productionLaitRepository.delete(existingProductionLait);
+                    productionLaitRollupService.recordRemoval(
+                        id,
+                        existingProductionLait.getQuantite(),
+                        existingProductionLait.getDateproduction()
+                    );
+                }
+            );
+    }
+}
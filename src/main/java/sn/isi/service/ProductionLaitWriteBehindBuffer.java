@@ -0,0 +1,234 @@
+package sn.isi.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+
+/**
+ * Write-behind buffer of new {@link ProductionLait}, enabled by {@code application.write-behind.enabled}.
+ * <p>
+ * Request threads put validated productions in a bounded {@link RingBuffer} and return; a single flusher thread
+ * inserts them through {@link ProductionLaitIngestionService#saveChunk} as soon as {@code batch-size} of them are
+ * buffered, and at least every {@code flush-interval-ms}. A full buffer rejects the write, so that the
+ * client backs off instead of the heap growing.
+ * <p>
+ * The buffer is stopped after the web server's graceful shutdown, and the flusher only exits once every buffered
+ * production is written.
+ */
+@Service
+public class ProductionLaitWriteBehindBuffer implements SmartLifecycle {
+
+    /**
+     * Stopped after the web server, whose graceful shutdown runs in the default phase, and before the datasource.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 1024;
+
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitWriteBehindBuffer.class);
+
+    private final ProductionLaitIngestionService productionLaitIngestionService;
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final RingBuffer<Pending> buffer;
+
+    /**
+     * Number of threads between their check of {@link #running} and the end of their offer, so that the flusher
+     * doesn't exit while a write can still be added.
+     */
+    private final AtomicInteger producers = new AtomicInteger();
+
+    private volatile boolean running;
+
+    private volatile Thread flusher;
+
+    private volatile Runnable stopCallback;
+
+    public ProductionLaitWriteBehindBuffer(
+        ProductionLaitIngestionService productionLaitIngestionService,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitIngestionService = productionLaitIngestionService;
+        ApplicationProperties.WriteBehind properties = applicationProperties.getWriteBehind();
+        this.enabled = properties.isEnabled();
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        this.buffer = enabled ? new RingBuffer<>(properties.getCapacity()) : null;
+    }
+
+    /**
+     * @return whether the write-behind mode is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffer a new productionLait.
+     *
+     * @param productionLait the validated productionLait to create, without id.
+     * @return a future completed with the productionLait once its batch is committed, or empty if the buffer is
+     * full or stopped.
+     */
+    public Optional<CompletableFuture<ProductionLait>> submit(ProductionLait productionLait) {
+        if (!enabled) {
+            throw new IllegalStateException("The write-behind buffer is disabled");
+        }
+        Pending pending = new Pending(productionLait);
+        producers.incrementAndGet();
+        try {
+            if (!running || !buffer.offer(pending)) {
+                return Optional.empty();
+            }
+        } finally {
+            producers.decrementAndGet();
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return Optional.of(pending.future);
+    }
+
+    /**
+     * @return the number of buffered productionLaits not written yet.
+     */
+    public int size() {
+        return enabled ? buffer.size() : 0;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::flushLoop, "production-lait-write-behind");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+        log.info("Started the ProductionLait write-behind buffer, with {} slots", buffer.capacity());
+    }
+
+    /**
+     * Stop the buffer, and wait for the buffered productions to be written, for at most {@link #STOP_TIMEOUT_SECONDS}.
+     */
+    @Override
+    public void stop() {
+        CountDownLatch stopped = new CountDownLatch(1);
+        stop(stopped::countDown);
+        try {
+            if (!stopped.await(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("The ProductionLait write-behind buffer is still draining {} productions", buffer.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        if (!running) {
+            callback.run();
+            return;
+        }
+        log.info("Draining the {} buffered ProductionLaits", buffer.size());
+        stopCallback = callback;
+        running = false;
+        LockSupport.unpark(flusher);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (true) {
+            // Read before draining, so that a stop seen here can't miss writes added in between
+            boolean stopping = !running && producers.get() == 0;
+            buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (stopping || now - deadline >= 0))) {
+                flush(batch);
+                batch.clear();
+                deadline = System.nanoTime() + flushIntervalNanos;
+            } else if (stopping && buffer.size() == 0) {
+                break;
+            } else if (stopping) {
+                // A claimed slot isn't published yet
+                Thread.yield();
+            } else {
+                if (now - deadline >= 0) {
+                    deadline = now + flushIntervalNanos;
+                }
+                LockSupport.parkNanos(this, deadline - now);
+            }
+        }
+        log.info("Stopped the ProductionLait write-behind buffer");
+        flusher = null;
+        stopCallback.run();
+    }
+
+    private void flush(List<Pending> batch) {
+        log.debug("Flushing {} buffered ProductionLaits", batch.size());
+        try {
+            List<ProductionLait> saved = productionLaitIngestionService.saveChunk(
+                batch.stream().map(pending -> pending.productionLait).collect(Collectors.toList())
+            );
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} buffered ProductionLaits, writing them one by one: {}", batch.size(), e.getMessage());
+            for (Pending pending : batch) {
+                flushOne(pending);
+            }
+        }
+    }
+
+    private void flushOne(Pending pending) {
+        // The id taken from the sequence by the rolled back batch
+        pending.productionLait.setId(null);
+        try {
+            pending.future.complete(productionLaitIngestionService.saveChunk(List.of(pending.productionLait)).get(0));
+        } catch (RuntimeException e) {
+            log.error("Lost the buffered ProductionLait : {}", pending.productionLait, e);
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending {
+
+        private final ProductionLait productionLait;
+
+        private final CompletableFuture<ProductionLait> future = new CompletableFuture<>();
+
+        private Pending(ProductionLait productionLait) {
+            this.productionLait = productionLait;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service reading some fields of the entities of a date range, for sparse fieldsets.
+ * <p>
+ * The fields are compiled into a JPQL tuple query, {@code select e.id, e.quantite from ...}, so that only their
+ * columns are selected: no entity is hydrated, nor put in the persistence context or the second-level cache. Each
+ * row is returned as a map of the fields, in the requested order.
+ */
+@Service
+public class ProjectionService {
+
+    private static final String ID_FIELD = "id";
+
+    private final Logger log = LoggerFactory.getLogger(ProjectionService.class);
+
+    private final EntityManager entityManager;
+
+    public ProjectionService(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param entityClass the class of the entities.
+     * @return the names of the basic fields of the entities, which can be selected and sorted by.
+     */
+    public Set<String> getFieldNames(Class<?> entityClass) {
+        return entityManager
+            .getMetamodel()
+            .entity(entityClass)
+            .getSingularAttributes()
+            .stream()
+            .filter(attribute -> attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+            .map(Attribute::getName)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Get a page of some fields of the entities whose date is in {@code [from, to)}.
+     *
+     * @param entityClass the class of the entities.
+     * @param fields the fields to select.
+     * @param dateField the name of the indexed date field of the entity.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the pagination information, sorted by id when unsorted.
+     * @return the page of rows.
+     * @throws IllegalArgumentException if a field or a sort property is not a basic field of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> findAll(
+        Class<?> entityClass,
+        List<String> fields,
+        String dateField,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    ) {
+        log.debug("Request to get the {} of a page of {}s from {} to {}", fields, entityClass.getSimpleName(), from, to);
+        Set<String> fieldNames = getFieldNames(entityClass);
+        String where = " from " + entityClass.getSimpleName() + " e where e." + dateField + " >= :from and e." + dateField + " < :to";
+        TypedQuery<Tuple> query = entityManager
+            .createQuery("select " + selectClause(fields, fieldNames) + where + orderByClause(pageable.getSort(), fieldNames), Tuple.class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize());
+        List<Map<String, Object>> content = toMaps(query.getResultList(), fields);
+        return PageableExecutionUtils.getPage(
+            content,
+            pageable,
+            () ->
+                entityManager
+                    .createQuery("select count(e)" + where, Long.class)
+                    .setParameter("from", from)
+                    .setParameter("to", to)
+                    .getSingleResult()
+        );
+    }
+
+    /**
+     * Get the first keyset page of some fields of the entities whose date is in {@code [from, to)}.
+     * <p>
+     * The rows also hold the date and the id, to build the cursor of the next page.
+     *
+     * @param entityClass the class of the entities.
+     * @param fields the fields to select.
+     * @param dateField the name of the indexed date field of the entity.
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the rows, ordered by date and id.
+     * @throws IllegalArgumentException if a field is not a basic field of the entity.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAllOrderByDateAndId(
+        Class<?> entityClass,
+        List<String> fields,
+        String dateField,
+        Instant from,
+        Instant to,
+        Pageable pageable
+    ) {
+        log.debug("Request to get the {} of the first keyset page of {}s from {} to {}", fields, entityClass.getSimpleName(), from, to);
+        List<String> keysetFields = withKeysetFields(fields, dateField);
+        return toMaps(
+            entityManager
+                .createQuery(
+                    "select " +
+                    selectClause(keysetFields, getFieldNames(entityClass)) +
+                    " from " +
+                    entityClass.getSimpleName() +
+                    " e where e." +
+                    dateField +
+                    " >= :from and e." +
+                    dateField +
+                    " < :to order by e." +
+                    dateField +
+                    ", e.id",
+                    Tuple.class
+                )
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(pageable.getPageSize())
+                .getResultList(),
+            keysetFields
+        );
+    }
+
+    /**
+     * Get the keyset page of some fields of the entities following a given one.
+     * <p>
+     * The rows also hold the date and the id, to build the cursor of the next page.
+     *
+     * @param entityClass the class of the entities.
+     * @param fields the fields to select.
+     * @param dateField the name of the indexed date field of the entity.
+     * @param date the date of the last entity of the previous page.
+     * @param id the id of the last entity of the previous page.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the rows, ordered by date and id.
+     * @throws IllegalArgumentException if a field is not a basic field of the entity.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findAllAfterOrderByDateAndId(
+        Class<?> entityClass,
+        List<String> fields,
+        String dateField,
+        Instant date,
+        Long id,
+        Instant to,
+        Pageable pageable
+    ) {
+        log.debug("Request to get the {} of the keyset page of {}s after {}, {}", fields, entityClass.getSimpleName(), date, id);
+        List<String> keysetFields = withKeysetFields(fields, dateField);
+        return toMaps(
+            entityManager
+                .createQuery(
+                    "select " +
+                    selectClause(keysetFields, getFieldNames(entityClass)) +
+                    " from " +
+                    entityClass.getSimpleName() +
+                    " e where e." +
+                    dateField +
+                    " < :to and (e." +
+                    dateField +
+                    " > :date or (e." +
+                    dateField +
+                    " = :date and e.id > :id)) order by e." +
+                    dateField +
+                    ", e.id",
+                    Tuple.class
+                )
+                .setParameter("date", date)
+                .setParameter("id", id)
+                .setParameter("to", to)
+                .setMaxResults(pageable.getPageSize())
+                .getResultList(),
+            keysetFields
+        );
+    }
+
+    private static List<String> withKeysetFields(List<String> fields, String dateField) {
+        Set<String> keysetFields = new LinkedHashSet<>(fields);
+        keysetFields.add(dateField);
+        keysetFields.add(ID_FIELD);
+        return new ArrayList<>(keysetFields);
+    }
+
+    private static String selectClause(List<String> fields, Set<String> fieldNames) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No field to select");
+        }
+        return fields.stream().map(field -> "e." + checkField(field, fieldNames)).collect(Collectors.joining(", "));
+    }
+
+    private static String orderByClause(Sort sort, Set<String> fieldNames) {
+        List<String> orders = new ArrayList<>();
+        boolean byId = false;
+        for (Sort.Order order : sort) {
+            orders.add("e." + checkField(order.getProperty(), fieldNames) + (order.isAscending() ? " asc" : " desc"));
+            byId |= ID_FIELD.equals(order.getProperty());
+        }
+        // The id makes the order total, so that no row is skipped or repeated between pages
+        if (!byId) {
+            orders.add("e." + ID_FIELD);
+        }
+        return " order by " + String.join(", ", orders);
+    }
+
+    private static String checkField(String field, Set<String> fieldNames) {
+        if (!fieldNames.contains(field)) {
+            throw new IllegalArgumentException("Unknown field: " + field);
+        }
+        return field;
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, List<String> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,205 @@
+package sn.isi.service;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Codec of the messages of {@code proto/production.proto}, without generated classes.
+ * <p>
+ * A message is a row of values, the value at index {@code i} being the field number {@code i + 1}: a {@link Long} is
+ * an {@code int64}, an {@link Integer} an {@code int32}, a {@link String} a {@code string} and an {@link Instant} a
+ * {@code google.protobuf.Timestamp}. As in proto3, null values and scalars at their default value ({@code 0} or
+ * {@code ""}) are omitted, and absent fields are read as their default value, the epoch for a timestamp. Messages are
+ * streamed length-delimited, as by {@code writeDelimitedTo} and {@code parseDelimitedFrom} of the generated classes.
+ */
+public final class ProtobufCodec {
+
+    public static final String CONTENT_TYPE = "application/x-protobuf";
+
+    private static final int MAX_MESSAGE_SIZE = 64 * 1024;
+
+    /**
+     * Tags of the {@code seconds} and {@code nanos} varint fields of a {@code google.protobuf.Timestamp}.
+     */
+    private static final int TIMESTAMP_SECONDS_TAG = (1 << 3) | WireFormat.WIRETYPE_VARINT;
+
+    private static final int TIMESTAMP_NANOS_TAG = (2 << 3) | WireFormat.WIRETYPE_VARINT;
+
+    private ProtobufCodec() {}
+
+    /**
+     * Write a length-delimited message.
+     *
+     * @param out the stream to write to.
+     * @param values the values of the fields.
+     * @throws IOException if the stream can't be written.
+     */
+    public static void writeDelimited(CodedOutputStream out, Object[] values) throws IOException {
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            size += computeFieldSize(i + 1, values[i]);
+        }
+        out.writeUInt32NoTag(size);
+        for (int i = 0; i < values.length; i++) {
+            writeField(out, i + 1, values[i]);
+        }
+    }
+
+    /**
+     * Read a length-delimited message, skipping the unknown fields.
+     *
+     * @param in the stream to read from.
+     * @param fieldTypes the types of the fields.
+     * @return the values of the fields, absent fields having their default value, or null at the end of the stream.
+     * @throws InvalidProtocolBufferException if the message is malformed.
+     * @throws IOException if the stream can't be read.
+     */
+    public static Object[] readDelimited(CodedInputStream in, Class<?>[] fieldTypes) throws IOException {
+        if (in.isAtEnd()) {
+            return null;
+        }
+        int size = in.readRawVarint32();
+        if (size < 0 || size > MAX_MESSAGE_SIZE) {
+            throw new InvalidProtocolBufferException("Invalid message size: " + size);
+        }
+        int limit = in.pushLimit(size);
+        Object[] values = new Object[fieldTypes.length];
+        for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+            int field = WireFormat.getTagFieldNumber(tag) - 1;
+            if (field < 0 || field >= fieldTypes.length || WireFormat.getTagWireType(tag) != wireType(fieldTypes[field])) {
+                in.skipField(tag);
+            } else {
+                values[field] = readField(in, fieldTypes[field]);
+            }
+        }
+        in.popLimit(limit);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                values[i] = defaultValue(fieldTypes[i]);
+            }
+        }
+        // Streams aren't bounded by the total size limit of CodedInputStream, only messages are
+        in.resetSizeCounter();
+        return values;
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == Long.class) {
+            return 0L;
+        }
+        if (type == Integer.class) {
+            return 0;
+        }
+        if (type == String.class) {
+            return "";
+        }
+        if (type == Instant.class) {
+            return Instant.EPOCH;
+        }
+        throw new IllegalArgumentException("Unsupported field type: " + type);
+    }
+
+    private static boolean isDefaultScalar(Object value) {
+        return (
+            (value instanceof Long && (Long) value == 0) ||
+            (value instanceof Integer && (Integer) value == 0) ||
+            (value instanceof String && ((String) value).isEmpty())
+        );
+    }
+
+    private static int wireType(Class<?> type) {
+        return type == String.class || type == Instant.class ? WireFormat.WIRETYPE_LENGTH_DELIMITED : WireFormat.WIRETYPE_VARINT;
+    }
+
+    private static Object readField(CodedInputStream in, Class<?> type) throws IOException {
+        if (type == Long.class) {
+            return in.readInt64();
+        }
+        if (type == Integer.class) {
+            return in.readInt32();
+        }
+        if (type == String.class) {
+            return in.readStringRequireUtf8();
+        }
+        if (type == Instant.class) {
+            int limit = in.pushLimit(in.readRawVarint32());
+            long seconds = 0;
+            int nanos = 0;
+            for (int tag = in.readTag(); tag != 0; tag = in.readTag()) {
+                if (tag == TIMESTAMP_SECONDS_TAG) {
+                    seconds = in.readInt64();
+                } else if (tag == TIMESTAMP_NANOS_TAG) {
+                    nanos = in.readInt32();
+                } else {
+                    in.skipField(tag);
+                }
+            }
+            in.popLimit(limit);
+            try {
+                return Instant.ofEpochSecond(seconds, nanos);
+            } catch (RuntimeException e) {
+                throw new InvalidProtocolBufferException("Invalid timestamp: " + seconds + "s " + nanos + "ns");
+            }
+        }
+        throw new IllegalArgumentException("Unsupported field type: " + type);
+    }
+
+    private static int computeFieldSize(int field, Object value) {
+        if (value == null || isDefaultScalar(value)) {
+            return 0;
+        }
+        if (value instanceof Long) {
+            return CodedOutputStream.computeInt64Size(field, (Long) value);
+        }
+        if (value instanceof Integer) {
+            return CodedOutputStream.computeInt32Size(field, (Integer) value);
+        }
+        if (value instanceof String) {
+            return CodedOutputStream.computeStringSize(field, (String) value);
+        }
+        if (value instanceof Instant) {
+            int size = computeTimestampSize((Instant) value);
+            return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+        }
+        throw new IllegalArgumentException("Unsupported field type: " + value.getClass());
+    }
+
+    private static void writeField(CodedOutputStream out, int field, Object value) throws IOException {
+        if (value == null || isDefaultScalar(value)) {
+            return;
+        }
+        if (value instanceof Long) {
+            out.writeInt64(field, (Long) value);
+        } else if (value instanceof Integer) {
+            out.writeInt32(field, (Integer) value);
+        } else if (value instanceof String) {
+            out.writeString(field, (String) value);
+        } else {
+            Instant instant = (Instant) value;
+            out.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            out.writeUInt32NoTag(computeTimestampSize(instant));
+            if (instant.getEpochSecond() != 0) {
+                out.writeInt64(1, instant.getEpochSecond());
+            }
+            if (instant.getNano() != 0) {
+                out.writeInt32(2, instant.getNano());
+            }
+        }
+    }
+
+    private static int computeTimestampSize(Instant instant) {
+        // Fields at their default value are omitted, as by the generated classes
+        int size = 0;
+        if (instant.getEpochSecond() != 0) {
+            size += CodedOutputStream.computeInt64Size(1, instant.getEpochSecond());
+        }
+        if (instant.getNano() != 0) {
+            size += CodedOutputStream.computeInt32Size(2, instant.getNano());
+        }
+        return size;
+    }
+}
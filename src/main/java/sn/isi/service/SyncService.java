@@ -0,0 +1,364 @@
+package sn.isi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.FicheMedical;
+import sn.isi.domain.ProductionLait;
+import sn.isi.domain.SyncVersioned;
+import sn.isi.domain.Traitement;
+import sn.isi.repository.SyncRepository;
+import sn.isi.repository.SyncVersionListener;
+import sn.isi.service.dto.SyncDeletionDTO;
+import sn.isi.service.dto.SyncItemResultDTO;
+import sn.isi.service.dto.SyncItemResultDTO.Status;
+import sn.isi.service.dto.SyncUploadDTO;
+
+/**
+ * Service for the delta sync of the {@link SyncVersioned} entities with offline clients.
+ * <p>
+ * Every write stamps the rows with the version of its transaction, and every deletion leaves a tombstone, so a
+ * client only downloads the rows and tombstones of the versions after the last one it has seen. The download is
+ * streamed from database cursors like an export, and its size depends on what changed, not on the size of the tables.
+ */
+@Service
+public class SyncService {
+
+    /**
+     * Age after which a pending version is deleted if its transaction has ended, far beyond the time a writing
+     * transaction takes to delete the version it has just allocated.
+     */
+    private static final Duration ABANDONED_VERSION_AGE = Duration.ofMinutes(1);
+
+    private final Logger log = LoggerFactory.getLogger(SyncService.class);
+
+    private final Map<String, SyncedEntity<?>> syncedEntities = new LinkedHashMap<>();
+
+    private final SessionFactory sessionFactory;
+
+    private final EntityManager entityManager;
+
+    private final SyncRepository syncRepository;
+
+    private final ProductionLaitRollupService productionLaitRollupService;
+
+    private final Validator validator;
+
+    private final ObjectWriter jsonWriter;
+
+    private final int fetchSize;
+
+    public SyncService(
+        EntityManagerFactory entityManagerFactory,
+        EntityManager entityManager,
+        SyncRepository syncRepository,
+        ProductionLaitRollupService productionLaitRollupService,
+        Validator validator,
+        ObjectMapper objectMapper,
+        ApplicationProperties applicationProperties
+    ) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.entityManager = entityManager;
+        this.syncRepository = syncRepository;
+        this.productionLaitRollupService = productionLaitRollupService;
+        this.validator = validator;
+        this.jsonWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = applicationProperties.getExport().getFetchSize();
+        register(
+            FicheMedical.class,
+            "ficheMedicals",
+            (from, to) -> to.observation(from.getObservation()).dateconsultation(from.getDateconsultation())
+        );
+        register(
+            Traitement.class,
+            "traitements",
+            (from, to) -> to.traitement(from.getTraitement()).datetraitement(from.getDatetraitement())
+        );
+        register(
+            ProductionLait.class,
+            "productionLaits",
+            (from, to) -> to.quantite(from.getQuantite()).dateproduction(from.getDateproduction())
+        );
+    }
+
+    private <T extends SyncVersioned> void register(Class<T> entityClass, String field, BiConsumer<T, T> copy) {
+        syncedEntities.put(SyncVersionListener.entityType(entityClass), new SyncedEntity<>(entityClass, field, copy));
+    }
+
+    /**
+     * @return the last committed version, up to which the changes can be read.
+     */
+    public long findCurrentVersion() {
+        return syncRepository.findCommittedVersion();
+    }
+
+    /**
+     * Delete the pending versions left by the transactions which ended without deleting them, such as the ones of a
+     * process which died, so that the committed version moves past them.
+     */
+    @Scheduled(cron = "0 * * * * ?")
+    @Transactional
+    public void deleteAbandonedVersions() {
+        int deleted = syncRepository.deletePendingVersionsBefore(Instant.now().minus(ABANDONED_VERSION_AGE));
+        if (deleted > 0) {
+            log.warn("Deleted {} abandoned pending sync versions", deleted);
+        }
+    }
+
+    /**
+     * Write the entities changed and deleted in {@code (since, version]}, as a JSON object with the version, a list of
+     * entities for each type, and the ids of the deleted ones by type.
+     *
+     * @param since the last version the client has seen.
+     * @param version the version up to which the changes are read, from {@link #findCurrentVersion()}.
+     * @param out the stream to write to, which is not closed.
+     * @throws IOException if the stream can't be written, for instance when the client disconnects.
+     */
+    public void writeChanges(long since, long version, OutputStream out) throws IOException {
+        log.debug("Request to write the changes from version {} to {}", since, version);
+        JsonGenerator generator = jsonWriter.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeNumberField("version", version);
+        for (SyncedEntity<?> syncedEntity : syncedEntities.values()) {
+            generator.writeArrayFieldStart(syncedEntity.field);
+            writeChangedEntities(syncedEntity.entityClass, since, version, generator);
+            generator.writeEndArray();
+        }
+        generator.writeObjectFieldStart("deleted");
+        for (Map.Entry<String, SyncedEntity<?>> syncedEntity : syncedEntities.entrySet()) {
+            generator.writeArrayFieldStart(syncedEntity.getValue().field);
+            try {
+                syncRepository.findTombstones(
+                    syncedEntity.getKey(),
+                    since,
+                    version,
+                    id -> {
+                        try {
+                            generator.writeNumber(id);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                );
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    private void writeChangedEntities(Class<?> entityClass, long since, long version, JsonGenerator generator) throws IOException {
+        try (
+            StatelessSession session = sessionFactory.openStatelessSession();
+            ScrollableResults results = session
+                .createQuery(
+                    "select e from " +
+                    entityClass.getSimpleName() +
+                    " e where e.syncVersion > :since and e.syncVersion <= :version order by e.syncVersion, e.id",
+                    entityClass
+                )
+                .setParameter("since", since)
+                .setParameter("version", version)
+                .setReadOnly(true)
+                .setFetchSize(fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY)
+        ) {
+            while (results.next()) {
+                jsonWriter.writeValue(generator, results.get(0));
+            }
+        }
+    }
+
+    /**
+     * Apply the changes made offline by a client, in one transaction.
+     * <p>
+     * Updates and deletions of entities changed on the server since the version sent by the client are conflicts,
+     * reported with the current entity and not applied; the other items are applied.
+     *
+     * @param upload the changes.
+     * @return the outcome of each item, in the order of the upload.
+     */
+    @Transactional
+    public List<SyncItemResultDTO> upload(SyncUploadDTO upload) {
+        log.debug("Request to upload sync changes : {}", upload);
+        List<SyncItemResultDTO> results = new ArrayList<>();
+        Map<SyncItemResultDTO, SyncVersioned> written = new LinkedHashMap<>();
+        upload(FicheMedical.class, upload.getFicheMedicals(), results, written);
+        upload(Traitement.class, upload.getTraitements(), results, written);
+        upload(ProductionLait.class, upload.getProductionLaits(), results, written);
+        List<SyncDeletionDTO> deleted = upload.getDeleted();
+        for (int index = 0; index < deleted.size(); index++) {
+            results.add(delete(deleted.get(index), index));
+        }
+        // The versions are set when the changes are flushed
+        entityManager.flush();
+        written.forEach(
+            (result, entity) -> {
+                result.setId(entity.getId());
+                result.setSyncVersion(entity.getSyncVersion());
+            }
+        );
+        return results;
+    }
+
+    private <T extends SyncVersioned> void upload(
+        Class<T> entityClass,
+        List<T> entities,
+        List<SyncItemResultDTO> results,
+        Map<SyncItemResultDTO, SyncVersioned> written
+    ) {
+        if (entities == null) {
+            return;
+        }
+        String entityType = SyncVersionListener.entityType(entityClass);
+        @SuppressWarnings("unchecked")
+        SyncedEntity<T> syncedEntity = (SyncedEntity<T>) syncedEntities.get(entityType);
+        for (int index = 0; index < entities.size(); index++) {
+            T entity = entities.get(index);
+            SyncItemResultDTO result = new SyncItemResultDTO(entityType, index, null);
+            results.add(result);
+            String error = validate(entity);
+            if (error != null) {
+                result.setStatus(Status.INVALID);
+                result.setError(error);
+                continue;
+            }
+            if (entity.getId() == null) {
+                entityManager.persist(entity);
+                recordAddition(entity);
+                result.setStatus(Status.CREATED);
+                written.put(result, entity);
+                continue;
+            }
+            result.setId(entity.getId());
+            T existing = entityManager.find(entityClass, entity.getId(), LockModeType.PESSIMISTIC_WRITE);
+            if (existing == null || !Objects.equals(existing.getSyncVersion(), entity.getSyncVersion())) {
+                result.setStatus(Status.CONFLICT);
+                result.setCurrent(existing);
+                continue;
+            }
+            ProductionLait previous = existing instanceof ProductionLait ? copyOf((ProductionLait) existing) : null;
+            syncedEntity.copy.accept(entity, existing);
+            if (previous != null) {
+                productionLaitRollupService.recordRemoval(previous.getId(), previous.getQuantite(), previous.getDateproduction());
+                recordAddition(existing);
+            }
+            result.setStatus(Status.UPDATED);
+            written.put(result, existing);
+        }
+    }
+
+    private SyncItemResultDTO delete(SyncDeletionDTO deletion, int index) {
+        SyncItemResultDTO result = new SyncItemResultDTO(deletion.getEntity(), index, null);
+        result.setId(deletion.getId());
+        SyncedEntity<?> syncedEntity = deletion.getEntity() != null ? syncedEntities.get(deletion.getEntity()) : null;
+        if (syncedEntity == null || deletion.getId() == null) {
+            result.setStatus(Status.INVALID);
+            result.setError(syncedEntity == null ? "Unknown entity: " + deletion.getEntity() : "id: must not be null");
+            return result;
+        }
+        SyncVersioned existing = entityManager.find(syncedEntity.entityClass, deletion.getId(), LockModeType.PESSIMISTIC_WRITE);
+        if (existing == null) {
+            // Already deleted, by this client or another one
+            result.setStatus(Status.DELETED);
+            return result;
+        }
+        if (deletion.getSyncVersion() != null && !deletion.getSyncVersion().equals(existing.getSyncVersion())) {
+            result.setStatus(Status.CONFLICT);
+            result.setCurrent(existing);
+            return result;
+        }
+        entityManager.remove(existing);
+        if (existing instanceof ProductionLait) {
+            ProductionLait productionLait = (ProductionLait) existing;
+            productionLaitRollupService.recordRemoval(
+                productionLait.getId(),
+                productionLait.getQuantite(),
+                productionLait.getDateproduction()
+            );
+        }
+        result.setStatus(Status.DELETED);
+        return result;
+    }
+
+    private String validate(SyncVersioned entity) {
+        if (entity == null) {
+            return "An entity must be a JSON object";
+        }
+        Set<ConstraintViolation<SyncVersioned>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    private void recordAddition(SyncVersioned entity) {
+        if (entity instanceof ProductionLait) {
+            productionLaitRollupService.recordAddition((ProductionLait) entity);
+        }
+    }
+
+    private static ProductionLait copyOf(ProductionLait productionLait) {
+        return new ProductionLait()
+            .id(productionLait.getId())
+            .quantite(productionLait.getQuantite())
+            .dateproduction(productionLait.getDateproduction());
+    }
+
+    private static final class SyncedEntity<T extends SyncVersioned> {
+
+        private final Class<T> entityClass;
+
+        /**
+         * The name of the list of the entities in the sync documents.
+         */
+        private final String field;
+
+        /**
+         * Copy the fields a client can change from an uploaded entity to the managed one.
+         */
+        private final BiConsumer<T, T> copy;
+
+        private SyncedEntity(Class<T> entityClass, String field, BiConsumer<T, T> copy) {
+            this.entityClass = entityClass;
+            this.field = field;
+            this.copy = copy;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package sn.isi.service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.domain.Traitement;
+import sn.isi.repository.EntityModificationRepository;
+import sn.isi.repository.EntityMultiLoadRepository;
+import sn.isi.repository.TraitementRepository;
+
+/**
+ * Service Implementation for managing {@link Traitement}.
+ * <p>
+ * Reads run in read-only transactions: Hibernate loads the entities without the snapshots used for dirty checking,
+ * and never flushes the session.
+ */
+@Service
+@Transactional
+public class TraitementService {
+
+    private final Logger log = LoggerFactory.getLogger(TraitementService.class);
+
+    private final TraitementRepository traitementRepository;
+
+    private final EntityModificationRepository entityModificationRepository;
+
+    private final EntityMultiLoadRepository entityMultiLoadRepository;
+
+    public TraitementService(
+        TraitementRepository traitementRepository,
+        EntityModificationRepository entityModificationRepository,
+        EntityMultiLoadRepository entityMultiLoadRepository
+    ) {
+        this.traitementRepository = traitementRepository;
+        this.entityModificationRepository = entityModificationRepository;
+        this.entityMultiLoadRepository = entityMultiLoadRepository;
+    }
+
+    /**
+     * Save a new traitement.
+     *
+     * @param traitement the entity to save.
+     * @return the persisted entity.
+     */
+    public Traitement save(Traitement traitement) {
+        log.debug("Request to save Traitement : {}", traitement);
+        return traitementRepository.save(traitement);
+    }
+
+    /**
+     * Update a traitement.
+     * <p>
+     * The traitement is usually read from the second-level cache, and then written by a single
+     * {@code UPDATE ... WHERE id = ? AND version = ?} statement, of the changed columns only.
+     *
+     * @param traitement the entity to update.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<Traitement> update(Traitement traitement, Long expectedVersion) {
+        log.debug("Request to update Traitement : {}", traitement);
+        return traitementRepository
+            .findById(traitement.getId())
+            .map(
+                existingTraitement -> {
+                    EntityVersions.check(Traitement.class, existingTraitement.getId(), existingTraitement.getVersion(), expectedVersion);
+                    existingTraitement.setTraitement(traitement.getTraitement());
+                    existingTraitement.setDatetraitement(traitement.getDatetraitement());
+                    return traitementRepository.saveAndFlush(existingTraitement);
+                }
+            );
+    }
+
+    /**
+     * Partially update a traitement, like {@link #update}.
+     *
+     * @param traitement the entity to update partially.
+     * @param expectedVersion the version the client read the entity at, or {@code null} to accept any version.
+     * @return the persisted entity, or empty if it doesn't exist.
+     * @throws org.springframework.orm.ObjectOptimisticLockingFailureException if the entity is not at the expected
+     * version, or was updated concurrently.
+     */
+    public Optional<Traitement> partialUpdate(Traitement traitement, Long expectedVersion) {
+        log.debug("Request to partially update Traitement : {}", traitement);
+        return traitementRepository
+            .findById(traitement.getId())
+            .map(
+                existingTraitement -> {
+                    EntityVersions.check(Traitement.class, existingTraitement.getId(), existingTraitement.getVersion(), expectedVersion);
+                    if (traitement.getTraitement() != null) {
+                        existingTraitement.setTraitement(traitement.getTraitement());
+                    }
+                    if (traitement.getDatetraitement() != null) {
+                        existingTraitement.setDatetraitement(traitement.getDatetraitement());
+                    }
+
+                    return traitementRepository.saveAndFlush(existingTraitement);
+                }
+            );
+    }
+
+    /**
+     * Get all the traitements.
+     *
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Traitement> findAll(Pageable pageable) {
+        log.debug("Request to get all Traitements");
+        return traitementRepository.findAll(pageable);
+    }
+
+    /**
+     * Get the traitements of a {@code datetraitement} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<Traitement> findAllByDatetraitement(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the Traitements from {} to {}", from, to);
+        return traitementRepository.findAllByDatetraitementGreaterThanEqualAndDatetraitementLessThan(from, to, pageable);
+    }
+
+    /**
+     * Get the first keyset page of the traitements of a {@code datetraitement} range.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code datetraitement} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<Traitement> findAllOrderByDatetraitementAndId(Instant from, Instant to, Pageable pageable) {
+        log.debug("Request to get the first keyset page of Traitements from {} to {}", from, to);
+        return traitementRepository.findAllOrderByDatetraitementAndId(from, to, pageable);
+    }
+
+    /**
+     * Get the keyset page of the traitements following a given one.
+     *
+     * @param datetraitement the {@code datetraitement} of the last traitement of the previous page.
+     * @param id the id of the last traitement of the previous page.
+     * @param to the end of the range, exclusive.
+     * @param pageable the size of the page.
+     * @return the entities, ordered by {@code datetraitement} and {@code id}.
+     */
+    @Transactional(readOnly = true)
+    public List<Traitement> findAllAfterOrderByDatetraitementAndId(Instant datetraitement, Long id, Instant to, Pageable pageable) {
+        log.debug("Request to get the keyset page of Traitements after {}, {}", datetraitement, id);
+        return traitementRepository.findAllAfterOrderByDatetraitementAndId(datetraitement, id, to, pageable);
+    }
+
+    /**
+     * Get the version of one traitement by id, without loading it.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findVersion(Long id) {
+        log.debug("Request to get the version of Traitement : {}", id);
+        return traitementRepository.findVersionById(id);
+    }
+
+    /**
+     * Get the last modification of the traitements, which changes with every write of one of them.
+     *
+     * @return the version of the last transaction which wrote traitements.
+     */
+    @Transactional(readOnly = true)
+    public long findModification() {
+        return entityModificationRepository.findModification(Traitement.class);
+    }
+
+    /**
+     * Get the traitements of a list of ids.
+     * <p>
+     * The traitements in the second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the ids of the entities.
+     * @return the entities which exist, in the order of the ids.
+     */
+    @Transactional(readOnly = true)
+    public List<Traitement> findAllById(List<Long> ids) {
+        log.debug("Request to get the Traitements : {}", ids);
+        return entityMultiLoadRepository.findAllById(Traitement.class, ids);
+    }
+
+    /**
+     * Get one traitement by id.
+     *
+     * @param id the id of the entity.
+     * @return the entity.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Traitement> findOne(Long id) {
+        log.debug("Request to get Traitement : {}", id);
+        return traitementRepository.findById(id);
+    }
+
+    /**
+     * Delete the traitement by id.
+     *
+     * @param id the id of the entity.
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Traitement : {}", id);
+        traitementRepository.deleteById(id);
+    }
+}
@@ -77,6 +77,22 @@ public class UserService {
         return userRepository.findAll(pageable).map(AdminUserDTO::new);
     }
 
+    /**
+     * Get a page of users ordered by creation date and id, with keyset pagination.
+     *
+     * @param createdDate the creation date of the last user of the previous page, or {@code null} for the first page.
+     * @param id the id of the last user of the previous page, or {@code null} for the first page.
+     * @param pageable the page request, whose offset must be 0.
+     * @return the users of the page.
+     */
+    @Transactional(readOnly = true)
+    public List<AdminUserDTO> getAllManagedUsersAfter(Instant createdDate, String id, Pageable pageable) {
+        List<User> users = createdDate == null
+            ? userRepository.findAllOrderByCreatedDateAndId(pageable)
+            : userRepository.findAllAfterOrderByCreatedDateAndId(createdDate, id, pageable);
+        return users.stream().map(AdminUserDTO::new).collect(Collectors.toList());
+    }
+
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllPublicUsers(Pageable pageable) {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
@@ -0,0 +1,39 @@
+package sn.isi.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * When a write deferred by {@link ProductionLaitWriteBehindBuffer} or by the
+ * {@link sn.isi.repository.ProductionLaitJournal} is acknowledged to the client.
+ */
+public enum WriteAckMode {
+    /**
+     * As soon as the write is in the buffer.
+     */
+    ACCEPTED("accepted"),
+
+    /**
+     * Once the batch holding the write is committed.
+     */
+    COMMITTED("committed"),
+
+    /**
+     * Once the write is forced to the local journal, from which it is inserted later.
+     */
+    JOURNALED("journaled");
+
+    private final String value;
+
+    WriteAckMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static Optional<WriteAckMode> fromValue(String value) {
+        return Arrays.stream(values()).filter(mode -> mode.value.equalsIgnoreCase(value)).findFirst();
+    }
+}
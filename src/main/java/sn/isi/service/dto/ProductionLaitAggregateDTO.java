@@ -0,0 +1,110 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO holding the totals of the {@link sn.isi.domain.ProductionLait} quantities of one time bucket.
+ */
+public class ProductionLaitAggregateDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Instant bucketStart;
+
+    private Instant bucketEnd;
+
+    private long count;
+
+    private long sum;
+
+    private Double avg;
+
+    private Integer min;
+
+    private Integer max;
+
+    public ProductionLaitAggregateDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductionLaitAggregateDTO(Instant bucketStart, Instant bucketEnd, long count, long sum, Integer min, Integer max) {
+        this.bucketStart = bucketStart;
+        this.bucketEnd = bucketEnd;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count == 0 ? null : (double) sum / count;
+        this.min = min;
+        this.max = max;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Instant bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Instant getBucketEnd() {
+        return bucketEnd;
+    }
+
+    public void setBucketEnd(Instant bucketEnd) {
+        this.bucketEnd = bucketEnd;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public Double getAvg() {
+        return avg;
+    }
+
+    public void setAvg(Double avg) {
+        this.avg = avg;
+    }
+
+    public Integer getMin() {
+        return min;
+    }
+
+    public void setMin(Integer min) {
+        this.min = min;
+    }
+
+    public Integer getMax() {
+        return max;
+    }
+
+    public void setMax(Integer max) {
+        this.max = max;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitAggregateDTO{" +
+            "bucketStart='" + getBucketStart() + "'" +
+            ", bucketEnd='" + getBucketEnd() + "'" +
+            ", count=" + getCount() +
+            ", sum=" + getSum() +
+            ", avg=" + getAvg() +
+            ", min=" + getMin() +
+            ", max=" + getMax() +
+            "}";
+    }
+}
@@ -0,0 +1,85 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO holding the outcome of one item of a {@link sn.isi.domain.ProductionLait} bulk ingestion.
+ */
+public class ProductionLaitBatchItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Outcome of an item.
+     */
+    public enum Status {
+        /** The item was inserted. */
+        CREATED,
+        /** The item was not valid, and was skipped. */
+        INVALID,
+        /** The item was valid, but its chunk could not be inserted. */
+        FAILED,
+    }
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private String error;
+
+    public ProductionLaitBatchItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductionLaitBatchItemResultDTO(int index, Status status, Long id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitBatchItemResultDTO{" +
+            "index=" + getIndex() +
+            ", status='" + getStatus() + "'" +
+            ", id=" + getId() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,118 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * A DTO holding the cumulative, moving average and year-over-year figures of the
+ * {@link sn.isi.domain.ProductionLait} quantities of one day.
+ */
+public class ProductionLaitDailyAnalyticsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate day;
+
+    private long total;
+
+    private long runningTotal;
+
+    private double movingAverage7;
+
+    private double movingAverage30;
+
+    private Long previousYearTotal;
+
+    private Long yearOverYearDelta;
+
+    public ProductionLaitDailyAnalyticsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductionLaitDailyAnalyticsDTO(
+        LocalDate day,
+        long total,
+        long runningTotal,
+        double movingAverage7,
+        double movingAverage30,
+        Long previousYearTotal
+    ) {
+        this.day = day;
+        this.total = total;
+        this.runningTotal = runningTotal;
+        this.movingAverage7 = movingAverage7;
+        this.movingAverage30 = movingAverage30;
+        this.previousYearTotal = previousYearTotal;
+        this.yearOverYearDelta = previousYearTotal == null ? null : total - previousYearTotal;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getRunningTotal() {
+        return runningTotal;
+    }
+
+    public void setRunningTotal(long runningTotal) {
+        this.runningTotal = runningTotal;
+    }
+
+    public double getMovingAverage7() {
+        return movingAverage7;
+    }
+
+    public void setMovingAverage7(double movingAverage7) {
+        this.movingAverage7 = movingAverage7;
+    }
+
+    public double getMovingAverage30() {
+        return movingAverage30;
+    }
+
+    public void setMovingAverage30(double movingAverage30) {
+        this.movingAverage30 = movingAverage30;
+    }
+
+    public Long getPreviousYearTotal() {
+        return previousYearTotal;
+    }
+
+    public void setPreviousYearTotal(Long previousYearTotal) {
+        this.previousYearTotal = previousYearTotal;
+    }
+
+    public Long getYearOverYearDelta() {
+        return yearOverYearDelta;
+    }
+
+    public void setYearOverYearDelta(Long yearOverYearDelta) {
+        this.yearOverYearDelta = yearOverYearDelta;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitDailyAnalyticsDTO{" +
+            "day='" + getDay() + "'" +
+            ", total=" + getTotal() +
+            ", runningTotal=" + getRunningTotal() +
+            ", movingAverage7=" + getMovingAverage7() +
+            ", movingAverage30=" + getMovingAverage30() +
+            ", previousYearTotal=" + getPreviousYearTotal() +
+            ", yearOverYearDelta=" + getYearOverYearDelta() +
+            "}";
+    }
+}
@@ -0,0 +1,86 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO summarizing the {@link sn.isi.domain.ProductionLait}s coalesced by the live feed of a slow subscriber.
+ */
+public class ProductionLaitFeedSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+
+    private long totalQuantite;
+
+    private Instant from;
+
+    private Instant to;
+
+    /**
+     * Add a production to the summary.
+     *
+     * @param quantite the quantity of the production.
+     * @param dateproduction the production date.
+     */
+    public void add(int quantite, Instant dateproduction) {
+        count++;
+        totalQuantite += quantite;
+        if (from == null || dateproduction.isBefore(from)) {
+            from = dateproduction;
+        }
+        if (to == null || dateproduction.isAfter(to)) {
+            to = dateproduction;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getTotalQuantite() {
+        return totalQuantite;
+    }
+
+    public void setTotalQuantite(long totalQuantite) {
+        this.totalQuantite = totalQuantite;
+    }
+
+    /**
+     * @return the earliest production date.
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    /**
+     * @return the latest production date.
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitFeedSummaryDTO{" +
+            "count=" + getCount() +
+            ", totalQuantite=" + getTotalQuantite() +
+            ", from='" + getFrom() + "'" +
+            ", to='" + getTo() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,178 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import sn.isi.repository.ProductionLaitImportJobRepository.ImportStatus;
+
+/**
+ * A DTO holding the progress of a {@link sn.isi.domain.ProductionLait} CSV import job.
+ */
+public class ProductionLaitImportJobDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+
+    private String fileName;
+
+    private ImportStatus status;
+
+    private long totalBytes;
+
+    private long processedBytes;
+
+    private long lineNumber;
+
+    private long importedRows;
+
+    private long errorCount;
+
+    private String lastError;
+
+    private Instant createdDate;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private double rowsPerSecond;
+
+    public ProductionLaitImportJobDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImportStatus status) {
+        this.status = status;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * @return the offset in bytes of the first line not imported yet.
+     */
+    public long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public void setProcessedBytes(long processedBytes) {
+        this.processedBytes = processedBytes;
+    }
+
+    /**
+     * @return the number of lines read, header included.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public void setImportedRows(long importedRows) {
+        this.importedRows = importedRows;
+    }
+
+    /**
+     * @return the number of invalid lines, which were skipped.
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    /**
+     * @return the last invalid line, or the error failing the job.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    /**
+     * @return the start of the last run.
+     */
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    /**
+     * @return the average rate of the last run, as of its last committed chunk.
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductionLaitImportJobDTO{" +
+            "id='" + getId() + "'" +
+            ", fileName='" + getFileName() + "'" +
+            ", status=" + getStatus() +
+            ", processedBytes=" + getProcessedBytes() +
+            ", totalBytes=" + getTotalBytes() +
+            ", importedRows=" + getImportedRows() +
+            ", errorCount=" + getErrorCount() +
+            "}";
+    }
+}
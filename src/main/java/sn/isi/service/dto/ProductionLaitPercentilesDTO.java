@@ -0,0 +1,117 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO holding quantiles of the {@link sn.isi.domain.ProductionLait} quantities of a date range.
+ */
+public class ProductionLaitPercentilesDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Instant from;
+
+    private Instant to;
+
+    private long count;
+
+    private List<Percentile> percentiles = new ArrayList<>();
+
+    public ProductionLaitPercentilesDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductionLaitPercentilesDTO(Instant from, Instant to, long count) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public List<Percentile> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(List<Percentile> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitPercentilesDTO{" +
+            "from='" + getFrom() + "'" +
+            ", to='" + getTo() + "'" +
+            ", count=" + getCount() +
+            ", percentiles=" + getPercentiles() +
+            "}";
+    }
+
+    /**
+     * A quantile and its value, {@code null} when the range is empty.
+     */
+    public static class Percentile implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private double quantile;
+
+        private Long value;
+
+        public Percentile() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public Percentile(double quantile, Long value) {
+            this.quantile = quantile;
+            this.value = value;
+        }
+
+        public double getQuantile() {
+            return quantile;
+        }
+
+        public void setQuantile(double quantile) {
+            this.quantile = quantile;
+        }
+
+        public Long getValue() {
+            return value;
+        }
+
+        public void setValue(Long value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return "Percentile{quantile=" + quantile + ", value=" + value + "}";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A DTO holding one point of a downsampled series of {@link sn.isi.domain.ProductionLait} quantities.
+ */
+public class ProductionLaitSeriesPointDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Instant dateproduction;
+
+    private int quantite;
+
+    public ProductionLaitSeriesPointDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ProductionLaitSeriesPointDTO(Instant dateproduction, int quantite) {
+        this.dateproduction = dateproduction;
+        this.quantite = quantite;
+    }
+
+    public Instant getDateproduction() {
+        return dateproduction;
+    }
+
+    public void setDateproduction(Instant dateproduction) {
+        this.dateproduction = dateproduction;
+    }
+
+    public int getQuantite() {
+        return quantite;
+    }
+
+    public void setQuantite(int quantite) {
+        this.quantite = quantite;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "ProductionLaitSeriesPointDTO{" +
+            "dateproduction='" + getDateproduction() + "'" +
+            ", quantite=" + getQuantite() +
+            "}";
+    }
+}
@@ -0,0 +1,70 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import javax.validation.constraints.NotNull;
+
+/**
+ * A DTO for the deletion of an entity made offline, sent with a sync upload.
+ */
+public class SyncDeletionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The type of the entity: {@code ficheMedical}, {@code traitement} or {@code productionLait}.
+     */
+    @NotNull
+    private String entity;
+
+    @NotNull
+    private Long id;
+
+    /**
+     * The version of the entity the client deleted, or {@code null} to delete whatever the server has.
+     */
+    private Long syncVersion;
+
+    public SyncDeletionDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SyncDeletionDTO(String entity, Long id, Long syncVersion) {
+        this.entity = entity;
+        this.id = id;
+        this.syncVersion = syncVersion;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncDeletionDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", id=" + getId() +
+            ", syncVersion=" + getSyncVersion() +
+            "}";
+    }
+}
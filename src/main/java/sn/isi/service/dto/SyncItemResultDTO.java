@@ -0,0 +1,134 @@
+package sn.isi.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.io.Serializable;
+
+/**
+ * A DTO holding the outcome of one item of a sync upload.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncItemResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Outcome of an item.
+     */
+    public enum Status {
+        /** The entity was created. */
+        CREATED,
+        /** The entity was updated. */
+        UPDATED,
+        /** The entity was deleted, or was already. */
+        DELETED,
+        /** The entity changed or was deleted on the server since the client downloaded it, and was left as is. */
+        CONFLICT,
+        /** The item was not valid, and was skipped. */
+        INVALID,
+    }
+
+    private String entity;
+
+    private int index;
+
+    private Status status;
+
+    private Long id;
+
+    private Long syncVersion;
+
+    private String error;
+
+    private Object current;
+
+    public SyncItemResultDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public SyncItemResultDTO(String entity, int index, Status status) {
+        this.entity = entity;
+        this.index = index;
+        this.status = status;
+    }
+
+    /**
+     * @return the type of the entity, such as {@code productionLait}.
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    public void setEntity(String entity) {
+        this.entity = entity;
+    }
+
+    /**
+     * @return the index of the item in its list of the upload.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return the version of the entity after the upload, for the client to send with its next change.
+     */
+    public Long getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(Long syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return the entity as it is on the server, for a conflict on an entity which still exists.
+     */
+    public Object getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(Object current) {
+        this.current = current;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncItemResultDTO{" +
+            "entity='" + getEntity() + "'" +
+            ", index=" + getIndex() +
+            ", status='" + getStatus() + "'" +
+            ", id=" + getId() +
+            ", syncVersion=" + getSyncVersion() +
+            ", error='" + getError() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,70 @@
+package sn.isi.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import sn.isi.domain.FicheMedical;
+import sn.isi.domain.ProductionLait;
+import sn.isi.domain.Traitement;
+
+/**
+ * A DTO holding the changes made offline on a tablet, uploaded at once.
+ * <p>
+ * Entities without id are created. The others are updated, and must carry the {@code syncVersion} the client last
+ * downloaded: they are conflicts if the entity changed on the server since.
+ */
+public class SyncUploadDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<FicheMedical> ficheMedicals = new ArrayList<>();
+
+    private List<Traitement> traitements = new ArrayList<>();
+
+    private List<ProductionLait> productionLaits = new ArrayList<>();
+
+    private List<SyncDeletionDTO> deleted = new ArrayList<>();
+
+    public List<FicheMedical> getFicheMedicals() {
+        return ficheMedicals;
+    }
+
+    public void setFicheMedicals(List<FicheMedical> ficheMedicals) {
+        this.ficheMedicals = ficheMedicals;
+    }
+
+    public List<Traitement> getTraitements() {
+        return traitements;
+    }
+
+    public void setTraitements(List<Traitement> traitements) {
+        this.traitements = traitements;
+    }
+
+    public List<ProductionLait> getProductionLaits() {
+        return productionLaits;
+    }
+
+    public void setProductionLaits(List<ProductionLait> productionLaits) {
+        this.productionLaits = productionLaits;
+    }
+
+    public List<SyncDeletionDTO> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<SyncDeletionDTO> deleted) {
+        this.deleted = deleted;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "SyncUploadDTO{" +
+            "ficheMedicals=" + getFicheMedicals().size() +
+            ", traitements=" + getTraitements().size() +
+            ", productionLaits=" + getProductionLaits().size() +
+            ", deleted=" + getDeleted().size() +
+            "}";
+    }
+}
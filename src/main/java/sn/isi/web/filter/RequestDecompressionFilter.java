@@ -0,0 +1,364 @@
+package sn.isi.web.filter;
+
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filter decompressing the request bodies sent with a {@code Content-Encoding} of {@code gzip} or {@code zstd}.
+ * <p>
+ * The body is decompressed as it is read, so a bulk upload is never held in memory; the request seen by the
+ * application has no {@code Content-Encoding} nor {@code Content-Length}. Decompression stops with a
+ * {@link BodyTooLargeException} past {@code application.request-decompression.max-decompressed-bytes}, so that a
+ * small body can't inflate without bound. Other encodings are answered with {@code 415 (Unsupported Media Type)}.
+ * <p>
+ * The decoders read their input with blocking I/O, so a body read with a {@link ReadListener} is first received
+ * without blocking, still compressed, and only decompressed once complete.
+ * <p>
+ * For each decompressed request, the compression ratio and the time spent decoding, excluding the time waiting for
+ * the network, are recorded per encoding.
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    public static final String RATIO_METRIC = "http.server.requests.decompression.ratio";
+
+    public static final String TIME_METRIC = "http.server.requests.decompression.time";
+
+    public static final String SIZE_METRIC = "http.server.requests.decompressed.size";
+
+    private static final String GZIP = "gzip";
+
+    private static final String ZSTD = "zstd";
+
+    private final long maxDecompressedBytes;
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestDecompressionFilter(long maxDecompressedBytes, MeterRegistry meterRegistry) {
+        this.maxDecompressedBytes = maxDecompressedBytes;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null || contentEncoding.isBlank() || "identity".equalsIgnoreCase(contentEncoding.trim())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if ("x-gzip".equals(encoding)) {
+            encoding = GZIP;
+        }
+        if (!GZIP.equals(encoding) && !ZSTD.equals(encoding)) {
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, GZIP + ", " + ZSTD);
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported Content-Encoding: " + contentEncoding);
+            return;
+        }
+        DecompressingRequest decompressingRequest = new DecompressingRequest(request, encoding);
+        try {
+            filterChain.doFilter(decompressingRequest, response);
+        } finally {
+            decompressingRequest.recordMetrics();
+        }
+    }
+
+    /**
+     * Request whose body is the decompressed body of the wrapped one.
+     */
+    private class DecompressingRequest extends HttpServletRequestWrapper {
+
+        private final String encoding;
+
+        private MeteredInputStream compressed;
+
+        private MeteredInputStream decompressed;
+
+        private ServletInputStream inputStream;
+
+        private BufferedReader reader;
+
+        DecompressingRequest(HttpServletRequest request, String encoding) {
+            super(request);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (reader != null) {
+                throw new IllegalStateException("getReader() has already been called for this request");
+            }
+            return decompressedStream();
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                if (inputStream != null) {
+                    throw new IllegalStateException("getInputStream() has already been called for this request");
+                }
+                String characterEncoding = getCharacterEncoding();
+                Charset charset = characterEncoding == null ? StandardCharsets.UTF_8 : Charset.forName(characterEncoding);
+                reader = new BufferedReader(new InputStreamReader(decompressedStream(), charset));
+            }
+            return reader;
+        }
+
+        private ServletInputStream decompressedStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new DecompressedServletInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isHiddenHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isHiddenHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(
+                Collections.list(super.getHeaderNames()).stream().filter(name -> !isHiddenHeader(name)).collect(Collectors.toList())
+            );
+        }
+
+        @Override
+        public int getIntHeader(String name) {
+            return isHiddenHeader(name) ? -1 : super.getIntHeader(name);
+        }
+
+        private boolean isHiddenHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+
+        void recordMetrics() {
+            if (decompressed == null || compressed.count == 0) {
+                return;
+            }
+            DistributionSummary
+                .builder(RATIO_METRIC)
+                .description("Ratio of the decompressed to the compressed size of the request bodies")
+                .tag("encoding", encoding)
+                .register(meterRegistry)
+                .record((double) decompressed.count / compressed.count);
+            DistributionSummary
+                .builder(SIZE_METRIC)
+                .description("Decompressed size of the request bodies")
+                .baseUnit("bytes")
+                .tag("encoding", encoding)
+                .register(meterRegistry)
+                .record(decompressed.count);
+            Timer
+                .builder(TIME_METRIC)
+                .description("Time spent decompressing the request bodies, excluding the network reads")
+                .tag("encoding", encoding)
+                .register(meterRegistry)
+                .record(Math.max(0, decompressed.nanos - compressed.nanos), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Stream of the decompressed body, whose decoder is created when first read.
+         */
+        private class DecompressedServletInputStream extends ServletInputStream {
+
+            private final ServletInputStream body;
+
+            /**
+             * The compressed body received without blocking, once a read listener is set.
+             */
+            private ByteArrayOutputStream received;
+
+            private boolean receivedAll;
+
+            private boolean finished;
+
+            DecompressedServletInputStream(ServletInputStream body) {
+                this.body = body;
+            }
+
+            private InputStream decoder() throws IOException {
+                if (decompressed == null) {
+                    InputStream source = received != null ? new ByteArrayInputStream(received.toByteArray()) : body;
+                    compressed = new MeteredInputStream(source, Long.MAX_VALUE);
+                    InputStream decoder = ZSTD.equals(encoding) ? new ZstdInputStream(compressed) : new GZIPInputStream(compressed, 8192);
+                    decompressed = new MeteredInputStream(decoder, maxDecompressedBytes);
+                }
+                return decompressed;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int read = decoder().read();
+                finished = read == -1;
+                return read;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = decoder().read(b, off, len);
+                finished = read == -1;
+                return read;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return finished;
+            }
+
+            @Override
+            public boolean isReady() {
+                return received == null || receivedAll;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                if (decompressed != null) {
+                    throw new IllegalStateException("The request body has already been read with blocking I/O");
+                }
+                received = new ByteArrayOutputStream();
+                body.setReadListener(
+                    new ReadListener() {
+                        @Override
+                        public void onDataAvailable() throws IOException {
+                            byte[] buffer = new byte[8192];
+                            while (body.isReady() && !body.isFinished()) {
+                                int read = body.read(buffer);
+                                if (read == -1) {
+                                    break;
+                                }
+                                received.write(buffer, 0, read);
+                                if (received.size() > maxDecompressedBytes) {
+                                    throw new BodyTooLargeException(maxDecompressedBytes);
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void onAllDataRead() throws IOException {
+                            receivedAll = true;
+                            readListener.onDataAvailable();
+                            if (finished) {
+                                readListener.onAllDataRead();
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            readListener.onError(t);
+                        }
+                    }
+                );
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (decompressed != null) {
+                    decompressed.close();
+                } else {
+                    body.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream counting the bytes read and the time spent reading them, and failing past a number of bytes.
+     */
+    private static class MeteredInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+
+        private long count;
+
+        private long nanos;
+
+        MeteredInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int read = super.read();
+            nanos += System.nanoTime() - start;
+            if (read != -1) {
+                count(1);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            int read = super.read(b, off, len);
+            nanos += System.nanoTime() - start;
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) throws IOException {
+            count += read;
+            if (count > maxBytes) {
+                throw new BodyTooLargeException(maxBytes);
+            }
+        }
+    }
+
+    /**
+     * Error reading a request body larger than the maximum decompressed size, answered with
+     * {@code 413 (Payload Too Large)}.
+     */
+    public static class BodyTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(long maxBytes) {
+            super("The decompressed request body is larger than " + maxBytes + " bytes");
+        }
+    }
+}
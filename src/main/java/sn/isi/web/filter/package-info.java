@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package sn.isi.web.filter;
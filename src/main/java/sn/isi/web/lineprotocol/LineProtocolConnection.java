@@ -0,0 +1,267 @@
+package sn.isi.web.lineprotocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.BiPredicate;
+
+/**
+ * State of a line protocol connection, and incremental parser of its lines.
+ * <p>
+ * A line is {@code <epoch milliseconds> <quantite>}, fields separated by spaces or tabs and lines ended by
+ * {@code \n}, optionally preceded by {@code \r}. The digits are accumulated byte by byte as they arrive, so
+ * parsing allocates nothing and a line may be split across reads. Malformed or too long lines are counted and
+ * skipped.
+ * <p>
+ * When authentication is required, the first line must be {@code AUTH <device> <key>}.
+ * <p>
+ * Only used by the selector thread, except for the counters, which are read by the metrics endpoint.
+ */
+final class LineProtocolConnection {
+
+    /**
+     * Receiver of the parsed readings.
+     */
+    @FunctionalInterface
+    interface ReadingSink {
+        /**
+         * @return false if the reading can't be taken now, which pauses the connection.
+         */
+        boolean accept(long timestamp, int quantite);
+    }
+
+    /**
+     * Outcome of {@link #drain}.
+     */
+    enum Status {
+        /**
+         * All the received bytes were processed.
+         */
+        DRAINED,
+        /**
+         * The sink is full: the rest of the received bytes must be drained later.
+         */
+        PAUSED,
+        /**
+         * The authentication failed: the connection must be closed.
+         */
+        REJECTED,
+    }
+
+    static final int MAX_LINE_LENGTH = 64;
+
+    private static final int MAX_AUTH_LINE_LENGTH = 256;
+
+    private static final long MAX_TIMESTAMP = 253402300799999L;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final String remoteAddress;
+
+    private final Instant connectedAt = Instant.now();
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final BiPredicate<String, String> authenticator;
+
+    private volatile String device;
+
+    private byte[] authLine;
+
+    private int authLineLength;
+
+    private long timestamp;
+
+    private long quantite;
+
+    /**
+     * 0 while reading the timestamp, 1 the quantite, 2 the trailing spaces.
+     */
+    private int field;
+
+    private boolean digits;
+
+    private boolean invalid;
+
+    private int lineLength;
+
+    private boolean hasPending;
+
+    private long pendingTimestamp;
+
+    private int pendingQuantite;
+
+    private volatile long bytes;
+
+    private volatile long readings;
+
+    private volatile long errors;
+
+    /**
+     * @param remoteAddress the address of the peer.
+     * @param authenticator the check of a device and key, or null if connections needn't authenticate.
+     */
+    LineProtocolConnection(String remoteAddress, BiPredicate<String, String> authenticator) {
+        this.remoteAddress = remoteAddress;
+        this.authenticator = authenticator;
+        if (authenticator != null) {
+            authLine = new byte[MAX_AUTH_LINE_LENGTH];
+        } else {
+            device = "anonymous";
+        }
+    }
+
+    /**
+     * @return the buffer the received bytes are read into, then drained from.
+     */
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Parse the bytes between the position and the limit of the buffer.
+     *
+     * @param sink the receiver of the readings.
+     * @return whether all the bytes were processed, or the connection is paused or rejected.
+     */
+    Status drain(ReadingSink sink) {
+        int start = buffer.position();
+        try {
+            return doDrain(sink);
+        } finally {
+            bytes += buffer.position() - start;
+        }
+    }
+
+    private Status doDrain(ReadingSink sink) {
+        if (hasPending) {
+            if (!sink.accept(pendingTimestamp, pendingQuantite)) {
+                return Status.PAUSED;
+            }
+            hasPending = false;
+            readings++;
+        }
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+            if (authLine != null) {
+                if (!authenticate(b)) {
+                    return Status.REJECTED;
+                }
+                continue;
+            }
+            if (b == '\n') {
+                boolean complete = (field == 1 && digits) || field == 2;
+                if (lineLength > 0 && complete && !invalid) {
+                    long lineTimestamp = timestamp;
+                    int lineQuantite = (int) quantite;
+                    resetLine();
+                    if (!sink.accept(lineTimestamp, lineQuantite)) {
+                        hasPending = true;
+                        pendingTimestamp = lineTimestamp;
+                        pendingQuantite = lineQuantite;
+                        return Status.PAUSED;
+                    }
+                    readings++;
+                } else {
+                    if (lineLength > 0) {
+                        errors++;
+                    }
+                    resetLine();
+                }
+            } else if (b != '\r') {
+                parse(b);
+            }
+        }
+        return Status.DRAINED;
+    }
+
+    private void parse(byte b) {
+        if (++lineLength > MAX_LINE_LENGTH) {
+            invalid = true;
+        }
+        if (invalid) {
+            return;
+        }
+        if (b >= '0' && b <= '9') {
+            if (field == 0) {
+                timestamp = timestamp * 10 + (b - '0');
+                invalid = timestamp > MAX_TIMESTAMP;
+            } else if (field == 1) {
+                quantite = quantite * 10 + (b - '0');
+                invalid = quantite > Integer.MAX_VALUE;
+            } else {
+                invalid = true;
+            }
+            digits = true;
+        } else if (b == ' ' || b == '\t') {
+            // Spaces end a field; leading, repeated and trailing ones are skipped
+            if (digits && field < 2) {
+                field++;
+                digits = false;
+            }
+        } else {
+            invalid = true;
+        }
+    }
+
+    private void resetLine() {
+        timestamp = 0;
+        quantite = 0;
+        field = 0;
+        digits = false;
+        invalid = false;
+        lineLength = 0;
+    }
+
+    /**
+     * Accumulate the authentication line.
+     *
+     * @return false if the authentication failed.
+     */
+    private boolean authenticate(byte b) {
+        if (b == '\r') {
+            return true;
+        }
+        if (b != '\n') {
+            if (authLineLength == authLine.length) {
+                return false;
+            }
+            authLine[authLineLength++] = b;
+            return true;
+        }
+        String[] words = new String(authLine, 0, authLineLength, StandardCharsets.US_ASCII).trim().split("\\s+");
+        authLine = null;
+        if (words.length != 3 || !"AUTH".equals(words[0]) || !authenticator.test(words[1], words[2])) {
+            return false;
+        }
+        device = words[1];
+        return true;
+    }
+
+    String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    Instant getConnectedAt() {
+        return connectedAt;
+    }
+
+    /**
+     * @return the authenticated device, "anonymous" without authentication, or null before authentication.
+     */
+    String getDevice() {
+        return device;
+    }
+
+    long getBytes() {
+        return bytes;
+    }
+
+    long getReadings() {
+        return readings;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+}
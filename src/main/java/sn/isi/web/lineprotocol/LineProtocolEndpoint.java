@@ -0,0 +1,25 @@
+package sn.isi.web.lineprotocol;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint listing the open line protocol connections.
+ */
+@Component
+@Endpoint(id = "lineprotocol")
+public class LineProtocolEndpoint {
+
+    private final LineProtocolListener lineProtocolListener;
+
+    public LineProtocolEndpoint(LineProtocolListener lineProtocolListener) {
+        this.lineProtocolListener = lineProtocolListener;
+    }
+
+    @ReadOperation
+    public List<LineProtocolListener.ConnectionStats> connections() {
+        return lineProtocolListener.getConnections();
+    }
+}
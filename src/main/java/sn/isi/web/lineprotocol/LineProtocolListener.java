@@ -0,0 +1,415 @@
+package sn.isi.web.lineprotocol;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.service.ProductionLaitWriteBehindBuffer;
+
+/**
+ * TCP listener of the line protocol, enabled by {@code application.line-protocol.enabled}.
+ * <p>
+ * A single selector thread accepts the connections and parses their lines with {@link LineProtocolConnection}.
+ * The readings go to the {@link ProductionLaitWriteBehindBuffer}, which inserts them in batches, so it must be
+ * enabled too. When that buffer is full, the connection stops being read until it has room again, and TCP flow
+ * control slows the controller down.
+ * <p>
+ * When {@code application.line-protocol.devices} maps device ids to pre-shared keys, each connection must
+ * authenticate first. The readings, malformed lines and bytes are counted per device, and the live connections
+ * are listed by the {@code lineprotocol} management endpoint.
+ */
+@Component
+public class LineProtocolListener implements SmartLifecycle {
+
+    /**
+     * Stopped after the web server, and before the write-behind buffer, so that the last readings are flushed.
+     */
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 512;
+
+    private static final long PAUSED_RETRY_MILLIS = 10;
+
+    private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+    private final Logger log = LoggerFactory.getLogger(LineProtocolListener.class);
+
+    private final ProductionLaitWriteBehindBuffer productionLaitWriteBehindBuffer;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ApplicationProperties.LineProtocol properties;
+
+    private final BiPredicate<String, String> authenticator;
+
+    private final Set<LineProtocolConnection> connections = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Counter[]> deviceCounters = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    private volatile int localPort = -1;
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private Thread selectorThread;
+
+    private Runnable stopCallback;
+
+    public LineProtocolListener(
+        ProductionLaitWriteBehindBuffer productionLaitWriteBehindBuffer,
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        this.productionLaitWriteBehindBuffer = productionLaitWriteBehindBuffer;
+        this.meterRegistry = meterRegistry;
+        this.properties = applicationProperties.getLineProtocol();
+        Map<String, String> devices = Map.copyOf(properties.getDevices());
+        this.authenticator = devices.isEmpty() ? null : (device, key) -> isValidKey(devices.get(device), key);
+        meterRegistry.gauge("production.lineprotocol.connections", connections, Set::size);
+    }
+
+    private static boolean isValidKey(String expected, String key) {
+        // Constant time, so that the key can't be guessed from the response time
+        return (
+            expected != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), key.getBytes(StandardCharsets.UTF_8))
+        );
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled() || running) {
+            return;
+        }
+        if (!productionLaitWriteBehindBuffer.isEnabled()) {
+            log.error("The line protocol listener needs application.write-behind.enabled, it is not started");
+            return;
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(properties.getBindAddress(), properties.getPort()));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            localPort = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the line protocol listener", e);
+        }
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "production-lait-line-protocol");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("Listening to the production line protocol on port {}", localPort);
+    }
+
+    /**
+     * Stop the listener, and wait for the selector thread to close the connections, the server channel and the
+     * selector, for at most twice {@link #STOP_TIMEOUT_MILLIS}.
+     */
+    @Override
+    public void stop() {
+        CountDownLatch stopped = new CountDownLatch(1);
+        stop(stopped::countDown);
+        try {
+            if (!stopped.await(2 * STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("The production line protocol listener is still stopping");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        if (!running) {
+            callback.run();
+            return;
+        }
+        stopCallback = callback;
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /**
+     * @return the port the listener is bound to, or -1 if it isn't started.
+     */
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    /**
+     * @return the statistics of the open connections.
+     */
+    public List<ConnectionStats> getConnections() {
+        List<ConnectionStats> stats = new ArrayList<>();
+        for (LineProtocolConnection connection : connections) {
+            stats.add(
+                new ConnectionStats(
+                    connection.getRemoteAddress(),
+                    connection.getDevice(),
+                    connection.getConnectedAt(),
+                    connection.getBytes(),
+                    connection.getReadings(),
+                    connection.getErrors()
+                )
+            );
+        }
+        return stats;
+    }
+
+    private void selectLoop() {
+        List<SelectionKey> paused = new ArrayList<>();
+        try {
+            while (running) {
+                selector.select(paused.isEmpty() ? 0 : PAUSED_RETRY_MILLIS);
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key, paused);
+                    }
+                }
+                resume(paused);
+            }
+            // Give the readings already received a chance to reach the buffer
+            long deadline = System.currentTimeMillis() + STOP_TIMEOUT_MILLIS;
+            while (!paused.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(PAUSED_RETRY_MILLIS);
+                resume(paused);
+            }
+        } catch (IOException e) {
+            log.error("The line protocol listener failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            close();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        LineProtocolConnection connection = new LineProtocolConnection(channel.getRemoteAddress().toString(), authenticator);
+        channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+        log.debug("Accepted a line protocol connection from {}", connection.getRemoteAddress());
+    }
+
+    private void read(SelectionKey key, List<SelectionKey> paused) {
+        LineProtocolConnection connection = (LineProtocolConnection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            if (channel.read(connection.buffer()) < 0) {
+                // The last line is processed even if it isn't ended
+                if (connection.buffer().hasRemaining()) {
+                    connection.buffer().put((byte) '\n');
+                }
+                drain(key, paused);
+                if (key.isValid() && !paused.contains(key)) {
+                    closeConnection(key);
+                }
+                return;
+            }
+        } catch (IOException e) {
+            log.debug("Closing the line protocol connection from {}: {}", connection.getRemoteAddress(), e.getMessage());
+            closeConnection(key);
+            return;
+        }
+        drain(key, paused);
+    }
+
+    private void drain(SelectionKey key, List<SelectionKey> paused) {
+        LineProtocolConnection connection = (LineProtocolConnection) key.attachment();
+        connection.buffer().flip();
+        long readings = connection.getReadings();
+        long errors = connection.getErrors();
+        long bytes = connection.getBytes();
+        LineProtocolConnection.Status status = connection.drain(this::submit);
+        count(connection, readings, errors, bytes);
+        switch (status) {
+            case DRAINED:
+                connection.buffer().clear();
+                break;
+            case PAUSED:
+                key.interestOps(0);
+                paused.add(key);
+                break;
+            default:
+                log.warn("Rejected the line protocol connection from {}: authentication failed", connection.getRemoteAddress());
+                closeConnection(key);
+        }
+    }
+
+    private void resume(List<SelectionKey> paused) {
+        Iterator<SelectionKey> keys = paused.iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            if (!key.isValid()) {
+                keys.remove();
+                continue;
+            }
+            LineProtocolConnection connection = (LineProtocolConnection) key.attachment();
+            long readings = connection.getReadings();
+            long errors = connection.getErrors();
+            long bytes = connection.getBytes();
+            LineProtocolConnection.Status status = connection.drain(this::submit);
+            count(connection, readings, errors, bytes);
+            if (status != LineProtocolConnection.Status.PAUSED) {
+                keys.remove();
+                connection.buffer().clear();
+                if (status == LineProtocolConnection.Status.DRAINED && ((SocketChannel) key.channel()).isConnected()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                } else {
+                    closeConnection(key);
+                }
+            }
+        }
+    }
+
+    private boolean submit(long timestamp, int quantite) {
+        ProductionLait productionLait = new ProductionLait().quantite(quantite).dateproduction(Instant.ofEpochMilli(timestamp));
+        return productionLaitWriteBehindBuffer.submit(productionLait).isPresent();
+    }
+
+    private void count(LineProtocolConnection connection, long readings, long errors, long bytes) {
+        String device = connection.getDevice();
+        if (device == null) {
+            return;
+        }
+        Counter[] counters = deviceCounters.computeIfAbsent(
+            device,
+            d ->
+                new Counter[] {
+                    Counter.builder("production.lineprotocol.readings").tag("device", d).register(meterRegistry),
+                    Counter.builder("production.lineprotocol.errors").tag("device", d).register(meterRegistry),
+                    Counter.builder("production.lineprotocol.received").baseUnit("bytes").tag("device", d).register(meterRegistry),
+                }
+        );
+        counters[0].increment(connection.getReadings() - readings);
+        counters[1].increment(connection.getErrors() - errors);
+        counters[2].increment(connection.getBytes() - bytes);
+    }
+
+    private void closeConnection(SelectionKey key) {
+        LineProtocolConnection connection = (LineProtocolConnection) key.attachment();
+        connections.remove(connection);
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Could not close the line protocol connection from {}: {}", connection.getRemoteAddress(), e.getMessage());
+        }
+    }
+
+    private void close() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof LineProtocolConnection) {
+                closeConnection(key);
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Could not close the line protocol listener: {}", e.getMessage());
+        }
+        localPort = -1;
+        log.info("Stopped the production line protocol listener");
+        if (stopCallback != null) {
+            stopCallback.run();
+        }
+    }
+
+    /**
+     * Statistics of an open connection.
+     */
+    public static final class ConnectionStats {
+
+        private final String remoteAddress;
+
+        private final String device;
+
+        private final Instant connectedAt;
+
+        private final long bytes;
+
+        private final long readings;
+
+        private final long errors;
+
+        ConnectionStats(String remoteAddress, String device, Instant connectedAt, long bytes, long readings, long errors) {
+            this.remoteAddress = remoteAddress;
+            this.device = device;
+            this.connectedAt = connectedAt;
+            this.bytes = bytes;
+            this.readings = readings;
+            this.errors = errors;
+        }
+
+        public String getRemoteAddress() {
+            return remoteAddress;
+        }
+
+        public String getDevice() {
+            return device;
+        }
+
+        public Instant getConnectedAt() {
+            return connectedAt;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getReadings() {
+            return readings;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+    }
+}
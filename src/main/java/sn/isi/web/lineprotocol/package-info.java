@@ -0,0 +1,4 @@
+/**
+ * TCP line protocol ingestion of productions, for the milking controllers.
+ */
+package sn.isi.web.lineprotocol;
@@ -2,9 +2,13 @@ package sn.isi.web.rest;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -12,73 +16,121 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.isi.domain.FicheMedical;
-import sn.isi.repository.FicheMedicalRepository;
+import sn.isi.service.ExportFormat;
+import sn.isi.service.ExportService;
+import sn.isi.service.FicheMedicalService;
+import sn.isi.service.ProjectionService;
 import sn.isi.web.rest.errors.BadRequestAlertException;
+import sn.isi.web.rest.util.DateRange;
+import sn.isi.web.rest.util.EntityTagUtil;
+import sn.isi.web.rest.util.IdempotencyKeyHandler;
+import sn.isi.web.rest.util.KeysetPaginationUtil;
+import sn.isi.web.rest.util.SparseFieldsetUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link sn.isi.domain.FicheMedical}.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class FicheMedicalResource {
 
     private final Logger log = LoggerFactory.getLogger(FicheMedicalResource.class);
 
     private static final String ENTITY_NAME = "microserviceproductionFicheMedical";
 
+    private static final int MAX_BATCH_IDS = 1000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
-    private final FicheMedicalRepository ficheMedicalRepository;
+    private final FicheMedicalService ficheMedicalService;
+
+    private final ProjectionService projectionService;
+
+    private final ExportService exportService;
+
+    private final IdempotencyKeyHandler idempotencyKeyHandler;
 
-    public FicheMedicalResource(FicheMedicalRepository ficheMedicalRepository) {
-        this.ficheMedicalRepository = ficheMedicalRepository;
+    public FicheMedicalResource(
+        FicheMedicalService ficheMedicalService,
+        ProjectionService projectionService,
+        ExportService exportService,
+        IdempotencyKeyHandler idempotencyKeyHandler
+    ) {
+        this.ficheMedicalService = ficheMedicalService;
+        this.projectionService = projectionService;
+        this.exportService = exportService;
+        this.idempotencyKeyHandler = idempotencyKeyHandler;
     }
 
     /**
      * {@code POST  /fiche-medicals} : Create a new ficheMedical.
+     * <p>
+     * The ficheMedical is saved, and the response of its Idempotency-Key stored, in one transaction.
      *
      * @param ficheMedical the ficheMedical to create.
+     * @param idempotencyKey the optional Idempotency-Key: a retry with the same key gets the response of the first request.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new ficheMedical, or with status {@code 400 (Bad Request)} if the ficheMedical has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/fiche-medicals")
-    public ResponseEntity<FicheMedical> createFicheMedical(@Valid @RequestBody FicheMedical ficheMedical) throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<FicheMedical> createFicheMedical(
+        @Valid @RequestBody FicheMedical ficheMedical,
+        @RequestHeader(value = IdempotencyKeyHandler.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) throws URISyntaxException {
         log.debug("REST request to save FicheMedical : {}", ficheMedical);
         if (ficheMedical.getId() != null) {
             throw new BadRequestAlertException("A new ficheMedical cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        FicheMedical result = ficheMedicalRepository.save(ficheMedical);
-        return ResponseEntity
-            .created(new URI("/api/fiche-medicals/" + result.getId()))
-            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+        return idempotencyKeyHandler.execute(
+            idempotencyKey,
+            ENTITY_NAME,
+            FicheMedical.class,
+            () -> {
+                FicheMedical result = ficheMedicalService.save(ficheMedical);
+                return ResponseEntity
+                    .created(new URI("/api/fiche-medicals/" + result.getId()))
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                    .body(result);
+            }
+        );
     }
 
     /**
      * {@code PUT  /fiche-medicals/:id} : Updates an existing ficheMedical.
      *
+     * <p>
+     * The update only succeeds if the ficheMedical is still at the version of the {@code If-Match} entity tag, or else at
+     * the {@code version} of the body, when given.
+     *
      * @param id the id of the ficheMedical to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param ficheMedical the ficheMedical to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ficheMedical,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ficheMedical and its entity tag,
      * or with status {@code 400 (Bad Request)} if the ficheMedical is not valid,
+     * or with status {@code 404 (Not Found)} if the ficheMedical is not found,
+     * or with status {@code 409 (Conflict)} if the ficheMedical is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the ficheMedical couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/fiche-medicals/{id}")
     public ResponseEntity<FicheMedical> updateFicheMedical(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody FicheMedical ficheMedical
     ) throws URISyntaxException {
         log.debug("REST request to update FicheMedical : {}, {}", id, ficheMedical);
@@ -89,31 +141,40 @@ public class FicheMedicalResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!ficheMedicalRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        FicheMedical result = ficheMedicalRepository.save(ficheMedical);
-        return ResponseEntity
-            .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, ficheMedical.getId().toString()))
-            .body(result);
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(ficheMedical.getVersion());
+        Optional<FicheMedical> result = ficheMedicalService.update(ficheMedical, expectedVersion);
+        return result
+            .map(
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code PATCH  /fiche-medicals/:id} : Partial updates given fields of an existing ficheMedical, field will ignore if it is null
      *
+     * <p>
+     * Like a {@code PUT}, the update only succeeds if the ficheMedical is at the expected version.
+     *
      * @param id the id of the ficheMedical to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param ficheMedical the ficheMedical to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ficheMedical,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated ficheMedical and its entity tag,
      * or with status {@code 400 (Bad Request)} if the ficheMedical is not valid,
      * or with status {@code 404 (Not Found)} if the ficheMedical is not found,
+     * or with status {@code 409 (Conflict)} if the ficheMedical is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the ficheMedical couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/fiche-medicals/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<FicheMedical> partialUpdateFicheMedical(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody FicheMedical ficheMedical
     ) throws URISyntaxException {
         log.debug("REST request to partial update FicheMedical partially : {}, {}", id, ficheMedical);
@@ -124,57 +185,273 @@ public class FicheMedicalResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!ficheMedicalRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(ficheMedical.getVersion());
+        Optional<FicheMedical> result = ficheMedicalService.partialUpdate(ficheMedical, expectedVersion);
 
-        Optional<FicheMedical> result = ficheMedicalRepository
-            .findById(ficheMedical.getId())
+        return result
             .map(
-                existingFicheMedical -> {
-                    if (ficheMedical.getObservation() != null) {
-                        existingFicheMedical.setObservation(ficheMedical.getObservation());
-                    }
-                    if (ficheMedical.getDateconsultation() != null) {
-                        existingFicheMedical.setDateconsultation(ficheMedical.getDateconsultation());
-                    }
-
-                    return existingFicheMedical;
-                }
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
             )
-            .map(ficheMedicalRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, ficheMedical.getId().toString())
-        );
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code GET  /fiche-medicals} : get all the ficheMedicals.
+     * <p>
+     * When a {@code cursor} parameter is given, the page is read with keyset pagination on ({@code dateconsultation}, {@code id}),
+     * and the next page is linked with a cursor instead of a page number.
+     * <p>
+     * The entity tag of the response is the last modification of the ficheMedicals, read before the page: when the
+     * {@code If-None-Match} header matches it, the page is not read.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheMedicals in body.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code dateconsultation} range, inclusive.
+     * @param to the end of the {@code dateconsultation} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheMedicals in body,
+     * or with status {@code 304 (Not Modified)} if no ficheMedical changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the range or the cursor is not valid.
      */
     @GetMapping("/fiche-medicals")
-    public ResponseEntity<List<FicheMedical>> getAllFicheMedicals(Pageable pageable) {
+    public ResponseEntity<List<FicheMedical>> getAllFicheMedicals(
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        // Read before the page, so that the entity tag is never newer than the page
+        String entityTag = EntityTagUtil.entityTag(ficheMedicalService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get a keyset page of FicheMedicals");
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<FicheMedical> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, ENTITY_NAME, Long::valueOf)
+                .map(
+                    after ->
+                        ficheMedicalService.findAllAfterOrderByDateconsultationAndId(
+                            after.getDate(),
+                            after.getId(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                )
+                .orElseGet(() -> ficheMedicalService.findAllOrderByDateconsultationAndId(range.getFrom(), range.getTo(), lookAhead));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                FicheMedical::getDateconsultation,
+                FicheMedical::getId
+            );
+            return ResponseEntity.ok().headers(headers).eTag(entityTag).body(KeysetPaginationUtil.pageContent(rows, pageable));
+        }
         log.debug("REST request to get a page of FicheMedicals");
-        Page<FicheMedical> page = ficheMedicalRepository.findAll(pageable);
+        Page<FicheMedical> page = range.isBounded()
+            ? ficheMedicalService.findAllByDateconsultation(range.getFrom(), range.getTo(), pageable)
+            : ficheMedicalService.findAll(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).eTag(entityTag).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /fiche-medicals?fields=} : get some fields of all the ficheMedicals.
+     * <p>
+     * Only the requested fields, for instance {@code ?fields=id,dateconsultation}, are read from the database and returned:
+     * the ficheMedicals are not loaded. Pages are read like those of {@link #getAllFicheMedicals}, with offset or keyset pagination,
+     * and have the same entity tag.
+     *
+     * @param fields the comma-separated fields to return.
+     * @param pageable the pagination information.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code dateconsultation} range, inclusive.
+     * @param to the end of the {@code dateconsultation} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of ficheMedical fields in body,
+     * or with status {@code 304 (Not Modified)} if no ficheMedical changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the fields, the sort, the range or the cursor is not valid.
+     */
+    @GetMapping(value = "/fiche-medicals", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!ids" })
+    public ResponseEntity<List<Map<String, Object>>> getAllFicheMedicalFields(
+        @RequestParam String fields,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Set<String> fieldNames = projectionService.getFieldNames(FicheMedical.class);
+        List<String> selected = SparseFieldsetUtil.parseFields(fields, fieldNames, ENTITY_NAME);
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        String entityTag = EntityTagUtil.entityTag(ficheMedicalService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get the {} of a keyset page of FicheMedicals", selected);
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<Map<String, Object>> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, ENTITY_NAME, Long::valueOf)
+                .map(
+                    after ->
+                        projectionService.findAllAfterOrderByDateAndId(
+                            FicheMedical.class,
+                            selected,
+                            "dateconsultation",
+                            after.getDate(),
+                            after.getId(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                )
+                .orElseGet(
+                    () ->
+                        projectionService.findAllOrderByDateAndId(
+                            FicheMedical.class,
+                            selected,
+                            "dateconsultation",
+                            range.getFrom(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                );
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                row -> (Instant) row.get("dateconsultation"),
+                row -> row.get("id")
+            );
+            List<Map<String, Object>> content = SparseFieldsetUtil.retainFields(KeysetPaginationUtil.pageContent(rows, pageable), selected);
+            return ResponseEntity.ok().headers(headers).eTag(entityTag).body(content);
+        }
+        log.debug("REST request to get the {} of a page of FicheMedicals", selected);
+        SparseFieldsetUtil.checkSort(pageable.getSort(), fieldNames, ENTITY_NAME);
+        Page<Map<String, Object>> page = projectionService.findAll(
+            FicheMedical.class,
+            selected,
+            "dateconsultation",
+            range.getFrom(),
+            range.getTo(),
+            pageable
+        );
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity.ok().headers(headers).eTag(entityTag).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /fiche-medicals?ids=} : get the ficheMedicals of a list of ids.
+     * <p>
+     * The ficheMedicals are read in one request instead of one {@code GET  /fiche-medicals/:id} per id: those in the
+     * second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the comma-separated ids, at most {@value #MAX_BATCH_IDS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the ficheMedicals which exist in body, in the order of the ids,
+     * or with status {@code 400 (Bad Request)} if there is no id or too many.
+     */
+    @GetMapping(value = "/fiche-medicals", params = "ids")
+    public ResponseEntity<List<FicheMedical>> getFicheMedicalsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get the FicheMedicals : {}", ids);
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BATCH_IDS) {
+            throw new BadRequestAlertException("Invalid ids", ENTITY_NAME, "idsinvalid");
+        }
+        return ResponseEntity.ok().body(ficheMedicalService.findAllById(distinctIds));
+    }
+
+    /**
+     * {@code GET  /fiche-medicals/export} : export the ficheMedicals as a file.
+     * <p>
+     * The rows are streamed from a database cursor, ordered by {@code dateconsultation} and {@code id}.
+     *
+     * @param format the format of the file: {@code csv}, {@code ndjson} or {@code protobuf}.
+     * @param from the start of the {@code dateconsultation} range, inclusive.
+     * @param to the end of the {@code dateconsultation} range, exclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed file in body,
+     * or with status {@code 400 (Bad Request)} if the format or the range is not valid.
+     */
+    @GetMapping("/fiche-medicals/export")
+    public ResponseEntity<StreamingResponseBody> exportFicheMedicals(
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to
+    ) {
+        log.debug("REST request to export FicheMedicals as {}", format);
+        ExportFormat exportFormat = ExportFormat
+            .fromValue(format)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid format", ENTITY_NAME, "formatinvalid"));
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        StreamingResponseBody body = out ->
+            exportService.export(
+                FicheMedical.class,
+                "dateconsultation",
+                range.getFrom(),
+                range.getTo(),
+                exportFormat,
+                new String[] { "id", "observation", "dateconsultation" },
+                ficheMedical -> new Object[] { ficheMedical.getId(), ficheMedical.getObservation(), ficheMedical.getDateconsultation() },
+                FicheMedicalResource::toProtobufMessage,
+                out
+            );
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("fiche-medicals." + exportFormat.getValue()).build().toString()
+            )
+            .body(body);
+    }
+
+    /**
+     * Map a ficheMedical to its {@code FicheMedical} message of {@code proto/production.proto}, independently of the CSV columns.
+     *
+     * @param ficheMedical the ficheMedical.
+     * @return the values of the fields of the message, by field number.
+     */
+    private static Object[] toProtobufMessage(FicheMedical ficheMedical) {
+        return new Object[] { ficheMedical.getId(), ficheMedical.getObservation(), ficheMedical.getDateconsultation() };
     }
 
     /**
      * {@code GET  /fiche-medicals/:id} : get the "id" ficheMedical.
      *
+     * <p>
+     * The entity tag of the response is the version of the ficheMedical: when the {@code If-None-Match} header matches it,
+     * only the version is read, and the ficheMedical is not loaded.
+     *
      * @param id the id of the ficheMedical to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ficheMedical, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ficheMedical,
+     * or with status {@code 304 (Not Modified)} if the ficheMedical is unchanged,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/fiche-medicals/{id}")
-    public ResponseEntity<FicheMedical> getFicheMedical(@PathVariable Long id) {
+    public ResponseEntity<FicheMedical> getFicheMedical(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get FicheMedical : {}", id);
-        Optional<FicheMedical> ficheMedical = ficheMedicalRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(ficheMedical);
+        if (ifNoneMatch != null) {
+            Optional<String> entityTag = ficheMedicalService.findVersion(id).map(EntityTagUtil::entityTag);
+            if (entityTag.isPresent() && EntityTagUtil.matches(ifNoneMatch, entityTag.get())) {
+                return EntityTagUtil.notModified(entityTag.get());
+            }
+        }
+        return ficheMedicalService
+            .findOne(id)
+            .map(found -> ResponseEntity.ok().eTag(EntityTagUtil.entityTag(found.getVersion())).body(found))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -186,7 +463,7 @@ public class FicheMedicalResource {
     @DeleteMapping("/fiche-medicals/{id}")
     public ResponseEntity<Void> deleteFicheMedical(@PathVariable Long id) {
         log.debug("REST request to delete FicheMedical : {}", id);
-        ficheMedicalRepository.deleteById(id);
+        ficheMedicalService.delete(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
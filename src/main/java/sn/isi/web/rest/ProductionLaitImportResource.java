@@ -0,0 +1,101 @@
+package sn.isi.web.rest;
+
+import java.io.IOException;
+import java.net.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import sn.isi.service.ProductionLaitImportService;
+import sn.isi.service.dto.ProductionLaitImportJobDTO;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.ResponseUtil;
+
+/**
+ * REST controller for the CSV import jobs of {@link sn.isi.domain.ProductionLait}.
+ */
+@RestController
+@RequestMapping("/api")
+public class ProductionLaitImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitImportResource.class);
+
+    private static final String ENTITY_NAME = "microserviceproductionProductionLaitImport";
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final ProductionLaitImportService productionLaitImportService;
+
+    public ProductionLaitImportResource(ProductionLaitImportService productionLaitImportService) {
+        this.productionLaitImportService = productionLaitImportService;
+    }
+
+    /**
+     * {@code POST  /production-lait-imports} : Start the import of a CSV file of productionLaits.
+     * <p>
+     * The upload is spooled to disk, and imported in the background.
+     *
+     * @param file the {@code ;}-separated file, with a header naming the {@code quantite} and {@code dateproduction}
+     * columns.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the new import job,
+     * or with status {@code 400 (Bad Request)} if the file is empty or too large.
+     * @throws IOException if the file can't be stored.
+     */
+    @PostMapping(value = "/production-lait-imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ProductionLaitImportJobDTO> createProductionLaitImport(@RequestParam("file") MultipartFile file)
+        throws IOException {
+        log.debug("REST request to import ProductionLaits from : {}", file.getOriginalFilename());
+        if (file.isEmpty()) {
+            throw new BadRequestAlertException("The file is empty", ENTITY_NAME, "fileempty");
+        }
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : file.getName();
+        ProductionLaitImportJobDTO result;
+        try {
+            result = productionLaitImportService.submit(fileName, file.getSize(), file::transferTo);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException(e.getMessage(), ENTITY_NAME, "filetoolarge");
+        }
+        return ResponseEntity
+            .accepted()
+            .location(URI.create("/api/production-lait-imports/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId()))
+            .body(result);
+    }
+
+    /**
+     * {@code GET  /production-lait-imports/:id} : get the progress of an import job.
+     *
+     * @param id the id of the import job.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import job, or with status
+     * {@code 404 (Not Found)}.
+     */
+    @GetMapping("/production-lait-imports/{id}")
+    public ResponseEntity<ProductionLaitImportJobDTO> getProductionLaitImport(@PathVariable String id) {
+        log.debug("REST request to get ProductionLait import : {}", id);
+        return ResponseUtil.wrapOrNotFound(productionLaitImportService.findOne(id));
+    }
+
+    /**
+     * {@code POST  /production-lait-imports/:id/resume} : resume a failed import job after its last committed chunk.
+     *
+     * @param id the id of the import job.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} and with body the import job,
+     * or with status {@code 400 (Bad Request)} if the job hasn't failed, or with status {@code 404 (Not Found)}.
+     */
+    @PostMapping("/production-lait-imports/{id}/resume")
+    public ResponseEntity<ProductionLaitImportJobDTO> resumeProductionLaitImport(@PathVariable String id) {
+        log.debug("REST request to resume ProductionLait import : {}", id);
+        if (productionLaitImportService.findOne(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!productionLaitImportService.resume(id)) {
+            throw new BadRequestAlertException("Only a failed import can be resumed", ENTITY_NAME, "statusinvalid");
+        }
+        return ResponseEntity.accepted().body(productionLaitImportService.findOne(id).orElseThrow());
+    }
+}
@@ -1,85 +1,443 @@
 package sn.isi.web.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import sn.isi.config.ApplicationProperties;
 import sn.isi.domain.ProductionLait;
-import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.repository.ProductionLaitJournal;
+import sn.isi.service.AggregationBucket;
+import sn.isi.service.ExportFormat;
+import sn.isi.service.ExportService;
+import sn.isi.service.FeedOverflowPolicy;
+import sn.isi.service.ProductionLaitAggregationService;
+import sn.isi.service.ProductionLaitFeed;
+import sn.isi.service.ProductionLaitHotTier;
+import sn.isi.service.ProductionLaitIngestionService;
+import sn.isi.service.ProductionLaitService;
+import sn.isi.service.ProductionLaitWriteBehindBuffer;
+import sn.isi.service.ProjectionService;
+import sn.isi.service.ProtobufCodec;
+import sn.isi.service.WriteAckMode;
+import sn.isi.service.dto.ProductionLaitAggregateDTO;
+import sn.isi.service.dto.ProductionLaitBatchItemResultDTO;
+import sn.isi.service.dto.ProductionLaitBatchItemResultDTO.Status;
+import sn.isi.service.dto.ProductionLaitFeedSummaryDTO;
+import sn.isi.service.dto.ProductionLaitPercentilesDTO;
+import sn.isi.service.dto.ProductionLaitSeriesPointDTO;
 import sn.isi.web.rest.errors.BadRequestAlertException;
+import sn.isi.web.rest.util.DateRange;
+import sn.isi.web.rest.util.EntityTagUtil;
+import sn.isi.web.rest.util.IdempotencyKeyHandler;
+import sn.isi.web.rest.util.KeysetPaginationUtil;
+import sn.isi.web.rest.util.SparseFieldsetUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link sn.isi.domain.ProductionLait}.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class ProductionLaitResource {
 
     private final Logger log = LoggerFactory.getLogger(ProductionLaitResource.class);
 
     private static final String ENTITY_NAME = "microserviceproductionProductionLait";
 
+    private static final int MAX_BATCH_IDS = 1000;
+
+    /**
+     * Types of the fields of the {@code ProductionLait} message of {@code proto/production.proto}, by field number.
+     */
+    private static final Class<?>[] PROTOBUF_FIELD_TYPES = { Long.class, Integer.class, Instant.class };
+
+    private static final int MAX_SERIES_POINTS = 100000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
-    private final ProductionLaitRepository productionLaitRepository;
+    private final ProductionLaitService productionLaitService;
+
+    private final ProjectionService projectionService;
+
+    private final ProductionLaitAggregationService productionLaitAggregationService;
+
+    private final ProductionLaitIngestionService productionLaitIngestionService;
+
+    private final ExportService exportService;
+
+    private final ProductionLaitHotTier productionLaitHotTier;
+
+    private final ProductionLaitWriteBehindBuffer productionLaitWriteBehindBuffer;
 
-    public ProductionLaitResource(ProductionLaitRepository productionLaitRepository) {
-        this.productionLaitRepository = productionLaitRepository;
+    private final ProductionLaitJournal productionLaitJournal;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final IdempotencyKeyHandler idempotencyKeyHandler;
+
+    private final ProductionLaitFeed productionLaitFeed;
+
+    public ProductionLaitResource(
+        ProductionLaitService productionLaitService,
+        ProjectionService projectionService,
+        ProductionLaitAggregationService productionLaitAggregationService,
+        ProductionLaitIngestionService productionLaitIngestionService,
+        ExportService exportService,
+        ProductionLaitHotTier productionLaitHotTier,
+        ProductionLaitWriteBehindBuffer productionLaitWriteBehindBuffer,
+        ProductionLaitJournal productionLaitJournal,
+        ApplicationProperties applicationProperties,
+        ObjectMapper objectMapper,
+        Validator validator,
+        IdempotencyKeyHandler idempotencyKeyHandler,
+        ProductionLaitFeed productionLaitFeed
+    ) {
+        this.productionLaitService = productionLaitService;
+        this.projectionService = projectionService;
+        this.productionLaitAggregationService = productionLaitAggregationService;
+        this.productionLaitIngestionService = productionLaitIngestionService;
+        this.exportService = exportService;
+        this.productionLaitHotTier = productionLaitHotTier;
+        this.productionLaitWriteBehindBuffer = productionLaitWriteBehindBuffer;
+        this.productionLaitJournal = productionLaitJournal;
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.idempotencyKeyHandler = idempotencyKeyHandler;
+        this.productionLaitFeed = productionLaitFeed;
     }
 
     /**
      * {@code POST  /production-laits} : Create a new productionLait.
+     * <p>
+     * The productionLait is saved, and the response of its Idempotency-Key stored, in one transaction.
      *
      * @param productionLait the productionLait to create.
+     * @param idempotencyKey the optional Idempotency-Key: a retry with the same key gets the response of the first request.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new productionLait, or with status {@code 400 (Bad Request)} if the productionLait has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/production-laits")
-    public ResponseEntity<ProductionLait> createProductionLait(@Valid @RequestBody ProductionLait productionLait)
-        throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<ProductionLait> createProductionLait(
+        @Valid @RequestBody ProductionLait productionLait,
+        @RequestHeader(value = IdempotencyKeyHandler.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) throws URISyntaxException {
         log.debug("REST request to save ProductionLait : {}", productionLait);
         if (productionLait.getId() != null) {
             throw new BadRequestAlertException("A new productionLait cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        ProductionLait result = productionLaitRepository.save(productionLait);
+        return idempotencyKeyHandler.execute(
+            idempotencyKey,
+            ENTITY_NAME,
+            ProductionLait.class,
+            () -> {
+                ProductionLait result = productionLaitService.save(productionLait);
+                return ResponseEntity
+                    .created(new URI("/api/production-laits/" + result.getId()))
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                    .body(result);
+            }
+        );
+    }
+
+    /**
+     * {@code POST  /production-laits?ack=accepted|committed|journaled} : Create a new productionLait, deferring its insert.
+     * <p>
+     * With {@code ack=accepted} or {@code ack=committed}, the productionLait is inserted in a batch by the
+     * write-behind buffer, and the request thread is released at once: the response is sent as soon as it is
+     * buffered, or once its batch is committed. With {@code ack=journaled}, the response is sent once the
+     * productionLait is forced to the local journal, which is replayed into the database in the background, so that
+     * it is kept across database outages. When the matching mode is disabled, the productionLait is saved right away.
+     *
+     * @param productionLait the productionLait to create.
+     * @param ack the ack mode.
+     * @param idempotencyKey the optional Idempotency-Key: a retry with the same key gets the response of the first request.
+     * @return the {@link ResponseEntity} with status {@code 202 (Accepted)} once buffered or journaled, or with
+     * status {@code 201 (Created)} and with body the new productionLait once committed, or with status
+     * {@code 429 (Too Many Requests)} if the buffer is full, or with status {@code 400 (Bad Request)} if the
+     * productionLait has already an ID or the ack mode is not valid.
+     */
+    @PostMapping(value = "/production-laits", params = "ack")
+    public CompletableFuture<ResponseEntity<ProductionLait>> createProductionLaitWriteBehind(
+        @Valid @RequestBody ProductionLait productionLait,
+        @RequestParam String ack,
+        @RequestHeader(value = IdempotencyKeyHandler.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        log.debug("REST request to buffer ProductionLait : {}", productionLait);
+        WriteAckMode ackMode = WriteAckMode
+            .fromValue(ack)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid ack mode", ENTITY_NAME, "ackinvalid"));
+        if (productionLait.getId() != null) {
+            throw new BadRequestAlertException("A new productionLait cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        return idempotencyKeyHandler.executeAsync(
+            idempotencyKey,
+            ENTITY_NAME,
+            ProductionLait.class,
+            () -> createProductionLaitDeferred(productionLait, ackMode)
+        );
+    }
+
+    private IdempotencyKeyHandler.AsyncResponse<ProductionLait> createProductionLaitDeferred(
+        ProductionLait productionLait,
+        WriteAckMode ackMode
+    ) {
+        boolean deferred = ackMode == WriteAckMode.JOURNALED
+            ? productionLaitJournal.isEnabled()
+            : productionLaitWriteBehindBuffer.isEnabled();
+        if (!deferred) {
+            ProductionLait result = productionLaitIngestionService.saveChunk(List.of(productionLait)).get(0);
+            return IdempotencyKeyHandler.AsyncResponse.of(CompletableFuture.completedFuture(createdResponse(result)));
+        }
+        if (ackMode == WriteAckMode.JOURNALED) {
+            productionLaitJournal.append(productionLait);
+            return IdempotencyKeyHandler.AsyncResponse.of(CompletableFuture.completedFuture(ResponseEntity.accepted().build()));
+        }
+        Optional<CompletableFuture<ProductionLait>> committed = productionLaitWriteBehindBuffer.submit(productionLait);
+        if (committed.isEmpty()) {
+            return IdempotencyKeyHandler.AsyncResponse.of(
+                CompletableFuture.completedFuture(
+                    ResponseEntity
+                        .status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .headers(
+                            HeaderUtil.createFailureAlert(applicationName, true, ENTITY_NAME, "bufferfull", "The write buffer is full")
+                        )
+                        .build()
+                )
+            );
+        }
+        if (ackMode == WriteAckMode.ACCEPTED) {
+            // The response is only stored for the retries once the batch is committed
+            return IdempotencyKeyHandler.AsyncResponse.of(
+                CompletableFuture.completedFuture(ResponseEntity.accepted().build()),
+                committed.get()
+            );
+        }
+        return IdempotencyKeyHandler.AsyncResponse.of(committed.get().thenApply(this::createdResponse));
+    }
+
+    private ResponseEntity<ProductionLait> createdResponse(ProductionLait result) {
         return ResponseEntity
-            .created(new URI("/api/production-laits/" + result.getId()))
+            .created(URI.create("/api/production-laits/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * {@code POST  /production-laits/batch} : Create productionLaits in bulk.
+     * <p>
+     * The body is a JSON array, read with a streaming parser one item at a time. Valid items are inserted by chunks of
+     * {@code application.ingestion.chunk-size}, each in its own transaction, so the array is never held in memory and
+     * a failed chunk doesn't roll back the previous ones.
+     *
+     * @param request the HTTP request, whose body is the JSON array of productionLaits to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the outcome of each item in body,
+     * or with status {@code 400 (Bad Request)} if the body is not a JSON array.
+     * @throws IOException if the body can't be read.
+     */
+    @PostMapping(value = "/production-laits/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ProductionLaitBatchItemResultDTO>> createProductionLaitBatch(HttpServletRequest request)
+        throws IOException {
+        log.debug("REST request to save a batch of ProductionLaits");
+        int chunkSize = applicationProperties.getIngestion().getChunkSize();
+        List<ProductionLaitBatchItemResultDTO> results = new ArrayList<>();
+        List<ProductionLait> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestAlertException("A batch must be a JSON array", ENTITY_NAME, "batchinvalid");
+            }
+            int index = 0;
+            try {
+                for (; parser.nextToken() != JsonToken.END_ARRAY; index++) {
+                    JsonNode item = parser.readValueAsTree();
+                    String error = null;
+                    ProductionLait productionLait = null;
+                    try {
+                        productionLait = objectMapper.treeToValue(item, ProductionLait.class);
+                        error = validateNewProductionLait(productionLait);
+                    } catch (JsonProcessingException e) {
+                        error = e.getOriginalMessage();
+                    }
+                    if (error != null) {
+                        results.add(new ProductionLaitBatchItemResultDTO(index, Status.INVALID, null, error));
+                        continue;
+                    }
+                    chunk.add(productionLait);
+                    chunkIndexes.add(index);
+                    if (chunk.size() == chunkSize) {
+                        saveBatchChunk(chunk, chunkIndexes, results);
+                    }
+                }
+            } catch (JsonParseException e) {
+                // The rest of the body can't be read, but the items already parsed are kept
+                results.add(new ProductionLaitBatchItemResultDTO(index, Status.INVALID, null, e.getOriginalMessage()));
+            }
+            saveBatchChunk(chunk, chunkIndexes, results);
+        }
+        results.sort(Comparator.comparingInt(ProductionLaitBatchItemResultDTO::getIndex));
+        return ResponseEntity.ok().body(results);
+    }
+
+    /**
+     * {@code POST  /production-laits/batch} : Create productionLaits in bulk from a protobuf stream.
+     * <p>
+     * The body is a stream of length-delimited {@code ProductionLait} messages of {@code proto/production.proto},
+     * read and inserted like a JSON batch. It can be sent over a single HTTP/2 stream, whose flow control slows the
+     * client down to the pace of the inserts.
+     *
+     * @param request the HTTP request, whose body is the stream of productionLaits to create.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the outcome of each message in body.
+     * @throws IOException if the body can't be read.
+     */
+    @PostMapping(value = "/production-laits/batch", consumes = ProtobufCodec.CONTENT_TYPE)
+    public ResponseEntity<List<ProductionLaitBatchItemResultDTO>> createProductionLaitProtobufBatch(HttpServletRequest request)
+        throws IOException {
+        log.debug("REST request to save a protobuf batch of ProductionLaits");
+        int chunkSize = applicationProperties.getIngestion().getChunkSize();
+        List<ProductionLaitBatchItemResultDTO> results = new ArrayList<>();
+        List<ProductionLait> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+        CodedInputStream in = CodedInputStream.newInstance(request.getInputStream());
+        int index = 0;
+        try {
+            for (Object[] values; (values = ProtobufCodec.readDelimited(in, PROTOBUF_FIELD_TYPES)) != null; index++) {
+                ProductionLait productionLait = new ProductionLait().quantite((Integer) values[1]).dateproduction((Instant) values[2]);
+                // An id of 0 is the proto3 default: the message has no id
+                productionLait.setId((Long) values[0] != 0 ? (Long) values[0] : null);
+                String error = validateNewProductionLait(productionLait);
+                if (error != null) {
+                    results.add(new ProductionLaitBatchItemResultDTO(index, Status.INVALID, null, error));
+                    continue;
+                }
+                chunk.add(productionLait);
+                chunkIndexes.add(index);
+                if (chunk.size() == chunkSize) {
+                    saveBatchChunk(chunk, chunkIndexes, results);
+                }
+            }
+        } catch (InvalidProtocolBufferException e) {
+            // The rest of the body can't be read, but the messages already parsed are kept
+            results.add(new ProductionLaitBatchItemResultDTO(index, Status.INVALID, null, e.getMessage()));
+        }
+        saveBatchChunk(chunk, chunkIndexes, results);
+        results.sort(Comparator.comparingInt(ProductionLaitBatchItemResultDTO::getIndex));
+        return ResponseEntity.ok().body(results);
+    }
+
+    private String validateNewProductionLait(ProductionLait productionLait) {
+        if (productionLait == null) {
+            return "A productionLait must be a JSON object";
+        }
+        if (productionLait.getId() != null) {
+            return "A new productionLait cannot already have an ID";
+        }
+        Set<ConstraintViolation<ProductionLait>> violations = validator.validate(productionLait);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations
+            .stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining(", "));
+    }
+
+    private void saveBatchChunk(List<ProductionLait> chunk, List<Integer> chunkIndexes, List<ProductionLaitBatchItemResultDTO> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<ProductionLait> saved = productionLaitIngestionService.saveChunk(chunk);
+            for (int i = 0; i < saved.size(); i++) {
+                results.add(new ProductionLaitBatchItemResultDTO(chunkIndexes.get(i), Status.CREATED, saved.get(i).getId(), null));
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not insert a chunk of {} ProductionLaits: {}", chunk.size(), e.getMessage());
+            for (Integer index : chunkIndexes) {
+                results.add(new ProductionLaitBatchItemResultDTO(index, Status.FAILED, null, e.getMostSpecificCause().getMessage()));
+            }
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+
     /**
      * {@code PUT  /production-laits/:id} : Updates an existing productionLait.
      *
+     * <p>
+     * The update only succeeds if the productionLait is still at the version of the {@code If-Match} entity tag, or else at
+     * the {@code version} of the body, when given.
+     *
      * @param id the id of the productionLait to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param productionLait the productionLait to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productionLait,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productionLait and its entity tag,
      * or with status {@code 400 (Bad Request)} if the productionLait is not valid,
+     * or with status {@code 404 (Not Found)} if the productionLait is not found,
+     * or with status {@code 409 (Conflict)} if the productionLait is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the productionLait couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/production-laits/{id}")
     public ResponseEntity<ProductionLait> updateProductionLait(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody ProductionLait productionLait
     ) throws URISyntaxException {
         log.debug("REST request to update ProductionLait : {}, {}", id, productionLait);
@@ -90,31 +448,40 @@ public class ProductionLaitResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!productionLaitRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        ProductionLait result = productionLaitRepository.save(productionLait);
-        return ResponseEntity
-            .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productionLait.getId().toString()))
-            .body(result);
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(productionLait.getVersion());
+        Optional<ProductionLait> result = productionLaitService.update(productionLait, expectedVersion);
+        return result
+            .map(
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code PATCH  /production-laits/:id} : Partial updates given fields of an existing productionLait, field will ignore if it is null
      *
+     * <p>
+     * Like a {@code PUT}, the update only succeeds if the productionLait is at the expected version.
+     *
      * @param id the id of the productionLait to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param productionLait the productionLait to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productionLait,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated productionLait and its entity tag,
      * or with status {@code 400 (Bad Request)} if the productionLait is not valid,
      * or with status {@code 404 (Not Found)} if the productionLait is not found,
+     * or with status {@code 409 (Conflict)} if the productionLait is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the productionLait couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/production-laits/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<ProductionLait> partialUpdateProductionLait(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody ProductionLait productionLait
     ) throws URISyntaxException {
         log.debug("REST request to partial update ProductionLait partially : {}, {}", id, productionLait);
@@ -124,58 +491,483 @@ public class ProductionLaitResource {
         if (!Objects.equals(id, productionLait.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
-
-        if (!productionLaitRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        if (productionLait.getQuantite() != null && productionLait.getQuantite() < 0) {
+            throw new BadRequestAlertException("Negative quantite", ENTITY_NAME, "quantiteinvalid");
         }
 
-        Optional<ProductionLait> result = productionLaitRepository
-            .findById(productionLait.getId())
-            .map(
-                existingProductionLait -> {
-                    if (productionLait.getQuantite() != null) {
-                        existingProductionLait.setQuantite(productionLait.getQuantite());
-                    }
-                    if (productionLait.getDateproduction() != null) {
-                        existingProductionLait.setDateproduction(productionLait.getDateproduction());
-                    }
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(productionLait.getVersion());
+        Optional<ProductionLait> result = productionLaitService.partialUpdate(productionLait, expectedVersion);
 
-                    return existingProductionLait;
-                }
+        return result
+            .map(
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
             )
-            .map(productionLaitRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, productionLait.getId().toString())
-        );
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code GET  /production-laits} : get all the productionLaits.
+     * <p>
+     * When a {@code cursor} parameter is given, the page is read with keyset pagination on ({@code dateproduction}, {@code id}),
+     * and the next page is linked with a cursor instead of a page number.
+     * <p>
+     * The entity tag of the response is the last modification of the productionLaits, read before the page: when the
+     * {@code If-None-Match} header matches it, the page is not read.
+     * <p>
+     * Ranges ordered by {@code dateproduction} are read from the {@link ProductionLaitHotTier} when it holds them, and
+     * then have no entity tag.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productionLaits in body.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code dateproduction} range, inclusive.
+     * @param to the end of the {@code dateproduction} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productionLaits in body,
+     * or with status {@code 304 (Not Modified)} if no productionLait changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the range or the cursor is not valid.
      */
     @GetMapping("/production-laits")
-    public ResponseEntity<List<ProductionLait>> getAllProductionLaits(Pageable pageable) {
+    public ResponseEntity<List<ProductionLait>> getAllProductionLaits(
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        // Read before the page, so that the entity tag is never newer than the page
+        String entityTag = EntityTagUtil.entityTag(productionLaitService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get a keyset page of ProductionLaits");
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            Optional<KeysetPaginationUtil.Cursor<Long>> after = KeysetPaginationUtil.decodeCursor(cursor, ENTITY_NAME, Long::valueOf);
+            Optional<List<ProductionLait>> hotRows = productionLaitHotTier
+                .snapshotFrom(after.map(KeysetPaginationUtil.Cursor::getDate).orElse(range.getFrom()))
+                .map(
+                    snapshot -> {
+                        int start = after
+                            .map(a -> snapshot.indexAfter(a.getDate(), a.getId()))
+                            .orElseGet(() -> snapshot.indexOf(range.getFrom()));
+                        return snapshot.rows(start, Math.min(snapshot.indexOf(range.getTo()), start + lookAhead.getPageSize()));
+                    }
+                );
+            List<ProductionLait> rows = hotRows.orElseGet(
+                () ->
+                    after
+                        .map(
+                            a ->
+                                productionLaitService.findAllAfterOrderByDateproductionAndId(
+                                    a.getDate(),
+                                    a.getId(),
+                                    range.getTo(),
+                                    lookAhead
+                                )
+                        )
+                        .orElseGet(() -> productionLaitService.findAllOrderByDateproductionAndId(range.getFrom(), range.getTo(), lookAhead))
+            );
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                ProductionLait::getDateproduction,
+                ProductionLait::getId
+            );
+            return okWithEntityTag(hotRows.isPresent() ? null : entityTag)
+                .headers(headers)
+                .body(KeysetPaginationUtil.pageContent(rows, pageable));
+        }
         log.debug("REST request to get a page of ProductionLaits");
-        Page<ProductionLait> page = productionLaitRepository.findAll(pageable);
+        Optional<ProductionLaitHotTier.Snapshot> hot = range.isBounded() && isDateproductionOrder(pageable.getSort())
+            ? productionLaitHotTier.snapshotFrom(range.getFrom())
+            : Optional.empty();
+        Page<ProductionLait> page;
+        if (hot.isPresent()) {
+            int start = hot.get().indexOf(range.getFrom());
+            int end = Math.max(start, hot.get().indexOf(range.getTo()));
+            int pageStart = (int) Math.min(start + pageable.getOffset(), end);
+            page = new PageImpl<>(hot.get().rows(pageStart, Math.min(end, pageStart + pageable.getPageSize())), pageable, end - start);
+        } else {
+            page =
+                range.isBounded()
+                    ? productionLaitService.findAllByDateproduction(range.getFrom(), range.getTo(), pageable)
+                    : productionLaitService.findAll(pageable);
+        }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return okWithEntityTag(hot.isPresent() ? null : entityTag).headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /production-laits?fields=} : get some fields of all the productionLaits.
+     * <p>
+     * Only the requested fields, for instance {@code ?fields=id,dateproduction}, are read from the database and returned:
+     * the productionLaits are not loaded. Pages are read like those of {@link #getAllProductionLaits}, with offset or keyset pagination,
+     * and have the same entity tag. Pages are never read from the
+     * {@link ProductionLaitHotTier}.
+     *
+     * @param fields the comma-separated fields to return.
+     * @param pageable the pagination information.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code dateproduction} range, inclusive.
+     * @param to the end of the {@code dateproduction} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of productionLait fields in body,
+     * or with status {@code 304 (Not Modified)} if no productionLait changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the fields, the sort, the range or the cursor is not valid.
+     */
+    @GetMapping(value = "/production-laits", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!ids" })
+    public ResponseEntity<List<Map<String, Object>>> getAllProductionLaitFields(
+        @RequestParam String fields,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Set<String> fieldNames = projectionService.getFieldNames(ProductionLait.class);
+        List<String> selected = SparseFieldsetUtil.parseFields(fields, fieldNames, ENTITY_NAME);
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        String entityTag = EntityTagUtil.entityTag(productionLaitService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get the {} of a keyset page of ProductionLaits", selected);
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<Map<String, Object>> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, ENTITY_NAME, Long::valueOf)
+                .map(
+                    after ->
+                        projectionService.findAllAfterOrderByDateAndId(
+                            ProductionLait.class,
+                            selected,
+                            "dateproduction",
+                            after.getDate(),
+                            after.getId(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                )
+                .orElseGet(
+                    () ->
+                        projectionService.findAllOrderByDateAndId(
+                            ProductionLait.class,
+                            selected,
+                            "dateproduction",
+                            range.getFrom(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                );
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                row -> (Instant) row.get("dateproduction"),
+                row -> row.get("id")
+            );
+            List<Map<String, Object>> content = SparseFieldsetUtil.retainFields(KeysetPaginationUtil.pageContent(rows, pageable), selected);
+            return ResponseEntity.ok().headers(headers).eTag(entityTag).body(content);
+        }
+        log.debug("REST request to get the {} of a page of ProductionLaits", selected);
+        SparseFieldsetUtil.checkSort(pageable.getSort(), fieldNames, ENTITY_NAME);
+        Page<Map<String, Object>> page = projectionService.findAll(
+            ProductionLait.class,
+            selected,
+            "dateproduction",
+            range.getFrom(),
+            range.getTo(),
+            pageable
+        );
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).eTag(entityTag).body(page.getContent());
+    }
+
+    /**
+     * @param entityTag the entity tag of a page, or {@code null} if it was read from the {@link ProductionLaitHotTier}:
+     * the tier is updated just after the commits, so it can lag behind the last modification.
+     * @return the builder of a {@code 200 (OK)} response with the entity tag, if any.
+     */
+    private static ResponseEntity.BodyBuilder okWithEntityTag(String entityTag) {
+        return entityTag != null ? ResponseEntity.ok().eTag(entityTag) : ResponseEntity.ok();
+    }
+
+    /**
+     * @param sort a requested sort.
+     * @return whether rows ordered by {@code dateproduction} and {@code id} satisfy it.
+     */
+    private static boolean isDateproductionOrder(Sort sort) {
+        return sort.isUnsorted() || sort.equals(Sort.by("dateproduction")) || sort.equals(Sort.by("dateproduction", "id"));
+    }
+
+    /**
+     * {@code GET  /production-laits/aggregate} : get the totals of the productionLait quantities per time bucket.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param bucket the width of the buckets: {@code hour}, {@code day}, {@code week} or {@code month}.
+     * @param tz the zone in which the bucket boundaries are computed, defaults to the farm's zone.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of non-empty buckets in body,
+     * or with status {@code 400 (Bad Request)} if the range, the bucket or the zone is not valid.
+     */
+    @GetMapping("/production-laits/aggregate")
+    public ResponseEntity<List<ProductionLaitAggregateDTO>> getProductionLaitAggregates(
+        @RequestParam Instant from,
+        @RequestParam Instant to,
+        @RequestParam(defaultValue = "day") String bucket,
+        @RequestParam(required = false) String tz
+    ) {
+        log.debug("REST request to aggregate ProductionLaits from {} to {} by {} in {}", from, to, bucket, tz);
+        if (!from.isBefore(to)) {
+            throw new BadRequestAlertException("Invalid range", ENTITY_NAME, "rangeinvalid");
+        }
+        AggregationBucket aggregationBucket = AggregationBucket
+            .fromValue(bucket)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid bucket", ENTITY_NAME, "bucketinvalid"));
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(tz != null ? tz : applicationProperties.getProduction().getZoneId());
+        } catch (DateTimeException e) {
+            throw new BadRequestAlertException("Invalid time zone", ENTITY_NAME, "tzinvalid");
+        }
+        return ResponseEntity.ok().body(productionLaitAggregationService.aggregate(from, to, aggregationBucket, zone));
+    }
+
+    /**
+     * {@code GET  /production-laits?ids=} : get the productionLaits of a list of ids.
+     * <p>
+     * The productionLaits are read in one request instead of one {@code GET  /production-laits/:id} per id: those in the
+     * second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the comma-separated ids, at most {@value #MAX_BATCH_IDS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the productionLaits which exist in body, in the order of the ids,
+     * or with status {@code 400 (Bad Request)} if there is no id or too many.
+     */
+    @GetMapping(value = "/production-laits", params = "ids")
+    public ResponseEntity<List<ProductionLait>> getProductionLaitsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get the ProductionLaits : {}", ids);
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BATCH_IDS) {
+            throw new BadRequestAlertException("Invalid ids", ENTITY_NAME, "idsinvalid");
+        }
+        return ResponseEntity.ok().body(productionLaitService.findAllById(distinctIds));
+    }
+
+    /**
+     * {@code GET  /production-laits/export} : export the productionLaits as a file.
+     * <p>
+     * The rows are streamed from a database cursor, ordered by {@code dateproduction} and {@code id}.
+     *
+     * @param format the format of the file: {@code csv}, {@code ndjson} or {@code protobuf}.
+     * @param from the start of the {@code dateproduction} range, inclusive.
+     * @param to the end of the {@code dateproduction} range, exclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed file in body,
+     * or with status {@code 400 (Bad Request)} if the format or the range is not valid.
+     */
+    @GetMapping("/production-laits/export")
+    public ResponseEntity<StreamingResponseBody> exportProductionLaits(
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to
+    ) {
+        log.debug("REST request to export ProductionLaits as {}", format);
+        ExportFormat exportFormat = ExportFormat
+            .fromValue(format)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid format", ENTITY_NAME, "formatinvalid"));
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        StreamingResponseBody body = out ->
+            exportService.export(
+                ProductionLait.class,
+                "dateproduction",
+                range.getFrom(),
+                range.getTo(),
+                exportFormat,
+                new String[] { "id", "quantite", "dateproduction" },
+                productionLait -> new Object[] { productionLait.getId(), productionLait.getQuantite(), productionLait.getDateproduction() },
+                ProductionLaitResource::toProtobufMessage,
+                out
+            );
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("production-laits." + exportFormat.getValue()).build().toString()
+            )
+            .body(body);
+    }
+
+    /**
+     * Map a productionLait to its {@code ProductionLait} message of {@code proto/production.proto}, independently of the CSV columns.
+     *
+     * @param productionLait the productionLait.
+     * @return the values of the fields of the message, by field number.
+     */
+    private static Object[] toProtobufMessage(ProductionLait productionLait) {
+        return new Object[] { productionLait.getId(), productionLait.getQuantite(), productionLait.getDateproduction() };
+    }
+
+    /**
+     * {@code GET  /production-laits/stream} : stream the productionLaits as they are committed, as Server-Sent Events.
+     * <p>
+     * Each production is sent as a {@code productionLait} event. When the client reads too slowly, the oldest
+     * buffered productions are dropped, or coalesced into a {@code summary} event sent before the remaining ones.
+     *
+     * @param overflow what to do with the oldest productions when the buffer is full: {@code drop-oldest} or
+     * {@code coalesce}.
+     * @return the event stream, or the {@link ResponseEntity} with status {@code 400 (Bad Request)} if the overflow
+     * policy is not valid.
+     */
+    @GetMapping(value = "/production-laits/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamProductionLaits(@RequestParam(defaultValue = "drop-oldest") String overflow) {
+        log.debug("REST request to stream ProductionLaits, overflow {}", overflow);
+        FeedOverflowPolicy overflowPolicy = FeedOverflowPolicy
+            .fromValue(overflow)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid overflow policy", ENTITY_NAME, "overflowinvalid"));
+        SseEmitter emitter = new SseEmitter();
+        ProductionLaitFeed.Subscription subscription = productionLaitFeed.subscribe(
+            overflowPolicy,
+            new ProductionLaitFeed.Sink() {
+                @Override
+                public void send(ProductionLait productionLait) throws IOException {
+                    emitter.send(SseEmitter.event().name("productionLait").data(productionLait, MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void sendSummary(ProductionLaitFeedSummaryDTO summary) throws IOException {
+                    emitter.send(SseEmitter.event().name("summary").data(summary, MediaType.APPLICATION_JSON));
+                }
+            }
+        );
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    /**
+     * {@code GET  /production-laits/percentiles} : get quantiles of the productionLait quantities.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param q the quantiles to compute, between 0 and 1.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the quantiles in body,
+     * or with status {@code 400 (Bad Request)} if the range or a quantile is not valid.
+     */
+    @GetMapping("/production-laits/percentiles")
+    public ResponseEntity<ProductionLaitPercentilesDTO> getProductionLaitPercentiles(
+        @RequestParam Instant from,
+        @RequestParam Instant to,
+        @RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> q
+    ) {
+        log.debug("REST request to get the {} quantiles of ProductionLaits from {} to {}", q, from, to);
+        if (!from.isBefore(to)) {
+            throw new BadRequestAlertException("Invalid range", ENTITY_NAME, "rangeinvalid");
+        }
+        if (q.isEmpty() || q.stream().anyMatch(quantile -> quantile == null || !(quantile >= 0 && quantile <= 1))) {
+            throw new BadRequestAlertException("Invalid quantile", ENTITY_NAME, "quantileinvalid");
+        }
+        return ResponseEntity.ok().body(productionLaitAggregationService.percentiles(from, to, q));
+    }
+
+    /**
+     * {@code GET  /production-laits/series} : get a downsampled series of the productionLait quantities, for charts.
+     *
+     * @param from the start of the range, inclusive.
+     * @param to the end of the range, exclusive.
+     * @param points the maximum number of points, between 3 and {@value #MAX_SERIES_POINTS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the points in body,
+     * or with status {@code 400 (Bad Request)} if the range or the number of points is not valid.
+     */
+    @GetMapping("/production-laits/series")
+    public ResponseEntity<List<ProductionLaitSeriesPointDTO>> getProductionLaitSeries(
+        @RequestParam Instant from,
+        @RequestParam Instant to,
+        @RequestParam(defaultValue = "1000") int points
+    ) {
+        log.debug("REST request to downsample ProductionLaits from {} to {} to {} points", from, to, points);
+        if (!from.isBefore(to)) {
+            throw new BadRequestAlertException("Invalid range", ENTITY_NAME, "rangeinvalid");
+        }
+        if (points < 3 || points > MAX_SERIES_POINTS) {
+            throw new BadRequestAlertException("Invalid number of points", ENTITY_NAME, "pointsinvalid");
+        }
+        return ResponseEntity.ok().body(productionLaitAggregationService.series(from, to, points));
+    }
+
+    /**
+     * {@code GET  /production-laits/analytics} : get the running total, 7 and 30-day moving averages and year-over-year
+     * delta of the daily productions, for the days of the farm's zone.
+     * <p>
+     * The days are streamed as a JSON array as soon as the database returns them.
+     *
+     * @param from the first day, inclusive.
+     * @param to the last day, exclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the days with productions in body,
+     * or with status {@code 400 (Bad Request)} if the range is not valid.
+     */
+    @GetMapping("/production-laits/analytics")
+    public ResponseEntity<StreamingResponseBody> getProductionLaitAnalytics(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        log.debug("REST request to get the analytics of ProductionLaits from {} to {}", from, to);
+        if (!from.isBefore(to)) {
+            throw new BadRequestAlertException("Invalid range", ENTITY_NAME, "rangeinvalid");
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                productionLaitAggregationService.analytics(
+                    from,
+                    to,
+                    day -> {
+                        try {
+                            objectMapper.writeValue(generator, day);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                );
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     /**
      * {@code GET  /production-laits/:id} : get the "id" productionLait.
      *
+     * <p>
+     * The entity tag of the response is the version of the productionLait: when the {@code If-None-Match} header matches it,
+     * only the version is read, and the productionLait is not loaded.
+     *
      * @param id the id of the productionLait to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productionLait, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the productionLait,
+     * or with status {@code 304 (Not Modified)} if the productionLait is unchanged,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/production-laits/{id}")
-    public ResponseEntity<ProductionLait> getProductionLait(@PathVariable Long id) {
+    public ResponseEntity<ProductionLait> getProductionLait(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get ProductionLait : {}", id);
-        Optional<ProductionLait> productionLait = productionLaitRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(productionLait);
+        if (ifNoneMatch != null) {
+            Optional<String> entityTag = productionLaitService.findVersion(id).map(EntityTagUtil::entityTag);
+            if (entityTag.isPresent() && EntityTagUtil.matches(ifNoneMatch, entityTag.get())) {
+                return EntityTagUtil.notModified(entityTag.get());
+            }
+        }
+        return productionLaitService
+            .findOne(id)
+            .map(found -> ResponseEntity.ok().eTag(EntityTagUtil.entityTag(found.getVersion())).body(found))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -187,7 +979,7 @@ public class ProductionLaitResource {
     @DeleteMapping("/production-laits/{id}")
     public ResponseEntity<Void> deleteProductionLait(@PathVariable Long id) {
         log.debug("REST request to delete ProductionLait : {}", id);
-        productionLaitRepository.deleteById(id);
+        productionLaitService.delete(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
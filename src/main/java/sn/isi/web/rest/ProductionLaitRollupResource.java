@@ -0,0 +1,48 @@
+package sn.isi.web.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import sn.isi.security.AuthoritiesConstants;
+import sn.isi.service.ProductionLaitRollupService;
+import tech.jhipster.web.util.HeaderUtil;
+
+/**
+ * REST controller for administering the daily and monthly rollups of {@link sn.isi.domain.ProductionLait}.
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class ProductionLaitRollupResource {
+
+    private final Logger log = LoggerFactory.getLogger(ProductionLaitRollupResource.class);
+
+    @Value("${jhipster.clientApp.name}")
+    private String applicationName;
+
+    private final ProductionLaitRollupService productionLaitRollupService;
+
+    public ProductionLaitRollupResource(ProductionLaitRollupService productionLaitRollupService) {
+        this.productionLaitRollupService = productionLaitRollupService;
+    }
+
+    /**
+     * {@code POST  /admin/production-lait-rollups/rebuild} : rebuild the rollups from the productionLait table.
+     *
+     * @return the {@link ResponseEntity} with status {@code 204 (NO_CONTENT)}.
+     */
+    @PostMapping("/production-lait-rollups/rebuild")
+    @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
+    public ResponseEntity<Void> rebuildProductionLaitRollups() {
+        log.debug("REST request to rebuild the ProductionLait rollups");
+        int days = productionLaitRollupService.rebuild();
+        return ResponseEntity
+            .noContent()
+            .headers(
+                HeaderUtil.createAlert(applicationName, "microserviceproductionApp.productionLaitRollup.rebuilt", String.valueOf(days))
+            )
+            .build();
+    }
+}
@@ -0,0 +1,67 @@
+package sn.isi.web.rest;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import sn.isi.service.SyncService;
+import sn.isi.service.dto.SyncItemResultDTO;
+import sn.isi.service.dto.SyncUploadDTO;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * REST controller for the delta sync of {@link sn.isi.domain.FicheMedical}, {@link sn.isi.domain.Traitement} and
+ * {@link sn.isi.domain.ProductionLait} with offline clients.
+ */
+@RestController
+@RequestMapping("/api")
+public class SyncResource {
+
+    private final Logger log = LoggerFactory.getLogger(SyncResource.class);
+
+    private static final String ENTITY_NAME = "microserviceproductionSync";
+
+    private final SyncService syncService;
+
+    public SyncResource(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    /**
+     * {@code GET  /sync} : get the entities changed and deleted since a version.
+     * <p>
+     * The body is streamed: {@code {"version":..,"ficheMedicals":[..],"traitements":[..],"productionLaits":[..],
+     * "deleted":{"ficheMedicals":[ids],..}}}. The client keeps {@code version} to send as {@code since} on its next
+     * sync, starting with {@code 0} for a full download.
+     *
+     * @param since the last version the client has seen.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes in body,
+     * or with status {@code 400 (Bad Request)} if the version is negative.
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<StreamingResponseBody> getSyncChanges(@RequestParam(defaultValue = "0") long since) {
+        log.debug("REST request to get the changes since version {}", since);
+        if (since < 0) {
+            throw new BadRequestAlertException("Invalid version", ENTITY_NAME, "sinceinvalid");
+        }
+        long version = syncService.findCurrentVersion();
+        StreamingResponseBody body = out -> syncService.writeChanges(since, version, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * {@code POST  /sync} : upload the changes made offline.
+     *
+     * @param upload the created, updated and deleted entities.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the outcome of each item in body, with the
+     * current entity for the conflicts.
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<List<SyncItemResultDTO>> uploadSyncChanges(@RequestBody SyncUploadDTO upload) {
+        log.debug("REST request to upload the changes : {}", upload);
+        return ResponseEntity.ok().body(syncService.upload(upload));
+    }
+}
@@ -2,9 +2,13 @@ package sn.isi.web.rest;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -12,73 +16,121 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import sn.isi.domain.Traitement;
-import sn.isi.repository.TraitementRepository;
+import sn.isi.service.ExportFormat;
+import sn.isi.service.ExportService;
+import sn.isi.service.ProjectionService;
+import sn.isi.service.TraitementService;
 import sn.isi.web.rest.errors.BadRequestAlertException;
+import sn.isi.web.rest.util.DateRange;
+import sn.isi.web.rest.util.EntityTagUtil;
+import sn.isi.web.rest.util.IdempotencyKeyHandler;
+import sn.isi.web.rest.util.KeysetPaginationUtil;
+import sn.isi.web.rest.util.SparseFieldsetUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link sn.isi.domain.Traitement}.
  */
 @RestController
 @RequestMapping("/api")
-@Transactional
 public class TraitementResource {
 
     private final Logger log = LoggerFactory.getLogger(TraitementResource.class);
 
     private static final String ENTITY_NAME = "microserviceproductionTraitement";
 
+    private static final int MAX_BATCH_IDS = 1000;
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
-    private final TraitementRepository traitementRepository;
+    private final TraitementService traitementService;
+
+    private final ProjectionService projectionService;
+
+    private final ExportService exportService;
+
+    private final IdempotencyKeyHandler idempotencyKeyHandler;
 
-    public TraitementResource(TraitementRepository traitementRepository) {
-        this.traitementRepository = traitementRepository;
+    public TraitementResource(
+        TraitementService traitementService,
+        ProjectionService projectionService,
+        ExportService exportService,
+        IdempotencyKeyHandler idempotencyKeyHandler
+    ) {
+        this.traitementService = traitementService;
+        this.projectionService = projectionService;
+        this.exportService = exportService;
+        this.idempotencyKeyHandler = idempotencyKeyHandler;
     }
 
     /**
      * {@code POST  /traitements} : Create a new traitement.
+     * <p>
+     * The traitement is saved, and the response of its Idempotency-Key stored, in one transaction.
      *
      * @param traitement the traitement to create.
+     * @param idempotencyKey the optional Idempotency-Key: a retry with the same key gets the response of the first request.
      * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the new traitement, or with status {@code 400 (Bad Request)} if the traitement has already an ID.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PostMapping("/traitements")
-    public ResponseEntity<Traitement> createTraitement(@Valid @RequestBody Traitement traitement) throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<Traitement> createTraitement(
+        @Valid @RequestBody Traitement traitement,
+        @RequestHeader(value = IdempotencyKeyHandler.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) throws URISyntaxException {
         log.debug("REST request to save Traitement : {}", traitement);
         if (traitement.getId() != null) {
             throw new BadRequestAlertException("A new traitement cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        Traitement result = traitementRepository.save(traitement);
-        return ResponseEntity
-            .created(new URI("/api/traitements/" + result.getId()))
-            .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
-            .body(result);
+        return idempotencyKeyHandler.execute(
+            idempotencyKey,
+            ENTITY_NAME,
+            Traitement.class,
+            () -> {
+                Traitement result = traitementService.save(traitement);
+                return ResponseEntity
+                    .created(new URI("/api/traitements/" + result.getId()))
+                    .headers(HeaderUtil.createEntityCreationAlert(applicationName, true, ENTITY_NAME, result.getId().toString()))
+                    .body(result);
+            }
+        );
     }
 
     /**
      * {@code PUT  /traitements/:id} : Updates an existing traitement.
      *
+     * <p>
+     * The update only succeeds if the traitement is still at the version of the {@code If-Match} entity tag, or else at
+     * the {@code version} of the body, when given.
+     *
      * @param id the id of the traitement to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param traitement the traitement to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated traitement,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated traitement and its entity tag,
      * or with status {@code 400 (Bad Request)} if the traitement is not valid,
+     * or with status {@code 404 (Not Found)} if the traitement is not found,
+     * or with status {@code 409 (Conflict)} if the traitement is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the traitement couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/traitements/{id}")
     public ResponseEntity<Traitement> updateTraitement(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody Traitement traitement
     ) throws URISyntaxException {
         log.debug("REST request to update Traitement : {}, {}", id, traitement);
@@ -89,31 +141,40 @@ public class TraitementResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!traitementRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Traitement result = traitementRepository.save(traitement);
-        return ResponseEntity
-            .ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, traitement.getId().toString()))
-            .body(result);
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(traitement.getVersion());
+        Optional<Traitement> result = traitementService.update(traitement, expectedVersion);
+        return result
+            .map(
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
+            )
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code PATCH  /traitements/:id} : Partial updates given fields of an existing traitement, field will ignore if it is null
      *
+     * <p>
+     * Like a {@code PUT}, the update only succeeds if the traitement is at the expected version.
+     *
      * @param id the id of the traitement to save.
+     * @param ifMatch the optional If-Match entity tag.
      * @param traitement the traitement to update.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated traitement,
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated traitement and its entity tag,
      * or with status {@code 400 (Bad Request)} if the traitement is not valid,
      * or with status {@code 404 (Not Found)} if the traitement is not found,
+     * or with status {@code 409 (Conflict)} if the traitement is not at the expected version,
      * or with status {@code 500 (Internal Server Error)} if the traitement couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/traitements/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Traitement> partialUpdateTraitement(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Traitement traitement
     ) throws URISyntaxException {
         log.debug("REST request to partial update Traitement partially : {}, {}", id, traitement);
@@ -124,57 +185,268 @@ public class TraitementResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!traitementRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
+        Long expectedVersion = EntityTagUtil.parseIfMatch(ifMatch, ENTITY_NAME).orElse(traitement.getVersion());
+        Optional<Traitement> result = traitementService.partialUpdate(traitement, expectedVersion);
 
-        Optional<Traitement> result = traitementRepository
-            .findById(traitement.getId())
+        return result
             .map(
-                existingTraitement -> {
-                    if (traitement.getTraitement() != null) {
-                        existingTraitement.setTraitement(traitement.getTraitement());
-                    }
-                    if (traitement.getDatetraitement() != null) {
-                        existingTraitement.setDatetraitement(traitement.getDatetraitement());
-                    }
-
-                    return existingTraitement;
-                }
+                updated ->
+                    ResponseEntity
+                        .ok()
+                        .headers(HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, updated.getId().toString()))
+                        .eTag(EntityTagUtil.entityTag(updated.getVersion()))
+                        .body(updated)
             )
-            .map(traitementRepository::save);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, true, ENTITY_NAME, traitement.getId().toString())
-        );
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
      * {@code GET  /traitements} : get all the traitements.
+     * <p>
+     * When a {@code cursor} parameter is given, the page is read with keyset pagination on ({@code datetraitement}, {@code id}),
+     * and the next page is linked with a cursor instead of a page number.
+     * <p>
+     * The entity tag of the response is the last modification of the traitements, read before the page: when the
+     * {@code If-None-Match} header matches it, the page is not read.
      *
      * @param pageable the pagination information.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of traitements in body.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code datetraitement} range, inclusive.
+     * @param to the end of the {@code datetraitement} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of traitements in body,
+     * or with status {@code 304 (Not Modified)} if no traitement changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the range or the cursor is not valid.
      */
     @GetMapping("/traitements")
-    public ResponseEntity<List<Traitement>> getAllTraitements(Pageable pageable) {
+    public ResponseEntity<List<Traitement>> getAllTraitements(
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        // Read before the page, so that the entity tag is never newer than the page
+        String entityTag = EntityTagUtil.entityTag(traitementService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get a keyset page of Traitements");
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<Traitement> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, ENTITY_NAME, Long::valueOf)
+                .map(
+                    after ->
+                        traitementService.findAllAfterOrderByDatetraitementAndId(after.getDate(), after.getId(), range.getTo(), lookAhead)
+                )
+                .orElseGet(() -> traitementService.findAllOrderByDatetraitementAndId(range.getFrom(), range.getTo(), lookAhead));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                Traitement::getDatetraitement,
+                Traitement::getId
+            );
+            return ResponseEntity.ok().headers(headers).eTag(entityTag).body(KeysetPaginationUtil.pageContent(rows, pageable));
+        }
         log.debug("REST request to get a page of Traitements");
-        Page<Traitement> page = traitementRepository.findAll(pageable);
+        Page<Traitement> page = range.isBounded()
+            ? traitementService.findAllByDatetraitement(range.getFrom(), range.getTo(), pageable)
+            : traitementService.findAll(pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).eTag(entityTag).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /traitements?fields=} : get some fields of all the traitements.
+     * <p>
+     * Only the requested fields, for instance {@code ?fields=id,datetraitement}, are read from the database and returned:
+     * the traitements are not loaded. Pages are read like those of {@link #getAllTraitements}, with offset or keyset pagination,
+     * and have the same entity tag.
+     *
+     * @param fields the comma-separated fields to return.
+     * @param pageable the pagination information.
+     * @param cursor the keyset pagination cursor, empty for the first page.
+     * @param from the start of the {@code datetraitement} range, inclusive.
+     * @param to the end of the {@code datetraitement} range, exclusive.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of traitement fields in body,
+     * or with status {@code 304 (Not Modified)} if no traitement changed since the entity tag of the client,
+     * or with status {@code 400 (Bad Request)} if the fields, the sort, the range or the cursor is not valid.
+     */
+    @GetMapping(value = "/traitements", params = { SparseFieldsetUtil.FIELDS_PARAMETER, "!ids" })
+    public ResponseEntity<List<Map<String, Object>>> getAllTraitementFields(
+        @RequestParam String fields,
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        Set<String> fieldNames = projectionService.getFieldNames(Traitement.class);
+        List<String> selected = SparseFieldsetUtil.parseFields(fields, fieldNames, ENTITY_NAME);
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        String entityTag = EntityTagUtil.entityTag(traitementService.findModification());
+        if (EntityTagUtil.matches(ifNoneMatch, entityTag)) {
+            return EntityTagUtil.notModified(entityTag);
+        }
+        if (cursor != null) {
+            log.debug("REST request to get the {} of a keyset page of Traitements", selected);
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<Map<String, Object>> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, ENTITY_NAME, Long::valueOf)
+                .map(
+                    after ->
+                        projectionService.findAllAfterOrderByDateAndId(
+                            Traitement.class,
+                            selected,
+                            "datetraitement",
+                            after.getDate(),
+                            after.getId(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                )
+                .orElseGet(
+                    () ->
+                        projectionService.findAllOrderByDateAndId(
+                            Traitement.class,
+                            selected,
+                            "datetraitement",
+                            range.getFrom(),
+                            range.getTo(),
+                            lookAhead
+                        )
+                );
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                row -> (Instant) row.get("datetraitement"),
+                row -> row.get("id")
+            );
+            List<Map<String, Object>> content = SparseFieldsetUtil.retainFields(KeysetPaginationUtil.pageContent(rows, pageable), selected);
+            return ResponseEntity.ok().headers(headers).eTag(entityTag).body(content);
+        }
+        log.debug("REST request to get the {} of a page of Traitements", selected);
+        SparseFieldsetUtil.checkSort(pageable.getSort(), fieldNames, ENTITY_NAME);
+        Page<Map<String, Object>> page = projectionService.findAll(
+            Traitement.class,
+            selected,
+            "datetraitement",
+            range.getFrom(),
+            range.getTo(),
+            pageable
+        );
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return ResponseEntity.ok().headers(headers).body(page.getContent());
+        return ResponseEntity.ok().headers(headers).eTag(entityTag).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /traitements?ids=} : get the traitements of a list of ids.
+     * <p>
+     * The traitements are read in one request instead of one {@code GET  /traitements/:id} per id: those in the
+     * second-level cache are taken from it, and the others are read with a single query.
+     *
+     * @param ids the comma-separated ids, at most {@value #MAX_BATCH_IDS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the traitements which exist in body, in the order of the ids,
+     * or with status {@code 400 (Bad Request)} if there is no id or too many.
+     */
+    @GetMapping(value = "/traitements", params = "ids")
+    public ResponseEntity<List<Traitement>> getTraitementsById(@RequestParam List<Long> ids) {
+        log.debug("REST request to get the Traitements : {}", ids);
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BATCH_IDS) {
+            throw new BadRequestAlertException("Invalid ids", ENTITY_NAME, "idsinvalid");
+        }
+        return ResponseEntity.ok().body(traitementService.findAllById(distinctIds));
+    }
+
+    /**
+     * {@code GET  /traitements/export} : export the traitements as a file.
+     * <p>
+     * The rows are streamed from a database cursor, ordered by {@code datetraitement} and {@code id}.
+     *
+     * @param format the format of the file: {@code csv}, {@code ndjson} or {@code protobuf}.
+     * @param from the start of the {@code datetraitement} range, inclusive.
+     * @param to the end of the {@code datetraitement} range, exclusive.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the streamed file in body,
+     * or with status {@code 400 (Bad Request)} if the format or the range is not valid.
+     */
+    @GetMapping("/traitements/export")
+    public ResponseEntity<StreamingResponseBody> exportTraitements(
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(required = false) Instant from,
+        @RequestParam(required = false) Instant to
+    ) {
+        log.debug("REST request to export Traitements as {}", format);
+        ExportFormat exportFormat = ExportFormat
+            .fromValue(format)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid format", ENTITY_NAME, "formatinvalid"));
+        DateRange range = DateRange.of(from, to, ENTITY_NAME);
+        StreamingResponseBody body = out ->
+            exportService.export(
+                Traitement.class,
+                "datetraitement",
+                range.getFrom(),
+                range.getTo(),
+                exportFormat,
+                new String[] { "id", "traitement", "datetraitement" },
+                traitement -> new Object[] { traitement.getId(), traitement.getTraitement(), traitement.getDatetraitement() },
+                TraitementResource::toProtobufMessage,
+                out
+            );
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("traitements." + exportFormat.getValue()).build().toString()
+            )
+            .body(body);
+    }
+
+    /**
+     * Map a traitement to its {@code Traitement} message of {@code proto/production.proto}, independently of the CSV columns.
+     *
+     * @param traitement the traitement.
+     * @return the values of the fields of the message, by field number.
+     */
+    private static Object[] toProtobufMessage(Traitement traitement) {
+        return new Object[] { traitement.getId(), traitement.getTraitement(), traitement.getDatetraitement() };
     }
 
     /**
      * {@code GET  /traitements/:id} : get the "id" traitement.
      *
+     * <p>
+     * The entity tag of the response is the version of the traitement: when the {@code If-None-Match} header matches it,
+     * only the version is read, and the traitement is not loaded.
+     *
      * @param id the id of the traitement to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the traitement, or with status {@code 404 (Not Found)}.
+     * @param ifNoneMatch the optional If-None-Match entity tags.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the traitement,
+     * or with status {@code 304 (Not Modified)} if the traitement is unchanged,
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/traitements/{id}")
-    public ResponseEntity<Traitement> getTraitement(@PathVariable Long id) {
+    public ResponseEntity<Traitement> getTraitement(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Traitement : {}", id);
-        Optional<Traitement> traitement = traitementRepository.findById(id);
-        return ResponseUtil.wrapOrNotFound(traitement);
+        if (ifNoneMatch != null) {
+            Optional<String> entityTag = traitementService.findVersion(id).map(EntityTagUtil::entityTag);
+            if (entityTag.isPresent() && EntityTagUtil.matches(ifNoneMatch, entityTag.get())) {
+                return EntityTagUtil.notModified(entityTag.get());
+            }
+        }
+        return traitementService
+            .findOne(id)
+            .map(found -> ResponseEntity.ok().eTag(EntityTagUtil.entityTag(found.getVersion())).body(found))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
     /**
@@ -186,7 +458,7 @@ public class TraitementResource {
     @DeleteMapping("/traitements/{id}")
     public ResponseEntity<Void> deleteTraitement(@PathVariable Long id) {
         log.debug("REST request to delete Traitement : {}", id);
-        traitementRepository.deleteById(id);
+        traitementService.delete(id);
         return ResponseEntity
             .noContent()
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, true, ENTITY_NAME, id.toString()))
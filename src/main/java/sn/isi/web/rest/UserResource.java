@@ -1,6 +1,7 @@
 package sn.isi.web.rest;
 
 import java.util.*;
+import java.util.function.Function;
 import javax.validation.constraints.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,7 @@ import sn.isi.config.Constants;
 import sn.isi.security.AuthoritiesConstants;
 import sn.isi.service.UserService;
 import sn.isi.service.dto.AdminUserDTO;
+import sn.isi.web.rest.util.KeysetPaginationUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
@@ -62,13 +64,35 @@ public class UserResource {
 
     /**
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
+     * <p>
+     * When a {@code cursor} parameter is given, the page is read with keyset pagination on ({@code created_date}, {@code id}).
      *
      * @param pageable the pagination information.
+     * @param cursor the keyset pagination cursor, empty for the first page.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<AdminUserDTO>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(name = KeysetPaginationUtil.CURSOR_PARAMETER, required = false) String cursor
+    ) {
+        if (cursor != null) {
+            log.debug("REST request to get a keyset page of User for an admin");
+            Pageable lookAhead = KeysetPaginationUtil.lookAhead(pageable);
+            List<AdminUserDTO> rows = KeysetPaginationUtil
+                .decodeCursor(cursor, "userManagement", Function.identity())
+                .map(after -> userService.getAllManagedUsersAfter(after.getDate(), after.getId(), lookAhead))
+                .orElseGet(() -> userService.getAllManagedUsersAfter(null, null, lookAhead));
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetPaginationHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                rows,
+                pageable,
+                AdminUserDTO::getCreatedDate,
+                AdminUserDTO::getId
+            );
+            return new ResponseEntity<>(KeysetPaginationUtil.pageContent(rows, pageable), headers, HttpStatus.OK);
+        }
         log.debug("REST request to get all User for an admin");
 
         final Page<AdminUserDTO> page = userService.getAllManagedUsers(pageable);
@@ -16,6 +16,7 @@ import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -29,6 +30,7 @@ import org.zalando.problem.StatusType;
 import org.zalando.problem.spring.web.advice.ProblemHandling;
 import org.zalando.problem.spring.web.advice.security.SecurityAdviceTrait;
 import org.zalando.problem.violations.ConstraintViolationProblem;
+import sn.isi.web.filter.RequestDecompressionFilter.BodyTooLargeException;
 import tech.jhipster.config.JHipsterConstants;
 import tech.jhipster.web.util.HeaderUtil;
 
@@ -131,6 +133,26 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(ex, problem, request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleBodyTooLarge(BodyTooLargeException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.REQUEST_ENTITY_TOO_LARGE)
+            .with(MESSAGE_KEY, ErrorConstants.ERR_PAYLOAD_TOO_LARGE)
+            .withDetail(ex.getMessage())
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @Override
+    public ResponseEntity<Problem> handleMessageNotReadableException(HttpMessageNotReadableException ex, NativeWebRequest request) {
+        // The message converters wrap the errors reading the body, a too large one included
+        if (ex.getMostSpecificCause() instanceof BodyTooLargeException) {
+            return handleBodyTooLarge((BodyTooLargeException) ex.getMostSpecificCause(), request);
+        }
+        return ProblemHandling.super.handleMessageNotReadableException(ex, request);
+    }
+
     @Override
     public ProblemBuilder prepare(final Throwable throwable, final StatusType status, final URI type) {
         Collection<String> activeProfiles = Arrays.asList(env.getActiveProfiles());
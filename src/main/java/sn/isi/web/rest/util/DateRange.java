@@ -0,0 +1,58 @@
+package sn.isi.web.rest.util;
+
+import java.time.Instant;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * A half-open {@code [from, to)} date range requested by a client, where each bound is optional.
+ * <p>
+ * Missing bounds are replaced by the limits of the SQL {@code DATETIME} type, so that range queries always compare
+ * the indexed date column with two values.
+ */
+public final class DateRange {
+
+    public static final Instant MIN_DATE = Instant.parse("1000-01-01T00:00:00Z");
+
+    public static final Instant MAX_DATE = Instant.parse("9999-12-31T23:59:59Z");
+
+    private final Instant from;
+
+    private final Instant to;
+
+    private DateRange(Instant from, Instant to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Create a date range.
+     *
+     * @param from the start of the range, inclusive, or {@code null}.
+     * @param to the end of the range, exclusive, or {@code null}.
+     * @param entityName the name of the filtered entity, for error messages.
+     * @return the date range.
+     * @throws BadRequestAlertException if the range is empty.
+     */
+    public static DateRange of(Instant from, Instant to, String entityName) {
+        DateRange range = new DateRange(from != null ? from : MIN_DATE, to != null ? to : MAX_DATE);
+        if (!range.from.isBefore(range.to)) {
+            throw new BadRequestAlertException("Invalid range", entityName, "rangeinvalid");
+        }
+        return range;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    /**
+     * @return whether the client gave at least one bound.
+     */
+    public boolean isBounded() {
+        return !MIN_DATE.equals(from) || !MAX_DATE.equals(to);
+    }
+}
@@ -0,0 +1,77 @@
+package sn.isi.web.rest.util;
+
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Utility class for the strong entity tags of the versioned entities, and of their list pages.
+ * <p>
+ * The tag of an entity is its quoted {@code version}, and the tag of a list page is the quoted modification of the
+ * table: both change whenever the representation does, and are known without reading the representation.
+ */
+public final class EntityTagUtil {
+
+    private EntityTagUtil() {}
+
+    /**
+     * @param version the version of an entity, or the modification of a table.
+     * @return the strong entity tag of the version.
+     */
+    public static String entityTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Check the {@code If-None-Match} header of a conditional GET, with the weak comparison.
+     *
+     * @param ifNoneMatch the header, or {@code null}.
+     * @param entityTag the entity tag of the current representation.
+     * @return whether the client already has the current representation.
+     */
+    public static boolean matches(String ifNoneMatch, String entityTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.strip();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param entityTag the entity tag of the current representation.
+     * @param <T> the type of the response body.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} and the entity tag.
+     */
+    public static <T> ResponseEntity<T> notModified(String entityTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entityTag).build();
+    }
+
+    /**
+     * Read the version expected by an update from its {@code If-Match} header.
+     *
+     * @param ifMatch the header, or {@code null}.
+     * @param entityName the name of the updated entity, for error messages.
+     * @return the version the client read the entity at, or empty if the header is missing or {@code *}.
+     * @throws BadRequestAlertException if the header is not a single strong entity tag of a version.
+     */
+    public static Optional<Long> parseIfMatch(String ifMatch, String entityName) {
+        if (ifMatch == null || ifMatch.strip().equals("*")) {
+            return Optional.empty();
+        }
+        String tag = ifMatch.strip();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Optional.of(Long.valueOf(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException e) {
+                // Not a version
+            }
+        }
+        throw new BadRequestAlertException("Invalid If-Match", entityName, "ifmatchinvalid");
+    }
+}
@@ -0,0 +1,215 @@
+package sn.isi.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import sn.isi.repository.IdempotencyKeyRepository.StoredResponse;
+import sn.isi.service.IdempotencyService;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Support of the {@code Idempotency-Key} header on create endpoints.
+ * <p>
+ * The first request with a key runs and, if successful, its status, location and body are stored; its retries get
+ * that response back, with an {@code Idempotent-Replayed} header, without running again. A failed request
+ * releases its key, so that it can be retried.
+ * <p>
+ * An asynchronous request may respond before its write is committed: its response is only stored once the write
+ * succeeds, and its key is released if the write fails. Meanwhile the key stays reserved, and retries are rejected
+ * as in progress.
+ */
+@Component
+public class IdempotencyKeyHandler {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * A create action.
+     *
+     * @param <R> the type of the response.
+     * @param <E> the type of the checked exception thrown by the action.
+     */
+    @FunctionalInterface
+    public interface Action<R, E extends Exception> {
+        R run() throws E;
+    }
+
+    /**
+     * The response of an asynchronous create action, and the write it depends on.
+     *
+     * @param <T> the type of the response body.
+     */
+    public static final class AsyncResponse<T> {
+
+        private final CompletableFuture<ResponseEntity<T>> response;
+
+        private final CompletableFuture<?> write;
+
+        private AsyncResponse(CompletableFuture<ResponseEntity<T>> response, CompletableFuture<?> write) {
+            this.response = response;
+            this.write = write;
+        }
+
+        /**
+         * @param response the response, sent once the write is done.
+         * @param <T> the type of the response body.
+         * @return the response of an action whose write is done when it completes.
+         */
+        public static <T> AsyncResponse<T> of(CompletableFuture<ResponseEntity<T>> response) {
+            return new AsyncResponse<>(response, response);
+        }
+
+        /**
+         * @param response the response, which may be sent before the write is done.
+         * @param write the write, completed once it is committed.
+         * @param <T> the type of the response body.
+         * @return the response of an action acknowledged before its write is done.
+         */
+        public static <T> AsyncResponse<T> of(CompletableFuture<ResponseEntity<T>> response, CompletableFuture<?> write) {
+            return new AsyncResponse<>(response, write);
+        }
+    }
+
+    public IdempotencyKeyHandler(IdempotencyService idempotencyService, ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Run a create action once per key.
+     *
+     * @param key the Idempotency-Key sent by the client, or null to always run the action.
+     * @param entityName the name of the created entity, which scopes the key.
+     * @param bodyType the type of the response body.
+     * @param action the create action.
+     * @param <T> the type of the response body.
+     * @param <E> the type of the checked exception thrown by the action.
+     * @return the response of the action, or the response of the first request with the key.
+     * @throws E if the action fails.
+     * @throws BadRequestAlertException if the key is not valid.
+     */
+    public <T, E extends Exception> ResponseEntity<T> execute(
+        String key,
+        String entityName,
+        Class<T> bodyType,
+        Action<ResponseEntity<T>, E> action
+    ) throws E {
+        if (key == null) {
+            return action.run();
+        }
+        Optional<StoredResponse> stored = begin(key, entityName);
+        if (stored.isPresent()) {
+            return replay(stored.get(), bodyType, entityName);
+        }
+        ResponseEntity<T> response;
+        try {
+            response = action.run();
+        } catch (Exception | Error e) {
+            idempotencyService.release(entityName, key);
+            throw e;
+        }
+        end(key, entityName, response);
+        return response;
+    }
+
+    /**
+     * Run an asynchronous create action once per key.
+     *
+     * @param key the Idempotency-Key sent by the client, or null to always run the action.
+     * @param entityName the name of the created entity, which scopes the key.
+     * @param bodyType the type of the response body.
+     * @param action the create action.
+     * @param <T> the type of the response body.
+     * @return the response of the action, or the response of the first request with the key.
+     * @throws BadRequestAlertException if the key is not valid.
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> executeAsync(
+        String key,
+        String entityName,
+        Class<T> bodyType,
+        Action<AsyncResponse<T>, RuntimeException> action
+    ) {
+        if (key == null) {
+            return action.run().response;
+        }
+        Optional<StoredResponse> stored = begin(key, entityName);
+        if (stored.isPresent()) {
+            return CompletableFuture.completedFuture(replay(stored.get(), bodyType, entityName));
+        }
+        AsyncResponse<T> response;
+        try {
+            response = action.run();
+        } catch (RuntimeException | Error e) {
+            idempotencyService.release(entityName, key);
+            throw e;
+        }
+        response.response
+            .thenCombine(response.write, (result, write) -> result)
+            .whenComplete(
+                (result, failure) -> {
+                    if (failure != null) {
+                        idempotencyService.release(entityName, key);
+                    } else {
+                        end(key, entityName, result);
+                    }
+                }
+            );
+        return response.response;
+    }
+
+    private Optional<StoredResponse> begin(String key, String entityName) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestAlertException("Invalid Idempotency-Key", entityName, "idempotencykeyinvalid");
+        }
+        return idempotencyService.begin(entityName, key);
+    }
+
+    private void end(String key, String entityName, ResponseEntity<?> response) {
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            // Only successful responses are replayed: the others may succeed when retried
+            idempotencyService.release(entityName, key);
+            return;
+        }
+        URI location = response.getHeaders().getLocation();
+        String body;
+        try {
+            body = response.hasBody() ? objectMapper.writeValueAsString(response.getBody()) : null;
+        } catch (JsonProcessingException e) {
+            idempotencyService.release(entityName, key);
+            throw new IllegalStateException("Could not store the response of an idempotent request", e);
+        }
+        idempotencyService.complete(
+            entityName,
+            key,
+            new StoredResponse(response.getStatusCodeValue(), location == null ? null : location.toString(), body)
+        );
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, Class<T> bodyType, String entityName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(IDEMPOTENT_REPLAYED_HEADER, "true");
+        if (stored.getLocation() != null) {
+            headers.setLocation(URI.create(stored.getLocation()));
+        }
+        T body;
+        try {
+            body = stored.getBody() == null ? null : objectMapper.readValue(stored.getBody(), bodyType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the stored response of the " + entityName + " idempotent request", e);
+        }
+        return ResponseEntity.status(stored.getStatus()).headers(headers).body(body);
+    }
+}
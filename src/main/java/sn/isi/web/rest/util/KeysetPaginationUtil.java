@@ -0,0 +1,154 @@
+package sn.isi.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Utility class for keyset (seek) pagination.
+ * <p>
+ * A page is identified by an opaque cursor holding the date and the id of the last row of the previous page, so the
+ * next page is read with {@code WHERE (date, id) > (?, ?) ORDER BY date, id LIMIT ?}: an index range scan whose
+ * cost doesn't depend on the depth of the page, and without the {@code COUNT(*)} of offset pagination.
+ * <p>
+ * Clients opt in by sending a {@code cursor} parameter, empty for the first page, and follow the {@code next} link.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Decode a cursor.
+     *
+     * @param token the cursor sent by the client, empty for the first page.
+     * @param entityName the name of the paged entity, for error messages.
+     * @param idParser the parser of the entity id.
+     * @param <ID> the type of the entity id.
+     * @return the position after which the page starts, or empty for the first page.
+     * @throws BadRequestAlertException if the cursor is not valid.
+     */
+    public static <ID> Optional<Cursor<ID>> decodeCursor(String token, String entityName, Function<String, ID> idParser) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int dateSeparator = decoded.indexOf('.');
+            int idSeparator = decoded.indexOf(':');
+            Instant date = Instant.ofEpochSecond(
+                Long.parseLong(decoded.substring(0, dateSeparator)),
+                Long.parseLong(decoded.substring(dateSeparator + 1, idSeparator))
+            );
+            return Optional.of(new Cursor<>(date, idParser.apply(decoded.substring(idSeparator + 1))));
+        } catch (RuntimeException e) {
+            throw new BadRequestAlertException("Invalid cursor", entityName, "cursorinvalid");
+        }
+    }
+
+    /**
+     * Encode the cursor of a row.
+     *
+     * @param date the date of the row.
+     * @param id the id of the row.
+     * @return the opaque cursor.
+     */
+    public static String encodeCursor(Instant date, Object id) {
+        String cursor = date.getEpochSecond() + "." + date.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the page request to pass to the keyset query: one row more than the page size, to know whether there is a
+     * next page without counting.
+     *
+     * @param pageable the pagination information of the request, only its size is used.
+     * @return the page request.
+     */
+    public static Pageable lookAhead(Pageable pageable) {
+        return PageRequest.of(0, pageable.getPageSize() + 1);
+    }
+
+    /**
+     * Get the content of a page.
+     *
+     * @param rows the rows read with {@link #lookAhead(Pageable)}.
+     * @param pageable the pagination information of the request.
+     * @param <T> the type of the rows.
+     * @return the rows of the page.
+     */
+    public static <T> List<T> pageContent(List<T> rows, Pageable pageable) {
+        return rows.size() > pageable.getPageSize() ? rows.subList(0, pageable.getPageSize()) : rows;
+    }
+
+    /**
+     * Generate the pagination headers: a {@code Link} header with the {@code next} relation, and the next cursor,
+     * when there is a next page.
+     *
+     * @param uriBuilder the builder of the current request URI.
+     * @param rows the rows read with {@link #lookAhead(Pageable)}.
+     * @param pageable the pagination information of the request.
+     * @param dateGetter the getter of the row date.
+     * @param idGetter the getter of the row id.
+     * @param <T> the type of the rows.
+     * @return the {@link HttpHeaders}.
+     */
+    public static <T> HttpHeaders generateKeysetPaginationHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        List<T> rows,
+        Pageable pageable,
+        Function<T, Instant> dateGetter,
+        Function<T, ?> idGetter
+    ) {
+        HttpHeaders headers = new HttpHeaders();
+        if (rows.size() > pageable.getPageSize()) {
+            T last = rows.get(pageable.getPageSize() - 1);
+            String cursor = encodeCursor(dateGetter.apply(last), idGetter.apply(last));
+            String next = uriBuilder
+                .replaceQueryParam(CURSOR_PARAMETER, cursor)
+                .replaceQueryParam("size", pageable.getPageSize())
+                .replaceQueryParam("page")
+                .replaceQueryParam("sort")
+                .toUriString();
+            headers.add(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+            headers.add(HEADER_NEXT_CURSOR, cursor);
+        }
+        return headers;
+    }
+
+    /**
+     * Position after which a page starts.
+     *
+     * @param <ID> the type of the entity id.
+     */
+    public static final class Cursor<ID> {
+
+        private final Instant date;
+
+        private final ID id;
+
+        Cursor(Instant date, ID id) {
+            this.date = date;
+            this.id = id;
+        }
+
+        public Instant getDate() {
+            return date;
+        }
+
+        public ID getId() {
+            return id;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package sn.isi.web.rest.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.domain.Sort;
+import sn.isi.web.rest.errors.BadRequestAlertException;
+
+/**
+ * Utility class for sparse fieldsets: a {@code fields} parameter listing the fields of the entities a client reads,
+ * such as {@code ?fields=id,quantite}.
+ */
+public final class SparseFieldsetUtil {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private SparseFieldsetUtil() {}
+
+    /**
+     * Parse the {@code fields} parameter.
+     *
+     * @param fields the comma-separated list of fields.
+     * @param fieldNames the fields of the entity which can be selected.
+     * @param entityName the name of the entity, for error messages.
+     * @return the distinct fields, in the requested order.
+     * @throws BadRequestAlertException if the list is empty, or a field can't be selected.
+     */
+    public static List<String> parseFields(String fields, Set<String> fieldNames, String entityName) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            field = field.strip();
+            if (!field.isEmpty()) {
+                if (!fieldNames.contains(field)) {
+                    throw new BadRequestAlertException("Invalid field " + field, entityName, "fieldsinvalid");
+                }
+                parsed.add(field);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new BadRequestAlertException("No field requested", entityName, "fieldsinvalid");
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    /**
+     * Check the sort of a request.
+     *
+     * @param sort the requested sort.
+     * @param fieldNames the fields of the entity which can be sorted by.
+     * @param entityName the name of the entity, for error messages.
+     * @throws BadRequestAlertException if a sort property is not a field of the entity.
+     */
+    public static void checkSort(Sort sort, Set<String> fieldNames, String entityName) {
+        for (Sort.Order order : sort) {
+            if (!fieldNames.contains(order.getProperty())) {
+                throw new BadRequestAlertException("Invalid sort " + order.getProperty(), entityName, "sortinvalid");
+            }
+        }
+    }
+
+    /**
+     * Remove the fields read for the keyset pagination cursor, but not requested, from rows.
+     *
+     * @param rows the rows of a page.
+     * @param fields the requested fields.
+     * @return the rows.
+     */
+    public static List<Map<String, Object>> retainFields(List<Map<String, Object>> rows, List<String> fields) {
+        for (Map<String, Object> row : rows) {
+            row.keySet().retainAll(fields);
+        }
+        return rows;
+    }
+}
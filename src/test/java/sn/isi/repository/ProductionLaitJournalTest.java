@@ -0,0 +1,112 @@
+package sn.isi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitJournal.Position;
+
+/**
+ * Unit tests for {@link ProductionLaitJournal}.
+ */
+class ProductionLaitJournalTest {
+
+    private static final Instant DATE = Instant.parse("2021-04-01T10:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAreReadBackAcrossSegments() throws IOException {
+        ProductionLaitJournal journal = openJournal();
+        for (int quantite = 1; quantite <= 12; quantite++) {
+            journal.append(new ProductionLait().quantite(quantite).dateproduction(DATE.plusSeconds(quantite)));
+        }
+        // Five records of 20 bytes per segment of 100 bytes
+        assertThat(journal.getEnd()).isEqualTo(new Position(2, 40));
+
+        List<Integer> quantites = new ArrayList<>();
+        Position next = journal.read(new Position(0, 0), 4, (quantite, dateproduction) -> quantites.add(quantite));
+        assertThat(next).isEqualTo(new Position(0, 80));
+        next = journal.read(next, 100, (quantite, dateproduction) -> {
+            assertThat(dateproduction).isEqualTo(DATE.plusSeconds(quantite));
+            quantites.add(quantite);
+        });
+        assertThat(next).isEqualTo(journal.getEnd());
+        assertThat(quantites).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        assertThat(journal.read(next, 100, (quantite, dateproduction) -> quantites.add(quantite))).isEqualTo(next);
+
+        journal.deleteBefore(2);
+        assertThat(listFiles()).containsExactly("journal-00000000000000000002.log");
+    }
+
+    @Test
+    void appendsResumeAfterATornRecord() throws Exception {
+        ProductionLaitJournal journal = openJournal();
+        journal.append(new ProductionLait().quantite(1).dateproduction(DATE));
+        journal.close();
+        // A record whose length was written, but not its checksum and payload
+        try (FileChannel channel = FileChannel.open(directory.resolve("journal-00000000000000000000.log"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 12), 20);
+        }
+
+        ProductionLaitJournal reopened = openJournal();
+        assertThat(reopened.getEnd()).isEqualTo(new Position(0, 20));
+        reopened.append(new ProductionLait().quantite(2).dateproduction(DATE));
+
+        List<Integer> quantites = new ArrayList<>();
+        reopened.read(new Position(0, 0), 100, (quantite, dateproduction) -> quantites.add(quantite));
+        assertThat(quantites).containsExactly(1, 2);
+    }
+
+    @Test
+    void readsStopBeforeAnUnreadableSegment() throws IOException {
+        ProductionLaitJournal journal = openJournal();
+        for (int quantite = 1; quantite <= 12; quantite++) {
+            journal.append(new ProductionLait().quantite(quantite).dateproduction(DATE));
+        }
+        Files.delete(directory.resolve("journal-00000000000000000001.log"));
+
+        List<Integer> quantites = new ArrayList<>();
+        Position next = journal.read(new Position(0, 0), 100, (quantite, dateproduction) -> quantites.add(quantite));
+        assertThat(next).isEqualTo(new Position(1, 0));
+        assertThat(quantites).containsExactly(1, 2, 3, 4, 5);
+        assertThatThrownBy(() -> journal.read(next, 100, (quantite, dateproduction) -> quantites.add(quantite)))
+            .isInstanceOf(UncheckedIOException.class);
+
+        journal.quarantine(0);
+        assertThat(listFiles())
+            .containsExactlyInAnyOrder("journal-00000000000000000000.log.quarantined", "journal-00000000000000000002.log");
+        journal.deleteBefore(2);
+        assertThat(listFiles()).contains("journal-00000000000000000000.log.quarantined");
+    }
+
+    private ProductionLaitJournal openJournal() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJournal().setEnabled(true);
+        applicationProperties.getJournal().setDirectory(directory.toString());
+        applicationProperties.getJournal().setSegmentSize(100);
+        return new ProductionLaitJournal(applicationProperties);
+    }
+
+    private List<String> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package sn.isi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.isi.IntegrationTest;
+import sn.isi.domain.Traitement;
+
+/**
+ * Integration tests for the {@link SyncRepository}.
+ * <p>
+ * Not transactional: the versions of concurrent transactions are committed from other threads.
+ */
+@IntegrationTest
+class SyncRepositoryIT {
+
+    private static final Instant DATE = Instant.parse("2650-01-01T00:00:00Z");
+
+    @Autowired
+    private SyncRepository syncRepository;
+
+    @Autowired
+    private TraitementRepository traitementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void committedVersionStopsBelowTheEarliestPendingVersion() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Traitement> earlier = CompletableFuture.supplyAsync(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                        Traitement traitement = traitementRepository.saveAndFlush(
+                            new Traitement().traitement("earlier").datetraitement(DATE)
+                        );
+                        written.countDown();
+                        await(commit);
+                        return traitement;
+                    }
+                )
+        );
+        Traitement later = null;
+        try {
+            assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+            later = traitementRepository.saveAndFlush(new Traitement().traitement("later").datetraitement(DATE));
+
+            assertThat(syncRepository.findCommittedVersion()).isLessThan(later.getSyncVersion() - 1);
+            commit.countDown();
+
+            assertThat(earlier.get(10, TimeUnit.SECONDS).getSyncVersion()).isLessThan(later.getSyncVersion());
+            assertThat(syncRepository.findCommittedVersion()).isGreaterThanOrEqualTo(later.getSyncVersion());
+        } finally {
+            commit.countDown();
+            traitementRepository.deleteById(earlier.get(10, TimeUnit.SECONDS).getId());
+            if (later != null) {
+                traitementRepository.deleteById(later.getId());
+            }
+        }
+    }
+
+    @Test
+    void rolledBackVersionsDoNotHoldTheCommittedVersion() {
+        long version = new TransactionTemplate(transactionManager)
+            .execute(
+                status -> {
+                    status.setRollbackOnly();
+                    return traitementRepository
+                        .saveAndFlush(new Traitement().traitement("rolled back").datetraitement(DATE))
+                        .getSyncVersion();
+                }
+            );
+
+        assertThat(syncRepository.findCommittedVersion()).isGreaterThanOrEqualTo(version);
+    }
+
+    @Test
+    void abandonedVersionsAreDeleted() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long version = syncRepository.findCommittedVersion();
+        transactionTemplate.execute(
+            status -> jdbcTemplate.update("insert into sync_version_pending (version, allocated_at) values (?, ?)", version, 0L)
+        );
+        assertThat(syncRepository.findCommittedVersion()).isEqualTo(version - 1);
+
+        Integer deleted = transactionTemplate.execute(status -> syncRepository.deletePendingVersionsBefore(Instant.now()));
+        assertThat(deleted).isEqualTo(1);
+        assertThat(syncRepository.findCommittedVersion()).isGreaterThanOrEqualTo(version);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link LttbDownsampler}.
+ */
+class LttbDownsamplerTest {
+
+    private final List<long[]> kept = new ArrayList<>();
+
+    @Test
+    void shortSeriesAreKeptAsIs() {
+        downsample(5, 10, 5);
+
+        assertThat(kept).extracting(point -> point[0]).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void firstLastAndPeaksAreKept() {
+        LttbDownsampler downsampler = new LttbDownsampler(1000, 10, (x, y) -> kept.add(new long[] { x, y }));
+        for (int x = 0; x < 1000; x++) {
+            downsampler.add(x, x == 500 ? 1000 : x % 7);
+        }
+        downsampler.finish();
+
+        assertThat(kept).hasSize(10);
+        assertThat(kept.get(0)[0]).isZero();
+        assertThat(kept.get(9)[0]).isEqualTo(999);
+        assertThat(kept).extracting(point -> point[0]).contains(500L).isSorted();
+    }
+
+    @Test
+    void seriesShorterThanCountedKeepTheirLastPoint() {
+        downsample(1000, 10, 600);
+
+        assertThat(kept.get(0)[0]).isZero();
+        assertThat(kept.get(kept.size() - 1)[0]).isEqualTo(599);
+        assertThat(kept).hasSizeLessThanOrEqualTo(10).extracting(point -> point[0]).isSorted();
+    }
+
+    @Test
+    void seriesLongerThanCountedKeepTheirLastPoint() {
+        downsample(1000, 10, 1200);
+
+        assertThat(kept).hasSize(10);
+        assertThat(kept.get(9)[0]).isEqualTo(1199);
+    }
+
+    private void downsample(long total, int points, int actual) {
+        LttbDownsampler downsampler = new LttbDownsampler(total, points, (x, y) -> kept.add(new long[] { x, y }));
+        for (int x = 0; x < actual; x++) {
+            downsampler.add(x, x % 5);
+        }
+        downsampler.finish();
+    }
+}
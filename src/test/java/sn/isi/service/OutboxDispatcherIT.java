@@ -0,0 +1,96 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.isi.IntegrationTest;
+import sn.isi.domain.FicheMedical;
+import sn.isi.domain.Traitement;
+import sn.isi.repository.FicheMedicalRepository;
+import sn.isi.repository.OutboxEventRepository.EventType;
+import sn.isi.repository.OutboxEventRepository.OutboxEvent;
+import sn.isi.repository.TraitementRepository;
+
+/**
+ * Integration tests for {@link OutboxDispatcher}, with the {@link LoopbackOutboxEventPublisher}.
+ * <p>
+ * Not transactional: the events are dispatched once committed.
+ */
+@IntegrationTest
+class OutboxDispatcherIT {
+
+    private static final Instant DATE = Instant.parse("2550-01-01T00:00:00Z");
+
+    @Autowired
+    private TraitementRepository traitementRepository;
+
+    @Autowired
+    private FicheMedicalRepository ficheMedicalRepository;
+
+    @Autowired
+    private LoopbackOutboxEventPublisher loopbackOutboxEventPublisher;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void publishCommittedChanges() throws Exception {
+        Traitement traitement = traitementRepository.saveAndFlush(new Traitement().traitement("outbox").datetraitement(DATE));
+        traitement = traitementRepository.saveAndFlush(traitement.traitement("outbox updated"));
+        traitementRepository.delete(traitement);
+
+        List<OutboxEvent> events = awaitEvents("traitement", traitement.getId(), 3);
+        assertThat(events).extracting(OutboxEvent::getEventType).containsExactly(EventType.CREATED, EventType.UPDATED, EventType.DELETED);
+        assertThat(events.get(0).getPayload()).contains("\"traitement\":\"outbox\"");
+        assertThat(events.get(1).getPayload()).contains("\"traitement\":\"outbox updated\"");
+        assertThat(events.get(0).getId()).isLessThan(events.get(1).getId());
+    }
+
+    @Test
+    void rolledBackChangesAreNotPublished() throws Exception {
+        Long id = new TransactionTemplate(transactionManager)
+            .execute(
+                status -> {
+                    status.setRollbackOnly();
+                    return ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("outbox").dateconsultation(DATE)).getId();
+                }
+            );
+        FicheMedical committed = ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("outbox").dateconsultation(DATE));
+        try {
+            awaitEvents("ficheMedical", committed.getId(), 1);
+            assertThat(eventsOf("ficheMedical", id)).isEmpty();
+        } finally {
+            ficheMedicalRepository.delete(committed);
+        }
+    }
+
+    private List<OutboxEvent> awaitEvents(String aggregateType, long aggregateId, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            outboxDispatcher.dispatch();
+            List<OutboxEvent> events = eventsOf(aggregateType, aggregateId);
+            if (events.size() >= count || System.currentTimeMillis() > deadline) {
+                assertThat(events).hasSize(count);
+                return events;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private List<OutboxEvent> eventsOf(String aggregateType, long aggregateId) {
+        return loopbackOutboxEventPublisher
+            .getPublishedEvents()
+            .stream()
+            .filter(event -> event.getAggregateType().equals(aggregateType) && event.getAggregateId() == aggregateId)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,50 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import sn.isi.domain.ProductionLait;
+import sn.isi.service.dto.ProductionLaitFeedSummaryDTO;
+
+class ProductionLaitFeedBufferTest {
+
+    private static final Instant DATE = Instant.parse("2021-03-01T06:00:00Z");
+
+    @Test
+    void dropOldest() {
+        ProductionLaitFeedBuffer buffer = new ProductionLaitFeedBuffer(2, FeedOverflowPolicy.DROP_OLDEST);
+        assertThat(buffer.offer(productionLait(1))).isTrue();
+        assertThat(buffer.offer(productionLait(2))).isTrue();
+        assertThat(buffer.offer(productionLait(3))).isFalse();
+
+        assertThat(buffer.pollSummary()).isNull();
+        assertThat(buffer.poll().getQuantite()).isEqualTo(2);
+        assertThat(buffer.poll().getQuantite()).isEqualTo(3);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    void coalesce() {
+        ProductionLaitFeedBuffer buffer = new ProductionLaitFeedBuffer(2, FeedOverflowPolicy.COALESCE);
+        for (int i = 1; i <= 5; i++) {
+            buffer.offer(productionLait(i));
+        }
+
+        ProductionLaitFeedSummaryDTO summary = buffer.pollSummary();
+        assertThat(summary.getCount()).isEqualTo(3);
+        assertThat(summary.getTotalQuantite()).isEqualTo(6);
+        assertThat(summary.getFrom()).isEqualTo(DATE.plusSeconds(1));
+        assertThat(summary.getTo()).isEqualTo(DATE.plusSeconds(3));
+        assertThat(buffer.pollSummary()).isNull();
+        assertThat(buffer.isEmpty()).isFalse();
+        assertThat(buffer.poll().getQuantite()).isEqualTo(4);
+        assertThat(buffer.poll().getQuantite()).isEqualTo(5);
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    private static ProductionLait productionLait(int quantite) {
+        return new ProductionLait().id((long) quantite).quantite(quantite).dateproduction(DATE.plusSeconds(quantite));
+    }
+}
@@ -0,0 +1,187 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitScanRepository;
+import sn.isi.repository.ProductionLaitScanRepository.VersionedProductionConsumer;
+
+/**
+ * Unit tests for {@link ProductionLaitHotTier}.
+ */
+class ProductionLaitHotTierTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private ProductionLaitHotTier hotTier;
+
+    @BeforeEach
+    public void init() {
+        ProductionLaitScanRepository scanRepository = mock(ProductionLaitScanRepository.class);
+        doAnswer(
+                invocation -> {
+                    VersionedProductionConsumer consumer = invocation.getArgument(1);
+                    consumer.accept(1L, 10, NOW.minus(2, ChronoUnit.DAYS), 0L, 1L);
+                    consumer.accept(2L, 20, NOW.minus(1, ChronoUnit.DAYS), 1L, 2L);
+                    consumer.accept(3L, 30, NOW.minus(1, ChronoUnit.DAYS), 0L, 2L);
+                    return null;
+                }
+            )
+            .when(scanRepository)
+            .scanWithVersions(any(), any());
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getHotTier().setEnabled(true);
+        applicationProperties.getHotTier().setDays(7);
+        hotTier = new ProductionLaitHotTier(scanRepository, applicationProperties);
+    }
+
+    @Test
+    void rangesAreOnlyCoveredOnceLoaded() {
+        assertThat(hotTier.snapshotFrom(NOW.minus(1, ChronoUnit.DAYS))).isEmpty();
+
+        hotTier.load();
+
+        assertThat(hotTier.snapshotFrom(NOW.minus(1, ChronoUnit.DAYS))).isPresent();
+        assertThat(hotTier.snapshotFrom(NOW.minus(8, ChronoUnit.DAYS))).isEmpty();
+    }
+
+    @Test
+    void writesArePublishedInNewSnapshots() {
+        hotTier.load();
+        ProductionLaitHotTier.Snapshot before = hotTier.snapshotFrom(NOW).orElseThrow();
+
+        ProductionLait added = new ProductionLait().quantite(40).dateproduction(NOW);
+        added.setId(4L);
+        added.setVersion(0L);
+        added.setSyncVersion(3L);
+        hotTier.recordAddition(added);
+        hotTier.recordRemoval(1L, NOW.minus(2, ChronoUnit.DAYS));
+        // Removing a missing row does nothing
+        hotTier.recordRemoval(5L, NOW);
+
+        ProductionLaitHotTier.Snapshot after = hotTier.snapshotFrom(NOW).orElseThrow();
+        assertThat(before.size()).isEqualTo(3);
+        assertThat(after.rows(0, after.size())).extracting(ProductionLait::getId).containsExactly(2L, 3L, 4L);
+        assertThat(after.rows(0, after.size())).extracting(ProductionLait::getVersion).containsExactly(1L, 0L, 0L);
+        assertThat(after.rows(0, after.size())).extracting(ProductionLait::getSyncVersion).containsExactly(2L, 2L, 3L);
+        ProductionLaitHotTier.RangeTotals totals = after.totals(NOW.minus(7, ChronoUnit.DAYS), NOW.plusMillis(1));
+        assertThat(totals.getCount()).isEqualTo(3);
+        assertThat(totals.getSum()).isEqualTo(90);
+        assertThat(totals.getMin()).isEqualTo(20);
+        assertThat(totals.getMax()).isEqualTo(40);
+    }
+
+    @Test
+    void concurrentWritesAreAllPublished() throws Exception {
+        hotTier.load();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                long firstId = 100 + writer * 50;
+                writers.add(
+                    executor.submit(
+                        () -> {
+                            for (long id = firstId; id < firstId + 50; id++) {
+                                ProductionLait added = new ProductionLait().quantite(1).dateproduction(NOW);
+                                added.setId(id);
+                                added.setVersion(0L);
+                                added.setSyncVersion(id);
+                                hotTier.recordAddition(added);
+                            }
+                        }
+                    )
+                );
+            }
+            for (Future<?> writer : writers) {
+                writer.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(hotTier.snapshotFrom(NOW).orElseThrow().size()).isEqualTo(3 + 8 * 50);
+    }
+
+    @Test
+    void changesAreIdempotent() {
+        ProductionLaitHotTier.Snapshot snapshot = new ProductionLaitHotTier.Snapshot(
+            0,
+            new long[] { 10 },
+            new long[] { 1 },
+            new int[] { 5 },
+            new long[] { 0 },
+            new long[] { 1 }
+        );
+
+        ProductionLaitHotTier.Snapshot changed = snapshot.withChanges(
+            List.of(
+                new ProductionLaitHotTier.Change(10, 1, 6, 1, 2),
+                new ProductionLaitHotTier.Change(20, 2, 7, 0, 2),
+                new ProductionLaitHotTier.Change(20, 2, null, 0, 0),
+                new ProductionLaitHotTier.Change(30, 3, 8, 0, 3)
+            ),
+            0
+        );
+
+        assertThat(changed.rows(0, changed.size())).extracting(ProductionLait::getQuantite).containsExactly(6, 8);
+        assertThat(changed.rows(0, changed.size())).extracting(ProductionLait::getVersion).containsExactly(1L, 0L);
+        assertThat(changed.withChanges(List.of(), 20).size()).isEqualTo(1);
+    }
+
+    @Test
+    void totalsMatchAScanOfTheRows() {
+        Random random = new Random(42);
+        int size = 1000;
+        long[] dates = new long[size];
+        long[] ids = new long[size];
+        int[] quantites = new int[size];
+        for (int i = 0; i < size; i++) {
+            dates[i] = i / 3;
+            ids[i] = i;
+            quantites[i] = random.nextInt(1000) - 100;
+        }
+        long[] versions = new long[size];
+        ProductionLaitHotTier.Snapshot snapshot = new ProductionLaitHotTier.Snapshot(0, dates, ids, quantites, versions, versions);
+
+        for (int test = 0; test < 200; test++) {
+            int from = random.nextInt(size / 3);
+            int to = from + random.nextInt(size / 3 - from + 1);
+            long count = 0;
+            long sum = 0;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (dates[i] >= from && dates[i] < to) {
+                    count++;
+                    sum += quantites[i];
+                    min = Math.min(min, quantites[i]);
+                    max = Math.max(max, quantites[i]);
+                }
+            }
+            ProductionLaitHotTier.RangeTotals totals = snapshot.totals(Instant.ofEpochMilli(from), Instant.ofEpochMilli(to));
+            assertThat(totals.getCount()).isEqualTo(count);
+            assertThat(totals.getSum()).isEqualTo(sum);
+            if (count > 0) {
+                assertThat(totals.getMin()).isEqualTo(min);
+                assertThat(totals.getMax()).isEqualTo(max);
+            }
+        }
+        assertThat(snapshot.indexAfter(Instant.ofEpochMilli(1), 3)).isEqualTo(4);
+    }
+}
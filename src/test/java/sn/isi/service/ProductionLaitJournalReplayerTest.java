@@ -0,0 +1,71 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitJournal;
+import sn.isi.repository.ProductionLaitJournal.Position;
+import sn.isi.repository.ProductionLaitJournalCheckpointRepository;
+
+/**
+ * Unit tests for {@link ProductionLaitJournalReplayer}.
+ */
+class ProductionLaitJournalReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unreadableSegmentsAreSkipped() throws IOException {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJournal().setEnabled(true);
+        applicationProperties.getJournal().setDirectory(directory.toString());
+        applicationProperties.getJournal().setSegmentSize(100);
+        applicationProperties.getJournal().setReplayBatchSize(100);
+        ProductionLaitJournal journal = new ProductionLaitJournal(applicationProperties);
+        for (int quantite = 1; quantite <= 12; quantite++) {
+            journal.append(new ProductionLait().quantite(quantite).dateproduction(Instant.parse("2021-04-01T10:00:00Z")));
+        }
+        Files.delete(directory.resolve("journal-00000000000000000001.log"));
+        ProductionLaitJournalCheckpointRepository checkpointRepository = mock(ProductionLaitJournalCheckpointRepository.class);
+        when(checkpointRepository.find()).thenReturn(new Position(0, 0));
+        ProductionLaitIngestionService ingestionService = mock(ProductionLaitIngestionService.class);
+        List<Integer> replayed = new ArrayList<>();
+        doAnswer(
+                invocation -> {
+                    List<ProductionLait> productionLaits = invocation.getArgument(0);
+                    productionLaits.forEach(productionLait -> replayed.add(productionLait.getQuantite()));
+                    return null;
+                }
+            )
+            .when(ingestionService)
+            .saveJournaled(anyList(), any());
+        ProductionLaitJournalReplayer replayer = new ProductionLaitJournalReplayer(
+            journal,
+            checkpointRepository,
+            ingestionService,
+            applicationProperties
+        );
+
+        replayer.replay();
+        replayer.replay();
+
+        verify(checkpointRepository).save(new Position(2, 0));
+        assertThat(replayed).containsExactly(1, 2, 3, 4, 5, 11, 12);
+    }
+}
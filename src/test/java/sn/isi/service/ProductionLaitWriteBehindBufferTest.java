@@ -0,0 +1,102 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+
+/**
+ * Unit tests for {@link ProductionLaitWriteBehindBuffer}.
+ */
+class ProductionLaitWriteBehindBufferTest {
+
+    private final CountDownLatch flushing = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final List<Integer> flushedBatchSizes = new ArrayList<>();
+
+    private ProductionLaitWriteBehindBuffer buffer;
+
+    @BeforeEach
+    public void init() {
+        AtomicLong ids = new AtomicLong();
+        ProductionLaitIngestionService ingestionService = mock(ProductionLaitIngestionService.class);
+        when(ingestionService.saveChunk(anyList()))
+            .thenAnswer(
+                invocation -> {
+                    List<ProductionLait> productionLaits = invocation.getArgument(0);
+                    flushing.countDown();
+                    release.await(10, TimeUnit.SECONDS);
+                    productionLaits.forEach(productionLait -> productionLait.setId(ids.incrementAndGet()));
+                    flushedBatchSizes.add(productionLaits.size());
+                    return productionLaits;
+                }
+            );
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getWriteBehind().setEnabled(true);
+        applicationProperties.getWriteBehind().setCapacity(4);
+        applicationProperties.getWriteBehind().setBatchSize(4);
+        applicationProperties.getWriteBehind().setFlushIntervalMs(10);
+        buffer = new ProductionLaitWriteBehindBuffer(ingestionService, applicationProperties);
+    }
+
+    @Test
+    void writesAreRejectedUntilStarted() {
+        assertThat(buffer.submit(newProductionLait())).isEmpty();
+    }
+
+    @Test
+    void fullBufferRejectsWritesAndStopDrainsIt() throws Exception {
+        buffer.start();
+        List<CompletableFuture<ProductionLait>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(buffer.submit(newProductionLait()).orElseThrow());
+        }
+        // The first batch is taken out of the buffer and blocked in its transaction
+        assertThat(flushing.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 4; i++) {
+            futures.add(buffer.submit(newProductionLait()).orElseThrow());
+        }
+        assertThat(buffer.submit(newProductionLait())).isEmpty();
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        buffer.stop(stopped::countDown);
+        assertThat(buffer.submit(newProductionLait())).isEmpty();
+        release.countDown();
+
+        assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(flushedBatchSizes).containsExactly(4, 4);
+        assertThat(futures).allSatisfy(future -> assertThat(future.getNow(null)).extracting(ProductionLait::getId).isNotNull());
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void stopWaitsForTheBufferToBeDrained() {
+        release.countDown();
+        buffer.start();
+        CompletableFuture<ProductionLait> future = buffer.submit(newProductionLait()).orElseThrow();
+
+        buffer.stop();
+
+        assertThat(buffer.isRunning()).isFalse();
+        assertThat(future.getNow(null)).extracting(ProductionLait::getId).isNotNull();
+        assertThat(flushedBatchSizes).containsExactly(1);
+    }
+
+    private static ProductionLait newProductionLait() {
+        return new ProductionLait().quantite(10).dateproduction(Instant.now());
+    }
+}
@@ -0,0 +1,83 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.WireFormat;
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProtobufCodec}.
+ */
+class ProtobufCodecTest {
+
+    private static final Class<?>[] FIELD_TYPES = { Long.class, String.class, Instant.class, Integer.class };
+
+    @Test
+    void messagesAreReadBack() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        Instant date = Instant.parse("2021-05-01T10:00:00.123456789Z");
+        ProtobufCodec.writeDelimited(out, new Object[] { 42L, "héllo", date, -7 });
+        ProtobufCodec.writeDelimited(out, new Object[] { null, null, Instant.EPOCH, 0 });
+        out.flush();
+
+        CodedInputStream in = CodedInputStream.newInstance(bytes.toByteArray());
+        assertThat(ProtobufCodec.readDelimited(in, FIELD_TYPES)).containsExactly(42L, "héllo", date, -7);
+        assertThat(ProtobufCodec.readDelimited(in, FIELD_TYPES)).containsExactly(0L, "", Instant.EPOCH, 0);
+        assertThat(ProtobufCodec.readDelimited(in, FIELD_TYPES)).isNull();
+    }
+
+    @Test
+    void timestampsAreWireCompatible() throws Exception {
+        Instant date = Instant.parse("1969-12-31T23:59:58.5Z");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        ProtobufCodec.writeDelimited(out, new Object[] { date });
+        out.flush();
+
+        CodedInputStream in = CodedInputStream.newInstance(bytes.toByteArray());
+        in.readRawVarint32();
+        assertThat(in.readTag()).isEqualTo((1 << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        Timestamp timestamp = Timestamp.parseFrom(in.readBytes());
+        assertThat(timestamp.getSeconds()).isEqualTo(date.getEpochSecond());
+        assertThat(timestamp.getNanos()).isEqualTo(date.getNano());
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        ProtobufCodec.writeDelimited(out, new Object[] { "wrong type", 1L, null, 3, "unknown" });
+        out.flush();
+
+        Object[] values = ProtobufCodec.readDelimited(CodedInputStream.newInstance(bytes.toByteArray()), FIELD_TYPES);
+
+        assertThat(values).containsExactly(0L, "", Instant.EPOCH, 3);
+    }
+
+    @Test
+    void defaultScalarsAreNotOnTheWire() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(bytes);
+        ProtobufCodec.writeDelimited(out, new Object[] { 0L, "", null, 0 });
+        out.flush();
+
+        // As written by the generated classes of proto3: an empty message
+        assertThat(bytes.toByteArray()).containsExactly(0);
+        assertThat(ProtobufCodec.readDelimited(CodedInputStream.newInstance(bytes.toByteArray()), FIELD_TYPES))
+            .containsExactly(0L, "", Instant.EPOCH, 0);
+    }
+
+    @Test
+    void truncatedMessagesAreInvalid() {
+        assertThatThrownBy(() -> ProtobufCodec.readDelimited(CodedInputStream.newInstance(new byte[] { 10, 8 }), FIELD_TYPES))
+            .isInstanceOf(InvalidProtocolBufferException.class);
+    }
+}
@@ -0,0 +1,81 @@
+package sn.isi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link RingBuffer}.
+ */
+class RingBufferTest {
+
+    @Test
+    void elementsArePolledInOrderUntilFull() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new RingBuffer<>(3)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 10000;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer;
+            executor.execute(
+                () -> {
+                    for (int i = first; i < first + perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            );
+        }
+        BitSet seen = new BitSet();
+        int[] lastByProducer = new int[producers];
+        Arrays.fill(lastByProducer, -1);
+        for (int received = 0; received < producers * perProducer;) {
+            Integer element = buffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertThat(seen.get(element)).isFalse();
+            seen.set(element);
+            // Each producer's elements come out in the order it added them
+            assertThat(element).isGreaterThan(lastByProducer[element / perProducer]);
+            lastByProducer[element / perProducer] = element;
+            received++;
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(seen.cardinality()).isEqualTo(producers * perProducer);
+        assertThat(buffer.poll()).isNull();
+    }
+}
@@ -0,0 +1,215 @@
+package sn.isi.web.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Unit tests for {@link RequestDecompressionFilter}.
+ */
+class RequestDecompressionFilterTest {
+
+    private static final String BODY = "[{\"quantite\":10,\"dateproduction\":\"2021-04-01T10:00:00Z\"}]".repeat(100);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RequestDecompressionFilter filter;
+
+    private String readBody;
+
+    private String readContentEncoding;
+
+    @BeforeEach
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestDecompressionFilter(1024 * 1024, meterRegistry);
+    }
+
+    @Test
+    void gzipBodiesAreDecompressedAndMetered() throws Exception {
+        MockHttpServletRequest request = compressedRequest("gzip", gzip(BODY));
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain());
+
+        assertThat(readBody).isEqualTo(BODY);
+        assertThat(readContentEncoding).isNull();
+        assertThat(meterRegistry.get(RequestDecompressionFilter.RATIO_METRIC).tag("encoding", "gzip").summary().mean()).isGreaterThan(10);
+        assertThat(meterRegistry.get(RequestDecompressionFilter.SIZE_METRIC).summary().totalAmount()).isEqualTo(BODY.length());
+        assertThat(meterRegistry.get(RequestDecompressionFilter.TIME_METRIC).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void zstdBodiesAreDecompressed() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdOutputStream(compressed)) {
+            out.write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = compressedRequest("zstd", compressed.toByteArray());
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain());
+
+        assertThat(readBody).isEqualTo(BODY);
+        assertThat(meterRegistry.get(RequestDecompressionFilter.RATIO_METRIC).tag("encoding", "zstd").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    void uncompressedBodiesArePassedAsIs() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/production-laits");
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+
+        filter.doFilter(request, new MockHttpServletResponse(), readingChain());
+
+        assertThat(readBody).isEqualTo(BODY);
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    void unknownEncodingsAreRejected() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(compressedRequest("br", new byte[] { 1 }), response, readingChain());
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_ENCODING)).isEqualTo("gzip, zstd");
+        assertThat(readBody).isNull();
+    }
+
+    @Test
+    void decompressionStopsPastTheMaximumSize() throws Exception {
+        RequestDecompressionFilter limitedFilter = new RequestDecompressionFilter(BODY.length() - 1, meterRegistry);
+        MockHttpServletRequest request = compressedRequest("gzip", gzip(BODY));
+
+        assertThatThrownBy(() -> limitedFilter.doFilter(request, new MockHttpServletResponse(), readingChain()))
+            .isInstanceOf(RequestDecompressionFilter.BodyTooLargeException.class)
+            .hasMessageContaining("larger than");
+    }
+
+    @Test
+    void bodiesReadWithoutBlockingAreDecompressedOnceReceived() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/production-laits") {
+            @Override
+            public ServletInputStream getInputStream() {
+                return new NonBlockingServletInputStream(getContentAsByteArray());
+            }
+        };
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        request.setContent(gzip(BODY));
+        MockFilterChain chain = new MockFilterChain(
+            new HttpServlet() {
+                @Override
+                protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                    ServletInputStream in = request.getInputStream();
+                    ByteArrayOutputStream body = new ByteArrayOutputStream();
+                    in.setReadListener(
+                        new ReadListener() {
+                            @Override
+                            public void onDataAvailable() throws IOException {
+                                byte[] buffer = new byte[256];
+                                for (int read; in.isReady() && (read = in.read(buffer)) != -1;) {
+                                    body.write(buffer, 0, read);
+                                }
+                            }
+
+                            @Override
+                            public void onAllDataRead() {
+                                readBody = body.toString(StandardCharsets.UTF_8);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {}
+                        }
+                    );
+                }
+            }
+        );
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(readBody).isEqualTo(BODY);
+        assertThat(meterRegistry.get(RequestDecompressionFilter.SIZE_METRIC).summary().totalAmount()).isEqualTo(BODY.length());
+    }
+
+    private MockHttpServletRequest compressedRequest(String encoding, byte[] content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/production-laits");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        request.setContent(content);
+        return request;
+    }
+
+    private MockFilterChain readingChain() {
+        return new MockFilterChain(
+            new HttpServlet() {
+                @Override
+                protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                    readContentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+                    readBody = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+                }
+            }
+        );
+    }
+
+    /**
+     * Stream notifying its read listener as soon as it is set, as if the whole content had been received.
+     */
+    private static class NonBlockingServletInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream in;
+
+        NonBlockingServletInputStream(byte[] content) {
+            this.in = new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                readListener.onDataAvailable();
+                readListener.onAllDataRead();
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,86 @@
+package sn.isi.web.lineprotocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link LineProtocolConnection}.
+ */
+class LineProtocolConnectionTest {
+
+    private final List<String> readings = new ArrayList<>();
+
+    private boolean full;
+
+    private LineProtocolConnection.Status receive(LineProtocolConnection connection, String data) {
+        connection.buffer().clear();
+        connection.buffer().put(data.getBytes(StandardCharsets.US_ASCII));
+        connection.buffer().flip();
+        return connection.drain(this::accept);
+    }
+
+    private boolean accept(long timestamp, int quantite) {
+        if (full) {
+            return false;
+        }
+        readings.add(timestamp + "=" + quantite);
+        return true;
+    }
+
+    @Test
+    void linesAreParsedAcrossReads() {
+        LineProtocolConnection connection = new LineProtocolConnection("test", null);
+
+        assertThat(receive(connection, "1000 12\n20")).isEqualTo(LineProtocolConnection.Status.DRAINED);
+        assertThat(receive(connection, "00\t 7 \r\n  3000 8\n")).isEqualTo(LineProtocolConnection.Status.DRAINED);
+
+        assertThat(readings).containsExactly("1000=12", "2000=7", "3000=8");
+        assertThat(connection.getReadings()).isEqualTo(3);
+        assertThat(connection.getErrors()).isZero();
+        assertThat(connection.getBytes()).isEqualTo(27);
+        assertThat(connection.getDevice()).isEqualTo("anonymous");
+    }
+
+    @Test
+    void malformedLinesAreSkipped() {
+        LineProtocolConnection connection = new LineProtocolConnection("test", null);
+
+        receive(connection, "\n1000\n1000 x\n-1 5\n1000 5 6\n1000 99999999999\n" + "1".repeat(100) + " 5\n4000 4\n");
+
+        assertThat(readings).containsExactly("4000=4");
+        assertThat(connection.getErrors()).isEqualTo(6);
+    }
+
+    @Test
+    void aFullSinkPausesTheConnection() {
+        LineProtocolConnection connection = new LineProtocolConnection("test", null);
+        full = true;
+
+        assertThat(receive(connection, "1000 1\n2000 2\n")).isEqualTo(LineProtocolConnection.Status.PAUSED);
+        assertThat(connection.drain(this::accept)).isEqualTo(LineProtocolConnection.Status.PAUSED);
+        full = false;
+        assertThat(connection.drain(this::accept)).isEqualTo(LineProtocolConnection.Status.DRAINED);
+
+        assertThat(readings).containsExactly("1000=1", "2000=2");
+        assertThat(connection.getReadings()).isEqualTo(2);
+    }
+
+    @Test
+    void connectionsMustAuthenticate() {
+        LineProtocolConnection accepted = new LineProtocolConnection("test", (device, key) -> "secret".equals(key));
+        assertThat(accepted.getDevice()).isNull();
+        assertThat(receive(accepted, "AUTH parlour-1 secret\r\n1000 1\n")).isEqualTo(LineProtocolConnection.Status.DRAINED);
+        assertThat(accepted.getDevice()).isEqualTo("parlour-1");
+        assertThat(readings).containsExactly("1000=1");
+
+        LineProtocolConnection rejected = new LineProtocolConnection("test", (device, key) -> "secret".equals(key));
+        assertThat(receive(rejected, "AUTH parlour-1 guess\n1000 1\n")).isEqualTo(LineProtocolConnection.Status.REJECTED);
+        assertThat(receive(new LineProtocolConnection("test", (device, key) -> true), "1000 1\n"))
+            .isEqualTo(LineProtocolConnection.Status.REJECTED);
+        assertThat(readings).containsExactly("1000=1");
+    }
+}
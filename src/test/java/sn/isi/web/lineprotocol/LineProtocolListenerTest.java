@@ -0,0 +1,43 @@
+package sn.isi.web.lineprotocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import org.junit.jupiter.api.Test;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.service.ProductionLaitWriteBehindBuffer;
+
+/**
+ * Unit tests for {@link LineProtocolListener}.
+ */
+class LineProtocolListenerTest {
+
+    @Test
+    void stopClosesTheListenerBeforeReturning() throws IOException {
+        ProductionLaitWriteBehindBuffer buffer = mock(ProductionLaitWriteBehindBuffer.class);
+        when(buffer.isEnabled()).thenReturn(true);
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getLineProtocol().setEnabled(true);
+        applicationProperties.getLineProtocol().setBindAddress(InetAddress.getLoopbackAddress().getHostAddress());
+        applicationProperties.getLineProtocol().setPort(0);
+        LineProtocolListener listener = new LineProtocolListener(buffer, new SimpleMeterRegistry(), applicationProperties);
+        listener.start();
+        int port = listener.getLocalPort();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            assertThat(socket.isConnected()).isTrue();
+        }
+
+        listener.stop();
+
+        assertThat(listener.isRunning()).isFalse();
+        assertThat(listener.getLocalPort()).isEqualTo(-1);
+        assertThatThrownBy(() -> new Socket(InetAddress.getLoopbackAddress(), port).close()).isInstanceOf(ConnectException.class);
+    }
+}
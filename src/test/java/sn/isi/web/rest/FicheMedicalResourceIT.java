@@ -2,6 +2,7 @@ package sn.isi.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -11,14 +12,18 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import sn.isi.IntegrationTest;
 import sn.isi.domain.FicheMedical;
@@ -187,6 +192,116 @@ class FicheMedicalResourceIT {
             .andExpect(jsonPath("$.[*].dateconsultation").value(hasItem(DEFAULT_DATECONSULTATION.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllFicheMedicalsInDateRange() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+
+        // Get the ficheMedicals of the range
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ficheMedical.getId().intValue())));
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ficheMedical.getId().intValue())));
+
+        // The end of the range is exclusive
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1969-12-31T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(ficheMedical.getId().intValue()))));
+
+        // An empty range is rejected
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-02T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllFicheMedicalFields() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+
+        // Only the requested fields are returned
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=id,dateconsultation&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(header().exists("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(ficheMedical.getId().intValue())))
+            .andExpect(jsonPath("$.[*].dateconsultation").value(hasItem(DEFAULT_DATECONSULTATION.toString())))
+            .andExpect(jsonPath("$.[*].observation").doesNotExist());
+
+        // Unknown fields and sorts are rejected
+        restFicheMedicalMockMvc.perform(get(ENTITY_API_URL + "?fields=id,unknown")).andExpect(status().isBadRequest());
+        restFicheMedicalMockMvc.perform(get(ENTITY_API_URL + "?fields=,")).andExpect(status().isBadRequest());
+        restFicheMedicalMockMvc.perform(get(ENTITY_API_URL + "?fields=id&sort=unknown,asc")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllFicheMedicalFieldsWithCursor() throws Exception {
+        // Initialize the database
+        Instant date = Instant.parse("2700-01-01T08:00:00Z");
+        FicheMedical first = ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("first").dateconsultation(date));
+        FicheMedical second = ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("second").dateconsultation(date));
+        ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("third").dateconsultation(date.plusSeconds(1)));
+        String url = ENTITY_API_URL + "?fields=observation&size=2&from=2700-01-01T00:00:00Z&to=2700-01-02T00:00:00Z";
+
+        // The keys of the cursor are read, but only the requested fields are returned
+        String cursor = restFicheMedicalMockMvc
+            .perform(get(url + "&cursor="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].observation").value("first"))
+            .andExpect(jsonPath("$.[1].observation").value("second"))
+            .andExpect(jsonPath("$.[*].id").doesNotExist())
+            .andExpect(jsonPath("$.[*].dateconsultation").doesNotExist())
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+        assertThat(cursor).isNotNull();
+
+        restFicheMedicalMockMvc
+            .perform(get(url + "&cursor=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].observation").value("third"))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @Transactional
+    void getFicheMedicalsById() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+        FicheMedical second = ficheMedicalRepository.saveAndFlush(createEntity(em).observation("second"));
+
+        // The existing ficheMedicals are returned once, in the order of the ids
+        String ids = second.getId() + "," + Long.MAX_VALUE + "," + ficheMedical.getId() + "," + second.getId();
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + ids))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.[0].observation").value("second"))
+            .andExpect(jsonPath("$.[1].id").value(ficheMedical.getId().intValue()));
+
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+        restFicheMedicalMockMvc.perform(get(ENTITY_API_URL + "?ids=a")).andExpect(status().isBadRequest());
+
+        // The number of ids is bounded
+        String tooManyIds = LongStream.rangeClosed(1, 1001).mapToObj(String::valueOf).collect(Collectors.joining(","));
+        restFicheMedicalMockMvc.perform(get(ENTITY_API_URL + "?ids=" + tooManyIds)).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getFicheMedical() throws Exception {
@@ -203,6 +318,67 @@ class FicheMedicalResourceIT {
             .andExpect(jsonPath("$.dateconsultation").value(DEFAULT_DATECONSULTATION.toString()));
     }
 
+    @Test
+    void exportFicheMedicalsAsNdjson() throws Exception {
+        // The export reads from its own connection, so the rows must be committed
+        Instant date = Instant.parse("2200-01-01T08:00:00Z");
+        FicheMedical first = ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("first").dateconsultation(date));
+        FicheMedical second = ficheMedicalRepository.saveAndFlush(new FicheMedical().observation("second").dateconsultation(date));
+        try {
+            MvcResult result = restFicheMedicalMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=ndjson&from=2200-01-01T00:00:00Z&to=2200-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            String body = restFicheMedicalMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+            assertThat(body.split("\n"))
+                .containsExactly(
+                    "{\"id\":" +
+                    first.getId() +
+                    ",\"observation\":\"first\",\"dateconsultation\":\"2200-01-01T08:00:00Z\",\"syncVersion\":" +
+                    first.getSyncVersion() +
+                    ",\"version\":0}",
+                    "{\"id\":" +
+                    second.getId() +
+                    ",\"observation\":\"second\",\"dateconsultation\":\"2200-01-01T08:00:00Z\",\"syncVersion\":" +
+                    second.getSyncVersion() +
+                    ",\"version\":0}"
+                );
+        } finally {
+            ficheMedicalRepository.deleteAll(List.of(first, second));
+        }
+    }
+
+    @Test
+    @Transactional
+    void getFicheMedicalWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+        String entityTag = "\"" + ficheMedical.getVersion() + "\"";
+
+        // The ficheMedical is unchanged
+        restFicheMedicalMockMvc
+            .perform(get(ENTITY_API_URL_ID, ficheMedical.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"-1\", " + entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        // The ficheMedical changed since the entity tag of the client
+        restFicheMedicalMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, ficheMedical.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"" + (ficheMedical.getVersion() + 1) + "\"")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(jsonPath("$.id").value(ficheMedical.getId().intValue()));
+    }
+
     @Test
     @Transactional
     void getNonExistingFicheMedical() throws Exception {
@@ -247,7 +423,7 @@ class FicheMedicalResourceIT {
         int databaseSizeBeforeUpdate = ficheMedicalRepository.findAll().size();
         ficheMedical.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restFicheMedicalMockMvc
             .perform(
                 put(ENTITY_API_URL_ID, ficheMedical.getId())
@@ -255,13 +431,104 @@ class FicheMedicalResourceIT {
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(TestUtil.convertObjectToJsonBytes(ficheMedical))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the FicheMedical in the database
         List<FicheMedical> ficheMedicalList = ficheMedicalRepository.findAll();
         assertThat(ficheMedicalList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putFicheMedicalWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+
+        int databaseSizeBeforeUpdate = ficheMedicalRepository.findAll().size();
+
+        // Update the ficheMedical, expecting a version it is not at
+        FicheMedical updatedFicheMedical = ficheMedicalRepository.findById(ficheMedical.getId()).get();
+        em.detach(updatedFicheMedical);
+        updatedFicheMedical.observation(UPDATED_OBSERVATION).dateconsultation(UPDATED_DATECONSULTATION);
+
+        restFicheMedicalMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedFicheMedical.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (updatedFicheMedical.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedFicheMedical))
+            )
+            .andExpect(status().isConflict());
+
+        // Validate the FicheMedical in the database
+        List<FicheMedical> ficheMedicalList = ficheMedicalRepository.findAll();
+        assertThat(ficheMedicalList).hasSize(databaseSizeBeforeUpdate);
+        FicheMedical testFicheMedical = ficheMedicalList.get(ficheMedicalList.size() - 1);
+        assertThat(testFicheMedical.getObservation()).isEqualTo(DEFAULT_OBSERVATION);
+        assertThat(testFicheMedical.getDateconsultation()).isEqualTo(DEFAULT_DATECONSULTATION);
+    }
+
+    @Test
+    @Transactional
+    void putFicheMedicalWithIfMatch() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+        long version = ficheMedical.getVersion();
+
+        // Update the ficheMedical at the version it was read at
+        FicheMedical updatedFicheMedical = ficheMedicalRepository.findById(ficheMedical.getId()).get();
+        em.detach(updatedFicheMedical);
+        updatedFicheMedical.observation(UPDATED_OBSERVATION).dateconsultation(UPDATED_DATECONSULTATION);
+
+        restFicheMedicalMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedFicheMedical.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedFicheMedical))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.observation").value(UPDATED_OBSERVATION))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.version").value(version + 1));
+
+        // The If-Match header must be a strong entity tag
+        restFicheMedicalMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedFicheMedical.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "W/\"" + (version + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedFicheMedical))
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void patchFicheMedicalWithStaleVersion() throws Exception {
+        // Initialize the database
+        ficheMedicalRepository.saveAndFlush(ficheMedical);
+
+        // Update the ficheMedical, sending a version it is not at in the body
+        FicheMedical partialUpdatedFicheMedical = new FicheMedical();
+        partialUpdatedFicheMedical.setId(ficheMedical.getId());
+        partialUpdatedFicheMedical.observation(UPDATED_OBSERVATION).version(ficheMedical.getVersion() + 1);
+
+        restFicheMedicalMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedFicheMedical.getId())
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedFicheMedical))
+            )
+            .andExpect(status().isConflict());
+
+        assertThat(ficheMedicalRepository.findById(ficheMedical.getId()).get().getObservation()).isEqualTo(DEFAULT_OBSERVATION);
+    }
+
     @Test
     @Transactional
     void putWithIdMismatchFicheMedical() throws Exception {
@@ -370,7 +637,7 @@ class FicheMedicalResourceIT {
         int databaseSizeBeforeUpdate = ficheMedicalRepository.findAll().size();
         ficheMedical.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restFicheMedicalMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, ficheMedical.getId())
@@ -378,7 +645,7 @@ class FicheMedicalResourceIT {
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(ficheMedical))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the FicheMedical in the database
         List<FicheMedical> ficheMedicalList = ficheMedicalRepository.findAll();
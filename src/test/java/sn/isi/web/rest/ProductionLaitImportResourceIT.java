@@ -0,0 +1,228 @@
+package sn.isi.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import sn.isi.IntegrationTest;
+import sn.isi.config.ApplicationProperties;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitImportJobRepository;
+import sn.isi.repository.ProductionLaitImportJobRepository.Checkpoint;
+import sn.isi.repository.ProductionLaitImportJobRepository.ImportStatus;
+import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.service.ProductionLaitImportService;
+import sn.isi.service.ProductionLaitIngestionService;
+import sn.isi.service.dto.ProductionLaitImportJobDTO;
+
+/**
+ * Integration tests for the {@link ProductionLaitImportResource} REST controller.
+ * <p>
+ * Not transactional: the imports commit their chunks from the task executor, so the tests clean up instead.
+ */
+@AutoConfigureMockMvc
+@WithMockUser
+@IntegrationTest
+class ProductionLaitImportResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/production-lait-imports";
+
+    private static final Instant DATE = Instant.parse("2450-01-01T00:00:00Z");
+
+    @Autowired
+    private ProductionLaitRepository productionLaitRepository;
+
+    @Autowired
+    private ProductionLaitImportJobRepository productionLaitImportJobRepository;
+
+    @Autowired
+    private ProductionLaitIngestionService productionLaitIngestionService;
+
+    @Autowired
+    private ProductionLaitImportService productionLaitImportService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restProductionLaitImportMockMvc;
+
+    @Test
+    void importProductionLaits() throws Exception {
+        StringBuilder csv = new StringBuilder("\uFEFFid;quantite;dateproduction\r\n");
+        for (int i = 1; i <= 12; i++) {
+            csv.append(i).append(';').append(i).append(";2450-01-01T00:00:").append(String.format("%02d", i)).append("\r\n");
+        }
+        csv.append("13;many;2450-01-01T00:00:13\n\n14;14;yesterday\n15;15;2450-01-01T00:00:15+00:00");
+        MockMultipartFile file = new MockMultipartFile("file", "herd.csv", "text/csv", csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        try {
+            String location = restProductionLaitImportMockMvc
+                .perform(multipart(ENTITY_API_URL).file(file).with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.fileName").value("herd.csv"))
+                .andExpect(jsonPath("$.totalBytes").value(csv.toString().getBytes(StandardCharsets.UTF_8).length))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.LOCATION);
+
+            ProductionLaitImportJobDTO job = awaitFinished(location);
+            assertThat(job.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+            assertThat(job.getImportedRows()).isEqualTo(13);
+            assertThat(job.getErrorCount()).isEqualTo(2);
+            assertThat(job.getLastError()).startsWith("Line 16:");
+            assertThat(job.getLineNumber()).isEqualTo(17);
+            assertThat(job.getProcessedBytes()).isEqualTo(job.getTotalBytes());
+            assertThat(job.getRowsPerSecond()).isPositive();
+            assertThat(findImported())
+                .extracting(ProductionLait::getQuantite)
+                .containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 15);
+
+            // Only failed imports can be resumed
+            restProductionLaitImportMockMvc.perform(post(location + "/resume").with(csrf())).andExpect(status().isBadRequest());
+        } finally {
+            deleteImported();
+        }
+    }
+
+    @Test
+    void resumeInterruptedImport() throws Exception {
+        // A job interrupted after its first chunk of 10 rows
+        String id = UUID.randomUUID().toString();
+        StringBuilder csv = new StringBuilder("quantite;dateproduction\n");
+        long offset = 0;
+        for (int i = 1; i <= 13; i++) {
+            csv.append(i).append(";2450-01-01T00:00:").append(String.format("%02d", i)).append('\n');
+            if (i == 10) {
+                offset = csv.length();
+            }
+        }
+        Path directory = Paths.get(applicationProperties.getIngestion().getImportDirectory());
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(id + ".csv"), csv);
+        productionLaitImportJobRepository.create(id, "herd.csv", csv.length(), Instant.now());
+        productionLaitImportJobRepository.markRunning(id, Instant.now());
+        productionLaitIngestionService.saveImported(List.of(), id, new Checkpoint(offset, 11, 10, 0, null));
+
+        try {
+            productionLaitImportService.resumeInterrupted();
+
+            ProductionLaitImportJobDTO job = awaitFinished(ENTITY_API_URL + "/" + id);
+            assertThat(job.getStatus()).isEqualTo(ImportStatus.COMPLETED);
+            assertThat(job.getImportedRows()).isEqualTo(13);
+            assertThat(job.getLineNumber()).isEqualTo(14);
+            assertThat(findImported()).extracting(ProductionLait::getQuantite).containsExactlyInAnyOrder(11, 12, 13);
+            assertThat(directory.resolve(id + ".csv")).doesNotExist();
+        } finally {
+            deleteImported();
+        }
+    }
+
+    @Test
+    void importWithoutQuantiteColumnFails() throws Exception {
+        MockMultipartFile file = new MockMultipartFile(
+            "file",
+            "herd.csv",
+            "text/csv",
+            "id;dateproduction\n1;2450-01-01T00:00:00\n".getBytes()
+        );
+
+        String location = restProductionLaitImportMockMvc
+            .perform(multipart(ENTITY_API_URL).file(file).with(csrf()))
+            .andExpect(status().isAccepted())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+
+        ProductionLaitImportJobDTO job = awaitFinished(location);
+        assertThat(job.getStatus()).isEqualTo(ImportStatus.FAILED);
+        assertThat(job.getLastError()).contains("quantite");
+        restProductionLaitImportMockMvc
+            .perform(post(location + "/resume").with(csrf()))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.id").value(job.getId()));
+        assertThat(awaitFinished(location).getStatus()).isEqualTo(ImportStatus.FAILED);
+    }
+
+    @Test
+    void importEmptyFile() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "herd.csv", "text/csv", new byte[0]);
+
+        restProductionLaitImportMockMvc
+            .perform(multipart(ENTITY_API_URL).file(file).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.fileempty"));
+    }
+
+    @Test
+    void importTooLargeFile() throws Exception {
+        int maxBytes = (int) applicationProperties.getIngestion().getMaxImportSize().toBytes();
+        MockMultipartFile file = new MockMultipartFile("file", "herd.csv", "text/csv", new byte[maxBytes + 1]);
+        restProductionLaitImportMockMvc
+            .perform(multipart(ENTITY_API_URL).file(file).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.filetoolarge"));
+    }
+
+    @Test
+    void getNonExistingImport() throws Exception {
+        restProductionLaitImportMockMvc.perform(get(ENTITY_API_URL + "/{id}", UUID.randomUUID())).andExpect(status().isNotFound());
+        restProductionLaitImportMockMvc
+            .perform(post(ENTITY_API_URL + "/{id}/resume", UUID.randomUUID()).with(csrf()))
+            .andExpect(status().isNotFound());
+    }
+
+    private ProductionLaitImportJobDTO awaitFinished(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            ProductionLaitImportJobDTO job = objectMapper.readValue(
+                restProductionLaitImportMockMvc
+                    .perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString(),
+                ProductionLaitImportJobDTO.class
+            );
+            boolean finished = job.getStatus() == ImportStatus.COMPLETED || job.getStatus() == ImportStatus.FAILED;
+            if (finished && job.getFinishedDate() != null || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private List<ProductionLait> findImported() {
+        return productionLaitRepository
+            .findAllByDateproductionGreaterThanEqualAndDateproductionLessThan(DATE, DATE.plusSeconds(60), Pageable.unpaged())
+            .getContent();
+    }
+
+    private void deleteImported() throws Exception {
+        for (ProductionLait productionLait : findImported()) {
+            restProductionLaitImportMockMvc
+                .perform(delete("/api/production-laits/{id}", productionLait.getId()).with(csrf()))
+                .andExpect(status().isNoContent());
+        }
+    }
+}
@@ -1,28 +1,49 @@
 package sn.isi.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Random;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import sn.isi.IntegrationTest;
 import sn.isi.domain.ProductionLait;
 import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.service.ProtobufCodec;
+import sn.isi.web.lineprotocol.LineProtocolListener;
+import sn.isi.web.rest.errors.ErrorConstants;
 
 /**
  * Integration tests for the {@link ProductionLaitResource} REST controller.
@@ -50,9 +71,15 @@ class ProductionLaitResourceIT {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private MockMvc restProductionLaitMockMvc;
 
+    @Autowired
+    private LineProtocolListener lineProtocolListener;
+
     private ProductionLait productionLait;
 
     /**
@@ -104,6 +131,83 @@ class ProductionLaitResourceIT {
         assertThat(testProductionLait.getDateproduction()).isEqualTo(DEFAULT_DATEPRODUCTION);
     }
 
+    @Test
+    @Transactional
+    void createProductionLaitWithCompressedBody() throws Exception {
+        int databaseSizeBeforeCreate = productionLaitRepository.findAll().size();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(TestUtil.convertObjectToJsonBytes(productionLait));
+        }
+
+        restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(compressed.toByteArray())
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.quantite").value(DEFAULT_QUANTITE));
+        assertThat(productionLaitRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+
+        restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .header(HttpHeaders.CONTENT_ENCODING, "compress")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(compressed.toByteArray())
+            )
+            .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    @Transactional
+    void createProductionLaitWithTooLargeCompressedBody() throws Exception {
+        int databaseSizeBeforeCreate = productionLaitRepository.findAll().size();
+        // A JSON object padded past the maximum decompressed size of the test configuration
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(json)) {
+            out.write(("{\"quantite\":1" + " ".repeat(2 * 1024 * 1024) + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        // Messages with an ID, rejected one by one, each padded with an unknown field
+        byte[] padding = new byte[60 * 1024];
+        ByteArrayOutputStream protobuf = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(protobuf)) {
+            CodedOutputStream out = CodedOutputStream.newInstance(gzip);
+            for (int i = 0; i < 40; i++) {
+                out.writeUInt32NoTag(CodedOutputStream.computeInt64Size(1, 1L) + CodedOutputStream.computeByteArraySize(15, padding));
+                out.writeInt64(1, 1L);
+                out.writeByteArray(15, padding);
+            }
+            out.flush();
+        }
+
+        restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json.toByteArray())
+            )
+            .andExpect(status().isPayloadTooLarge())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_PAYLOAD_TOO_LARGE));
+        restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/batch")
+                    .with(csrf())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentType(ProtobufCodec.CONTENT_TYPE)
+                    .content(protobuf.toByteArray())
+            )
+            .andExpect(status().isPayloadTooLarge())
+            .andExpect(jsonPath("$.message").value(ErrorConstants.ERR_PAYLOAD_TOO_LARGE));
+        assertThat(productionLaitRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     void createProductionLaitWithExistingId() throws Exception {
@@ -149,6 +253,25 @@ class ProductionLaitResourceIT {
         assertThat(productionLaitList).hasSize(databaseSizeBeforeTest);
     }
 
+    @Test
+    @Transactional
+    void checkQuantiteIsNotNegative() throws Exception {
+        int databaseSizeBeforeTest = productionLaitRepository.findAll().size();
+        productionLait.setQuantite(-1);
+
+        restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(productionLait))
+            )
+            .andExpect(status().isBadRequest());
+
+        List<ProductionLait> productionLaitList = productionLaitRepository.findAll();
+        assertThat(productionLaitList).hasSize(databaseSizeBeforeTest);
+    }
+
     @Test
     @Transactional
     void checkDateproductionIsRequired() throws Exception {
@@ -187,6 +310,175 @@ class ProductionLaitResourceIT {
             .andExpect(jsonPath("$.[*].dateproduction").value(hasItem(DEFAULT_DATEPRODUCTION.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllProductionLaitsWithCursor() throws Exception {
+        // Initialize the database, with two productions at the same date to check the id tie-breaker
+        ProductionLait first = productionLaitRepository.saveAndFlush(
+            new ProductionLait().quantite(1).dateproduction(DEFAULT_DATEPRODUCTION)
+        );
+        ProductionLait second = productionLaitRepository.saveAndFlush(
+            new ProductionLait().quantite(2).dateproduction(DEFAULT_DATEPRODUCTION)
+        );
+        ProductionLait third = productionLaitRepository.saveAndFlush(
+            new ProductionLait().quantite(3).dateproduction(UPDATED_DATEPRODUCTION)
+        );
+
+        // Get the first page
+        String nextCursor = restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+        // Get the last page
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?size=2&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+
+        // Reject a forged cursor
+        restProductionLaitMockMvc.perform(get(ENTITY_API_URL + "?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitAggregatesByDayAcrossDaylightSavingTime() throws Exception {
+        // Initialize the database: Europe/Paris switches from UTC+1 to UTC+2 on 2021-03-28 at 01:00 UTC
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(1).dateproduction(Instant.parse("2021-03-27T22:30:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(2).dateproduction(Instant.parse("2021-03-27T23:30:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(3).dateproduction(Instant.parse("2021-03-28T21:30:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(4).dateproduction(Instant.parse("2021-03-28T22:30:00Z")));
+
+        // Get the daily totals in the farm's time zone
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/aggregate")
+                    .param("from", "2021-03-27T00:00:00Z")
+                    .param("to", "2021-03-30T00:00:00Z")
+                    .param("bucket", "day")
+                    .param("tz", "Europe/Paris")
+            )
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$.[0].bucketStart").value("2021-03-26T23:00:00Z"))
+            .andExpect(jsonPath("$.[0].sum").value(1))
+            .andExpect(jsonPath("$.[1].bucketStart").value("2021-03-27T23:00:00Z"))
+            .andExpect(jsonPath("$.[1].bucketEnd").value("2021-03-28T22:00:00Z"))
+            .andExpect(jsonPath("$.[1].count").value(2))
+            .andExpect(jsonPath("$.[1].sum").value(5))
+            .andExpect(jsonPath("$.[1].avg").value(2.5))
+            .andExpect(jsonPath("$.[1].min").value(2))
+            .andExpect(jsonPath("$.[1].max").value(3))
+            .andExpect(jsonPath("$.[2].bucketStart").value("2021-03-28T22:00:00Z"))
+            .andExpect(jsonPath("$.[2].sum").value(4));
+
+        // Get the monthly totals
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/aggregate")
+                    .param("from", "2021-03-27T00:00:00Z")
+                    .param("to", "2021-03-30T00:00:00Z")
+                    .param("bucket", "month")
+                    .param("tz", "Europe/Paris")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].bucketStart").value("2021-02-28T23:00:00Z"))
+            .andExpect(jsonPath("$.[0].count").value(4))
+            .andExpect(jsonPath("$.[0].sum").value(10));
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitAggregatesWithInvalidBucket() throws Exception {
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/aggregate")
+                    .param("from", "2021-03-27T00:00:00Z")
+                    .param("to", "2021-03-30T00:00:00Z")
+                    .param("bucket", "fortnight")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllProductionLaitsInDateRange() throws Exception {
+        // Initialize the database
+        productionLaitRepository.saveAndFlush(productionLait);
+
+        // Get the productionLaits of the range
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productionLait.getId().intValue())));
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productionLait.getId().intValue())));
+
+        // The end of the range is exclusive
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1969-12-31T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(productionLait.getId().intValue()))));
+
+        // An empty range is rejected
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-02T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllProductionLaitFields() throws Exception {
+        // Initialize the database
+        productionLaitRepository.saveAndFlush(productionLait);
+
+        // Only the requested fields are returned, in the requested order
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=quantite,id&from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z&sort=dateproduction,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productionLait.getId().intValue())))
+            .andExpect(jsonPath("$.[*].quantite").value(hasItem(DEFAULT_QUANTITE)))
+            .andExpect(jsonPath("$.[*].dateproduction").doesNotExist())
+            .andExpect(content().string(containsString("{\"quantite\":" + DEFAULT_QUANTITE + ",\"id\":" + productionLait.getId() + "}")));
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitsById() throws Exception {
+        // Initialize the database
+        productionLaitRepository.saveAndFlush(productionLait);
+        ProductionLait second = productionLaitRepository.saveAndFlush(createEntity(em).quantite(2));
+
+        // The existing productionLaits are returned once, in the order of the ids
+        String ids = second.getId() + "," + Long.MAX_VALUE + "," + productionLait.getId() + "," + second.getId();
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + ids))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.[0].quantite").value(2))
+            .andExpect(jsonPath("$.[1].id").value(productionLait.getId().intValue()));
+
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+        restProductionLaitMockMvc.perform(get(ENTITY_API_URL + "?ids=a")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getProductionLait() throws Exception {
@@ -203,6 +495,101 @@ class ProductionLaitResourceIT {
             .andExpect(jsonPath("$.dateproduction").value(DEFAULT_DATEPRODUCTION.toString()));
     }
 
+    @Test
+    void exportProductionLaitsAsCsv() throws Exception {
+        // The export reads from its own connection, so the rows must be committed
+        Instant date = Instant.parse("2200-01-01T08:00:00Z");
+        ProductionLait first = productionLaitRepository.saveAndFlush(new ProductionLait().quantite(4).dateproduction(date));
+        ProductionLait second = productionLaitRepository.saveAndFlush(
+            new ProductionLait().quantite(5).dateproduction(date.plusSeconds(60))
+        );
+        try {
+            MvcResult result = restProductionLaitMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=csv&from=2200-01-01T00:00:00Z&to=2200-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProductionLaitMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("production-laits.csv")))
+                .andExpect(
+                    content()
+                        .string(
+                            "id,quantite,dateproduction\n" +
+                            first.getId() +
+                            ",4,2200-01-01T08:00:00Z\n" +
+                            second.getId() +
+                            ",5,2200-01-01T08:01:00Z\n"
+                        )
+                );
+        } finally {
+            productionLaitRepository.deleteAll(List.of(first, second));
+        }
+    }
+
+    @Test
+    void exportProductionLaitsWithInvalidFormat() throws Exception {
+        restProductionLaitMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        productionLaitRepository.saveAndFlush(productionLait);
+        String entityTag = "\"" + productionLait.getVersion() + "\"";
+
+        // The productionLait is unchanged
+        restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL_ID, productionLait.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"-1\", " + entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        // The productionLait changed since the entity tag of the client
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, productionLait.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"" + (productionLait.getVersion() + 1) + "\"")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(jsonPath("$.id").value(productionLait.getId().intValue()));
+    }
+
+    @Test
+    void getAllProductionLaitsWithIfNoneMatch() throws Exception {
+        // The entity tag of a page changes with the committed writes, so the rows are committed
+        String url = ENTITY_API_URL + "?from=2650-01-01T00:00:00Z&to=2650-01-02T00:00:00Z";
+        String entityTag = restProductionLaitMockMvc
+            .perform(get(url))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+        assertThat(entityTag).isNotNull();
+
+        restProductionLaitMockMvc
+            .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        ProductionLait saved = productionLaitRepository.saveAndFlush(
+            new ProductionLait().quantite(7).dateproduction(Instant.parse("2650-01-01T08:00:00Z"))
+        );
+        try {
+            restProductionLaitMockMvc
+                .perform(get(url).header(HttpHeaders.IF_NONE_MATCH, entityTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(entityTag)))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(saved.getId().intValue())));
+        } finally {
+            productionLaitRepository.delete(saved);
+        }
+    }
+
     @Test
     @Transactional
     void getNonExistingProductionLait() throws Exception {
@@ -247,7 +634,7 @@ class ProductionLaitResourceIT {
         int databaseSizeBeforeUpdate = productionLaitRepository.findAll().size();
         productionLait.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restProductionLaitMockMvc
             .perform(
                 put(ENTITY_API_URL_ID, productionLait.getId())
@@ -255,13 +642,44 @@ class ProductionLaitResourceIT {
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(TestUtil.convertObjectToJsonBytes(productionLait))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the ProductionLait in the database
         List<ProductionLait> productionLaitList = productionLaitRepository.findAll();
         assertThat(productionLaitList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putProductionLaitWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        productionLaitRepository.saveAndFlush(productionLait);
+
+        int databaseSizeBeforeUpdate = productionLaitRepository.findAll().size();
+
+        // Update the productionLait, expecting a version it is not at
+        ProductionLait updatedProductionLait = productionLaitRepository.findById(productionLait.getId()).get();
+        em.detach(updatedProductionLait);
+        updatedProductionLait.quantite(UPDATED_QUANTITE).dateproduction(UPDATED_DATEPRODUCTION);
+
+        restProductionLaitMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedProductionLait.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (updatedProductionLait.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedProductionLait))
+            )
+            .andExpect(status().isConflict());
+
+        // Validate the ProductionLait in the database
+        List<ProductionLait> productionLaitList = productionLaitRepository.findAll();
+        assertThat(productionLaitList).hasSize(databaseSizeBeforeUpdate);
+        ProductionLait testProductionLait = productionLaitList.get(productionLaitList.size() - 1);
+        assertThat(testProductionLait.getQuantite()).isEqualTo(DEFAULT_QUANTITE);
+        assertThat(testProductionLait.getDateproduction()).isEqualTo(DEFAULT_DATEPRODUCTION);
+    }
+
     @Test
     @Transactional
     void putWithIdMismatchProductionLait() throws Exception {
@@ -372,7 +790,7 @@ class ProductionLaitResourceIT {
         int databaseSizeBeforeUpdate = productionLaitRepository.findAll().size();
         productionLait.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restProductionLaitMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, productionLait.getId())
@@ -380,7 +798,7 @@ class ProductionLaitResourceIT {
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(productionLait))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the ProductionLait in the database
         List<ProductionLait> productionLaitList = productionLaitRepository.findAll();
@@ -446,4 +864,596 @@ class ProductionLaitResourceIT {
         List<ProductionLait> productionLaitList = productionLaitRepository.findAll();
         assertThat(productionLaitList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void writesMaintainProductionLaitRollups() throws Exception {
+        long epochDay = LocalDate.of(2021, 4, 1).toEpochDay();
+        Long firstId = createAndGetId(new ProductionLait().quantite(5).dateproduction(Instant.parse("2021-04-01T10:00:00Z")));
+        Long secondId = createAndGetId(new ProductionLait().quantite(9).dateproduction(Instant.parse("2021-04-01T12:00:00Z")));
+        assertThat(getDailyRollup(epochDay)).containsExactly(2L, 14L, 5L, 9L);
+
+        // Lower the largest quantity
+        restProductionLaitMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, secondId)
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(new ProductionLait().id(secondId).quantite(7)))
+            )
+            .andExpect(status().isOk());
+        assertThat(getDailyRollup(epochDay)).containsExactly(2L, 12L, 5L, 7L);
+
+        // Remove the smallest quantity
+        restProductionLaitMockMvc.perform(delete(ENTITY_API_URL_ID, firstId).with(csrf())).andExpect(status().isNoContent());
+        assertThat(getDailyRollup(epochDay)).containsExactly(1L, 7L, 7L, 7L);
+
+        // Whole days of the farm's zone are read from the rollups
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/aggregate")
+                    .param("from", "2021-04-01T00:00:00Z")
+                    .param("to", "2021-04-02T00:00:00Z")
+                    .param("bucket", "day")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].count").value(1))
+            .andExpect(jsonPath("$.[0].sum").value(7));
+    }
+
+    @Test
+    void createProductionLaitBatch() throws Exception {
+        // The endpoint commits one transaction per chunk, so this test can't roll back and cleans up instead
+        Instant date = Instant.parse("2100-01-01T08:00:00Z");
+        long epochDay = LocalDate.of(2100, 1, 1).toEpochDay();
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 12; i++) {
+            body.append("{\"quantite\":").append(i + 1).append(",\"dateproduction\":\"").append(date).append("\"},");
+        }
+        body.append("{\"dateproduction\":\"").append(date).append("\"},");
+        body.append("{\"id\":1,\"quantite\":1,\"dateproduction\":\"").append(date).append("\"},");
+        body.append("{\"quantite\":\"many\",\"dateproduction\":\"").append(date).append("\"}]");
+
+        try {
+            restProductionLaitMockMvc
+                .perform(post(ENTITY_API_URL + "/batch").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(15))
+                .andExpect(jsonPath("$.[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.[11].status").value("CREATED"))
+                .andExpect(jsonPath("$.[11].id").isNumber())
+                .andExpect(jsonPath("$.[12].status").value("INVALID"))
+                .andExpect(jsonPath("$.[12].error").value(containsString("quantite")))
+                .andExpect(jsonPath("$.[13].status").value("INVALID"))
+                .andExpect(jsonPath("$.[14].status").value("INVALID"));
+
+            assertThat(findProductionLaitsAt(date)).hasSize(12);
+            assertThat(getDailyRollup(epochDay)).containsExactly(12L, 78L, 1L, 12L);
+        } finally {
+            productionLaitRepository.deleteAll(findProductionLaitsAt(date));
+            jdbcTemplate.update("delete from production_lait_daily_rollup where epoch_day = ?", epochDay);
+            jdbcTemplate.update("delete from production_lait_monthly_rollup where epoch_month = ?", (2100 - 1970) * 12);
+        }
+    }
+
+    @Test
+    void createAndExportProductionLaitsAsProtobuf() throws Exception {
+        // Not transactional: the batch commits one transaction per chunk, and the export reads from its own connection
+        Instant date = Instant.parse("2400-01-01T08:00:00Z");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CodedOutputStream out = CodedOutputStream.newInstance(body);
+        ProtobufCodec.writeDelimited(out, new Object[] { null, 4, date });
+        ProtobufCodec.writeDelimited(out, new Object[] { null, 5, date.plusMillis(500) });
+        ProtobufCodec.writeDelimited(out, new Object[] { 1L, 6, date });
+        // A quantite of 0 is not on the wire, as in proto3
+        ProtobufCodec.writeDelimited(out, new Object[] { 0L, 0, date });
+        out.flush();
+        // A truncated message
+        body.write(new byte[] { 10, 8 });
+
+        try {
+            restProductionLaitMockMvc
+                .perform(post(ENTITY_API_URL + "/batch").with(csrf()).contentType(ProtobufCodec.CONTENT_TYPE).content(body.toByteArray()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$.[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.[1].status").value("CREATED"))
+                .andExpect(jsonPath("$.[2].status").value("INVALID"))
+                .andExpect(jsonPath("$.[3].status").value("CREATED"))
+                .andExpect(jsonPath("$.[4].status").value("INVALID"));
+
+            MvcResult result = restProductionLaitMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=protobuf&from=2400-01-01T00:00:00Z&to=2400-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            byte[] exported = restProductionLaitMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProtobufCodec.CONTENT_TYPE))
+                .andReturn()
+                .getResponse()
+                .getContentAsByteArray();
+            CodedInputStream in = CodedInputStream.newInstance(exported);
+            Class<?>[] fieldTypes = { Long.class, Integer.class, Instant.class };
+            Object[] first = ProtobufCodec.readDelimited(in, fieldTypes);
+            Object[] zero = ProtobufCodec.readDelimited(in, fieldTypes);
+            Object[] second = ProtobufCodec.readDelimited(in, fieldTypes);
+            assertThat(first).containsExactly(findProductionLaitsAt(date).get(0).getId(), 4, date);
+            assertThat(zero[1]).isEqualTo(0);
+            assertThat(zero[2]).isEqualTo(date);
+            assertThat(second[1]).isEqualTo(5);
+            assertThat(second[2]).isEqualTo(date.plusMillis(500));
+            assertThat(ProtobufCodec.readDelimited(in, fieldTypes)).isNull();
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    void streamCommittedProductionLaits() throws Exception {
+        // Not transactional: the feed only reads committed productions
+        Instant date = Instant.parse("2600-01-01T08:00:00Z");
+        MvcResult result = restProductionLaitMockMvc
+            .perform(get(ENTITY_API_URL + "/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        try {
+            Long first = createAndGetId(new ProductionLait().quantite(21).dateproduction(date));
+            Long second = createAndGetId(new ProductionLait().quantite(22).dateproduction(date));
+
+            long deadline = System.currentTimeMillis() + 10000;
+            String events = result.getResponse().getContentAsString();
+            while (!events.contains("\"id\":" + second + ",") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                events = result.getResponse().getContentAsString();
+            }
+            assertThat(events).contains("event:productionLait\ndata:{\"id\":" + first + ",\"quantite\":21,");
+            assertThat(events).contains("event:productionLait\ndata:{\"id\":" + second + ",\"quantite\":22,");
+            assertThat(events.indexOf("\"id\":" + first + ",")).isLessThan(events.indexOf("\"id\":" + second + ","));
+        } finally {
+            result.getRequest().getAsyncContext().complete();
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    void streamProductionLaitsWithInvalidOverflowPolicy() throws Exception {
+        restProductionLaitMockMvc.perform(get(ENTITY_API_URL + "/stream?overflow=newest")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createProductionLaitBatchWithoutArray() throws Exception {
+        restProductionLaitMockMvc
+            .perform(post(ENTITY_API_URL + "/batch").with(csrf()).contentType(MediaType.APPLICATION_JSON).content("{\"quantite\":1}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitPercentiles() throws Exception {
+        // Whole days are read from the sketches maintained by the writes, the partial last day from the raw table
+        for (int quantite = 1; quantite <= 10; quantite++) {
+            Instant dateproduction = Instant.parse("2021-05-0" + (1 + quantite % 2) + "T10:00:00Z");
+            createAndGetId(new ProductionLait().quantite(quantite).dateproduction(dateproduction));
+        }
+        Long highestId = createAndGetId(new ProductionLait().quantite(100).dateproduction(Instant.parse("2021-05-03T06:00:00Z")));
+        createAndGetId(new ProductionLait().quantite(1000).dateproduction(Instant.parse("2021-05-03T18:00:00Z")));
+
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/percentiles")
+                    .param("from", "2021-05-01T00:00:00Z")
+                    .param("to", "2021-05-03T12:00:00Z")
+                    .param("q", "0.5", "1")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(11))
+            .andExpect(jsonPath("$.percentiles.[0].quantile").value(0.5))
+            .andExpect(jsonPath("$.percentiles.[0].value").value(6))
+            .andExpect(jsonPath("$.percentiles.[1].value").value(100));
+
+        // Deleting a production removes it from the sketch of its day
+        restProductionLaitMockMvc.perform(delete(ENTITY_API_URL_ID, highestId).with(csrf())).andExpect(status().isNoContent());
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/percentiles")
+                    .param("from", "2021-05-01T00:00:00Z")
+                    .param("to", "2021-05-03T00:00:00Z")
+                    .param("q", "1")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(10))
+            .andExpect(jsonPath("$.percentiles.[0].value").value(10));
+
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/percentiles")
+                    .param("from", "2021-05-01T00:00:00Z")
+                    .param("to", "2021-05-03T00:00:00Z")
+                    .param("q", "1.5")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getProductionLaitSeries() throws Exception {
+        // Initialize the database with a flat series and one peak
+        for (int hour = 0; hour < 10; hour++) {
+            productionLaitRepository.saveAndFlush(
+                new ProductionLait()
+                    .quantite(hour == 4 ? 50 : 10)
+                    .dateproduction(Instant.parse("2021-06-01T00:00:00Z").plusSeconds(hour * 3600))
+            );
+        }
+
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/series")
+                    .param("from", "2021-06-01T00:00:00Z")
+                    .param("to", "2021-06-02T00:00:00Z")
+                    .param("points", "3")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$.[0].dateproduction").value("2021-06-01T00:00:00Z"))
+            .andExpect(jsonPath("$.[1].quantite").value(50))
+            .andExpect(jsonPath("$.[2].dateproduction").value("2021-06-01T09:00:00Z"));
+
+        restProductionLaitMockMvc
+            .perform(
+                get(ENTITY_API_URL + "/series")
+                    .param("from", "2021-06-01T00:00:00Z")
+                    .param("to", "2021-06-02T00:00:00Z")
+                    .param("points", "2")
+            )
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createProductionLaitWriteBehind() throws Exception {
+        // The buffer is flushed by another thread, so this test can't roll back and cleans up instead
+        Instant date = Instant.parse("2200-01-01T08:00:00Z");
+        try {
+            MvcResult committed = restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .param("ack", "committed")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(1).dateproduction(date)))
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProductionLaitMockMvc
+                .perform(asyncDispatch(committed))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.quantite").value(1));
+
+            for (int quantite = 2; quantite <= 4; quantite++) {
+                MvcResult accepted = restProductionLaitMockMvc
+                    .perform(
+                        post(ENTITY_API_URL)
+                            .param("ack", "accepted")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(quantite).dateproduction(date)))
+                    )
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+                restProductionLaitMockMvc.perform(asyncDispatch(accepted)).andExpect(status().isAccepted());
+            }
+
+            // Accepted writes are committed within the flush interval
+            long deadline = System.currentTimeMillis() + 10000;
+            while (findProductionLaitsAt(date).size() < 4 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(findProductionLaitsAt(date)).extracting(ProductionLait::getQuantite).containsExactlyInAnyOrder(1, 2, 3, 4);
+            assertThat(getDailyRollup(LocalDate.of(2200, 1, 1).toEpochDay())).containsExactly(4L, 10L, 1L, 4L);
+
+            restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .param("ack", "eventually")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(5).dateproduction(date)))
+                )
+                .andExpect(status().isBadRequest());
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    void createProductionLaitJournaled() throws Exception {
+        // The journal is replayed by another thread, so this test can't roll back and cleans up instead
+        Instant date = Instant.parse("2250-01-01T08:00:00Z");
+        try {
+            for (int quantite = 1; quantite <= 3; quantite++) {
+                MvcResult journaled = restProductionLaitMockMvc
+                    .perform(
+                        post(ENTITY_API_URL)
+                            .param("ack", "journaled")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(quantite).dateproduction(date)))
+                    )
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+                restProductionLaitMockMvc.perform(asyncDispatch(journaled)).andExpect(status().isAccepted());
+            }
+
+            // Journaled writes are inserted by the next replay
+            long deadline = System.currentTimeMillis() + 10000;
+            while (findProductionLaitsAt(date).size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertThat(findProductionLaitsAt(date)).extracting(ProductionLait::getQuantite).containsExactlyInAnyOrder(1, 2, 3);
+            assertThat(getDailyRollup(LocalDate.of(2250, 1, 1).toEpochDay())).containsExactly(3L, 6L, 1L, 3L);
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    void createProductionLaitWithIdempotencyKey() throws Exception {
+        // Keys are reserved in their own transaction, so this test can't roll back and cleans up instead
+        Instant date = Instant.parse("2300-01-01T08:00:00Z");
+        String key = UUID.randomUUID().toString();
+        String deferredKey = UUID.randomUUID().toString();
+        try {
+            byte[] content = TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(7).dateproduction(date));
+            String location = restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content)
+                )
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.LOCATION);
+
+            // A retry gets the first response back, without creating another row
+            restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content)
+                )
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string(HttpHeaders.LOCATION, location))
+                .andExpect(jsonPath("$.id").value(Long.valueOf(location.substring(location.lastIndexOf('/') + 1))))
+                .andExpect(jsonPath("$.quantite").value(7));
+            assertThat(findProductionLaitsAt(date)).hasSize(1);
+
+            // Deferred creations are deduplicated too, once their batch is committed: until then, retries are in progress
+            MvcResult accepted = restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .param("ack", "accepted")
+                        .with(csrf())
+                        .header("Idempotency-Key", deferredKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProductionLaitMockMvc.perform(asyncDispatch(accepted)).andExpect(status().isAccepted());
+            MvcResult retry;
+            long deadline = System.currentTimeMillis() + 10000;
+            do {
+                retry =
+                    restProductionLaitMockMvc
+                        .perform(
+                            post(ENTITY_API_URL)
+                                .param("ack", "accepted")
+                                .with(csrf())
+                                .header("Idempotency-Key", deferredKey)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(content)
+                        )
+                        .andReturn();
+            } while (retry.getResponse().getStatus() == HttpStatus.CONFLICT.value() && System.currentTimeMillis() < deadline);
+            restProductionLaitMockMvc
+                .perform(asyncDispatch(retry))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+            assertThat(findProductionLaitsAt(date)).hasSize(2);
+
+            restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .header("Idempotency-Key", "k".repeat(256))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content)
+                )
+                .andExpect(status().isBadRequest());
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+            jdbcTemplate.update("delete from idempotency_key where idempotency_key in (?, ?)", key, deferredKey);
+        }
+    }
+
+    @Test
+    void createProductionLaitWithAbandonedIdempotencyKey() throws Exception {
+        // Keys are reserved in their own transaction, so this test can't roll back and cleans up instead
+        Instant date = Instant.parse("2300-01-02T08:00:00Z");
+        String key = UUID.randomUUID().toString();
+        try {
+            // Reserved by a request whose process died before it ended
+            jdbcTemplate.update(
+                "insert into idempotency_key (jhi_scope, idempotency_key, created_date) values (?, ?, ?)",
+                "microserviceproductionProductionLait",
+                key,
+                Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS))
+            );
+            byte[] content = TestUtil.convertObjectToJsonBytes(new ProductionLait().quantite(7).dateproduction(date));
+            restProductionLaitMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content)
+                )
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+            assertThat(findProductionLaitsAt(date)).hasSize(1);
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+            jdbcTemplate.update("delete from idempotency_key where idempotency_key = ?", key);
+        }
+    }
+
+    @Test
+    void createProductionLaitsWithLineProtocol() throws Exception {
+        // Not transactional: the readings are inserted by the write-behind buffer
+        Instant date = Instant.parse("2350-01-01T10:00:00Z");
+        try {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), lineProtocolListener.getLocalPort())) {
+                OutputStream out = socket.getOutputStream();
+                out.write(("AUTH parlour-1 secret\n" + date.toEpochMilli() + " 1\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                String lines = date.toEpochMilli() + " 2\r\nnot a reading\n" + date.plusMillis(1).toEpochMilli() + " 3\n";
+                out.write(lines.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+
+                long deadline = System.currentTimeMillis() + 10000;
+                while (findProductionLaitsAt(date).size() < 3 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertThat(findProductionLaitsAt(date)).extracting(ProductionLait::getQuantite).containsExactlyInAnyOrder(1, 2, 3);
+                assertThat(lineProtocolListener.getConnections())
+                    .anySatisfy(
+                        connection -> {
+                            assertThat(connection.getDevice()).isEqualTo("parlour-1");
+                            assertThat(connection.getReadings()).isEqualTo(3);
+                            assertThat(connection.getErrors()).isEqualTo(1);
+                        }
+                    );
+            }
+
+            // A wrong key closes the connection without inserting anything
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), lineProtocolListener.getLocalPort())) {
+                socket.setSoTimeout(10000);
+                socket
+                    .getOutputStream()
+                    .write(("AUTH parlour-1 guess\n" + date.toEpochMilli() + " 4\n").getBytes(StandardCharsets.US_ASCII));
+                assertThat(socket.getInputStream().read()).isEqualTo(-1);
+            }
+            assertThat(findProductionLaitsAt(date)).hasSize(3);
+        } finally {
+            for (ProductionLait productionLait : findProductionLaitsAt(date)) {
+                restProductionLaitMockMvc
+                    .perform(delete(ENTITY_API_URL_ID, productionLait.getId()).with(csrf()))
+                    .andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    @Test
+    void getProductionLaitAnalytics() throws Exception {
+        // Not transactional: the analytics are streamed from another thread, which only sees committed productions
+        List<Long> ids = List.of(
+            createAndGetId(new ProductionLait().quantite(5).dateproduction(Instant.parse("2149-01-03T10:00:00Z"))),
+            createAndGetId(new ProductionLait().quantite(10).dateproduction(Instant.parse("2150-01-01T10:00:00Z"))),
+            createAndGetId(new ProductionLait().quantite(20).dateproduction(Instant.parse("2150-01-02T10:00:00Z"))),
+            createAndGetId(new ProductionLait().quantite(30).dateproduction(Instant.parse("2150-01-10T10:00:00Z")))
+        );
+        try {
+            MvcResult result = restProductionLaitMockMvc
+                .perform(get(ENTITY_API_URL + "/analytics").param("from", "2150-01-01").param("to", "2150-02-01"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProductionLaitMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$.[0].day").value("2150-01-01"))
+                .andExpect(jsonPath("$.[0].runningTotal").value(10))
+                .andExpect(jsonPath("$.[0].previousYearTotal").isEmpty())
+                .andExpect(jsonPath("$.[1].runningTotal").value(30))
+                .andExpect(jsonPath("$.[1].movingAverage7").value(30 / 7.0))
+                .andExpect(jsonPath("$.[1].previousYearTotal").value(5))
+                .andExpect(jsonPath("$.[1].yearOverYearDelta").value(15))
+                .andExpect(jsonPath("$.[2].day").value("2150-01-10"))
+                .andExpect(jsonPath("$.[2].total").value(30))
+                .andExpect(jsonPath("$.[2].runningTotal").value(60))
+                .andExpect(jsonPath("$.[2].movingAverage30").value(2.0));
+
+            restProductionLaitMockMvc
+                .perform(get(ENTITY_API_URL + "/analytics").param("from", "2150-01-01").param("to", "2150-01-01"))
+                .andExpect(status().isBadRequest());
+        } finally {
+            for (Long id : ids) {
+                restProductionLaitMockMvc.perform(delete(ENTITY_API_URL_ID, id).with(csrf())).andExpect(status().isNoContent());
+            }
+        }
+    }
+
+    private Long createAndGetId(ProductionLait newProductionLait) throws Exception {
+        String location = restProductionLaitMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(newProductionLait))
+            )
+            .andExpect(status().isCreated())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LOCATION);
+        return Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+    }
+
+    private List<ProductionLait> findProductionLaitsAt(Instant date) {
+        return productionLaitRepository
+            .findAllByDateproductionGreaterThanEqualAndDateproductionLessThan(date, date.plusSeconds(1), Pageable.unpaged())
+            .getContent();
+    }
+
+    private List<Long> getDailyRollup(long epochDay) {
+        return jdbcTemplate.queryForObject(
+            "select sum(row_count), sum(total), min(min_quantite), max(max_quantite) from production_lait_daily_rollup where epoch_day = ?",
+            (rs, rowNum) -> List.of(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+            epochDay
+        );
+    }
 }
@@ -0,0 +1,111 @@
+package sn.isi.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+import sn.isi.IntegrationTest;
+import sn.isi.domain.ProductionLait;
+import sn.isi.repository.ProductionLaitRepository;
+import sn.isi.security.AuthoritiesConstants;
+
+/**
+ * Integration tests for the {@link ProductionLaitRollupResource} REST controller.
+ */
+@AutoConfigureMockMvc
+@WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+@IntegrationTest
+class ProductionLaitRollupResourceIT {
+
+    private static final String REBUILD_API_URL = "/api/admin/production-lait-rollups/rebuild";
+    private static final String AGGREGATE_API_URL = "/api/production-laits/aggregate";
+    private static final String PERCENTILES_API_URL = "/api/production-laits/percentiles";
+
+    @Autowired
+    private ProductionLaitRepository productionLaitRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc restProductionLaitRollupMockMvc;
+
+    @Test
+    @Transactional
+    void rebuildProductionLaitRollups() throws Exception {
+        // Initialize the database, without going through the rollups
+        jdbcTemplate.update("update production_lait_rollup_state set built = false");
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(3).dateproduction(Instant.parse("2021-05-01T08:00:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(4).dateproduction(Instant.parse("2021-05-01T18:00:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(6).dateproduction(Instant.parse("2021-05-02T08:00:00Z")));
+
+        restProductionLaitRollupMockMvc.perform(post(REBUILD_API_URL).with(csrf())).andExpect(status().isNoContent());
+
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select sum(total) from production_lait_daily_rollup where epoch_day = ?",
+                Long.class,
+                LocalDate.of(2021, 5, 1).toEpochDay()
+            )
+        )
+            .isEqualTo(7L);
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select sum(row_count) from production_lait_monthly_rollup where epoch_month = ?",
+                Long.class,
+                (2021 - 1970) * 12 + 4
+            )
+        )
+            .isEqualTo(3L);
+        assertThat(
+            jdbcTemplate.queryForObject(
+                "select count(*) from production_lait_daily_sketch where epoch_day = ?",
+                Long.class,
+                LocalDate.of(2021, 5, 2).toEpochDay()
+            )
+        )
+            .isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("select built from production_lait_rollup_state", Boolean.class)).isTrue();
+    }
+
+    @Test
+    @Transactional
+    void aggregateProductionLaitsBeforeRollupsAreBuilt() throws Exception {
+        // Initialize the database, without going through the rollups
+        jdbcTemplate.update("update production_lait_rollup_state set built = false");
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(3).dateproduction(Instant.parse("2021-05-01T08:00:00Z")));
+        productionLaitRepository.saveAndFlush(new ProductionLait().quantite(4).dateproduction(Instant.parse("2021-05-02T08:00:00Z")));
+
+        // Whole days are read from the raw table
+        restProductionLaitRollupMockMvc
+            .perform(
+                get(AGGREGATE_API_URL).param("from", "2021-05-01T00:00:00Z").param("to", "2021-05-03T00:00:00Z").param("bucket", "day")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].sum").value(3))
+            .andExpect(jsonPath("$.[1].sum").value(4));
+        restProductionLaitRollupMockMvc
+            .perform(get(PERCENTILES_API_URL).param("from", "2021-05-01T00:00:00Z").param("to", "2021-05-03T00:00:00Z").param("q", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.count").value(2))
+            .andExpect(jsonPath("$.percentiles.[0].value").value(4));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser
+    void rebuildProductionLaitRollupsRequiresAdmin() throws Exception {
+        restProductionLaitRollupMockMvc.perform(post(REBUILD_API_URL).with(csrf())).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,179 @@
+package sn.isi.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import sn.isi.IntegrationTest;
+import sn.isi.domain.FicheMedical;
+import sn.isi.domain.ProductionLait;
+import sn.isi.domain.Traitement;
+import sn.isi.repository.FicheMedicalRepository;
+import sn.isi.repository.SyncRepository;
+import sn.isi.repository.TraitementRepository;
+import sn.isi.service.dto.SyncDeletionDTO;
+import sn.isi.service.dto.SyncUploadDTO;
+
+/**
+ * Integration tests for the {@link SyncResource} REST controller.
+ * <p>
+ * Not transactional: the changes are read from their own connections, so the tests commit and clean up instead.
+ */
+@AutoConfigureMockMvc
+@WithMockUser
+@IntegrationTest
+class SyncResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/sync";
+
+    private static final Instant DATE = Instant.parse("2500-01-01T00:00:00Z");
+
+    @Autowired
+    private FicheMedicalRepository ficheMedicalRepository;
+
+    @Autowired
+    private TraitementRepository traitementRepository;
+
+    @Autowired
+    private SyncRepository syncRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc restSyncMockMvc;
+
+    @Test
+    void uploadAndDownloadChanges() throws Exception {
+        long initialVersion = syncRepository.findCommittedVersion();
+        SyncUploadDTO upload = new SyncUploadDTO();
+        upload.getFicheMedicals().add(new FicheMedical().observation("offline").dateconsultation(DATE));
+        upload.getTraitements().add(new Traitement().traitement("offline").datetraitement(DATE));
+        upload.getProductionLaits().add(new ProductionLait().quantite(12).dateproduction(DATE));
+        upload.getFicheMedicals().add(new FicheMedical().dateconsultation(DATE));
+
+        List<Long> productionLaitIds = new ArrayList<>();
+        Long ficheMedicalId = null;
+        Long traitementId = null;
+        try {
+            JsonNode results = upload(upload);
+            assertThat(results).hasSize(4);
+            assertThat(results.get(0).get("status").asText()).isEqualTo("CREATED");
+            assertThat(results.get(1).get("status").asText()).isEqualTo("INVALID");
+            assertThat(results.get(1).get("error").asText()).isEqualTo("observation: must not be null");
+            assertThat(results.get(2).get("entity").asText()).isEqualTo("traitement");
+            assertThat(results.get(2).get("status").asText()).isEqualTo("CREATED");
+            assertThat(results.get(3).get("entity").asText()).isEqualTo("productionLait");
+            assertThat(results.get(3).get("status").asText()).isEqualTo("CREATED");
+            ficheMedicalId = results.get(0).get("id").asLong();
+            traitementId = results.get(2).get("id").asLong();
+            long productionLaitId = results.get(3).get("id").asLong();
+            productionLaitIds.add(productionLaitId);
+            // One version for the whole upload
+            long uploadVersion = results.get(0).get("syncVersion").asLong();
+            assertThat(uploadVersion).isGreaterThan(initialVersion);
+            assertThat(results.get(3).get("syncVersion").asLong()).isEqualTo(uploadVersion);
+
+            JsonNode changes = getChanges(initialVersion);
+            assertThat(changes.get("version").asLong()).isGreaterThanOrEqualTo(uploadVersion);
+            assertThat(changes.get("ficheMedicals").findValuesAsText("observation")).contains("offline");
+            assertThat(changes.get("traitements").findValuesAsText("traitement")).contains("offline");
+            assertThat(changes.get("productionLaits").findValuesAsText("id")).contains(String.valueOf(productionLaitId));
+
+            // Nothing changed since the last version
+            JsonNode unchanged = getChanges(changes.get("version").asLong());
+            assertThat(unchanged.get("version")).isEqualTo(changes.get("version"));
+            assertThat(unchanged.get("productionLaits")).isEmpty();
+            assertThat(unchanged.get("deleted").get("ficheMedicals")).isEmpty();
+
+            // An update from the downloaded version, then one from a stale version
+            SyncUploadDTO update = new SyncUploadDTO();
+            ProductionLait updated = new ProductionLait().id(productionLaitId).quantite(13).dateproduction(DATE);
+            updated.setSyncVersion(uploadVersion);
+            update.getProductionLaits().add(updated);
+            JsonNode updateResults = upload(update);
+            assertThat(updateResults.get(0).get("status").asText()).isEqualTo("UPDATED");
+            assertThat(updateResults.get(0).get("syncVersion").asLong()).isGreaterThan(uploadVersion);
+
+            updated.setQuantite(14);
+            JsonNode conflictResults = upload(update);
+            assertThat(conflictResults.get(0).get("status").asText()).isEqualTo("CONFLICT");
+            assertThat(conflictResults.get(0).get("current").get("quantite").asInt()).isEqualTo(13);
+
+            // Deletions, offline and online
+            SyncUploadDTO deletion = new SyncUploadDTO();
+            deletion.getDeleted().add(new SyncDeletionDTO("ficheMedical", ficheMedicalId, uploadVersion));
+            deletion.getDeleted().add(new SyncDeletionDTO("vache", 1L, null));
+            JsonNode deletionResults = upload(deletion);
+            assertThat(deletionResults.get(0).get("status").asText()).isEqualTo("DELETED");
+            assertThat(deletionResults.get(1).get("status").asText()).isEqualTo("INVALID");
+            restSyncMockMvc.perform(delete("/api/traitements/{id}", traitementId).with(csrf())).andExpect(status().isNoContent());
+
+            JsonNode deleted = getChanges(changes.get("version").asLong());
+            assertThat(deleted.get("ficheMedicals")).isEmpty();
+            assertThat(deleted.get("productionLaits").findValuesAsText("quantite")).containsExactly("13");
+            assertThat(deleted.get("deleted").get("ficheMedicals").get(0).asLong()).isEqualTo(ficheMedicalId);
+            assertThat(deleted.get("deleted").get("traitements").get(0).asLong()).isEqualTo(traitementId);
+
+            // Deleting again is not an error
+            assertThat(upload(deletion).get(0).get("status").asText()).isEqualTo("DELETED");
+        } finally {
+            for (Long id : productionLaitIds) {
+                restSyncMockMvc.perform(delete("/api/production-laits/{id}", id).with(csrf())).andExpect(status().isNoContent());
+            }
+            if (ficheMedicalId != null && ficheMedicalRepository.existsById(ficheMedicalId)) {
+                ficheMedicalRepository.deleteById(ficheMedicalId);
+            }
+            if (traitementId != null && traitementRepository.existsById(traitementId)) {
+                traitementRepository.deleteById(traitementId);
+            }
+        }
+    }
+
+    @Test
+    void getChangesWithNegativeVersion() throws Exception {
+        restSyncMockMvc.perform(get(ENTITY_API_URL + "?since=-1")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode upload(SyncUploadDTO upload) throws Exception {
+        return objectMapper.readTree(
+            restSyncMockMvc
+                .perform(
+                    post(ENTITY_API_URL)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(TestUtil.convertObjectToJsonBytes(upload))
+                )
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+        );
+    }
+
+    private JsonNode getChanges(long since) throws Exception {
+        MvcResult result = restSyncMockMvc.perform(get(ENTITY_API_URL + "?since=" + since)).andExpect(request().asyncStarted()).andReturn();
+        return objectMapper.readTree(
+            restSyncMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString()
+        );
+    }
+}
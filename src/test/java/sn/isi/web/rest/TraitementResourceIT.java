@@ -2,6 +2,7 @@ package sn.isi.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -16,9 +17,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import sn.isi.IntegrationTest;
 import sn.isi.domain.Traitement;
@@ -187,6 +190,73 @@ class TraitementResourceIT {
             .andExpect(jsonPath("$.[*].datetraitement").value(hasItem(DEFAULT_DATETRAITEMENT.toString())));
     }
 
+    @Test
+    @Transactional
+    void getAllTraitementsInDateRange() throws Exception {
+        // Initialize the database
+        traitementRepository.saveAndFlush(traitement);
+
+        // Get the traitements of the range
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(traitement.getId().intValue())));
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?cursor=&from=1970-01-01T00:00:00Z&to=1970-01-02T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(traitement.getId().intValue())));
+
+        // The end of the range is exclusive
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1969-12-31T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(traitement.getId().intValue()))));
+
+        // An empty range is rejected
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?from=1970-01-02T00:00:00Z&to=1970-01-01T00:00:00Z"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllTraitementFields() throws Exception {
+        // Initialize the database
+        traitementRepository.saveAndFlush(traitement);
+
+        // Only the requested fields are returned
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=id,datetraitement&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(traitement.getId().intValue())))
+            .andExpect(jsonPath("$.[*].datetraitement").value(hasItem(DEFAULT_DATETRAITEMENT.toString())))
+            .andExpect(jsonPath("$.[*].traitement").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getTraitementsById() throws Exception {
+        // Initialize the database
+        traitementRepository.saveAndFlush(traitement);
+        Traitement second = traitementRepository.saveAndFlush(createEntity(em).traitement("second"));
+
+        // The existing traitements are returned once, in the order of the ids
+        String ids = second.getId() + "," + Long.MAX_VALUE + "," + traitement.getId() + "," + second.getId();
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + ids))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(second.getId().intValue()))
+            .andExpect(jsonPath("$.[0].traitement").value("second"))
+            .andExpect(jsonPath("$.[1].id").value(traitement.getId().intValue()));
+
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL + "?ids=" + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+        restTraitementMockMvc.perform(get(ENTITY_API_URL + "?ids=a")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getTraitement() throws Exception {
@@ -203,6 +273,55 @@ class TraitementResourceIT {
             .andExpect(jsonPath("$.datetraitement").value(DEFAULT_DATETRAITEMENT.toString()));
     }
 
+    @Test
+    void exportTraitementsAsCsv() throws Exception {
+        // The export reads from its own connection, so the rows must be committed
+        Instant date = Instant.parse("2200-01-01T08:00:00Z");
+        Traitement traitement = traitementRepository.saveAndFlush(new Traitement().traitement("rest, \"then\" water").datetraitement(date));
+        try {
+            MvcResult result = restTraitementMockMvc
+                .perform(get(ENTITY_API_URL + "/export?from=2200-01-01T00:00:00Z&to=2200-01-02T00:00:00Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restTraitementMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(
+                    content()
+                        .string(
+                            "id,traitement,datetraitement\n" + traitement.getId() + ",\"rest, \"\"then\"\" water\",2200-01-01T08:00:00Z\n"
+                        )
+                );
+        } finally {
+            traitementRepository.delete(traitement);
+        }
+    }
+
+    @Test
+    @Transactional
+    void getTraitementWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        traitementRepository.saveAndFlush(traitement);
+        String entityTag = "\"" + traitement.getVersion() + "\"";
+
+        // The traitement is unchanged
+        restTraitementMockMvc
+            .perform(get(ENTITY_API_URL_ID, traitement.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"-1\", " + entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        // The traitement changed since the entity tag of the client
+        restTraitementMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, traitement.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"" + (traitement.getVersion() + 1) + "\"")
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(jsonPath("$.id").value(traitement.getId().intValue()));
+    }
+
     @Test
     @Transactional
     void getNonExistingTraitement() throws Exception {
@@ -247,7 +366,7 @@ class TraitementResourceIT {
         int databaseSizeBeforeUpdate = traitementRepository.findAll().size();
         traitement.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restTraitementMockMvc
             .perform(
                 put(ENTITY_API_URL_ID, traitement.getId())
@@ -255,11 +374,42 @@ class TraitementResourceIT {
                     .contentType(MediaType.APPLICATION_JSON)
                     .content(TestUtil.convertObjectToJsonBytes(traitement))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
+
+        // Validate the Traitement in the database
+        List<Traitement> traitementList = traitementRepository.findAll();
+        assertThat(traitementList).hasSize(databaseSizeBeforeUpdate);
+    }
+
+    @Test
+    @Transactional
+    void putTraitementWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        traitementRepository.saveAndFlush(traitement);
+
+        int databaseSizeBeforeUpdate = traitementRepository.findAll().size();
+
+        // Update the traitement, expecting a version it is not at
+        Traitement updatedTraitement = traitementRepository.findById(traitement.getId()).get();
+        em.detach(updatedTraitement);
+        updatedTraitement.traitement(UPDATED_TRAITEMENT).datetraitement(UPDATED_DATETRAITEMENT);
+
+        restTraitementMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTraitement.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (updatedTraitement.getVersion() + 1) + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTraitement))
+            )
+            .andExpect(status().isConflict());
 
         // Validate the Traitement in the database
         List<Traitement> traitementList = traitementRepository.findAll();
         assertThat(traitementList).hasSize(databaseSizeBeforeUpdate);
+        Traitement testTraitement = traitementList.get(traitementList.size() - 1);
+        assertThat(testTraitement.getTraitement()).isEqualTo(DEFAULT_TRAITEMENT);
+        assertThat(testTraitement.getDatetraitement()).isEqualTo(DEFAULT_DATETRAITEMENT);
     }
 
     @Test
@@ -372,7 +522,7 @@ class TraitementResourceIT {
         int databaseSizeBeforeUpdate = traitementRepository.findAll().size();
         traitement.setId(count.incrementAndGet());
 
-        // If the entity doesn't have an ID, it will throw BadRequestAlertException
+        // The entity doesn't exist
         restTraitementMockMvc
             .perform(
                 patch(ENTITY_API_URL_ID, traitement.getId())
@@ -380,7 +530,7 @@ class TraitementResourceIT {
                     .contentType("application/merge-patch+json")
                     .content(TestUtil.convertObjectToJsonBytes(traitement))
             )
-            .andExpect(status().isBadRequest());
+            .andExpect(status().isNotFound());
 
         // Validate the Traitement in the database
         List<Traitement> traitementList = traitementRepository.findAll();